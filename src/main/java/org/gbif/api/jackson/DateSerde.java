@@ -36,11 +36,7 @@ import com.fasterxml.jackson.databind.deser.std.DateDeserializers;
  */
 public class DateSerde {
 
-  private static final SimpleDateFormat NO_TIMEZONE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-
-  static {
-    NO_TIMEZONE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
-  }
+  private static final String NO_TIMEZONE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
 
   /**
    * Jackson {@link JsonSerializer} for {@link Date}.
@@ -51,7 +47,15 @@ public class DateSerde {
     public void serialize(Date value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
       // Empty fields aren't included in the JSON.
       if (value != null) {
-        jgen.writeString(NO_TIMEZONE_FORMAT.format(value));
+        char[] buf = new char[IsoDateTimeCodec.DATE_TIME_LENGTH];
+        if (IsoDateTimeCodec.writeUtcDateTime(value.getTime(), buf, 0) > 0) {
+          jgen.writeString(buf, 0, buf.length);
+        } else {
+          // Julian calendar and years past 9999, SimpleDateFormat isn't thread-safe so it can't be shared
+          SimpleDateFormat format = new SimpleDateFormat(NO_TIMEZONE_PATTERN);
+          format.setTimeZone(TimeZone.getTimeZone("UTC"));
+          jgen.writeString(format.format(value));
+        }
       }
     }
   }
@@ -64,9 +68,13 @@ public class DateSerde {
     @Override
     public Date deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
       if (jp.getCurrentToken() == JsonToken.VALUE_STRING) {
-        String text = jp.getText();
-        if (text.length() == 19) {
-          return Date.from(Instant.parse(text + "Z"));
+        if (jp.getTextLength() == IsoDateTimeCodec.DATE_TIME_LENGTH) {
+          long epochSecond =
+            IsoDateTimeCodec.parseUtcDateTime(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+          if (epochSecond != IsoDateTimeCodec.NOT_PARSED) {
+            return new Date(epochSecond * 1000);
+          }
+          return Date.from(Instant.parse(jp.getText() + "Z"));
         } else {
           return super.deserialize(jp, ctxt);
         }
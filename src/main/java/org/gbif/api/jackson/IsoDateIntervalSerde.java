@@ -14,9 +14,13 @@
 package org.gbif.api.jackson;
 
 import org.gbif.api.util.IsoDateInterval;
+import org.gbif.api.util.IsoDateParsingUtils;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -41,9 +45,33 @@ public class IsoDateIntervalSerde {
     public void serialize(IsoDateInterval value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
       // Empty fields aren't included in the JSON.
       if (value != null) {
+        Temporal from = value.getFrom();
+        Temporal to = value.getTo();
+        if (from != null) {
+          // local dates and date-times are written without going through a String, the same way as toString()
+          char[] buf = new char[2 * IsoDateTimeCodec.MAX_LENGTH + 1];
+          int length = write(from, buf, 0);
+          if (length > 0 && to != null && !from.equals(to)) {
+            buf[length] = '/';
+            length = write(to, buf, length + 1);
+          }
+          if (length > 0) {
+            jgen.writeString(buf, 0, length);
+            return;
+          }
+        }
         jgen.writeString(value.toString());
       }
     }
+
+    private static int write(Temporal value, char[] buf, int off) {
+      if (value instanceof LocalDateTime) {
+        return IsoDateTimeCodec.writeLocalDateTime((LocalDateTime) value, buf, off);
+      } else if (value instanceof LocalDate) {
+        return IsoDateTimeCodec.writeLocalDate((LocalDate) value, buf, off);
+      }
+      return -1;
+    }
   }
 
   /**
@@ -54,10 +82,20 @@ public class IsoDateIntervalSerde {
     @Override
     public IsoDateInterval deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
       if (jp.getCurrentToken() == JsonToken.VALUE_STRING) {
-        String text = jp.getText();
+        char[] buf = jp.getTextCharacters();
+        int off = jp.getTextOffset();
+        int len = jp.getTextLength();
 
         try {
-          return IsoDateInterval.fromString(text);
+          int slash = indexOf('/', buf, off, len);
+          if (slash < 0) {
+            return new IsoDateInterval(parseTemporal(buf, off, len));
+          } else if (slash + 1 < off + len) {
+            return new IsoDateInterval(
+              parseTemporal(buf, off, slash - off), parseTemporal(buf, slash + 1, off + len - slash - 1));
+          }
+          // reported by fromString
+          return IsoDateInterval.fromString(jp.getText());
         } catch (ParseException e) {
           throw JsonMappingException.from(jp, "Unable to parse date interval string");
         }
@@ -65,5 +103,31 @@ public class IsoDateIntervalSerde {
       }
       throw JsonMappingException.from(jp, "Expected String");
     }
+
+    /**
+     * Parses the local dates and date-times with {@link IsoDateTimeCodec}, falling back to
+     * {@link IsoDateParsingUtils#parseTemporal(String)} for everything else.
+     */
+    private static Temporal parseTemporal(char[] buf, int off, int len) {
+      if (len > 0 && buf[off] != '0') {
+        // yyyy is the year-of-era, year 0 isn't valid
+        Temporal value = len == 10
+          ? IsoDateTimeCodec.parseLocalDate(buf, off, len)
+          : IsoDateTimeCodec.parseLocalDateTime(buf, off, len);
+        if (value != null) {
+          return value;
+        }
+      }
+      return IsoDateParsingUtils.parseTemporal(new String(buf, off, len));
+    }
+
+    private static int indexOf(char c, char[] buf, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        if (buf[i] == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
   }
 }
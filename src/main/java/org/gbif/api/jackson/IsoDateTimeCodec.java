@@ -0,0 +1,369 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.jackson;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Stateless, thread-safe reader and writer of the fixed-width ISO 8601 forms used by the date serdes
+ * ({@code yyyy-MM-dd}, {@code yyyy-MM-dd'T'HH:mm:ss} and variations), working directly on char arrays.
+ * <p>
+ * Only the common cases are handled: 4 digit years, valid calendar dates and times. Writers return
+ * {@code -1} and readers return {@code null} or {@link #NOT_PARSED} for anything else, so the serdes
+ * can fall back to the {@code java.time} formatters and keep their exact behaviour.
+ */
+final class IsoDateTimeCodec {
+
+  /** Returned by {@link #parseUtcDateTime(char[], int, int)} when the text isn't handled. */
+  static final long NOT_PARSED = Long.MIN_VALUE;
+
+  /** Length of {@code yyyy-MM-dd'T'HH:mm:ss}. */
+  static final int DATE_TIME_LENGTH = 19;
+
+  /** Longest text written, a local date-time with nanoseconds and an offset. */
+  static final int MAX_LENGTH = 35;
+
+  private static final int DATE_LENGTH = 10;
+  private static final int MINUTES_LENGTH = 16;
+
+  // 1582-10-15T00:00:00Z, before it java.util dates use the Julian calendar
+  private static final long GREGORIAN_CUTOVER_MILLIS = -12_219_292_800_000L;
+  // 10000-01-01T00:00:00Z
+  private static final long MAX_MILLIS = 253_402_300_800_000L;
+
+  private static final int SECONDS_PER_DAY = 86_400;
+  private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+  private IsoDateTimeCodec() {
+    // NOP
+  }
+
+  /**
+   * Writes the UTC date-time of an instant as {@code yyyy-MM-dd'T'HH:mm:ss}, as a
+   * {@link java.text.SimpleDateFormat} with that pattern does.
+   *
+   * @return the offset after the text or -1 if the instant is before the Gregorian calendar or after year 9999
+   */
+  static int writeUtcDateTime(long epochMillis, char[] buf, int off) {
+    if (epochMillis < GREGORIAN_CUTOVER_MILLIS || epochMillis >= MAX_MILLIS) {
+      return -1;
+    }
+    long epochSecond = Math.floorDiv(epochMillis, 1000L);
+    long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+    off = writeEpochDay(epochDay, buf, off);
+    buf[off++] = 'T';
+    return writeTime(secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, buf, off);
+  }
+
+  /**
+   * Reads {@code yyyy-MM-dd'T'HH:mm:ss} as a UTC date-time.
+   *
+   * @return the epoch second or {@link #NOT_PARSED}
+   */
+  static long parseUtcDateTime(char[] buf, int off, int len) {
+    if (len != DATE_TIME_LENGTH || buf[off + 10] != 'T') {
+      return NOT_PARSED;
+    }
+    long epochDay = parseEpochDay(buf, off);
+    int secondOfDay = parseSecondOfDay(buf, off + 11);
+    if (epochDay == NOT_PARSED || secondOfDay < 0) {
+      return NOT_PARSED;
+    }
+    return epochDay * SECONDS_PER_DAY + secondOfDay;
+  }
+
+  /**
+   * Writes a date-time exactly as {@link LocalDateTime#toString()} does.
+   *
+   * @return the offset after the text or -1 if the year has more than 4 digits or is negative
+   */
+  static int writeLocalDateTime(LocalDateTime value, char[] buf, int off) {
+    off = writeLocalDate(value.toLocalDate(), buf, off);
+    if (off < 0) {
+      return -1;
+    }
+    buf[off++] = 'T';
+    off = write2(value.getHour(), buf, off);
+    buf[off++] = ':';
+    off = write2(value.getMinute(), buf, off);
+
+    int second = value.getSecond();
+    int nano = value.getNano();
+    if (second > 0 || nano > 0) {
+      buf[off++] = ':';
+      off = write2(second, buf, off);
+      if (nano > 0) {
+        buf[off++] = '.';
+        if (nano % 1_000_000 == 0) {
+          off = writeDigits(nano / 1_000_000, 3, buf, off);
+        } else if (nano % 1000 == 0) {
+          off = writeDigits(nano / 1000, 6, buf, off);
+        } else {
+          off = writeDigits(nano, 9, buf, off);
+        }
+      }
+    }
+    return off;
+  }
+
+  /**
+   * Reads {@code yyyy-MM-dd'T'HH:mm} and {@code yyyy-MM-dd'T'HH:mm:ss} with an optional fraction of 1 to 9 digits,
+   * i.e. what {@link LocalDateTime#parse(CharSequence)} accepts for 4 digit years.
+   *
+   * @return the date-time or null if the text isn't handled
+   */
+  static LocalDateTime parseLocalDateTime(char[] buf, int off, int len) {
+    if (len < MINUTES_LENGTH || buf[off + 10] != 'T') {
+      return null;
+    }
+    LocalDate date = parseLocalDate(buf, off, DATE_LENGTH);
+    if (date == null) {
+      return null;
+    }
+
+    int hour = read2(buf, off + 11);
+    int minute = read2(buf, off + 14);
+    if (buf[off + 13] != ':' || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+      return null;
+    }
+    if (len == MINUTES_LENGTH) {
+      return LocalDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), hour, minute);
+    }
+
+    if (len < DATE_TIME_LENGTH || buf[off + 16] != ':') {
+      return null;
+    }
+    int second = read2(buf, off + 17);
+    if (second < 0 || second > 59) {
+      return null;
+    }
+
+    int nano = 0;
+    if (len > DATE_TIME_LENGTH) {
+      int digits = len - DATE_TIME_LENGTH - 1;
+      if (buf[off + DATE_TIME_LENGTH] != '.' || digits < 1 || digits > 9) {
+        return null;
+      }
+      nano = readDigits(buf, off + DATE_TIME_LENGTH + 1, digits);
+      if (nano < 0) {
+        return null;
+      }
+      for (int i = digits; i < 9; i++) {
+        nano *= 10;
+      }
+    }
+    return LocalDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(), hour, minute, second, nano);
+  }
+
+  /**
+   * Writes a date exactly as {@link LocalDate#toString()} does.
+   *
+   * @return the offset after the text or -1 if the year has more than 4 digits or is negative
+   */
+  static int writeLocalDate(LocalDate value, char[] buf, int off) {
+    int year = value.getYear();
+    if (year < 0 || year > 9999) {
+      return -1;
+    }
+    return writeDate(year, value.getMonthValue(), value.getDayOfMonth(), buf, off);
+  }
+
+  /**
+   * Reads {@code yyyy-MM-dd}.
+   *
+   * @return the date or null if the text isn't handled or isn't a valid date
+   */
+  static LocalDate parseLocalDate(char[] buf, int off, int len) {
+    if (len != DATE_LENGTH) {
+      return null;
+    }
+    int year = readDigits(buf, off, 4);
+    int month = read2(buf, off + 5);
+    int day = read2(buf, off + 8);
+    if (buf[off + 4] != '-' || buf[off + 7] != '-' || !isValidDate(year, month, day)) {
+      return null;
+    }
+    return LocalDate.of(year, month, day);
+  }
+
+  /**
+   * Writes a date-time with the pattern {@code yyyy-MM-dd HH:mm:ssXXX}.
+   *
+   * @return the offset after the text or -1 if the value isn't handled
+   */
+  static int writeOffsetDateTime(OffsetDateTime value, char[] buf, int off) {
+    int year = value.getYear();
+    int offsetSeconds = value.getOffset().getTotalSeconds();
+    if (year < 1 || year > 9999 || offsetSeconds % 60 != 0) {
+      return -1;
+    }
+    off = writeDate(year, value.getMonthValue(), value.getDayOfMonth(), buf, off);
+    buf[off++] = ' ';
+    off = writeTime(value.getHour(), value.getMinute(), value.getSecond(), buf, off);
+
+    if (offsetSeconds == 0) {
+      buf[off++] = 'Z';
+      return off;
+    }
+    int absMinutes = Math.abs(offsetSeconds) / 60;
+    buf[off++] = offsetSeconds < 0 ? '-' : '+';
+    off = write2(absMinutes / 60, buf, off);
+    buf[off++] = ':';
+    return write2(absMinutes % 60, buf, off);
+  }
+
+  /**
+   * Reads a date-time with the pattern {@code yyyy-MM-dd HH:mm:ssXXX}.
+   *
+   * @return the date-time or null if the text isn't handled
+   */
+  static OffsetDateTime parseOffsetDateTime(char[] buf, int off, int len) {
+    if (len < DATE_TIME_LENGTH + 1 || buf[off + 10] != ' ') {
+      return null;
+    }
+    LocalDate date = parseLocalDate(buf, off, DATE_LENGTH);
+    int secondOfDay = parseSecondOfDay(buf, off + 11);
+    if (date == null || date.getYear() < 1 || secondOfDay < 0) {
+      return null;
+    }
+
+    ZoneOffset offset;
+    int o = off + DATE_TIME_LENGTH;
+    if (len == DATE_TIME_LENGTH + 1 && buf[o] == 'Z') {
+      offset = ZoneOffset.UTC;
+    } else if (len == DATE_TIME_LENGTH + 6 && (buf[o] == '+' || buf[o] == '-') && buf[o + 3] == ':') {
+      int hours = read2(buf, o + 1);
+      int minutes = read2(buf, o + 4);
+      if (hours < 0 || hours > 17 || minutes < 0 || minutes > 59) {
+        return null;
+      }
+      int sign = buf[o] == '-' ? -1 : 1;
+      offset = ZoneOffset.ofHoursMinutes(sign * hours, sign * minutes);
+    } else {
+      return null;
+    }
+
+    return OffsetDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
+      secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, 0, offset);
+  }
+
+  private static int writeEpochDay(long epochDay, char[] buf, int off) {
+    // days to civil date, see http://howardhinnant.github.io/date_algorithms.html
+    long z = epochDay + 719_468;
+    long era = Math.floorDiv(z, 146_097);
+    int doe = (int) (z - era * 146_097);
+    int yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+    int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+    int mp = (5 * doy + 2) / 153;
+    int day = doy - (153 * mp + 2) / 5 + 1;
+    int month = mp < 10 ? mp + 3 : mp - 9;
+    int year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+    return writeDate(year, month, day, buf, off);
+  }
+
+  private static long parseEpochDay(char[] buf, int off) {
+    int year = readDigits(buf, off, 4);
+    int month = read2(buf, off + 5);
+    int day = read2(buf, off + 8);
+    if (buf[off + 4] != '-' || buf[off + 7] != '-' || !isValidDate(year, month, day)) {
+      return NOT_PARSED;
+    }
+    // civil date to days, see http://howardhinnant.github.io/date_algorithms.html
+    int y = month <= 2 ? year - 1 : year;
+    int era = Math.floorDiv(y, 400);
+    int yoe = y - era * 400;
+    int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146_097L + doe - 719_468;
+  }
+
+  /**
+   * Reads {@code HH:mm:ss}, returning the second of the day or -1.
+   */
+  private static int parseSecondOfDay(char[] buf, int off) {
+    int hour = read2(buf, off);
+    int minute = read2(buf, off + 3);
+    int second = read2(buf, off + 6);
+    if (buf[off + 2] != ':' || buf[off + 5] != ':'
+        || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return -1;
+    }
+    return hour * 3600 + minute * 60 + second;
+  }
+
+  private static boolean isValidDate(int year, int month, int day) {
+    if (year < 0 || month < 1 || month > 12 || day < 1) {
+      return false;
+    }
+    int length = DAYS_IN_MONTH[month - 1];
+    if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+      length = 29;
+    }
+    return day <= length;
+  }
+
+  private static int writeDate(int year, int month, int day, char[] buf, int off) {
+    off = writeDigits(year, 4, buf, off);
+    buf[off++] = '-';
+    off = write2(month, buf, off);
+    buf[off++] = '-';
+    return write2(day, buf, off);
+  }
+
+  private static int writeTime(int hour, int minute, int second, char[] buf, int off) {
+    off = write2(hour, buf, off);
+    buf[off++] = ':';
+    off = write2(minute, buf, off);
+    buf[off++] = ':';
+    return write2(second, buf, off);
+  }
+
+  private static int write2(int value, char[] buf, int off) {
+    buf[off] = (char) ('0' + value / 10);
+    buf[off + 1] = (char) ('0' + value % 10);
+    return off + 2;
+  }
+
+  private static int writeDigits(int value, int digits, char[] buf, int off) {
+    for (int i = off + digits - 1; i >= off; i--) {
+      buf[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    return off + digits;
+  }
+
+  private static int read2(char[] buf, int off) {
+    return readDigits(buf, off, 2);
+  }
+
+  /**
+   * @return the value of the digits or -1 if any char isn't an ASCII digit
+   */
+  private static int readDigits(char[] buf, int off, int digits) {
+    int value = 0;
+    for (int i = off; i < off + digits; i++) {
+      int d = buf[i] - '0';
+      if (d < 0 || d > 9) {
+        return -1;
+      }
+      value = value * 10 + d;
+    }
+    return value;
+  }
+}
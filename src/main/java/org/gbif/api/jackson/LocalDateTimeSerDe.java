@@ -20,6 +20,7 @@ import java.time.LocalDateTime;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonSerializer;
@@ -39,7 +40,13 @@ public class LocalDateTimeSerDe {
     @Override
     public void serialize(LocalDateTime value, JsonGenerator jgen, SerializerProvider provider)
       throws IOException {
-      jgen.writeString((value.toString()));
+      char[] buf = new char[IsoDateTimeCodec.MAX_LENGTH];
+      int length = IsoDateTimeCodec.writeLocalDateTime(value, buf, 0);
+      if (length > 0) {
+        jgen.writeString(buf, 0, length);
+      } else {
+        jgen.writeString(value.toString());
+      }
     }
   }
 
@@ -51,7 +58,11 @@ public class LocalDateTimeSerDe {
     @Override
     public LocalDateTime deserialize(JsonParser jp, DeserializationContext ctxt)
       throws IOException {
-      return LocalDateTime.parse(jp.getText());
+      LocalDateTime value =
+        jp.hasToken(JsonToken.VALUE_STRING)
+          ? IsoDateTimeCodec.parseLocalDateTime(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength())
+          : null;
+      return value != null ? value : LocalDateTime.parse(jp.getText());
     }
   }
 }
@@ -2,6 +2,7 @@ package org.gbif.api.jackson;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonSerializer;
@@ -25,7 +26,13 @@ public class OffsetDateTimeSerDe {
     @Override
     public void serialize(OffsetDateTime value, JsonGenerator jgen, SerializerProvider provider)
       throws IOException {
-      jgen.writeString(value.format(FORMATTER));
+      char[] buf = new char[IsoDateTimeCodec.MAX_LENGTH];
+      int length = IsoDateTimeCodec.writeOffsetDateTime(value, buf, 0);
+      if (length > 0) {
+        jgen.writeString(buf, 0, length);
+      } else {
+        jgen.writeString(value.format(FORMATTER));
+      }
     }
   }
 
@@ -36,7 +43,11 @@ public class OffsetDateTimeSerDe {
     @Override
     public OffsetDateTime deserialize(JsonParser jp, DeserializationContext ctxt)
       throws IOException {
-      return OffsetDateTime.parse(jp.getText(), FORMATTER);
+      OffsetDateTime value =
+        jp.hasToken(JsonToken.VALUE_STRING)
+          ? IsoDateTimeCodec.parseOffsetDateTime(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength())
+          : null;
+      return value != null ? value : OffsetDateTime.parse(jp.getText(), FORMATTER);
     }
   }
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.jackson;
+
+import org.gbif.api.model.occurrence.YearMonthSeries;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Jackson {@link JsonSerializer} and {@link JsonDeserializer} for {@link YearMonthSeries}, using the same JSON as the
+ * year to month to count maps, e.g. {@code {"2020":{"1":5,"2":7}}}.
+ */
+public class YearMonthSeriesSerde {
+
+  /**
+   * Jackson {@link JsonSerializer} for {@link YearMonthSeries}.
+   */
+  public static class YearMonthSeriesSerializer extends JsonSerializer<YearMonthSeries> {
+
+    @Override
+    public void serialize(YearMonthSeries value, JsonGenerator jgen, SerializerProvider provider)
+        throws IOException {
+      jgen.writeStartObject();
+      for (Map.Entry<Integer, SortedMap<Integer, Long>> year : value.toMap().entrySet()) {
+        jgen.writeObjectFieldStart(String.valueOf(year.getKey()));
+        for (Map.Entry<Integer, Long> month : year.getValue().entrySet()) {
+          jgen.writeNumberField(String.valueOf(month.getKey()), month.getValue());
+        }
+        jgen.writeEndObject();
+      }
+      jgen.writeEndObject();
+    }
+  }
+
+  /**
+   * Jackson {@link JsonDeserializer} for {@link YearMonthSeries}, reading the counts without intermediate maps.
+   */
+  public static class YearMonthSeriesDeserializer extends JsonDeserializer<YearMonthSeries> {
+
+    @Override
+    public YearMonthSeries deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+      if (jp.currentToken() != JsonToken.START_OBJECT) {
+        return (YearMonthSeries) ctxt.handleUnexpectedToken(YearMonthSeries.class, jp);
+      }
+      YearMonthSeries.Builder builder = YearMonthSeries.builder();
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        int year = parseInt(jp, ctxt);
+        if (jp.nextToken() == JsonToken.VALUE_NULL) {
+          continue;
+        }
+        if (jp.currentToken() != JsonToken.START_OBJECT) {
+          return (YearMonthSeries) ctxt.handleUnexpectedToken(YearMonthSeries.class, jp);
+        }
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+          int month = parseInt(jp, ctxt);
+          if (jp.nextToken() != JsonToken.VALUE_NULL) {
+            try {
+              builder.add(year, month, jp.getValueAsLong());
+            } catch (IllegalArgumentException e) {
+              throw ctxt.weirdKeyException(Integer.class, jp.currentName(), e.getMessage());
+            }
+          }
+        }
+      }
+      return builder.build();
+    }
+
+    private static int parseInt(JsonParser jp, DeserializationContext ctxt) throws IOException {
+      String name = jp.currentName();
+      try {
+        return Integer.parseInt(name);
+      } catch (NumberFormatException e) {
+        throw ctxt.weirdKeyException(Integer.class, name, "not an integer");
+      }
+    }
+  }
+}
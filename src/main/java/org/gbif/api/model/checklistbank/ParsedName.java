@@ -541,10 +541,11 @@ public class ParsedName {
     }
 
     String name = sb.toString().trim();
-    if (decomposition) {
+    if (decomposition && asciiOnly) {
+      name = UnicodeUtils.foldToAscii(name);
+    } else if (decomposition) {
       name = UnicodeUtils.decompose(name);
-    }
-    if (asciiOnly) {
+    } else if (asciiOnly) {
       name = UnicodeUtils.ascii(name);
     }
 
@@ -0,0 +1,464 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.checklistbank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Immutable index of a taxonomy, such as the backbone, answering the descendant questions of {@code TAXON_KEY}
+ * predicates and facet rollups: is a taxon within another one, what are all the descendants of a taxon, and what is
+ * the lowest common ancestor of two taxa.
+ * <p>
+ * The accepted usages are numbered in pre-order of the {@code parentKey} tree, so the descendants of a usage directly
+ * follow it and a usage is within another one if its number falls in the interval of the other, checked in O(1).
+ * Synonyms resolve to their accepted usage through {@code acceptedKey}, and aren't descendants of any usage
+ * themselves. Keys are found in an open addressing hash table.
+ * <p>
+ * Everything is stored in a single buffer of ints, which can be written to a file and memory mapped back with
+ * {@link #map}, so that several processes share one copy of a multi-million usage taxonomy in the page cache.
+ * The layout of the buffer, in little endian ints, is a header with a magic number, the format version, the number of
+ * usages n, of accepted usages m and the capacity c of the hash table, followed by the keys of the n usages, the
+ * parents and subtree ends of the m accepted usages, the accepted usages of the n - m synonyms and the c slots of the
+ * hash table.
+ */
+@ThreadSafe
+public final class TaxonomyIndex {
+
+  private static final int MAGIC = 0x47544958;
+  private static final int VERSION = 1;
+  private static final int HEADER = 5;
+  private static final int NONE = Integer.MIN_VALUE;
+
+  private final ByteBuffer buffer;
+  private final IntBuffer ints;
+  private final int size;
+  private final int accepted;
+  private final int capacity;
+  private final int parentsAt;
+  private final int endsAt;
+  private final int synonymsAt;
+  private final int slotsAt;
+
+  private TaxonomyIndex(ByteBuffer buffer) {
+    this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    ints = this.buffer.asIntBuffer();
+    checkArgument(ints.limit() >= HEADER && ints.get(0) == MAGIC, "Not a taxonomy index");
+    checkArgument(ints.get(1) == VERSION, "Unsupported taxonomy index version " + ints.get(1));
+    size = ints.get(2);
+    accepted = ints.get(3);
+    capacity = ints.get(4);
+    checkArgument(
+        0 <= accepted && accepted <= size && capacity > size && Integer.bitCount(capacity) == 1,
+        "Corrupt taxonomy index header");
+    checkArgument(
+        ints.limit() == intsOf(size, accepted, capacity), "Taxonomy index of " + ints.limit() + " ints is truncated");
+    parentsAt = HEADER + size;
+    endsAt = parentsAt + accepted;
+    synonymsAt = endsAt + accepted;
+    slotsAt = synonymsAt + size - accepted;
+  }
+
+  private static long intsOf(int size, int accepted, int capacity) {
+    return HEADER + 2L * size + accepted + (long) capacity;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return the index of the given usages
+   * @throws IllegalArgumentException if a usage has no key, a key is used twice or the parents form a cycle
+   */
+  public static TaxonomyIndex of(Iterable<? extends NameUsage> usages) {
+    Builder builder = new Builder();
+    for (NameUsage usage : usages) {
+      builder.add(usage);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Reads an index from the remaining bytes of a buffer holding a {@link #write written} index, which are used as
+   * is and must not change.
+   *
+   * @throws IllegalArgumentException if the buffer doesn't hold an index
+   */
+  public static TaxonomyIndex wrap(ByteBuffer buffer) {
+    return new TaxonomyIndex(buffer);
+  }
+
+  /**
+   * Memory maps an index written to a file, read only.
+   *
+   * @throws IllegalArgumentException if the file doesn't hold an index
+   */
+  public static TaxonomyIndex map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new TaxonomyIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes the index to a file, replacing it, to be {@link #map mapped} later on.
+   */
+  public void write(Path file) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer data = buffer.duplicate();
+      while (data.hasRemaining()) {
+        channel.write(data);
+      }
+    }
+  }
+
+  /**
+   * @return the number of usages, synonyms included
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(int key) {
+    return ordinal(key) >= 0;
+  }
+
+  /**
+   * @return the key of the usage itself if accepted, the key of its accepted usage for a synonym, or null for an
+   *     unknown key or a synonym without accepted usage
+   */
+  @Nullable
+  public Integer getAcceptedKey(int key) {
+    int node = node(key);
+    return node < 0 ? null : keyAt(node);
+  }
+
+  /**
+   * @return the key of the parent of the accepted usage, or null for a root
+   */
+  @Nullable
+  public Integer getParentKey(int key) {
+    int node = node(key);
+    int parent = node < 0 ? -1 : ints.get(parentsAt + node);
+    return parent < 0 ? null : keyAt(parent);
+  }
+
+  /**
+   * @return true if the accepted usage of the key is the accepted usage of the ancestor key or one of its
+   *     descendants, in O(1). False for unknown keys.
+   */
+  public boolean isWithin(int key, int ancestorKey) {
+    int ancestor = node(ancestorKey);
+    int node = ancestor < 0 ? -1 : node(key);
+    return node >= 0 && ancestor <= node && node < ints.get(endsAt + ancestor);
+  }
+
+  /**
+   * @return the number of accepted descendants of the accepted usage of the key, in O(1)
+   */
+  public int countDescendants(int key) {
+    int node = node(key);
+    return node < 0 ? 0 : ints.get(endsAt + node) - node - 1;
+  }
+
+  /**
+   * @return the keys of the accepted descendants of the accepted usage of the key in pre-order, in O(k), empty for
+   *     an unknown key
+   */
+  public int[] getDescendantKeys(int key) {
+    int node = node(key);
+    if (node < 0) {
+      return new int[0];
+    }
+    int[] keys = new int[ints.get(endsAt + node) - node - 1];
+    ints.get(HEADER + node + 1, keys);
+    return keys;
+  }
+
+  /**
+   * @return the keys of the accepted children of the accepted usage of the key, empty for an unknown key
+   */
+  public int[] getChildKeys(int key) {
+    int node = node(key);
+    if (node < 0) {
+      return new int[0];
+    }
+    int end = ints.get(endsAt + node);
+    int[] keys = new int[8];
+    int count = 0;
+    // the next sibling of a child comes after the subtree of the child
+    for (int child = node + 1; child < end; child = ints.get(endsAt + child)) {
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, count * 2);
+      }
+      keys[count++] = keyAt(child);
+    }
+    return Arrays.copyOf(keys, count);
+  }
+
+  /**
+   * @return the key of the deepest accepted usage both accepted usages of the keys are within, or null if they are
+   *     in different trees or any key is unknown
+   */
+  @Nullable
+  public Integer getLowestCommonAncestor(int key1, int key2) {
+    int node1 = node(key1);
+    int node2 = node(key2);
+    if (node1 < 0 || node2 < 0) {
+      return null;
+    }
+    int ancestor = node1;
+    while (ancestor >= 0 && !(ancestor <= node2 && node2 < ints.get(endsAt + ancestor))) {
+      ancestor = ints.get(parentsAt + ancestor);
+    }
+    return ancestor < 0 ? null : keyAt(ancestor);
+  }
+
+  private int keyAt(int ordinal) {
+    return ints.get(HEADER + ordinal);
+  }
+
+  /**
+   * @return the ordinal of the usage, -1 if unknown
+   */
+  private int ordinal(int key) {
+    int mask = capacity - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int entry = ints.get(slotsAt + slot);
+      if (entry == 0) {
+        return -1;
+      }
+      if (keyAt(entry - 1) == key) {
+        return entry - 1;
+      }
+    }
+  }
+
+  /**
+   * @return the pre-order number of the accepted usage, -1 if unknown
+   */
+  private int node(int key) {
+    int ordinal = ordinal(key);
+    return ordinal < accepted ? ordinal : ints.get(synonymsAt + ordinal - accepted);
+  }
+
+  private static int hash(int key) {
+    int hash = key * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * @return the hash table capacity for a number of keys, a power of 2 at most half full
+   */
+  private static int capacity(int size) {
+    return Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+  }
+
+  /**
+   * Inserts key ordinals into a hash table.
+   *
+   * @return the ordinal of the key already in the table, or -1 once inserted
+   */
+  private static int insert(int[] slots, int[] keys, int ordinal) {
+    int mask = slots.length - 1;
+    int key = keys[ordinal];
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      if (slots[slot] == 0) {
+        slots[slot] = ordinal + 1;
+        return -1;
+      }
+      if (keys[slots[slot] - 1] == key) {
+        return slots[slot] - 1;
+      }
+    }
+  }
+
+  private static int find(int[] slots, int[] keys, int key) {
+    int mask = slots.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      if (slots[slot] == 0 || keys[slots[slot] - 1] == key) {
+        return slots[slot] - 1;
+      }
+    }
+  }
+
+  /**
+   * Collects the keys of the usages, their parents and accepted usages. Not thread safe.
+   */
+  public static final class Builder {
+
+    private int[] keys = new int[1024];
+    private int[] parentKeys = new int[1024];
+    private int[] acceptedKeys = new int[1024];
+    private int size;
+
+    private Builder() {}
+
+    /**
+     * Adds a usage with its {@code key}, {@code parentKey} and, for synonyms, {@code acceptedKey}.
+     */
+    public Builder add(NameUsage usage) {
+      checkArgument(usage.getKey() != null, "Usage key is required");
+      Integer acceptedKey = usage.getAcceptedKey();
+      if (acceptedKey == null && usage.isSynonym()) {
+        // a synonym without accepted usage is known, but never resolves
+        acceptedKey = NONE;
+      }
+      return add(usage.getKey(), usage.getParentKey(), acceptedKey);
+    }
+
+    /**
+     * @param key key of the usage, unique in the index
+     * @param parentKey key of the parent usage, which may be added before or after, or null for a root
+     * @param acceptedKey key of the accepted usage of a synonym, null or the key itself for an accepted usage
+     */
+    public Builder add(int key, @Nullable Integer parentKey, @Nullable Integer acceptedKey) {
+      checkArgument(key != NONE, "Invalid usage key " + key);
+      if (size == keys.length) {
+        int length = size + (size >> 1);
+        keys = Arrays.copyOf(keys, length);
+        parentKeys = Arrays.copyOf(parentKeys, length);
+        acceptedKeys = Arrays.copyOf(acceptedKeys, length);
+      }
+      keys[size] = key;
+      parentKeys[size] = parentKey == null ? NONE : parentKey;
+      acceptedKeys[size] = acceptedKey == null || acceptedKey == key ? key : acceptedKey;
+      size++;
+      return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a key is used twice or the parents form a cycle
+     */
+    public TaxonomyIndex build() {
+      int[] slots = new int[capacity(size)];
+      for (int i = 0; i < size; i++) {
+        checkArgument(insert(slots, keys, i) < 0, "Duplicate usage key " + keys[i]);
+      }
+      // accepted usage of each usage, -1 for synonyms without one
+      int[] acceptedOf = new int[size];
+      for (int i = 0; i < size; i++) {
+        int usage = acceptedKeys[i] == keys[i] ? i : find(slots, keys, acceptedKeys[i]);
+        acceptedOf[i] = usage >= 0 && acceptedKeys[usage] == keys[usage] ? usage : -1;
+      }
+
+      // counting sort of the accepted usages by accepted parent, the roots under the virtual parent -1
+      int[] parents = new int[size];
+      int[] childStarts = new int[size + 2];
+      int acceptedCount = 0;
+      for (int i = 0; i < size; i++) {
+        if (acceptedOf[i] == i) {
+          acceptedCount++;
+          int parent = parentKeys[i] == NONE ? -1 : find(slots, keys, parentKeys[i]);
+          parents[i] = parent < 0 ? -1 : acceptedOf[parent];
+          childStarts[parents[i] + 2]++;
+        }
+      }
+      for (int i = 1; i < childStarts.length; i++) {
+        childStarts[i] += childStarts[i - 1];
+      }
+      int roots = childStarts[1];
+      int[] children = new int[acceptedCount];
+      int[] next = Arrays.copyOf(childStarts, size + 1);
+      for (int i = 0; i < size; i++) {
+        if (acceptedOf[i] == i) {
+          children[next[parents[i] + 1]++] = i;
+        }
+      }
+
+      // pre-order numbers, the iterative traversal handles any depth
+      int[] nodes = new int[size];
+      Arrays.fill(nodes, -1);
+      int[] preOrder = new int[acceptedCount];
+      int[] stack = new int[acceptedCount];
+      int top = 0;
+      for (int i = roots - 1; i >= 0; i--) {
+        stack[top++] = children[i];
+      }
+      int visited = 0;
+      while (top > 0) {
+        int usage = stack[--top];
+        nodes[usage] = visited;
+        preOrder[visited++] = usage;
+        for (int c = childStarts[usage + 2] - 1; c >= childStarts[usage + 1]; c--) {
+          stack[top++] = children[c];
+        }
+      }
+      if (visited < acceptedCount) {
+        // usages in a cycle have no root and are never reached
+        for (int i = 0; i < size; i++) {
+          checkArgument(acceptedOf[i] != i || nodes[i] >= 0, "Cycle in the parents of usage " + keys[i]);
+        }
+      }
+      // synonyms numbered after the accepted usages
+      int synonyms = acceptedCount;
+      for (int i = 0; i < size; i++) {
+        if (acceptedOf[i] != i) {
+          nodes[i] = synonyms++;
+        }
+      }
+
+      int capacity = capacity(size);
+      long length = intsOf(size, acceptedCount, capacity) * Integer.BYTES;
+      checkArgument(length <= Integer.MAX_VALUE, "Too many usages for a taxonomy index: " + size);
+      ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+      IntBuffer ints = buffer.asIntBuffer();
+      ints.put(MAGIC).put(VERSION).put(size).put(acceptedCount).put(capacity);
+      int[] ordered = new int[size];
+      for (int i = 0; i < size; i++) {
+        ordered[nodes[i]] = keys[i];
+      }
+      ints.put(ordered);
+      for (int usage : preOrder) {
+        ints.put(parents[usage] < 0 ? -1 : nodes[parents[usage]]);
+      }
+      // subtree ends added up from the leaves
+      int[] ends = new int[acceptedCount];
+      for (int node = acceptedCount - 1; node >= 0; node--) {
+        ends[node] += node + 1;
+        int parent = parents[preOrder[node]];
+        if (parent >= 0) {
+          ends[nodes[parent]] += ends[node] - node;
+        }
+      }
+      ints.put(ends);
+      for (int i = 0; i < size; i++) {
+        if (acceptedOf[i] != i) {
+          ints.put(HEADER + size + acceptedCount + nodes[i], acceptedOf[i] < 0 ? -1 : nodes[acceptedOf[i]]);
+        }
+      }
+      ints.position(HEADER + size + acceptedCount + size);
+      int[] orderedSlots = new int[capacity];
+      for (int node = 0; node < size; node++) {
+        insert(orderedSlots, ordered, node);
+      }
+      ints.put(orderedSlots);
+      return new TaxonomyIndex(buffer);
+    }
+  }
+}
@@ -15,6 +15,8 @@
  */
 package org.gbif.api.model.collections;
 
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.model.registry.PrePersist;
 import org.gbif.api.vocabulary.Country;
@@ -28,7 +30,7 @@ import jakarta.validation.constraints.Null;
 
 /** The particulars of the place where a institution of collection is situated. */
 @SuppressWarnings("unused")
-public class Address implements Serializable, LenientEquals<Address> {
+public class Address implements Serializable, LenientEquals<Address>, Fingerprintable {
 
   private Integer key;
   private String address;
@@ -37,6 +39,9 @@ public class Address implements Serializable, LenientEquals<Address> {
   private String postalCode;
   private Country country;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   /** Unique identifier, assigned by the persistence store. */
   @Null(groups = {PrePersist.class})
   public Integer getKey() {
@@ -135,4 +140,17 @@ public class Address implements Serializable, LenientEquals<Address> {
         && Objects.equals(postalCode, other.postalCode)
         && country == other.country;
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint.add(address).add(city).add(province).add(postalCode).add(country);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
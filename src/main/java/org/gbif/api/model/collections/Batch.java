@@ -28,6 +28,11 @@ public class Batch {
   @Schema(description = "Errors found that made the batch fail.")
   private List<String> errors = new ArrayList<>();
 
+  @Schema(
+      description = "Number of rows of the files processed so far.",
+      accessMode = Schema.AccessMode.READ_ONLY)
+  private Long processedRows;
+
   @Schema(
       description = "Timestamp of when the batch was created in the GBIF registry.",
       accessMode = Schema.AccessMode.READ_ONLY)
@@ -32,9 +32,12 @@ import lombok.Setter;
 import lombok.ToString;
 import org.gbif.api.model.common.DOI;
 import org.gbif.api.model.registry.Comment;
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.Identifier;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.model.registry.MachineTag;
+import org.gbif.api.model.registry.MachineTagIndex;
 import org.gbif.api.model.registry.PrePersist;
 import org.gbif.api.model.registry.Tag;
 import org.gbif.api.util.HttpURI;
@@ -51,7 +54,7 @@ import org.gbif.api.vocabulary.collections.MasterSourceType;
 @SuppressWarnings("unused")
 @ToString
 @EqualsAndHashCode
-public class Collection implements CollectionEntity, LenientEquals<Collection> {
+public class Collection implements CollectionEntity, LenientEquals<Collection>, Fingerprintable {
 
   @Schema(
       description = "Unique GBIF key for the collection.",
@@ -222,6 +225,11 @@ public class Collection implements CollectionEntity, LenientEquals<Collection> {
       accessMode = Schema.AccessMode.READ_ONLY)
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private transient MachineTagIndex machineTagIndex;
+
   @Setter
   @Getter
   @Schema(description = "The taxonomic coverage of this collection.")
@@ -536,11 +544,21 @@ public class Collection implements CollectionEntity, LenientEquals<Collection> {
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   /** Alternative codes for a collection. */
@@ -730,4 +748,55 @@ public class Collection implements CollectionEntity, LenientEquals<Collection> {
         && Objects.equals(temporalCoverage, other.temporalCoverage)
         && Objects.equals(featuredImageAttribution, other.featuredImageAttribution);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    // the comments are added by ContentFingerprint, as for any Commentable
+    fingerprint
+        .add(active)
+        .add(personalCollection)
+        .add(key)
+        .add(code)
+        .add(name)
+        .add(description)
+        .add(contentTypes)
+        .add(doi)
+        .add(email)
+        .add(phone)
+        .add(homepage)
+        .add(catalogUrls)
+        .add(apiUrls)
+        .add(preservationTypes)
+        .add(accessionStatus)
+        .add(institutionKey)
+        .add(mailingAddress)
+        .add(address)
+        .add(deleted)
+        .add(numberSpecimens)
+        .add(taxonomicCoverage)
+        .add(geographicCoverage)
+        .add(notes)
+        .add(incorporatedCollections)
+        .addAll(
+            alternativeCodes,
+            (f, alternativeCode) -> f.add(alternativeCode.getCode()).add(alternativeCode.getDescription()))
+        .add(occurrenceMappings)
+        .add(replacedBy)
+        .add(masterSource)
+        .add(
+            masterSourceMetadata,
+            (f, metadata) ->
+                f.add(metadata.getKey())
+                    .add(metadata.getSource())
+                    .add(metadata.getSourceId())
+                    .add(metadata.getCreatedBy())
+                    .add(metadata.getCreated()))
+        .add(division)
+        .add(department)
+        .add(displayOnNHCPortal)
+        .add(featuredImageUrl)
+        .add(featuredImageLicense)
+        .add(temporalCoverage)
+        .add(featuredImageAttribution);
+  }
 }
@@ -22,6 +22,8 @@ import java.util.StringJoiner;
 
 import jakarta.validation.constraints.Size;
 
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.model.registry.PostPersist;
 import org.gbif.api.model.registry.PrePersist;
@@ -33,7 +35,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
 
 /** Contact associated to a GRSciColl {@link Collection} or {@link Institution}. */
-public class Contact implements LenientEquals<Contact>, Serializable {
+public class Contact implements LenientEquals<Contact>, Fingerprintable, Serializable {
 
   private Integer key;
   @Size(min = 1, message = "First name cannot be empty")
@@ -63,6 +65,9 @@ public class Contact implements LenientEquals<Contact>, Serializable {
   private Date created;
   private Date modified;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Null(groups = {PrePersist.class})
   @NotNull(groups = {PostPersist.class})
   public Integer getKey() {
@@ -279,6 +284,34 @@ public class Contact implements LenientEquals<Contact>, Serializable {
         && Objects.equals(userIds, contact.userIds);
   }
 
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(firstName)
+        .add(lastName)
+        .add(position)
+        .add(phone)
+        .add(fax)
+        .add(email)
+        .add(address)
+        .add(city)
+        .add(province)
+        .add(country)
+        .add(postalCode)
+        .add(primary)
+        .add(taxonomicExpertise)
+        .add(notes)
+        .addAll(userIds, (f, userId) -> f.add(userId.getType()).add(userId.getId()));
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(
@@ -18,9 +18,12 @@ import lombok.Getter;
 import lombok.Setter;
 
 import org.gbif.api.model.registry.Comment;
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.Identifier;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.model.registry.MachineTag;
+import org.gbif.api.model.registry.MachineTagIndex;
 import org.gbif.api.model.registry.PrePersist;
 import org.gbif.api.model.registry.Tag;
 import org.gbif.api.util.HttpURI;
@@ -56,7 +59,7 @@ import lombok.ToString;
 @SuppressWarnings("unused")
 @ToString
 @EqualsAndHashCode
-public class Institution implements CollectionEntity, LenientEquals<Institution> {
+public class Institution implements CollectionEntity, LenientEquals<Institution>, Fingerprintable {
 
   @Schema(
       description = "Unique GBIF key for the institution.",
@@ -216,6 +219,11 @@ public class Institution implements CollectionEntity, LenientEquals<Institution>
       accessMode = Schema.AccessMode.READ_ONLY)
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private transient MachineTagIndex machineTagIndex;
+
   @Schema(description = "Alternative codes for this institution.")
   private List<AlternativeCode> alternativeCodes = new ArrayList<>();
 
@@ -494,11 +502,21 @@ public class Institution implements CollectionEntity, LenientEquals<Institution>
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     this.machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   /** Alternative codes for an institution. */
@@ -679,4 +697,51 @@ public class Institution implements CollectionEntity, LenientEquals<Institution>
         && Objects.equals(featuredImageLicense, other.featuredImageLicense)
         && Objects.equals(featuredImageAttribution, other.featuredImageAttribution);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    // the comments are added by ContentFingerprint, as for any Commentable
+    fingerprint
+        .add(active)
+        .add(key)
+        .add(code)
+        .add(name)
+        .add(description)
+        .add(types)
+        .add(email)
+        .add(phone)
+        .add(homepage)
+        .add(catalogUrls)
+        .add(apiUrls)
+        .add(institutionalGovernances)
+        .add(disciplines)
+        .add(latitude)
+        .add(longitude)
+        .add(mailingAddress)
+        .add(address)
+        .add(additionalNames)
+        .add(foundingDate)
+        .add(numberSpecimens)
+        .add(logoUrl)
+        .add(deleted)
+        .addAll(
+            alternativeCodes,
+            (f, alternativeCode) -> f.add(alternativeCode.getCode()).add(alternativeCode.getDescription()))
+        .add(occurrenceMappings)
+        .add(replacedBy)
+        .add(convertedToCollection)
+        .add(masterSource)
+        .add(
+            masterSourceMetadata,
+            (f, metadata) ->
+                f.add(metadata.getKey())
+                    .add(metadata.getSource())
+                    .add(metadata.getSourceId())
+                    .add(metadata.getCreatedBy())
+                    .add(metadata.getCreated()))
+        .add(displayOnNHCPortal)
+        .add(featuredImageUrl)
+        .add(featuredImageLicense)
+        .add(featuredImageAttribution);
+  }
 }
@@ -15,6 +15,8 @@
  */
 package org.gbif.api.model.collections;
 
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.model.registry.PostPersist;
 import org.gbif.api.model.registry.PrePersist;
@@ -31,7 +33,7 @@ import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Size;
 
 /** Models the mapping of a GRSciColl institution or collection to an occurrence record. */
-public class OccurrenceMapping implements Serializable, LenientEquals<OccurrenceMapping> {
+public class OccurrenceMapping implements Serializable, LenientEquals<OccurrenceMapping>, Fingerprintable {
 
   private Integer key;
   private String code;
@@ -44,6 +46,9 @@ public class OccurrenceMapping implements Serializable, LenientEquals<Occurrence
   private String createdBy;
   private Date created;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   public OccurrenceMapping() {}
 
   public OccurrenceMapping(String code, String identifier, UUID datasetKey) {
@@ -170,4 +175,17 @@ public class OccurrenceMapping implements Serializable, LenientEquals<Occurrence
         && Objects.equals(identifier, other.identifier)
         && Objects.equals(datasetKey, other.datasetKey);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint.add(code).add(parentCode).add(identifier).add(datasetKey);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
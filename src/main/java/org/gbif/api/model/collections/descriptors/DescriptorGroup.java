@@ -1,5 +1,7 @@
 package org.gbif.api.model.collections.descriptors;
 
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.LenientEquals;
 
 import java.io.Serializable;
@@ -14,7 +16,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
-public class DescriptorGroup implements LenientEquals<DescriptorGroup>, Serializable {
+public class DescriptorGroup implements LenientEquals<DescriptorGroup>, Fingerprintable, Serializable {
 
   private long key;
   @NotBlank private String title;
@@ -39,4 +41,9 @@ public class DescriptorGroup implements LenientEquals<DescriptorGroup>, Serializ
       && Objects.equals(collectionKey, other.collectionKey)
       && Objects.equals(tags, other.tags);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint.add(key).add(title).add(description).add(collectionKey).add(tags);
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.collections.descriptors;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * Status and metrics of a job reinterpreting all the descriptor groups.
+ * <p>
+ * The job is partitioned by descriptor group: each group is a partition that is reinterpreted, skipped or failed
+ * independently, and is checkpointed once reinterpreted so a resumed job doesn't reinterpret it again.
+ */
+@Data
+public class DescriptorReinterpretationJob implements Serializable {
+
+  @Schema(description = "Unique key of the job.", accessMode = Schema.AccessMode.READ_ONLY)
+  private UUID key;
+
+  @Schema(description = "State of the job.")
+  private State state;
+
+  @Schema(
+      description =
+          "If true, only the descriptor groups whose verbatim descriptors changed since they were last "
+              + "reinterpreted are reinterpreted.")
+  private boolean incremental;
+
+  @Schema(description = "Maximum number of descriptor groups reinterpreted at the same time.")
+  private int parallelism;
+
+  @Schema(description = "Number of descriptor groups of the job.")
+  private long totalGroups;
+
+  @Schema(description = "Number of descriptor groups reinterpreted.")
+  private long reinterpretedGroups;
+
+  @Schema(
+      description =
+          "Number of descriptor groups skipped because they were unchanged or already reinterpreted before the job "
+              + "was resumed.")
+  private long skippedGroups;
+
+  @Schema(description = "Number of descriptor groups whose reinterpretation failed.")
+  private long failedGroups;
+
+  @Schema(description = "Number of descriptors of the reinterpreted descriptor groups.")
+  private long reinterpretedDescriptors;
+
+  @Schema(description = "Timestamp of when the job was started or last resumed.")
+  private Date started;
+
+  @Schema(description = "Timestamp of when the job finished.")
+  private Date finished;
+
+  @Schema(description = "Errors of the descriptor groups whose reinterpretation failed.")
+  private List<String> errors = new ArrayList<>();
+
+  /**
+   * @return the number of descriptor groups reinterpreted, skipped or failed
+   */
+  public long getProcessedGroups() {
+    return reinterpretedGroups + skippedGroups + failedGroups;
+  }
+
+  /**
+   * @return the number of descriptor groups processed per second since the job was started
+   */
+  public double getGroupsPerSecond() {
+    return perSecond(getProcessedGroups());
+  }
+
+  /**
+   * @return the number of descriptors reinterpreted per second since the job was started
+   */
+  public double getDescriptorsPerSecond() {
+    return perSecond(reinterpretedDescriptors);
+  }
+
+  private double perSecond(long count) {
+    if (started == null) {
+      return 0;
+    }
+    long end = finished != null ? finished.getTime() : System.currentTimeMillis();
+    long millis = Math.max(1, end - started.getTime());
+    return count * 1000d / millis;
+  }
+
+  public enum State {
+    RUNNING,
+    FINISHED,
+    FAILED;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.collections.descriptors;
+
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Persists the progress of {@link DescriptorReinterpretationJob}s so they survive a crash of the process running
+ * them. Implementations must be thread-safe.
+ */
+public interface ReinterpretationCheckpointStore {
+
+  /**
+   * Saves the status of a job.
+   */
+  void saveJob(DescriptorReinterpretationJob job);
+
+  /**
+   * @return the last status saved of a job or null if there is none
+   */
+  @Nullable
+  DescriptorReinterpretationJob getJob(UUID jobKey);
+
+  /**
+   * Records that a job reinterpreted or skipped a descriptor group.
+   */
+  void checkpoint(UUID jobKey, long descriptorGroupKey);
+
+  /**
+   * @return the keys of the descriptor groups checkpointed by a job
+   */
+  Set<Long> getCheckpoints(UUID jobKey);
+
+  /**
+   * Records the fingerprint of the verbatim descriptors of a group when it was reinterpreted.
+   */
+  void saveFingerprint(long descriptorGroupKey, long fingerprint);
+
+  /**
+   * @return the fingerprint of the verbatim descriptors of a group when it was last reinterpreted, or null if it
+   *     never was
+   */
+  @Nullable
+  Long getFingerprint(long descriptorGroupKey);
+}
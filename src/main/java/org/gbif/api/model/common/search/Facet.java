@@ -19,6 +19,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 /**
  * Represents a clustering of search results into categories.
  * Each facet shows the number of hits within the search that match that category.
@@ -26,6 +28,8 @@ import java.util.StringJoiner;
 public class Facet<T extends SearchParameter> {
 
   private T field;
+
+  @JsonSerialize(using = FacetColumn.CountsSerializer.class)
   private List<Count> counts;
 
   /**
@@ -49,6 +53,14 @@ public class Facet<T extends SearchParameter> {
     this.counts = counts;
   }
 
+  /**
+   * Constructor for facets with many categories, with the counts a read only view of the column.
+   */
+  public Facet(T field, FacetColumn column) {
+    this.field = field;
+    this.counts = column.asCounts();
+  }
+
   /**
    * List of the different categories/count for this facet.
    */
@@ -0,0 +1,338 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.common.search;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import jakarta.annotation.Nullable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * The counts of a facet as parallel arrays of names and primitive counts, for facets with many categories. A column
+ * can back a {@link Facet}, whose counts are then created on access only and serialized straight from the arrays.
+ * <p>
+ * The facet order is the usual one of search engines: higher counts first, then names in natural order. Columns are
+ * not thread safe, and should not be modified once behind a facet.
+ */
+public final class FacetColumn {
+
+  private String[] names;
+  private long[] counts;
+  private int size;
+
+  public FacetColumn() {
+    this(16);
+  }
+
+  public FacetColumn(int capacity) {
+    checkArgument(capacity >= 0, "Capacity must not be negative");
+    names = new String[capacity];
+    counts = new long[capacity];
+  }
+
+  /**
+   * @param counts facet counts, null counts are taken as 0
+   */
+  public static FacetColumn of(List<Facet.Count> counts) {
+    FacetColumn column = new FacetColumn(counts.size());
+    for (Facet.Count count : counts) {
+      column.add(count.getName(), count.getCount() == null ? 0 : count.getCount());
+    }
+    return column;
+  }
+
+  public FacetColumn add(@Nullable String name, long count) {
+    if (size == names.length) {
+      int capacity = Math.max(16, size + (size >> 1));
+      names = Arrays.copyOf(names, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+    }
+    names[size] = name;
+    counts[size] = count;
+    size++;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @Nullable
+  public String getName(int index) {
+    checkIndex(index);
+    return names[index];
+  }
+
+  public long getCount(int index) {
+    checkIndex(index);
+    return counts[index];
+  }
+
+  /**
+   * @return the sum of all counts
+   */
+  public long total() {
+    long total = 0;
+    for (int i = 0; i < size; i++) {
+      total += counts[i];
+    }
+    return total;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+  }
+
+  /**
+   * Sorts the column in place in the facet order, in O(n log n) without allocating.
+   *
+   * @return this column
+   */
+  public FacetColumn sort() {
+    // heap sort with the category coming last at the root
+    for (int i = size / 2 - 1; i >= 0; i--) {
+      siftDown(i, size);
+    }
+    for (int end = size - 1; end > 0; end--) {
+      swap(0, end);
+      siftDown(0, end);
+    }
+    return this;
+  }
+
+  private void siftDown(int i, int end) {
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= end) {
+        return;
+      }
+      if (child + 1 < end && before(names, counts, child, child + 1)) {
+        child++;
+      }
+      if (!before(names, counts, i, child)) {
+        return;
+      }
+      swap(i, child);
+      i = child;
+    }
+  }
+
+  private void swap(int i, int j) {
+    String name = names[i];
+    names[i] = names[j];
+    names[j] = name;
+    long count = counts[i];
+    counts[i] = counts[j];
+    counts[j] = count;
+  }
+
+  /**
+   * @return true if category i comes before category j in the facet order
+   */
+  private static boolean before(String[] names, long[] counts, int i, int j) {
+    if (counts[i] != counts[j]) {
+      return counts[i] > counts[j];
+    }
+    String a = names[i];
+    String b = names[j];
+    return a == null ? b != null : b != null && a.compareTo(b) < 0;
+  }
+
+  /**
+   * @return a new sorted column with the first categories in the facet order, in O(n log k)
+   */
+  public FacetColumn top(int k) {
+    checkArgument(k >= 0, "k must not be negative");
+    int kept = Math.min(k, size);
+    // heap of the indexes of the best categories so far, the one coming last at the root
+    int[] heap = new int[kept];
+    for (int i = 0; i < size; i++) {
+      if (i < kept) {
+        heap[i] = i;
+        for (int child = i; child > 0 && before(names, counts, heap[(child - 1) / 2], heap[child]);
+            child = (child - 1) / 2) {
+          int parent = heap[(child - 1) / 2];
+          heap[(child - 1) / 2] = heap[child];
+          heap[child] = parent;
+        }
+      } else if (kept > 0 && before(names, counts, i, heap[0])) {
+        heap[0] = i;
+        for (int parent = 0, child = 1; child < kept; parent = child, child = 2 * child + 1) {
+          if (child + 1 < kept && before(names, counts, heap[child], heap[child + 1])) {
+            child++;
+          }
+          if (!before(names, counts, heap[parent], heap[child])) {
+            break;
+          }
+          int swapped = heap[parent];
+          heap[parent] = heap[child];
+          heap[child] = swapped;
+        }
+      }
+    }
+
+    FacetColumn top = new FacetColumn(kept);
+    for (int index : heap) {
+      top.add(names[index], counts[index]);
+    }
+    return top.sort();
+  }
+
+  /**
+   * Adds up the counts of the categories with the same name, like the facets of the shards of an index.
+   *
+   * @return a new column with the categories in the order they are first seen, to be sorted if needed
+   */
+  public static FacetColumn merge(Collection<FacetColumn> columns) {
+    int total = 0;
+    for (FacetColumn column : columns) {
+      total += column.size;
+    }
+    FacetColumn merged = new FacetColumn(total);
+    // open addressing table of the merged index + 1 by name, 0 for empty slots
+    int[] slots = new int[Integer.highestOneBit(Math.max(1, total) * 2 - 1) << 1];
+    int mask = slots.length - 1;
+    int nullIndex = -1;
+    for (FacetColumn column : columns) {
+      for (int i = 0; i < column.size; i++) {
+        String name = column.names[i];
+        if (name == null) {
+          if (nullIndex < 0) {
+            nullIndex = merged.size;
+            merged.add(null, 0);
+          }
+          merged.counts[nullIndex] += column.counts[i];
+          continue;
+        }
+        int hash = name.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (slots[slot] != 0 && !name.equals(merged.names[slots[slot] - 1])) {
+          slot = (slot + 1) & mask;
+        }
+        if (slots[slot] == 0) {
+          slots[slot] = merged.size + 1;
+          merged.add(name, column.counts[i]);
+        } else {
+          merged.counts[slots[slot] - 1] += column.counts[i];
+        }
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * @return a read only view of the column as facet counts, creating the counts on access
+   */
+  public List<Facet.Count> asCounts() {
+    return new CountList(this);
+  }
+
+  /**
+   * Writes the column as the JSON array of a list of {@link Facet.Count}, without creating the counts.
+   */
+  public void writeJson(JsonGenerator jgen) throws IOException {
+    jgen.writeStartArray(this, size);
+    for (int i = 0; i < size; i++) {
+      jgen.writeStartObject();
+      jgen.writeStringField("name", names[i]);
+      jgen.writeNumberField("count", counts[i]);
+      jgen.writeEndObject();
+    }
+    jgen.writeEndArray();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    FacetColumn that = (FacetColumn) o;
+    return size == that.size
+        && Arrays.equals(names, 0, size, that.names, 0, size)
+        && Arrays.equals(counts, 0, size, that.counts, 0, size);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = size;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + (names[i] == null ? 0 : names[i].hashCode());
+      hash = 31 * hash + Long.hashCode(counts[i]);
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    List<String> categories = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      categories.add(names[i] + "=" + counts[i]);
+    }
+    return "FacetColumn" + categories;
+  }
+
+  /**
+   * Facet counts backed by a column.
+   */
+  private static final class CountList extends AbstractList<Facet.Count> implements RandomAccess {
+
+    private final FacetColumn column;
+
+    private CountList(FacetColumn column) {
+      this.column = column;
+    }
+
+    @Override
+    public Facet.Count get(int index) {
+      return new Facet.Count(column.getName(index), column.getCount(index));
+    }
+
+    @Override
+    public int size() {
+      return column.size;
+    }
+  }
+
+  /**
+   * Jackson {@link JsonSerializer} of facet counts, writing the counts backed by a column straight from its arrays.
+   */
+  public static class CountsSerializer extends JsonSerializer<List<Facet.Count>> {
+
+    @Override
+    public void serialize(List<Facet.Count> value, JsonGenerator jgen, SerializerProvider provider)
+        throws IOException {
+      if (value instanceof CountList) {
+        ((CountList) value).column.writeJson(jgen);
+      } else {
+        provider.defaultSerializeValue(value, jgen);
+      }
+    }
+  }
+}
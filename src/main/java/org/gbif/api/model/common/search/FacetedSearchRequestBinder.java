@@ -0,0 +1,434 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.common.search;
+
+import org.gbif.api.model.common.paging.Pageable;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+import org.gbif.api.util.SearchTypeValidator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.model.common.paging.PagingConstants.PARAM_LIMIT;
+import static org.gbif.api.model.common.paging.PagingConstants.PARAM_OFFSET;
+import static org.gbif.api.model.common.search.SearchConstants.QUERY_PARAM;
+
+/**
+ * Binds HTTP query parameters to a {@link FacetedSearchRequest} in a single pass, validating the filter values with
+ * {@link SearchTypeValidator} on the way and reporting all the invalid parameters at once.
+ * <p>
+ * Besides the search parameters, matched by name ignoring case, dots, spaces, underscores and hyphens, the binder
+ * reads {@code q}, {@code hl}, {@code spellCheck}, {@code spellCheckCount}, {@code limit}, {@code offset},
+ * {@code matchCase}, {@code shuffle} and the facet parameters of {@link FacetedSearchRequest.FacetParameters}, with
+ * the paging of a single facet given as {@code <facet>.facetLimit} and {@code <facet>.facetOffset}. Other parameters
+ * are ignored, as are empty values.
+ */
+@ThreadSafe
+public class FacetedSearchRequestBinder<P extends SearchParameter, R extends FacetedSearchRequest<P>> {
+
+  public static final String HIGHLIGHT_PARAM = "hl";
+  public static final String SPELL_CHECK_PARAM = "spellCheck";
+  public static final String SPELL_CHECK_COUNT_PARAM = "spellCheckCount";
+  public static final String MATCH_CASE_PARAM = "matchCase";
+  public static final String SHUFFLE_PARAM = "shuffle";
+  public static final String FACET_PARAM = "facet";
+  public static final String FACET_MULTISELECT_PARAM = "facetMultiselect";
+  public static final String FACET_MIN_COUNT_PARAM = "facetMinCount";
+  public static final String FACET_LIMIT_PARAM = "facetLimit";
+  public static final String FACET_OFFSET_PARAM = "facetOffset";
+
+  private static final String FACET_LIMIT_SUFFIX = "." + FACET_LIMIT_PARAM;
+  private static final String FACET_OFFSET_SUFFIX = "." + FACET_OFFSET_PARAM;
+
+  private static final FacetedSearchRequestBinder<OccurrenceSearchParameter, OccurrenceSearchRequest> OCCURRENCE =
+      new FacetedSearchRequestBinder<>(OccurrenceSearchParameter::lookup, OccurrenceSearchRequest::new);
+
+  private final Function<String, Optional<P>> lookup;
+  private final Supplier<R> requestFactory;
+
+  /**
+   * @param lookup finds the search parameters by their names, called for every parameter so it should be fast
+   * @param requestFactory creates the empty requests
+   */
+  public FacetedSearchRequestBinder(Function<String, Optional<P>> lookup, Supplier<R> requestFactory) {
+    this.lookup = lookup;
+    this.requestFactory = requestFactory;
+  }
+
+  /**
+   * @return the binder of occurrence search requests
+   */
+  public static FacetedSearchRequestBinder<OccurrenceSearchParameter, OccurrenceSearchRequest> occurrence() {
+    return OCCURRENCE;
+  }
+
+  /**
+   * @param parameters values by parameter name, like the servlet or Spring request parameters
+   * @throws BindingException listing all the invalid parameters
+   */
+  public R bind(Map<String, ? extends Iterable<String>> parameters) {
+    Binding binding = new Binding(parameters.size());
+    for (Map.Entry<String, ? extends Iterable<String>> entry : parameters.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        int values = entry.getValue() instanceof Collection ? ((Collection<?>) entry.getValue()).size() : 1;
+        for (String value : entry.getValue()) {
+          binding.accept(entry.getKey(), value, values);
+        }
+      }
+    }
+    return binding.build();
+  }
+
+  /**
+   * @param queryString URL encoded query string, with or without the leading {@code ?}
+   * @throws BindingException listing all the invalid parameters
+   */
+  public R bindQueryString(@Nullable String queryString) {
+    if (queryString == null) {
+      return new Binding(0).build();
+    }
+    int length = queryString.length();
+    int pairs = 1;
+    for (int i = 0; i < length; i++) {
+      if (queryString.charAt(i) == '&') {
+        pairs++;
+      }
+    }
+
+    Binding binding = new Binding(pairs);
+    int start = length > 0 && queryString.charAt(0) == '?' ? 1 : 0;
+    while (start < length) {
+      int end = queryString.indexOf('&', start);
+      if (end < 0) {
+        end = length;
+      }
+      if (end > start) {
+        int equals = queryString.indexOf('=', start);
+        if (equals < 0 || equals > end) {
+          equals = end;
+        }
+        String name = decode(queryString, start, equals);
+        String value = equals < end ? decode(queryString, equals + 1, end) : "";
+        if (name == null || value == null) {
+          binding.error("Malformed query parameter " + queryString.substring(start, end));
+        } else {
+          binding.accept(name, value, 1);
+        }
+      }
+      start = end + 1;
+    }
+    return binding.build();
+  }
+
+  /**
+   * URL decodes a part of the query string, without copying when there is nothing to decode.
+   *
+   * @return the decoded string or null if malformed
+   */
+  @Nullable
+  private static String decode(String s, int from, int to) {
+    int i = from;
+    while (i < to && s.charAt(i) != '%' && s.charAt(i) != '+') {
+      i++;
+    }
+    if (i == to) {
+      return s.substring(from, to);
+    }
+
+    StringBuilder decoded = new StringBuilder(to - from).append(s, from, i);
+    byte[] bytes = null;
+    while (i < to) {
+      char c = s.charAt(i);
+      if (c == '+') {
+        decoded.append(' ');
+        i++;
+      } else if (c == '%') {
+        // consecutive escapes are decoded together as they can form a multi byte character
+        if (bytes == null) {
+          bytes = new byte[(to - i) / 3];
+        }
+        int n = 0;
+        while (i < to && s.charAt(i) == '%') {
+          int high = i + 2 < to ? Character.digit(s.charAt(i + 1), 16) : -1;
+          int low = high >= 0 ? Character.digit(s.charAt(i + 2), 16) : -1;
+          if (low < 0) {
+            return null;
+          }
+          bytes[n++] = (byte) ((high << 4) | low);
+          i += 3;
+        }
+        decoded.append(new String(bytes, 0, n, StandardCharsets.UTF_8));
+      } else {
+        decoded.append(c);
+        i++;
+      }
+    }
+    return decoded.toString();
+  }
+
+  /**
+   * The state of a single binding.
+   */
+  private class Binding {
+
+    private final Map<P, Set<String>> parameters;
+    private final Set<P> facets = new HashSet<>();
+    // offset and limit of single facets, -1 if not given
+    private Map<P, int[]> facetPaging;
+    private List<String> errors;
+
+    private String q;
+    private Boolean highlight;
+    private Boolean spellCheck;
+    private Integer spellCheckCount;
+    private Integer limit;
+    private Long offset;
+    private Boolean matchCase;
+    private String shuffle;
+    private Boolean facetMultiSelect;
+    private Integer facetMinCount;
+    private Integer facetLimit;
+    private Integer facetOffset;
+
+    private Binding(int expectedParameters) {
+      parameters = new HashMap<>(capacity(expectedParameters));
+    }
+
+    private void accept(String name, @Nullable String value, int expectedValues) {
+      if (value == null || value.isEmpty()) {
+        return;
+      }
+      switch (name) {
+        case QUERY_PARAM:
+          q = value;
+          break;
+        case HIGHLIGHT_PARAM:
+          highlight = parseBoolean(name, value);
+          break;
+        case SPELL_CHECK_PARAM:
+          spellCheck = parseBoolean(name, value);
+          break;
+        case SPELL_CHECK_COUNT_PARAM:
+          spellCheckCount = parseInt(name, value);
+          break;
+        case PARAM_LIMIT:
+          limit = parseInt(name, value);
+          break;
+        case PARAM_OFFSET:
+          offset = parseLong(name, value);
+          break;
+        case MATCH_CASE_PARAM:
+          matchCase = parseBoolean(name, value);
+          break;
+        case SHUFFLE_PARAM:
+          shuffle = value;
+          break;
+        case FACET_PARAM:
+          Optional<P> facet = lookup.apply(value);
+          if (facet.isPresent()) {
+            facets.add(facet.get());
+          } else {
+            error("Unknown facet " + value);
+          }
+          break;
+        case FACET_MULTISELECT_PARAM:
+          facetMultiSelect = parseBoolean(name, value);
+          break;
+        case FACET_MIN_COUNT_PARAM:
+          facetMinCount = parseInt(name, value);
+          break;
+        case FACET_LIMIT_PARAM:
+          facetLimit = parseInt(name, value);
+          break;
+        case FACET_OFFSET_PARAM:
+          facetOffset = parseInt(name, value);
+          break;
+        default:
+          if (name.endsWith(FACET_LIMIT_SUFFIX)) {
+            acceptFacetPaging(name, name.length() - FACET_LIMIT_SUFFIX.length(), 1, value);
+          } else if (name.endsWith(FACET_OFFSET_SUFFIX)) {
+            acceptFacetPaging(name, name.length() - FACET_OFFSET_SUFFIX.length(), 0, value);
+          } else {
+            lookup.apply(name).ifPresent(parameter -> acceptFilter(parameter, value, expectedValues));
+          }
+      }
+    }
+
+    private void acceptFilter(P parameter, String value, int expectedValues) {
+      try {
+        SearchTypeValidator.validate(parameter, value);
+      } catch (IllegalArgumentException e) {
+        error("Invalid value " + value + " for parameter " + parameter.name());
+        return;
+      }
+      Set<String> values = parameters.get(parameter);
+      if (values == null) {
+        values = new HashSet<>(capacity(expectedValues));
+        parameters.put(parameter, values);
+      }
+      values.add(value);
+    }
+
+    private void acceptFacetPaging(String name, int facetNameLength, int index, String value) {
+      Optional<P> facet = lookup.apply(name.substring(0, facetNameLength));
+      Integer paging = parseInt(name, value);
+      if (!facet.isPresent()) {
+        error("Unknown facet " + name.substring(0, facetNameLength));
+      } else if (paging != null) {
+        if (facetPaging == null) {
+          facetPaging = new HashMap<>();
+        }
+        facetPaging.computeIfAbsent(facet.get(), f -> new int[] {-1, -1})[index] = paging;
+      }
+    }
+
+    @Nullable
+    private Boolean parseBoolean(String name, String value) {
+      if ("true".equalsIgnoreCase(value)) {
+        return Boolean.TRUE;
+      } else if ("false".equalsIgnoreCase(value)) {
+        return Boolean.FALSE;
+      }
+      error("Invalid value " + value + " for parameter " + name + ", expected true or false");
+      return null;
+    }
+
+    @Nullable
+    private Integer parseInt(String name, String value) {
+      Long parsed = parseLong(name, value);
+      if (parsed != null && parsed > Integer.MAX_VALUE) {
+        error("Invalid value " + value + " for parameter " + name + ", too large");
+        return null;
+      }
+      return parsed == null ? null : parsed.intValue();
+    }
+
+    @Nullable
+    private Long parseLong(String name, String value) {
+      try {
+        long parsed = Long.parseLong(value);
+        if (parsed >= 0) {
+          return parsed;
+        }
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      error("Invalid value " + value + " for parameter " + name + ", expected a non negative integer");
+      return null;
+    }
+
+    private void error(String error) {
+      if (errors == null) {
+        errors = new ArrayList<>();
+      }
+      errors.add(error);
+    }
+
+    private R build() {
+      if (errors != null) {
+        throw new BindingException(errors);
+      }
+      R request = requestFactory.get();
+      request.setParameters(parameters);
+      request.setFacets(facets);
+      if (q != null) {
+        request.setQ(q);
+      }
+      if (highlight != null) {
+        request.setHighlight(highlight);
+      }
+      if (spellCheck != null) {
+        request.setSpellCheck(spellCheck);
+      }
+      if (spellCheckCount != null) {
+        request.setSpellCheckCount(spellCheckCount);
+      }
+      if (limit != null) {
+        request.setLimit(limit);
+      }
+      if (offset != null) {
+        request.setOffset(offset);
+      }
+      if (matchCase != null) {
+        request.setMatchCase(matchCase);
+      }
+      if (shuffle != null) {
+        request.setShuffle(shuffle);
+      }
+      if (facetMultiSelect != null) {
+        request.setFacetMultiSelect(facetMultiSelect);
+      }
+      if (facetMinCount != null) {
+        request.setFacetMinCount(facetMinCount);
+      }
+      if (facetLimit != null) {
+        request.setFacetLimit(facetLimit);
+      }
+      if (facetOffset != null) {
+        request.setFacetOffset(facetOffset);
+      }
+      if (facetPaging != null) {
+        Map<P, Pageable> facetPages = new HashMap<>(capacity(facetPaging.size()));
+        request.setFacetPages(facetPages);
+        for (Map.Entry<P, int[]> paging : facetPaging.entrySet()) {
+          // the paging of facets that are not requested is ignored
+          if (facets.contains(paging.getKey())) {
+            int[] offsetAndLimit = paging.getValue();
+            request.addFacetPage(
+                paging.getKey(),
+                offsetAndLimit[0] >= 0 ? offsetAndLimit[0] : (facetOffset != null ? facetOffset : 0),
+                offsetAndLimit[1] >= 0 ? offsetAndLimit[1] : request.getFacetLimit());
+          }
+        }
+      }
+      return request;
+    }
+  }
+
+  private static int capacity(int expectedSize) {
+    return expectedSize < 3 ? 4 : (int) (expectedSize / 0.75f) + 1;
+  }
+
+  /**
+   * Thrown when some parameters are invalid, listing them all.
+   */
+  public static class BindingException extends IllegalArgumentException {
+
+    private final List<String> errors;
+
+    public BindingException(List<String> errors) {
+      super(String.join("; ", errors));
+      this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    public List<String> getErrors() {
+      return errors;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.common.search;
+
+import org.gbif.api.model.common.paging.Pageable;
+import org.gbif.api.model.common.paging.PagingRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Scatter-gather of faceted searches over several indices (shards) holding disjoint parts of the records.
+ * <p>
+ * Each shard is asked for the first {@code offset + limit} hits and for more facet categories than requested, see
+ * {@link #shardRequest}. The shard responses are then merged with {@link #merge}: hits by a k-way merge, counts and
+ * facet counts added up, the facet min count and paging applied to the merged facets.
+ * <p>
+ * A category missing from the truncated facet of a shard may still have a count up to the smallest count of that
+ * facet, so the merged facet counts of truncated shards are approximate. As for the terms aggregations of
+ * Elasticsearch, the merged response comes with an upper bound of the count missed for any category of each facet,
+ * which is 0 when no shard truncated the facet.
+ */
+public final class SearchResponseMerger {
+
+  private SearchResponseMerger() {}
+
+  /**
+   * @return the number of categories asked from each shard for a facet page, more than the page to reduce the error
+   */
+  public static int shardFacetLimit(long facetOffset, int facetLimit) {
+    long limit = (facetOffset + facetLimit) * 3 / 2 + 10;
+    return (int) Math.min(Integer.MAX_VALUE, limit);
+  }
+
+  /**
+   * Copies a search request into the request to send to every shard, starting the hits and facets at 0.
+   *
+   * @param requestFactory creates the empty shard request, of the same type as the request
+   */
+  public static <P extends SearchParameter, R extends FacetedSearchRequest<P>> R shardRequest(
+      R request, Supplier<R> requestFactory) {
+    R shardRequest = requestFactory.get();
+    Map<P, Set<String>> parameters = new HashMap<>();
+    request.getParameters().forEach((parameter, values) -> parameters.put(parameter, new HashSet<>(values)));
+    shardRequest.setParameters(parameters);
+    shardRequest.setQ(request.getQ());
+    shardRequest.setHighlight(request.isHighlight());
+    shardRequest.setHighlightFields(request.getHighlightFields());
+    shardRequest.setQFields(request.getQFields());
+    shardRequest.setSpellCheck(request.isSpellCheck());
+    shardRequest.setSpellCheckCount(request.getSpellCheckCount());
+    shardRequest.setMatchCase(request.isMatchCase());
+    shardRequest.setShuffle(request.getShuffle());
+    shardRequest.setOffset(0);
+    shardRequest.setLimit((int) Math.min(Integer.MAX_VALUE, request.getOffset() + request.getLimit()));
+
+    shardRequest.setFacets(request.getFacets() == null ? new HashSet<>() : new HashSet<>(request.getFacets()));
+    shardRequest.setFacetMultiSelect(request.isFacetMultiSelect());
+    // a category under the min count in every shard can reach it once merged
+    Integer minCount = request.getFacetMinCount();
+    shardRequest.setFacetMinCount(minCount == null ? null : Math.min(minCount, 1));
+    Pageable page = facetPage(request, null);
+    shardRequest.setFacetOffset(0);
+    shardRequest.setFacetLimit(shardFacetLimit(page.getOffset(), page.getLimit()));
+    Map<P, Pageable> facetPages = new HashMap<>();
+    if (request.getFacetPages() != null) {
+      request.getFacetPages().forEach(
+          (facet, facetPage) ->
+              facetPages.put(
+                  facet, new PagingRequest(0, shardFacetLimit(facetPage.getOffset(), facetPage.getLimit()))));
+    }
+    shardRequest.setFacetPages(facetPages);
+    return shardRequest;
+  }
+
+  /**
+   * Merges the responses of the shards to the shard request of a request.
+   *
+   * @param request the request, not the shard request
+   * @param shardResponses the responses of the shards
+   * @param hitOrder the order the shards sort the hits in, or null to interleave the hits of the shards
+   */
+  public static <T, P extends SearchParameter> Merged<T, P> merge(
+      FacetedSearchRequest<P> request,
+      List<? extends SearchResponse<T, P>> shardResponses,
+      @Nullable Comparator<? super T> hitOrder) {
+    SearchResponse<T, P> response = new SearchResponse<>(request.getOffset(), request.getLimit());
+
+    Long count = null;
+    for (SearchResponse<T, P> shardResponse : shardResponses) {
+      if (shardResponse.getCount() != null) {
+        count = (count == null ? 0 : count) + shardResponse.getCount();
+      }
+    }
+    response.setCount(count);
+    response.setResults(mergeHits(shardResponses, hitOrder, request.getOffset(), request.getLimit()));
+
+    // facets in the order of the first shard returning them
+    Map<P, List<Facet<P>>> shardFacets = new LinkedHashMap<>();
+    for (SearchResponse<T, P> shardResponse : shardResponses) {
+      for (Facet<P> facet : shardResponse.getFacets()) {
+        if (facet.getField() != null && facet.getCounts() != null) {
+          shardFacets.computeIfAbsent(facet.getField(), f -> new ArrayList<>()).add(facet);
+        }
+      }
+    }
+    Map<P, Long> errorBounds = new HashMap<>();
+    List<Facet<P>> facets = new ArrayList<>(shardFacets.size());
+    for (Map.Entry<P, List<Facet<P>>> entry : shardFacets.entrySet()) {
+      Pageable page = facetPage(request, entry.getKey());
+      int shardLimit = shardFacetLimit(page.getOffset(), page.getLimit());
+
+      List<FacetColumn> columns = new ArrayList<>(entry.getValue().size());
+      long errorBound = 0;
+      for (Facet<P> facet : entry.getValue()) {
+        FacetColumn column = FacetColumn.of(facet.getCounts());
+        columns.add(column);
+        if (column.size() >= shardLimit) {
+          long smallest = Long.MAX_VALUE;
+          for (int i = 0; i < column.size(); i++) {
+            smallest = Math.min(smallest, column.getCount(i));
+          }
+          errorBound += smallest;
+        }
+      }
+      errorBounds.put(entry.getKey(), errorBound);
+
+      FacetColumn merged = FacetColumn.merge(columns);
+      long minCount = request.getFacetMinCount() == null ? 0 : request.getFacetMinCount();
+      FacetColumn counted = new FacetColumn(merged.size());
+      for (int i = 0; i < merged.size(); i++) {
+        if (merged.getCount(i) >= minCount) {
+          counted.add(merged.getName(i), merged.getCount(i));
+        }
+      }
+      FacetColumn top = counted.top((int) Math.min(Integer.MAX_VALUE, page.getOffset() + page.getLimit()));
+      FacetColumn paged = new FacetColumn(top.size());
+      for (int i = (int) Math.min(page.getOffset(), top.size()); i < top.size(); i++) {
+        paged.add(top.getName(i), top.getCount(i));
+      }
+      if (paged.size() > 0) {
+        facets.add(new Facet<>(entry.getKey(), paged));
+      }
+    }
+    response.setFacets(facets);
+    return new Merged<>(response, errorBounds);
+  }
+
+  private static <T> List<T> mergeHits(
+      List<? extends SearchResponse<T, ?>> shardResponses,
+      @Nullable Comparator<? super T> hitOrder,
+      long offset,
+      int limit) {
+    List<T> hits = new ArrayList<>(limit);
+    long skipped = 0;
+    if (hitOrder == null) {
+      for (int rank = 0; hits.size() < limit; rank++) {
+        boolean more = false;
+        for (SearchResponse<T, ?> shardResponse : shardResponses) {
+          List<T> results = shardResponse.getResults();
+          if (results != null && rank < results.size()) {
+            more = true;
+            if (skipped < offset) {
+              skipped++;
+            } else if (hits.size() < limit) {
+              hits.add(results.get(rank));
+            }
+          }
+        }
+        if (!more) {
+          break;
+        }
+      }
+      return hits;
+    }
+
+    // cursors on the shard results, ordered by their current hit
+    PriorityQueue<int[]> cursors =
+        new PriorityQueue<>(
+            Math.max(1, shardResponses.size()),
+            (a, b) -> {
+              int order =
+                  hitOrder.compare(
+                      shardResponses.get(a[0]).getResults().get(a[1]),
+                      shardResponses.get(b[0]).getResults().get(b[1]));
+              // ties in shard order
+              return order != 0 ? order : Integer.compare(a[0], b[0]);
+            });
+    for (int shard = 0; shard < shardResponses.size(); shard++) {
+      List<T> results = shardResponses.get(shard).getResults();
+      if (results != null && !results.isEmpty()) {
+        cursors.add(new int[] {shard, 0});
+      }
+    }
+    while (hits.size() < limit && !cursors.isEmpty()) {
+      int[] cursor = cursors.poll();
+      List<T> results = shardResponses.get(cursor[0]).getResults();
+      if (skipped < offset) {
+        skipped++;
+      } else {
+        hits.add(results.get(cursor[1]));
+      }
+      if (++cursor[1] < results.size()) {
+        cursors.add(cursor);
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * @return the page of a facet, or of all facets for a null facet
+   */
+  private static <P extends SearchParameter> Pageable facetPage(FacetedSearchRequest<P> request, @Nullable P facet) {
+    Pageable page = facet == null || request.getFacetPages() == null ? null : request.getFacetPages().get(facet);
+    if (page != null) {
+      return page;
+    }
+    return new PagingRequest(
+        request.getFacetOffset() == null ? 0 : request.getFacetOffset(),
+        request.getFacetLimit() == null ? 10 : request.getFacetLimit());
+  }
+
+  /**
+   * A merged response with the error bounds of its facets.
+   */
+  public static final class Merged<T, P extends SearchParameter> {
+
+    private final SearchResponse<T, P> response;
+    private final Map<P, Long> facetErrorBounds;
+
+    private Merged(SearchResponse<T, P> response, Map<P, Long> facetErrorBounds) {
+      this.response = response;
+      this.facetErrorBounds = Collections.unmodifiableMap(facetErrorBounds);
+    }
+
+    public SearchResponse<T, P> getResponse() {
+      return response;
+    }
+
+    /**
+     * @return the most a category of the facet may be undercounted, or missed from the facet, 0 for exact facets
+     */
+    public long getFacetErrorBound(P facet) {
+      return facetErrorBounds.getOrDefault(facet, 0L);
+    }
+
+    /**
+     * @return true if no facet was truncated by a shard
+     */
+    public boolean isExact() {
+      return facetErrorBounds.values().stream().allMatch(bound -> bound == 0);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.crawler;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+import jakarta.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Collects the counters of a {@link DatasetProcessStatus} from many worker threads without locking.
+ * <p/>
+ * Every counter is backed by a {@link LongAdder}, so concurrent updates from the crawl threads don't contend on a
+ * single field. The other attributes of the status (crawl job, dates, process states etc.) change rarely and are
+ * updated through {@link #updateAttributes(Consumer)}.
+ * <p/>
+ * Snapshots read every counter once. The counters only grow, so each value in a snapshot is at least the value of
+ * the previous snapshot and the deltas returned by {@link #delta()} always add up to the totals, but a snapshot taken
+ * while workers are updating isn't an atomic cut across all counters.
+ */
+@ThreadSafe
+public class DatasetProcessStatusAccumulator {
+
+  /**
+   * The counters of a {@link DatasetProcessStatus}.
+   */
+  public enum Counter {
+    PAGES_CRAWLED(DatasetProcessStatus::getPagesCrawled, DatasetProcessStatus.Builder::pagesCrawled),
+    PAGES_FRAGMENTED_SUCCESSFUL(
+      DatasetProcessStatus::getPagesFragmentedSuccessful, DatasetProcessStatus.Builder::pagesFragmentedSuccessful),
+    PAGES_FRAGMENTED_ERROR(DatasetProcessStatus::getPagesFragmentedError, DatasetProcessStatus.Builder::pagesFragmentedError),
+    FRAGMENTS_EMITTED(DatasetProcessStatus::getFragmentsEmitted, DatasetProcessStatus.Builder::fragmentsEmitted),
+    FRAGMENTS_RECEIVED(DatasetProcessStatus::getFragmentsReceived, DatasetProcessStatus.Builder::fragmentsReceived),
+    RAW_OCCURRENCES_PERSISTED_NEW(
+      DatasetProcessStatus::getRawOccurrencesPersistedNew, DatasetProcessStatus.Builder::rawOccurrencesPersistedNew),
+    RAW_OCCURRENCES_PERSISTED_UPDATED(
+      DatasetProcessStatus::getRawOccurrencesPersistedUpdated, DatasetProcessStatus.Builder::rawOccurrencesPersistedUpdated),
+    RAW_OCCURRENCES_PERSISTED_UNCHANGED(
+      DatasetProcessStatus::getRawOccurrencesPersistedUnchanged,
+      DatasetProcessStatus.Builder::rawOccurrencesPersistedUnchanged),
+    RAW_OCCURRENCES_PERSISTED_ERROR(
+      DatasetProcessStatus::getRawOccurrencesPersistedError, DatasetProcessStatus.Builder::rawOccurrencesPersistedError),
+    FRAGMENTS_PROCESSED(DatasetProcessStatus::getFragmentsProcessed, DatasetProcessStatus.Builder::fragmentsProcessed),
+    VERBATIM_OCCURRENCES_PERSISTED_SUCCESSFUL(
+      DatasetProcessStatus::getVerbatimOccurrencesPersistedSuccessful,
+      DatasetProcessStatus.Builder::verbatimOccurrencesPersistedSuccessful),
+    VERBATIM_OCCURRENCES_PERSISTED_ERROR(
+      DatasetProcessStatus::getVerbatimOccurrencesPersistedError,
+      DatasetProcessStatus.Builder::verbatimOccurrencesPersistedError),
+    INTERPRETED_OCCURRENCES_PERSISTED_SUCCESSFUL(
+      DatasetProcessStatus::getInterpretedOccurrencesPersistedSuccessful,
+      DatasetProcessStatus.Builder::interpretedOccurrencesPersistedSuccessful),
+    INTERPRETED_OCCURRENCES_PERSISTED_ERROR(
+      DatasetProcessStatus::getInterpretedOccurrencesPersistedError,
+      DatasetProcessStatus.Builder::interpretedOccurrencesPersistedError);
+
+    private final ToLongFunction<DatasetProcessStatus> getter;
+    private final ObjLongConsumer<DatasetProcessStatus.Builder> setter;
+
+    Counter(ToLongFunction<DatasetProcessStatus> getter, ObjLongConsumer<DatasetProcessStatus.Builder> setter) {
+      this.getter = getter;
+      this.setter = setter;
+    }
+
+    /**
+     * @return the value of this counter in the given status
+     */
+    public long get(DatasetProcessStatus status) {
+      return getter.applyAsLong(status);
+    }
+  }
+
+  private static final Counter[] COUNTERS = Counter.values();
+
+  private final LongAdder[] counters = new LongAdder[COUNTERS.length];
+
+  // guarded by this
+  private final DatasetProcessStatus attributes = new DatasetProcessStatus();
+  // guarded by this, totals at the time of the last delta
+  private final long[] lastDelta = new long[COUNTERS.length];
+
+  /**
+   * Creates an accumulator for the crawl of a dataset with all the counters set to zero.
+   */
+  public DatasetProcessStatusAccumulator(CrawlJob crawlJob) {
+    Objects.requireNonNull(crawlJob, "crawlJob can't be null");
+    attributes.setDatasetKey(crawlJob.getDatasetKey());
+    attributes.setCrawlJob(crawlJob);
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Creates an accumulator that continues from an existing status, e.g. one read back after a restart. The counters
+   * of the status are the starting values and are not reported again by {@link #delta()}.
+   */
+  public DatasetProcessStatusAccumulator(DatasetProcessStatus status) {
+    this(Objects.requireNonNull(status, "status can't be null").getCrawlJob());
+    copyAttributes(status, attributes);
+    for (Counter counter : COUNTERS) {
+      long value = counter.get(status);
+      counters[counter.ordinal()].add(value);
+      lastDelta[counter.ordinal()] = value;
+    }
+  }
+
+  public void increment(Counter counter) {
+    counters[counter.ordinal()].increment();
+  }
+
+  /**
+   * Adds to a counter. Counters never decrease, so the value has to be greater than or equal to zero.
+   */
+  public void add(Counter counter, long value) {
+    checkArgument(value >= 0, "counters can only be increased");
+    counters[counter.ordinal()].add(value);
+  }
+
+  /**
+   * @return the current total of a counter
+   */
+  public long get(Counter counter) {
+    return counters[counter.ordinal()].sum();
+  }
+
+  /**
+   * Changes the non counter attributes of the status, like the process states or the finish reason. The counters of
+   * the status passed to the updater are not used.
+   */
+  public synchronized void updateAttributes(Consumer<DatasetProcessStatus> updater) {
+    updater.accept(attributes);
+  }
+
+  /**
+   * @return the current status with the totals of all counters
+   */
+  public synchronized DatasetProcessStatus snapshot() {
+    DatasetProcessStatus.Builder builder = builder();
+    for (Counter counter : COUNTERS) {
+      counter.setter.accept(builder, counters[counter.ordinal()].sum());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the current status with every counter holding only the increase since the previous call to this method,
+   * so it can be used to publish throttled updates.
+   *
+   * @return the status with the counter increases or null if no counter changed since the previous call
+   */
+  @Nullable
+  public synchronized DatasetProcessStatus delta() {
+    DatasetProcessStatus.Builder builder = builder();
+    boolean changed = false;
+    for (Counter counter : COUNTERS) {
+      int idx = counter.ordinal();
+      long total = counters[idx].sum();
+      long increase = total - lastDelta[idx];
+      lastDelta[idx] = total;
+      changed |= increase != 0;
+      counter.setter.accept(builder, increase);
+    }
+    return changed ? builder.build() : null;
+  }
+
+  private DatasetProcessStatus.Builder builder() {
+    return DatasetProcessStatus.builder()
+      .datasetKey(attributes.getDatasetKey())
+      .crawlJob(attributes.getCrawlJob())
+      .crawlContext(attributes.getCrawlContext())
+      .startedCrawling(attributes.getStartedCrawling())
+      .finishedCrawling(attributes.getFinishedCrawling())
+      .finishReason(attributes.getFinishReason())
+      .processStateOccurrence(attributes.getProcessStateOccurrence())
+      .processStateChecklist(attributes.getProcessStateChecklist())
+      .processStateSample(attributes.getProcessStateSample())
+      .declaredCount(attributes.getDeclaredCount());
+  }
+
+  private static void copyAttributes(DatasetProcessStatus from, DatasetProcessStatus to) {
+    to.setDatasetKey(from.getDatasetKey());
+    to.setCrawlJob(from.getCrawlJob());
+    to.setCrawlContext(from.getCrawlContext());
+    to.setStartedCrawling(from.getStartedCrawling());
+    to.setFinishedCrawling(from.getFinishedCrawling());
+    to.setFinishReason(from.getFinishReason());
+    to.setProcessStateOccurrence(from.getProcessStateOccurrence());
+    to.setProcessStateChecklist(from.getProcessStateChecklist());
+    to.setProcessStateSample(from.getProcessStateSample());
+    to.setDeclaredCount(from.getDeclaredCount());
+  }
+}
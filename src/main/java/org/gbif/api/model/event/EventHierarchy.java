@@ -0,0 +1,368 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.event;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * In-memory index of the hierarchy of the events of a dataset, as given by their {@code eventID} and
+ * {@code parentEventID}, for example site, plot, subplot and sample events.
+ * <p>
+ * Event IDs are interned to consecutive ints, and the tree is kept in int arrays: the parent of every event, the
+ * children of every event, and the events in pre-order, in which the descendants of an event directly follow it.
+ * An event is thus an ancestor of another if the pre-order position of the latter falls in the interval of the
+ * former, checked in O(1), and the k descendants of an event are a view of k consecutive positions.
+ * <p>
+ * A parent event ID without an event of its own is kept as a root event without type. The index is immutable and
+ * built with a {@link Builder}.
+ */
+@ThreadSafe
+public final class EventHierarchy {
+
+  private final Map<String, Integer> ids;
+  private final String[] eventIDs;
+  private final String[] eventTypes;
+  private final int[] parents;
+  private final int[] depths;
+  // children of event i are children[childStarts[i + 1]] to children[childStarts[i + 2] - 1], the roots come first
+  private final int[] childStarts;
+  private final int[] children;
+  private final int roots;
+  // events in pre-order, and the pre-order interval [starts[i], ends[i]) of event i and its descendants
+  private final int[] preOrder;
+  private final int[] starts;
+  private final int[] ends;
+
+  private EventHierarchy(Map<String, Integer> ids, String[] eventIDs, String[] eventTypes, int[] parents) {
+    this.ids = ids;
+    this.eventIDs = eventIDs;
+    this.eventTypes = eventTypes;
+    this.parents = parents;
+    int size = eventIDs.length;
+
+    // counting sort of the events by parent, the roots under the virtual parent -1
+    childStarts = new int[size + 2];
+    for (int parent : parents) {
+      childStarts[parent + 2]++;
+    }
+    for (int i = 1; i < childStarts.length; i++) {
+      childStarts[i] += childStarts[i - 1];
+    }
+    roots = childStarts[1];
+    children = new int[size];
+    int[] next = Arrays.copyOf(childStarts, size + 1);
+    for (int i = 0; i < size; i++) {
+      children[next[parents[i] + 1]++] = i;
+    }
+
+    // iterative depth first traversal, deep hierarchies must not overflow the stack
+    preOrder = new int[size];
+    starts = new int[size];
+    ends = new int[size];
+    depths = new int[size];
+    Arrays.fill(starts, -1);
+    int[] stack = new int[size];
+    int top = 0;
+    for (int i = roots - 1; i >= 0; i--) {
+      stack[top++] = children[i];
+    }
+    int visited = 0;
+    while (top > 0) {
+      int event = stack[--top];
+      starts[event] = visited;
+      preOrder[visited++] = event;
+      depths[event] = parents[event] < 0 ? 0 : depths[parents[event]] + 1;
+      for (int c = childStarts[event + 2] - 1; c >= childStarts[event + 1]; c--) {
+        stack[top++] = children[c];
+      }
+    }
+    if (visited < size) {
+      // events in a cycle have no root and are never reached
+      for (int i = 0; i < size; i++) {
+        checkArgument(starts[i] >= 0, "Cycle in the parents of event " + eventIDs[i]);
+      }
+    }
+    // subtree sizes added up from the leaves
+    for (int i = 0; i < size; i++) {
+      ends[i] = 1;
+    }
+    for (int p = size - 1; p >= 0; p--) {
+      int event = preOrder[p];
+      if (parents[event] >= 0) {
+        ends[parents[event]] += ends[event];
+      }
+      ends[event] += starts[event];
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return the hierarchy of the given events
+   * @throws IllegalArgumentException if an event has no ID, an ID is used twice or the parents form a cycle
+   */
+  public static EventHierarchy of(Iterable<? extends Event> events) {
+    Builder builder = new Builder();
+    for (Event event : events) {
+      builder.add(event);
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the number of events, including the parents without an event
+   */
+  public int size() {
+    return eventIDs.length;
+  }
+
+  public boolean contains(@Nullable String eventID) {
+    return eventID != null && ids.containsKey(eventID);
+  }
+
+  /**
+   * @return the event IDs of the events without parent
+   */
+  public List<String> getRoots() {
+    return new EventIDList(children, 0, roots);
+  }
+
+  @Nullable
+  public String getParentEventID(String eventID) {
+    int parent = parents[index(eventID)];
+    return parent < 0 ? null : eventIDs[parent];
+  }
+
+  /**
+   * @return the type of the event, null for a parent without event
+   */
+  @Nullable
+  public String getEventType(String eventID) {
+    return eventTypes[index(eventID)];
+  }
+
+  /**
+   * @return the number of ancestors of the event, 0 for a root
+   */
+  public int getDepth(String eventID) {
+    return depths[index(eventID)];
+  }
+
+  public List<String> getChildren(String eventID) {
+    int event = index(eventID);
+    return new EventIDList(children, childStarts[event + 1], childStarts[event + 2]);
+  }
+
+  /**
+   * @return a view of the event IDs of all the descendants of the event, in pre-order, in O(1)
+   */
+  public List<String> getDescendants(String eventID) {
+    int event = index(eventID);
+    return new EventIDList(preOrder, starts[event] + 1, ends[event]);
+  }
+
+  /**
+   * @return the number of descendants of the event, in O(1)
+   */
+  public int countDescendants(String eventID) {
+    int event = index(eventID);
+    return ends[event] - starts[event] - 1;
+  }
+
+  /**
+   * @return true if the first event is a parent, grandparent etc. of the second one, in O(1). False if any of them
+   *     is unknown, and for an event with itself.
+   */
+  public boolean isAncestor(@Nullable String ancestorID, @Nullable String eventID) {
+    Integer ancestor = ancestorID == null ? null : ids.get(ancestorID);
+    Integer event = eventID == null ? null : ids.get(eventID);
+    return ancestor != null
+        && event != null
+        && starts[ancestor] < starts[event]
+        && starts[event] < ends[ancestor];
+  }
+
+  /**
+   * @return the event IDs of the ancestors of the event, from its parent up to its root
+   */
+  public List<String> getAncestors(String eventID) {
+    int event = index(eventID);
+    List<String> ancestors = new ArrayList<>(depths[event]);
+    for (int parent = parents[event]; parent >= 0; parent = parents[parent]) {
+      ancestors.add(eventIDs[parent]);
+    }
+    return ancestors;
+  }
+
+  /**
+   * @return the lineage of the ancestors of the event as in {@link Event#getParentsLineage()}, from its parent up
+   *     to its root
+   */
+  public List<Event.ParentLineage> getParentsLineage(String eventID) {
+    int event = index(eventID);
+    List<Event.ParentLineage> lineage = new ArrayList<>(depths[event]);
+    for (int parent = parents[event]; parent >= 0; parent = parents[parent]) {
+      lineage.add(new Event.ParentLineage(eventIDs[parent], eventTypes[parent]));
+    }
+    return lineage;
+  }
+
+  /**
+   * Sets the {@link Event#setParentsLineage parents lineage} of all the given events of the hierarchy. The lineages
+   * are built in a single pass over the hierarchy in pre-order, each one from the lineage of the parent, and their
+   * entries are shared between the events.
+   *
+   * @throws IllegalArgumentException if an event isn't in the hierarchy
+   */
+  public void setParentsLineage(Iterable<? extends Event> events) {
+    int size = eventIDs.length;
+    Event.ParentLineage[] entries = new Event.ParentLineage[size];
+    @SuppressWarnings("unchecked")
+    List<Event.ParentLineage>[] lineages = new List[size];
+    for (int event : preOrder) {
+      int parent = parents[event];
+      if (parent < 0) {
+        lineages[event] = Collections.emptyList();
+      } else {
+        if (entries[parent] == null) {
+          entries[parent] = new Event.ParentLineage(eventIDs[parent], eventTypes[parent]);
+        }
+        List<Event.ParentLineage> lineage = new ArrayList<>(depths[event]);
+        lineage.add(entries[parent]);
+        lineage.addAll(lineages[parent]);
+        lineages[event] = lineage;
+      }
+    }
+    for (Event event : events) {
+      List<Event.ParentLineage> lineage = lineages[index(event.getEventID())];
+      event.setParentsLineage(lineage.isEmpty() ? new ArrayList<>() : lineage);
+    }
+  }
+
+  private int index(@Nullable String eventID) {
+    Integer index = eventID == null ? null : ids.get(eventID);
+    checkArgument(index != null, "Unknown event " + eventID);
+    return index;
+  }
+
+  /**
+   * Event IDs of a range of an array of events.
+   */
+  private final class EventIDList extends AbstractList<String> implements RandomAccess {
+
+    private final int[] events;
+    private final int from;
+    private final int to;
+
+    private EventIDList(int[] events, int from, int to) {
+      this.events = events;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public String get(int index) {
+      if (index < 0 || index >= to - from) {
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + (to - from));
+      }
+      return eventIDs[events[from + index]];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+
+  /**
+   * Collects the events and their parents. Not thread safe.
+   */
+  public static final class Builder {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> eventIDs = new ArrayList<>();
+    private final List<String> eventTypes = new ArrayList<>();
+    private int[] parents = new int[16];
+    private boolean[] added = new boolean[16];
+
+    private Builder() {}
+
+    /**
+     * Adds an event with its {@code eventID}, {@code parentEventID} and {@code eventType}.
+     */
+    public Builder add(Event event) {
+      return add(event.getEventID(), event.getParentEventID(), event.getEventType());
+    }
+
+    /**
+     * @param eventID ID of the event, unique in the hierarchy
+     * @param parentEventID ID of the parent event, which may be added before or after, or null for a root
+     * @param eventType type of the event
+     */
+    public Builder add(String eventID, @Nullable String parentEventID, @Nullable String eventType) {
+      checkArgument(eventID != null && !eventID.isEmpty(), "Event ID is required");
+      int event = intern(eventID);
+      checkArgument(!added[event], "Duplicate event " + eventID);
+      added[event] = true;
+      eventTypes.set(event, eventType);
+      // interning may grow the parents array
+      int parent = parentEventID == null || parentEventID.isEmpty() ? -1 : intern(parentEventID);
+      parents[event] = parent;
+      return this;
+    }
+
+    private int intern(String eventID) {
+      Integer known = ids.get(eventID);
+      if (known != null) {
+        return known;
+      }
+      int event = eventIDs.size();
+      ids.put(eventID, event);
+      eventIDs.add(eventID);
+      eventTypes.add(null);
+      if (event == parents.length) {
+        parents = Arrays.copyOf(parents, event + (event >> 1));
+        added = Arrays.copyOf(added, parents.length);
+      }
+      parents[event] = -1;
+      return event;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the parents form a cycle
+     */
+    public EventHierarchy build() {
+      return new EventHierarchy(
+          new HashMap<>(ids),
+          eventIDs.toArray(new String[0]),
+          eventTypes.toArray(new String[0]),
+          Arrays.copyOf(parents, eventIDs.size()));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Size, modification time and checksums of a download result file, used to answer HTTP range and conditional
+ * requests without reading the file.
+ */
+@Immutable
+public final class DownloadResultMetadata {
+
+  @Schema(description = "The size of the result file in bytes.")
+  private final long size;
+
+  @Schema(description = "The last modification time of the result file, in milliseconds since the epoch.")
+  private final long lastModified;
+
+  @Schema(description = "The MD5 checksum of the result file, in lower case hexadecimal.")
+  private final String md5;
+
+  @Schema(description = "The SHA-256 checksum of the result file, in lower case hexadecimal.")
+  private final String sha256;
+
+  @JsonCreator
+  public DownloadResultMetadata(
+      @JsonProperty("size") long size,
+      @JsonProperty("lastModified") long lastModified,
+      @JsonProperty("md5") String md5,
+      @JsonProperty("sha256") String sha256) {
+    this.size = size;
+    this.lastModified = lastModified;
+    this.md5 = md5;
+    this.sha256 = sha256;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public String getMd5() {
+    return md5;
+  }
+
+  public String getSha256() {
+    return sha256;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DownloadResultMetadata that = (DownloadResultMetadata) o;
+    return size == that.size
+        && lastModified == that.lastModified
+        && Objects.equals(md5, that.md5)
+        && Objects.equals(sha256, that.sha256);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(size, lastModified, md5, sha256);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", DownloadResultMetadata.class.getSimpleName() + "[", "]")
+        .add("size=" + size)
+        .add("lastModified=" + lastModified)
+        .add("md5='" + md5 + "'")
+        .add("sha256='" + sha256 + "'")
+        .toString();
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence;
+
+import org.gbif.api.jackson.YearMonthSeriesSerde;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Monthly counts over consecutive years, like the download statistics of
+ * {@link org.gbif.api.service.registry.OccurrenceDownloadService}.
+ * <p>
+ * The counts are kept as running totals in a single {@code long} array indexed by month from the first year with
+ * counts, so reading the count of a month or the total of any range of months takes constant time. Series are
+ * immutable and built with a {@link Builder}, or from and to the year to month to count maps the service returns. They
+ * are serialized in JSON the same way as those maps, with the months without counts left out.
+ */
+@Immutable
+@JsonSerialize(using = YearMonthSeriesSerde.YearMonthSeriesSerializer.class)
+@JsonDeserialize(using = YearMonthSeriesSerde.YearMonthSeriesDeserializer.class)
+public final class YearMonthSeries {
+
+  private static final YearMonthSeries EMPTY = new YearMonthSeries(0, new long[1]);
+
+  private final int firstYear;
+  // totals[i] is the sum of the counts of the i first months, totals[0] = 0
+  private final long[] totals;
+
+  private YearMonthSeries(int firstYear, long[] totals) {
+    this.firstYear = firstYear;
+    this.totals = totals;
+  }
+
+  public static YearMonthSeries empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @param counts counts by month (1 to 12) by year, null counts are ignored
+   */
+  public static YearMonthSeries of(Map<Integer, Map<Integer, Long>> counts) {
+    Builder builder = new Builder();
+    for (Map.Entry<Integer, Map<Integer, Long>> year : counts.entrySet()) {
+      if (year.getValue() != null) {
+        for (Map.Entry<Integer, Long> month : year.getValue().entrySet()) {
+          if (month.getValue() != null) {
+            builder.add(year.getKey(), month.getKey(), month.getValue());
+          }
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return true if there are no months with counts
+   */
+  public boolean isEmpty() {
+    return totals.length == 1;
+  }
+
+  /**
+   * @return the first year with counts, undefined for empty series
+   */
+  public int getFirstYear() {
+    return firstYear;
+  }
+
+  /**
+   * @return the last year with counts, undefined for empty series
+   */
+  public int getLastYear() {
+    return firstYear + (totals.length - 2) / 12;
+  }
+
+  /**
+   * @return the count of the month, 0 outside the series
+   */
+  public long get(int year, int month) {
+    checkMonth(month);
+    int i = index(year, month);
+    return i >= 0 && i < totals.length - 1 ? totals[i + 1] - totals[i] : 0;
+  }
+
+  /**
+   * @return the sum of the counts from the first month through the last month, both included
+   */
+  public long sum(int fromYear, int fromMonth, int toYear, int toMonth) {
+    checkMonth(fromMonth);
+    checkMonth(toMonth);
+    int from = Math.max(0, index(fromYear, fromMonth));
+    int to = Math.min(totals.length - 1, index(toYear, toMonth) + 1);
+    return from < to ? totals[to] - totals[from] : 0;
+  }
+
+  /**
+   * @return the sum of the counts of the year
+   */
+  public long sum(int year) {
+    return sum(year, 1, year, 12);
+  }
+
+  /**
+   * @return the sum of all counts
+   */
+  public long total() {
+    return totals[totals.length - 1];
+  }
+
+  /**
+   * @return a series with the counts of both series added
+   */
+  public YearMonthSeries merge(YearMonthSeries other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+    int first = Math.min(firstYear, other.firstYear);
+    int months = (Math.max(getLastYear(), other.getLastYear()) - first + 1) * 12;
+    long[] merged = new long[months + 1];
+    for (int i = 0; i < months; i++) {
+      int year = first + i / 12;
+      int month = i % 12 + 1;
+      merged[i + 1] = merged[i] + get(year, month) + other.get(year, month);
+    }
+    return trimmed(first, merged);
+  }
+
+  /**
+   * @return the counts by month by year, without the months without counts, sorted by year and month
+   */
+  public SortedMap<Integer, SortedMap<Integer, Long>> toMap() {
+    SortedMap<Integer, SortedMap<Integer, Long>> map = new TreeMap<>();
+    for (int i = 0; i < totals.length - 1; i++) {
+      long count = totals[i + 1] - totals[i];
+      if (count != 0) {
+        map.computeIfAbsent(firstYear + i / 12, y -> new TreeMap<>()).put(i % 12 + 1, count);
+      }
+    }
+    return map;
+  }
+
+  private int index(int year, int month) {
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (year - (long) firstYear) * 12 + month - 1));
+  }
+
+  private static void checkMonth(int month) {
+    checkArgument(month >= 1 && month <= 12, "Month must be between 1 and 12");
+  }
+
+  /**
+   * Drops the years without counts at both ends.
+   */
+  private static YearMonthSeries trimmed(int firstYear, long[] totals) {
+    int months = totals.length - 1;
+    int from = 0;
+    while (from < months && totals[from + 1] == totals[0]) {
+      from++;
+    }
+    if (from == months) {
+      return EMPTY;
+    }
+    int to = months;
+    while (totals[to - 1] == totals[months]) {
+      to--;
+    }
+    from = from / 12 * 12;
+    to = Math.min(months, (to + 11) / 12 * 12);
+    if (from == 0 && to == months) {
+      return new YearMonthSeries(firstYear, totals);
+    }
+    long[] kept = new long[to - from + 1];
+    for (int i = 1; i < kept.length; i++) {
+      kept[i] = totals[from + i] - totals[from];
+    }
+    return new YearMonthSeries(firstYear + from / 12, kept);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    YearMonthSeries that = (YearMonthSeries) o;
+    return (isEmpty() && that.isEmpty()) || (firstYear == that.firstYear && Arrays.equals(totals, that.totals));
+  }
+
+  @Override
+  public int hashCode() {
+    return isEmpty() ? 0 : 31 * firstYear + Arrays.hashCode(totals);
+  }
+
+  @Override
+  public String toString() {
+    return "YearMonthSeries" + toMap();
+  }
+
+  /**
+   * Collects counts, which are added up when a month is added several times. Not thread safe.
+   */
+  public static final class Builder {
+
+    private int firstYear;
+    private long[] counts = new long[0];
+
+    private Builder() {}
+
+    public Builder add(int year, int month, long count) {
+      checkMonth(month);
+      if (counts.length == 0) {
+        firstYear = year;
+        counts = new long[12];
+      } else if (year < firstYear) {
+        long[] grown = new long[counts.length + (firstYear - year) * 12];
+        System.arraycopy(counts, 0, grown, grown.length - counts.length, counts.length);
+        counts = grown;
+        firstYear = year;
+      } else if ((year - firstYear + 1) * 12 > counts.length) {
+        counts = Arrays.copyOf(counts, Math.max(counts.length * 2, (year - firstYear + 1) * 12));
+      }
+      counts[(year - firstYear) * 12 + month - 1] += count;
+      return this;
+    }
+
+    public Builder addAll(YearMonthSeries series) {
+      for (int i = 0; i < series.totals.length - 1; i++) {
+        long count = series.totals[i + 1] - series.totals[i];
+        if (count != 0) {
+          add(series.firstYear + i / 12, i % 12 + 1, count);
+        }
+      }
+      return this;
+    }
+
+    public YearMonthSeries build() {
+      long[] totals = new long[counts.length + 1];
+      for (int i = 0; i < counts.length; i++) {
+        totals[i + 1] = totals[i] + counts[i];
+      }
+      return trimmed(firstYear, totals);
+    }
+  }
+}
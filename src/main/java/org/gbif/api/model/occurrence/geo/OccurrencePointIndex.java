@@ -0,0 +1,476 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence.geo;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.model.predicate.GeoDistancePredicate;
+import org.gbif.api.model.predicate.WithinPredicate;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.spatial4j.context.jts.DatelineRule;
+import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
+import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
+import org.locationtech.spatial4j.exception.InvalidShapeException;
+import org.locationtech.spatial4j.io.WKTReader;
+import org.locationtech.spatial4j.shape.Shape;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Immutable in-memory index of occurrence coordinates used to evaluate {@link WithinPredicate} and
+ * {@link GeoDistancePredicate} against many points at once, e.g. to preview the geographic filter of a download.
+ * <p/>
+ * Points are stored in a packed grid of fixed size cells: the coordinates and keys of all points are kept in primitive
+ * arrays sorted by cell, and only the cells holding points are kept, in a sorted table of cell numbers. The index thus
+ * needs 24 bytes per point and 12 bytes per occupied cell, whatever the cell size. Queries only visit the occupied
+ * cells overlapping the bounding box of the geometry or distance. Cells holding several points are first tested
+ * against the geometry: cells fully covered are taken without testing their points, cells outside are skipped, and
+ * only the points of the cells crossed by the geometry boundary and of the sparsely filled cells are tested
+ * individually.
+ * <p/>
+ * Keys are the occurrence keys, or any other long identifier given when the point is added.
+ */
+@ThreadSafe
+public class OccurrencePointIndex {
+
+  // Mean earth radius, as used by the haversine formula
+  private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+  private static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180d;
+
+  // keeps the cell numbers of the grid within a long
+  private static final double MIN_CELL_SIZE = 1e-6;
+  // cells with fewer points have their points tested directly, without testing the cell first
+  private static final int MIN_POINTS_FOR_CELL_TEST = 8;
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private final double cellSize;
+  private final int columns;
+  private final int rows;
+  // the numbers row * columns + column of the occupied cells in ascending order, the points of the occupied cell i
+  // are in the positions [cellStart[i], cellStart[i + 1]) of the arrays below
+  private final long[] cellNumbers;
+  private final int[] cellStart;
+  private final double[] latitudes;
+  private final double[] longitudes;
+  private final long[] keys;
+
+  private OccurrencePointIndex(Builder builder) {
+    cellSize = builder.cellSize;
+    columns = (int) Math.ceil(360d / cellSize);
+    rows = (int) Math.ceil(180d / cellSize);
+
+    int size = builder.size;
+    long[] numbers = new long[size];
+    for (int i = 0; i < size; i++) {
+      numbers[i] = cellNumber(builder.latitudes[i], builder.longitudes[i]);
+    }
+    long[] sorted = numbers.clone();
+    Arrays.sort(sorted);
+    int occupied = 0;
+    for (int i = 0; i < size; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[occupied++] = sorted[i];
+      }
+    }
+    cellNumbers = Arrays.copyOf(sorted, occupied);
+
+    int[] cells = new int[size];
+    cellStart = new int[occupied + 1];
+    for (int i = 0; i < size; i++) {
+      cells[i] = Arrays.binarySearch(cellNumbers, numbers[i]);
+      cellStart[cells[i] + 1]++;
+    }
+    for (int c = 0; c < occupied; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+
+    // counting sort by cell
+    latitudes = new double[size];
+    longitudes = new double[size];
+    keys = new long[size];
+    int[] next = Arrays.copyOf(cellStart, cellStart.length - 1);
+    for (int i = 0; i < size; i++) {
+      int pos = next[cells[i]]++;
+      latitudes[pos] = builder.latitudes[i];
+      longitudes[pos] = builder.longitudes[i];
+      keys[pos] = builder.keys[i];
+    }
+  }
+
+  /**
+   * @return a builder for an index with cells of 1 degree
+   */
+  public static Builder builder() {
+    return new Builder(1d);
+  }
+
+  /**
+   * @param cellSize the size of the grid cells in degrees, from 0.000001 to 180. Smaller cells suit dense data and
+   *                 small query areas, the memory used only depends on the number of cells holding points.
+   */
+  public static Builder builder(double cellSize) {
+    return new Builder(cellSize);
+  }
+
+  /**
+   * @return the number of points in the index
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * @return the keys of the points that fall within the geometry of the predicate
+   */
+  public long[] within(WithinPredicate predicate) {
+    return within(predicate.getGeometry());
+  }
+
+  /**
+   * @param wkt a geometry as Well Known Text, longitudes crossing the dateline are wrapped as done by the occurrence
+   *            search
+   * @return the keys of the points that fall within the geometry
+   */
+  public long[] within(String wkt) {
+    KeyCollector collector = new KeyCollector();
+    forEachWithin(parseGeometry(wkt), collector);
+    return collector.toArray();
+  }
+
+  /**
+   * @return the number of points that fall within the geometry of the predicate
+   */
+  public long countWithin(WithinPredicate predicate) {
+    return countWithin(predicate.getGeometry());
+  }
+
+  /**
+   * @return the number of points that fall within the geometry
+   */
+  public long countWithin(String wkt) {
+    long[] count = new long[1];
+    forEachWithin(parseGeometry(wkt), p -> count[0]++);
+    return count[0];
+  }
+
+  /**
+   * @return the keys of the points within the distance of the predicate
+   */
+  public long[] withinDistance(GeoDistancePredicate predicate) {
+    return withinDistance(predicate.getGeoDistance());
+  }
+
+  /**
+   * @return the keys of the points within the given distance
+   */
+  public long[] withinDistance(DistanceUnit.GeoDistance geoDistance) {
+    KeyCollector collector = new KeyCollector();
+    forEachWithinDistance(geoDistance, collector);
+    return collector.toArray();
+  }
+
+  /**
+   * @return the number of points within the distance of the predicate
+   */
+  public long countWithinDistance(GeoDistancePredicate predicate) {
+    return countWithinDistance(predicate.getGeoDistance());
+  }
+
+  /**
+   * @return the number of points within the given distance
+   */
+  public long countWithinDistance(DistanceUnit.GeoDistance geoDistance) {
+    long[] count = new long[1];
+    forEachWithinDistance(geoDistance, p -> count[0]++);
+    return count[0];
+  }
+
+  /**
+   * Great-circle distance between two points using the haversine formula.
+   *
+   * @return the distance in meters
+   */
+  public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+    double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+    double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+    double a = sinLat * sinLat
+               + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1d, Math.sqrt(a)));
+  }
+
+  private void forEachWithin(Geometry geometry, IntConsumer consumer) {
+    PreparedGeometry prepared = PreparedGeometryFactory.prepare(geometry);
+    // point in polygon tests are much cheaper with the locator than with point geometries
+    IndexedPointInAreaLocator locator =
+      geometry instanceof Polygonal ? new IndexedPointInAreaLocator(geometry) : null;
+    Coordinate coordinate = new Coordinate();
+
+    Envelope envelope = geometry.getEnvelopeInternal();
+    int minRow = row(envelope.getMinY());
+    int maxRow = row(envelope.getMaxY());
+    int minCol = column(envelope.getMinX());
+    int maxCol = column(envelope.getMaxX());
+
+    forEachCell(minRow, maxRow, minCol, maxCol, (cell, row, column) -> {
+      int start = cellStart[cell];
+      int end = cellStart[cell + 1];
+      // testing the cell against the geometry only pays off when it saves testing enough points
+      if (end - start >= MIN_POINTS_FOR_CELL_TEST) {
+        Geometry cellGeometry = GEOMETRY_FACTORY.toGeometry(cellEnvelope(row, column));
+        if (!prepared.intersects(cellGeometry)) {
+          return;
+        }
+        if (prepared.contains(cellGeometry)) {
+          for (int p = start; p < end; p++) {
+            consumer.accept(p);
+          }
+          return;
+        }
+      }
+
+      for (int p = start; p < end; p++) {
+        if (!envelope.contains(longitudes[p], latitudes[p])) {
+          continue;
+        }
+        coordinate.x = longitudes[p];
+        coordinate.y = latitudes[p];
+        boolean inside = locator != null
+                         ? locator.locate(coordinate) != Location.EXTERIOR
+                         : prepared.intersects(GEOMETRY_FACTORY.createPoint(coordinate));
+        if (inside) {
+          consumer.accept(p);
+        }
+      }
+    });
+  }
+
+  private void forEachWithinDistance(DistanceUnit.GeoDistance geoDistance, IntConsumer consumer) {
+    Objects.requireNonNull(geoDistance, "geoDistance can't be null");
+    double lat = geoDistance.getLatitude();
+    double lon = geoDistance.getLongitude();
+    DistanceUnit.Distance distance = geoDistance.getDistance();
+    double meters = DistanceUnit.convert(distance.getValue(), distance.getUnit(), DistanceUnit.METERS);
+
+    double latDelta = meters / METERS_PER_DEGREE;
+    double minLat = lat - latDelta;
+    double maxLat = lat + latDelta;
+    double minLon;
+    double maxLon;
+    if (minLat <= -90 || maxLat >= 90 || meters >= Math.PI * EARTH_RADIUS_METERS / 2) {
+      // the circle contains a pole, so every longitude is within the bounding box
+      minLon = -180;
+      maxLon = 180;
+    } else {
+      double lonDelta = Math.toDegrees(Math.asin(Math.sin(meters / EARTH_RADIUS_METERS) / Math.cos(Math.toRadians(lat))));
+      minLon = lon - lonDelta;
+      maxLon = lon + lonDelta;
+    }
+    minLat = Math.max(-90, minLat);
+    maxLat = Math.min(90, maxLat);
+
+    // a box crossing the dateline is split in two
+    if (minLon < -180) {
+      scanDistance(lat, lon, meters, minLat, maxLat, minLon + 360, 180, consumer);
+      scanDistance(lat, lon, meters, minLat, maxLat, -180, maxLon, consumer);
+    } else if (maxLon > 180) {
+      scanDistance(lat, lon, meters, minLat, maxLat, minLon, 180, consumer);
+      scanDistance(lat, lon, meters, minLat, maxLat, -180, maxLon - 360, consumer);
+    } else {
+      scanDistance(lat, lon, meters, minLat, maxLat, minLon, maxLon, consumer);
+    }
+  }
+
+  private void scanDistance(double lat, double lon, double meters, double minLat, double maxLat, double minLon,
+                            double maxLon, IntConsumer consumer) {
+    forEachCell(row(minLat), row(maxLat), column(minLon), column(maxLon), (cell, row, column) -> {
+      for (int p = cellStart[cell]; p < cellStart[cell + 1]; p++) {
+        double pLat = latitudes[p];
+        double pLon = longitudes[p];
+        if (pLat >= minLat && pLat <= maxLat && pLon >= minLon && pLon <= maxLon
+            && haversineMeters(lat, lon, pLat, pLon) <= meters) {
+          consumer.accept(p);
+        }
+      }
+    });
+  }
+
+  /**
+   * Visits the occupied cells of the given rows and columns in order. Runs of cells outside the columns are skipped
+   * with a binary search, so the cost depends on the occupied cells and not on the size of the grid.
+   */
+  private void forEachCell(int minRow, int maxRow, int minCol, int maxCol, CellConsumer consumer) {
+    long last = (long) maxRow * columns + maxCol;
+    int i = lowerBound((long) minRow * columns + minCol, 0);
+    while (i < cellNumbers.length && cellNumbers[i] <= last) {
+      int row = (int) (cellNumbers[i] / columns);
+      int column = (int) (cellNumbers[i] % columns);
+      if (column < minCol) {
+        i = lowerBound((long) row * columns + minCol, i);
+      } else if (column > maxCol) {
+        i = lowerBound((long) (row + 1) * columns + minCol, i);
+      } else {
+        consumer.accept(i, row, column);
+        i++;
+      }
+    }
+  }
+
+  /**
+   * @return the position of the first occupied cell from the given one with a number not lower than the given one
+   */
+  private int lowerBound(long cellNumber, int from) {
+    int position = Arrays.binarySearch(cellNumbers, from, cellNumbers.length, cellNumber);
+    return position >= 0 ? position : -position - 1;
+  }
+
+  private long cellNumber(double lat, double lon) {
+    return (long) row(lat) * columns + column(lon);
+  }
+
+  private int row(double lat) {
+    return Math.max(0, Math.min(rows - 1, (int) ((lat + 90) / cellSize)));
+  }
+
+  private int column(double lon) {
+    return Math.max(0, Math.min(columns - 1, (int) ((lon + 180) / cellSize)));
+  }
+
+  private Envelope cellEnvelope(int row, int column) {
+    double minLat = row * cellSize - 90;
+    double minLon = column * cellSize - 180;
+    return new Envelope(minLon, Math.min(180, minLon + cellSize), minLat, Math.min(90, minLat + cellSize));
+  }
+
+  /**
+   * Parses the WKT the same way as the occurrence search, wrapping longitudes and splitting shapes on the dateline.
+   */
+  private static Geometry parseGeometry(String wkt) {
+    Objects.requireNonNull(wkt, "wkt can't be null");
+    JtsSpatialContextFactory spatialContextFactory = new JtsSpatialContextFactory();
+    spatialContextFactory.normWrapLongitude = true;
+    spatialContextFactory.srid = 4326;
+    spatialContextFactory.datelineRule = DatelineRule.ccwRect;
+
+    JtsSpatialContext context = spatialContextFactory.newSpatialContext();
+    WKTReader reader = new WKTReader(context, spatialContextFactory);
+    try {
+      Shape shape = reader.parse(wkt);
+      return context.getShapeFactory().getGeometryFrom(shape);
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Cannot parse simple WKT: " + wkt + " " + e.getMessage());
+    } catch (InvalidShapeException e) {
+      throw new IllegalArgumentException("Invalid shape in WKT: " + wkt + " " + e.getMessage());
+    }
+  }
+
+  /**
+   * Accepts an occupied cell with its position in the cell table.
+   */
+  private interface CellConsumer {
+    void accept(int cell, int row, int column);
+  }
+
+  /**
+   * Collects the keys of the positions accepted.
+   */
+  private class KeyCollector implements IntConsumer {
+    private long[] values = new long[16];
+    private int size;
+
+    @Override
+    public void accept(int position) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = keys[position];
+    }
+
+    private long[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+
+  /**
+   * Collects the points of the index. Points without coordinates or with coordinates out of range are ignored.
+   */
+  public static class Builder {
+
+    private final double cellSize;
+    private double[] latitudes = new double[1024];
+    private double[] longitudes = new double[1024];
+    private long[] keys = new long[1024];
+    private int size;
+
+    private Builder(double cellSize) {
+      checkArgument(
+        cellSize >= MIN_CELL_SIZE && cellSize <= 180, "cellSize must be between " + MIN_CELL_SIZE + " and 180");
+      this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds the coordinates of an occurrence using the occurrence key as key.
+     */
+    public Builder add(Occurrence occurrence) {
+      Double lat = occurrence.getDecimalLatitude();
+      Double lon = occurrence.getDecimalLongitude();
+      if (lat != null && lon != null && occurrence.getKey() != null) {
+        add(occurrence.getKey(), lat, lon);
+      }
+      return this;
+    }
+
+    public Builder addAll(Iterable<? extends Occurrence> occurrences) {
+      occurrences.forEach(this::add);
+      return this;
+    }
+
+    public Builder add(long key, double latitude, double longitude) {
+      if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+        // written this way to also exclude NaN
+        return this;
+      }
+      if (size == keys.length) {
+        int capacity = size + (size >> 1);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+      }
+      latitudes[size] = latitude;
+      longitudes[size] = longitude;
+      keys[size] = key;
+      size++;
+      return this;
+    }
+
+    public OccurrencePointIndex build() {
+      return new OccurrencePointIndex(this);
+    }
+  }
+}
@@ -24,7 +24,9 @@ import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -989,21 +991,41 @@ public class OccurrenceSearchParameter implements SearchParameter, Serializable
    * @return the parameter if found, otherwise empty
    */
   public static Optional<OccurrenceSearchParameter> lookup(String name) {
-    String normedType = name.toUpperCase().replaceAll("[. _-]", "");
-    java.lang.reflect.Field[] values = OccurrenceSearchParameter.class.getFields();
-    for (Field field: values) {
+    return Optional.ofNullable(ByNormalizedName.PARAMETERS.get(normalize(name)));
+  }
+
+  /**
+   * Upper cases the name and removes the dots, spaces, underscores and hyphens.
+   */
+  private static String normalize(String name) {
+    char[] normed = new char[name.length()];
+    int length = 0;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c != '.' && c != ' ' && c != '_' && c != '-') {
+        normed[length++] = Character.toUpperCase(c);
+      }
+    }
+    return new String(normed, 0, length);
+  }
+
+  /**
+   * The parameters by normalized field name, built on first use once all the constants are initialized.
+   */
+  private static final class ByNormalizedName {
+
+    private static final Map<String, OccurrenceSearchParameter> PARAMETERS = new HashMap<>();
 
-      String fieldName = field.getName();
-      String normedVal = fieldName.replaceAll("[. _-]", "");
-      if (normedType.equals(normedVal)) {
+    static {
+      for (Field field : OccurrenceSearchParameter.class.getFields()) {
         try {
-          return Optional.of((OccurrenceSearchParameter) field.get(OccurrenceSearchParameter.class));
+          PARAMETERS.putIfAbsent(
+              normalize(field.getName()), (OccurrenceSearchParameter) field.get(OccurrenceSearchParameter.class));
         } catch (IllegalAccessException e) {
           throw new RuntimeException(e);
         }
       }
     }
-    return Optional.empty();
   }
 
   public static class OccurrenceSearchParameterKeyDeserializer extends KeyDeserializer {
@@ -0,0 +1,295 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence.search;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.util.UnicodeUtils;
+import org.gbif.dwc.terms.DwcTerm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * In-memory prefix index answering the suggest methods of the
+ * {@link org.gbif.api.service.occurrence.OccurrenceSearchService} locally, without a round trip to the search backend.
+ * <p>
+ * Each field keeps its distinct values sorted by their folded form: trimmed, lower case, without diacritics and with
+ * ligatures decomposed using {@link UnicodeUtils}. The values starting with a prefix are a contiguous range found by
+ * binary search, and the most frequent values of that range are taken from a range maximum tree, so a suggestion
+ * costs O(limit * log n) whatever the number of matching values.
+ * <p>
+ * The index is immutable. It is built from occurrences or from value counts dumped from the backend using a
+ * {@link Builder}.
+ */
+@ThreadSafe
+public final class OccurrenceSuggestIndex {
+
+  /**
+   * Number of suggestions returned when no limit is given.
+   */
+  public static final int DEFAULT_LIMIT = 10;
+
+  private static final Map<OccurrenceSearchParameter, Function<Occurrence, String>> SUGGEST_FIELDS =
+      new LinkedHashMap<>();
+
+  static {
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.CATALOG_NUMBER, o -> o.getVerbatimField(DwcTerm.catalogNumber));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.COLLECTION_CODE, o -> o.getVerbatimField(DwcTerm.collectionCode));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.RECORDED_BY, Occurrence::getRecordedBy);
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.IDENTIFIED_BY, Occurrence::getIdentifiedBy);
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.RECORD_NUMBER, o -> o.getVerbatimField(DwcTerm.recordNumber));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.INSTITUTION_CODE, o -> o.getVerbatimField(DwcTerm.institutionCode));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.OCCURRENCE_ID, o -> o.getVerbatimField(DwcTerm.occurrenceID));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.ORGANISM_ID, o -> o.getVerbatimField(DwcTerm.organismID));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.LOCALITY, o -> o.getVerbatimField(DwcTerm.locality));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.WATER_BODY, Occurrence::getWaterBody);
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.STATE_PROVINCE, Occurrence::getStateProvince);
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.SAMPLING_PROTOCOL, Occurrence::getSamplingProtocol);
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.EVENT_ID, o -> o.getVerbatimField(DwcTerm.eventID));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.PARENT_EVENT_ID, o -> o.getVerbatimField(DwcTerm.parentEventID));
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.OTHER_CATALOG_NUMBERS, Occurrence::getOtherCatalogNumbers);
+    SUGGEST_FIELDS.put(OccurrenceSearchParameter.DATASET_NAME, Occurrence::getDatasetName);
+  }
+
+  private final Map<OccurrenceSearchParameter, FieldIndex> fields;
+
+  private OccurrenceSuggestIndex(Map<OccurrenceSearchParameter, FieldIndex> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * @return the fields with suggestions taken from {@link Occurrence} records
+   */
+  public static Set<OccurrenceSearchParameter> occurrenceFields() {
+    return Collections.unmodifiableSet(SUGGEST_FIELDS.keySet());
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return true if the index has values for the given field
+   */
+  public boolean contains(OccurrenceSearchParameter field) {
+    return fields.containsKey(field);
+  }
+
+  /**
+   * @return the number of distinct values of the field
+   */
+  public int size(OccurrenceSearchParameter field) {
+    FieldIndex index = fields.get(field);
+    return index != null ? index.values.length : 0;
+  }
+
+  /**
+   * Suggests the most frequent values of a field starting with the prefix, ignoring case and diacritics.
+   * Values equally frequent are sorted alphabetically.
+   *
+   * @param field field to suggest values of
+   * @param prefix prefix of the values, all values if empty
+   * @param limit maximum number of values, no maximum if negative, {@link #DEFAULT_LIMIT} if null
+   * @return the values found, empty if the field isn't indexed
+   */
+  public List<String> suggest(OccurrenceSearchParameter field, String prefix, @Nullable Integer limit) {
+    checkArgument(prefix != null, "A prefix is required");
+    FieldIndex index = fields.get(field);
+    if (index == null) {
+      return Collections.emptyList();
+    }
+    return index.top(fold(prefix), limit == null ? DEFAULT_LIMIT : limit < 0 ? Integer.MAX_VALUE : limit);
+  }
+
+  private static String fold(String value) {
+    return UnicodeUtils.foldToAscii(value.trim()).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Values of a field sorted by folded value, with a range maximum tree over their counts.
+   */
+  private static final class FieldIndex {
+
+    private final String[] keys;
+    private final String[] values;
+    private final long[] counts;
+    // tree[n + i] = i, tree[i] = most frequent of tree[2i] and tree[2i + 1]
+    private final int[] tree;
+
+    private FieldIndex(Map<String, Long> counted) {
+      String[][] entries = new String[counted.size()][];
+      int i = 0;
+      for (String value : counted.keySet()) {
+        String key = fold(value);
+        entries[i++] = new String[] {key.equals(value) ? value : key, value};
+      }
+      Arrays.sort(entries, Comparator.<String[], String>comparing(e -> e[0]).thenComparing(e -> e[1]));
+
+      int n = entries.length;
+      keys = new String[n];
+      values = new String[n];
+      counts = new long[n];
+      for (i = 0; i < n; i++) {
+        keys[i] = entries[i][0];
+        values[i] = entries[i][1];
+        counts[i] = counted.get(values[i]);
+      }
+
+      tree = new int[2 * n];
+      for (i = 0; i < n; i++) {
+        tree[n + i] = i;
+      }
+      for (i = n - 1; i > 0; i--) {
+        tree[i] = maxOf(tree[2 * i], tree[2 * i + 1]);
+      }
+    }
+
+    private List<String> top(String prefix, int limit) {
+      int from = lowerBound(prefix);
+      int to = upperBound(prefix, from);
+      if (from >= to || limit == 0) {
+        return Collections.emptyList();
+      }
+
+      // ranges of candidates ordered by their most frequent value: {max, from, to}
+      PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[0] == b[0] ? 0 : maxOf(a[0], b[0]) == a[0] ? -1 : 1);
+      ranges.add(new int[] {max(from, to), from, to});
+      List<String> result = new ArrayList<>(Math.min(limit, to - from));
+      while (result.size() < limit && !ranges.isEmpty()) {
+        int[] range = ranges.poll();
+        int best = range[0];
+        result.add(values[best]);
+        if (range[1] < best) {
+          ranges.add(new int[] {max(range[1], best), range[1], best});
+        }
+        if (best + 1 < range[2]) {
+          ranges.add(new int[] {max(best + 1, range[2]), best + 1, range[2]});
+        }
+      }
+      return result;
+    }
+
+    private int lowerBound(String prefix) {
+      int lo = 0;
+      int hi = keys.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (keys[mid].compareTo(prefix) < 0) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    private int upperBound(String prefix, int from) {
+      int lo = from;
+      int hi = keys.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (keys[mid].startsWith(prefix)) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    /**
+     * @return the position of the most frequent value in [from, to)
+     */
+    private int max(int from, int to) {
+      int n = values.length;
+      int best = from;
+      for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+        if ((l & 1) == 1) {
+          best = maxOf(best, tree[l++]);
+        }
+        if ((r & 1) == 1) {
+          best = maxOf(best, tree[--r]);
+        }
+      }
+      return best;
+    }
+
+    private int maxOf(int a, int b) {
+      return counts[a] > counts[b] || (counts[a] == counts[b] && a < b) ? a : b;
+    }
+  }
+
+  /**
+   * Collects the values of the fields and their frequencies. Not thread safe.
+   */
+  public static final class Builder {
+
+    private final Map<OccurrenceSearchParameter, Map<String, Long>> fields = new HashMap<>();
+
+    private Builder() {}
+
+    /**
+     * Adds the suggestible values of an occurrence, see {@link #occurrenceFields()}.
+     */
+    public Builder add(Occurrence occurrence) {
+      for (Map.Entry<OccurrenceSearchParameter, Function<Occurrence, String>> field : SUGGEST_FIELDS.entrySet()) {
+        add(field.getKey(), field.getValue().apply(occurrence), 1);
+      }
+      return this;
+    }
+
+    /**
+     * Adds the suggestible values of all the occurrences.
+     */
+    public Builder addAll(Iterable<Occurrence> occurrences) {
+      for (Occurrence occurrence : occurrences) {
+        add(occurrence);
+      }
+      return this;
+    }
+
+    /**
+     * Adds a value of a field found count times, for example from a facet or term dump. Blank values are ignored.
+     */
+    public Builder add(OccurrenceSearchParameter field, @Nullable String value, long count) {
+      checkArgument(count >= 0, "Count must not be negative");
+      if (value != null && !value.trim().isEmpty()) {
+        fields.computeIfAbsent(field, k -> new HashMap<>()).merge(value, count, Long::sum);
+      }
+      return this;
+    }
+
+    public OccurrenceSuggestIndex build() {
+      Map<OccurrenceSearchParameter, FieldIndex> indexes = new HashMap<>();
+      fields.forEach((field, counted) -> indexes.put(field, new FieldIndex(counted)));
+      return new OccurrenceSuggestIndex(indexes);
+    }
+  }
+}
@@ -24,11 +24,13 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
 import org.gbif.api.jackson.OffsetDateTimeSerDe;
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.model.registry.Fingerprintable;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.util.OffsetDateTimeUtils;
 
 /** Models a step in pipelines. */
-public class PipelineStep implements LenientEquals<PipelineStep>, Serializable {
+public class PipelineStep implements LenientEquals<PipelineStep>, Fingerprintable, Serializable {
 
   private static final long serialVersionUID = 460047082156621661L;
 
@@ -59,6 +61,9 @@ public class PipelineStep implements LenientEquals<PipelineStep>, Serializable {
   private String modifiedBy;
   private Set<MetricInfo> metrics = new HashSet<>();
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   public static final Comparator<PipelineStep> STEPS_BY_TYPE_ASC =
       (s1, s2) -> {
         StepType st1 = s1 != null ? s1.getType() : null;
@@ -359,4 +364,25 @@ public class PipelineStep implements LenientEquals<PipelineStep>, Serializable {
         && Objects.equals(numberRecords, other.numberRecords)
         && Objects.equals(pipelinesVersion, other.pipelinesVersion);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(type)
+        .add(runner)
+        .add(finished)
+        .add(state)
+        .add(message)
+        .addAll(metrics, (f, metric) -> f.add(metric.getName()).add(metric.getValue()))
+        .add(numberRecords)
+        .add(pipelinesVersion);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -13,19 +13,19 @@
  */
 package org.gbif.api.model.pipelines;
 
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.function.ToIntFunction;
-import java.util.stream.Collectors;
 
 import static org.gbif.api.model.pipelines.StepType.*;
 
@@ -103,6 +103,12 @@ public class PipelinesWorkflow {
     VALIDATON_WF_GRAPH.addNode(VALIDATOR_VERBATIM_TO_IDENTIFIER, VALIDATOR_VERBATIM_TO_INTERPRETED);
     // 5
     VALIDATON_WF_GRAPH.addNode(VALIDATOR_VERBATIM_TO_INTERPRETED, VALIDATOR_COLLECT_METRICS);
+
+    // The graphs are static, so reachability is resolved once here instead of on every query
+    OCCURRENCE_WF_GRAPH.computeReachability();
+    EVENT_OCCURRENCE_WF_GRAPH.computeReachability();
+    EVENT_WF_GRAPH.computeReachability();
+    VALIDATON_WF_GRAPH.computeReachability();
   }
 
   public static Graph<StepType> getOccurrenceWorkflow() {
@@ -152,13 +158,8 @@ public class PipelinesWorkflow {
 
     private final ToIntFunction<T> calculateLevelFn = t -> levels.get(t) != null ? levels.get(t) + 1 : 1;
 
-    private final ToIntFunction<T> findLevelFn = t -> nodes.values()
-      .stream()
-      .flatMap(Collection::stream)
-      .filter(x->x.getNode().equals(t))
-      .findAny()
-      .map(x->levels.get(x.getNode()))
-      .orElse(1);
+    // Transitive closure of every node, computed on first use and dropped when an edge is added
+    private volatile Reachability<T> reachability;
 
     public int getNodesQuantity() {
       return nodes.size();
@@ -173,10 +174,21 @@ public class PipelinesWorkflow {
     }
 
     public Set<T> getAllNodesFor(Set<T> fromTypesSet) {
-      return fromTypesSet.stream()
-        .map(ft -> bfs(this, ft))
-        .flatMap(Collection::stream)
-        .collect(Collectors.toSet());
+      Reachability<T> r = computeReachability();
+      BitSet bits = new BitSet(r.indexedNodes.size());
+      Set<T> unknown = new HashSet<>();
+      fromTypesSet.forEach(ft -> {
+        BitSet closure = r.closureOf(ft);
+        if (closure != null) {
+          bits.or(closure);
+        } else {
+          unknown.add(ft);
+        }
+      });
+
+      Set<T> result = r.toSet(bits);
+      result.addAll(unknown);
+      return result;
     }
 
     /**
@@ -203,23 +215,47 @@ public class PipelinesWorkflow {
     }
 
     public Set<T> getRootNodesFor(Set<T> fromTypesSet) {
-      Map<T, Set<T>> map = fromTypesSet.stream()
-        .collect(Collectors.toMap(Function.identity(), ft -> bfs(this, ft)));
-
+      Reachability<T> r = computeReachability();
       Set<T> result = new LinkedHashSet<>();
 
       fromTypesSet.forEach(ts -> {
-        result.add(ts);
-        map.forEach((key, value) -> {
-          if (key != ts && value.contains(ts)) {
-            result.remove(ts);
+        boolean reachableFromOther = false;
+        for (T other : fromTypesSet) {
+          if (other != ts && r.isReachable(other, ts)) {
+            reachableFromOther = true;
+            break;
           }
-        });
+        }
+        if (!reachableFromOther) {
+          result.add(ts);
+        }
       });
 
       return result;
     }
 
+    /**
+     * Returns true if {@code to} is {@code from} or any step that runs after it in this workflow.
+     */
+    public boolean isReachable(T from, T to) {
+      return computeReachability().isReachable(from, to);
+    }
+
+    /**
+     * Returns the nodes that have an edge pointing to the given node.
+     */
+    public Set<T> getPredecessors(T node) {
+      Set<T> result = new LinkedHashSet<>();
+      nodes.forEach((k, v) -> {
+        for (Edge e : v) {
+          if (e.getNode().equals(node)) {
+            result.add(k);
+          }
+        }
+      });
+      return result;
+    }
+
     private void addNode(T fromNode, T toNode) {
       if (nodes.containsKey(fromNode)) {
         LinkedList<Edge> edges = nodes.get(fromNode);
@@ -241,34 +277,77 @@ public class PipelinesWorkflow {
       }
 
       nodes.computeIfAbsent(toNode, n -> new LinkedList<>(Collections.emptyList()));
-      levels.put(toNode, findLevelFn.applyAsInt(toNode));
+      reachability = null;
     }
 
-    private static <T> Set<T> bfs(Graph<T> graph, T startNode) {
+    private Reachability<T> computeReachability() {
+      Reachability<T> r = reachability;
+      if (r == null) {
+        r = new Reachability<>(this);
+        reachability = r;
+      }
+      return r;
+    }
 
-      Set<T> resultSet = new HashSet<>();
-      Set<T> visitedNodes = new HashSet<>(graph.getNodesQuantity());
-      Queue<T> queue = new LinkedList<>();
-      T currentNode;
+    /**
+     * Immutable transitive closure of a graph, one {@link BitSet} per node.
+     */
+    private static class Reachability<T> {
 
-      visitedNodes.add(startNode);
-      queue.add(startNode);
+      private final Map<T, Integer> nodeIndex = new HashMap<>();
+      private final List<T> indexedNodes = new ArrayList<>();
+      private final List<BitSet> closures = new ArrayList<>();
 
-      while (!queue.isEmpty()) {
-        currentNode = queue.poll();
-        resultSet.add(currentNode);
+      private Reachability(Graph<T> graph) {
+        graph.nodes.keySet().forEach(n -> {
+          nodeIndex.put(n, indexedNodes.size());
+          indexedNodes.add(n);
+        });
+        indexedNodes.forEach(n -> closures.add(traverse(graph, n)));
+      }
 
-        graph.getNodeEdges(currentNode).forEach(edge -> {
-          T node = edge.getNode();
-          if (visitedNodes.contains(node)) {
-            return;
+      private BitSet traverse(Graph<T> graph, T startNode) {
+        BitSet visited = new BitSet(indexedNodes.size());
+        Deque<T> queue = new ArrayDeque<>();
+
+        visited.set(nodeIndex.get(startNode));
+        queue.add(startNode);
+
+        while (!queue.isEmpty()) {
+          T currentNode = queue.poll();
+          for (Graph<T>.Edge edge : graph.getNodeEdges(currentNode)) {
+            int idx = nodeIndex.get(edge.getNode());
+            if (!visited.get(idx)) {
+              visited.set(idx);
+              queue.add(edge.getNode());
+            }
           }
-          visitedNodes.add(node);
-          queue.add(node);
-        });
+        }
+
+        return visited;
       }
 
-      return resultSet;
+      private BitSet closureOf(T node) {
+        Integer idx = nodeIndex.get(node);
+        return idx == null ? null : closures.get(idx);
+      }
+
+      private boolean isReachable(T from, T to) {
+        Integer fromIdx = nodeIndex.get(from);
+        Integer toIdx = nodeIndex.get(to);
+        if (fromIdx == null || toIdx == null) {
+          return from.equals(to);
+        }
+        return closures.get(fromIdx).get(toIdx);
+      }
+
+      private Set<T> toSet(BitSet bits) {
+        Set<T> result = new HashSet<>(bits.cardinality() * 2);
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+          result.add(indexedNodes.get(i));
+        }
+        return result;
+      }
     }
 
   }
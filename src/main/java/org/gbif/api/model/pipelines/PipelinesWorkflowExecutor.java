@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.pipelines;
+
+import org.gbif.api.model.pipelines.PipelinesWorkflow.Graph;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the steps of a {@link Graph} locally, dispatching independent branches of the workflow
+ * (e.g. {@link StepType#INTERPRETED_TO_INDEX}, {@link StepType#HDFS_VIEW} and
+ * {@link StepType#FRAGMENTER}) concurrently on the given {@link Executor}.
+ *
+ * <p>A step starts once all its predecessors in the run have finished successfully. If a step fails,
+ * every step that depends on it is skipped. The time spent in each step is recorded in the returned
+ * {@link Execution}.
+ */
+public class PipelinesWorkflowExecutor {
+
+  /**
+   * In-memory stand-in for the process that runs a step.
+   */
+  @FunctionalInterface
+  public interface StepHandler {
+    void run(StepType stepType) throws Exception;
+  }
+
+  private final Graph<StepType> graph;
+  private final Executor executor;
+
+  public PipelinesWorkflowExecutor(Graph<StepType> graph, Executor executor) {
+    this.graph = Objects.requireNonNull(graph, "graph is required");
+    this.executor = Objects.requireNonNull(executor, "executor is required");
+  }
+
+  /**
+   * Runs the requested steps and all the steps that follow them in the workflow, blocking until
+   * all of them have finished or have been skipped.
+   *
+   * @param requestedSteps steps requested to run
+   * @param handlers provides the handler to run each step
+   * @return the outcome of the run
+   */
+  public Execution execute(Set<StepType> requestedSteps, Function<StepType, StepHandler> handlers) {
+    return executeAsync(requestedSteps, handlers).join();
+  }
+
+  /**
+   * Same as {@link #execute(Set, Function)} but returns as soon as the root steps have been dispatched.
+   */
+  public CompletableFuture<Execution> executeAsync(
+      Set<StepType> requestedSteps, Function<StepType, StepHandler> handlers) {
+    Set<StepType> steps = graph.getAllNodesFor(requestedSteps);
+
+    Map<StepType, StepHandler> stepHandlers = new EnumMap<>(StepType.class);
+    for (StepType step : steps) {
+      StepHandler handler = handlers.apply(step);
+      if (handler == null) {
+        throw new IllegalArgumentException("No handler provided for step " + step);
+      }
+      stepHandlers.put(step, handler);
+    }
+
+    RunState state = new RunState();
+    Map<StepType, CompletableFuture<Boolean>> futures = new HashMap<>();
+    steps.forEach(step -> schedule(step, steps, stepHandlers, state, futures));
+
+    return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+        .thenApply(v -> state.toExecution());
+  }
+
+  /**
+   * Creates the future of a step chained to the futures of its predecessors. The graphs are acyclic,
+   * so the recursion always ends at the root steps of the run.
+   */
+  private CompletableFuture<Boolean> schedule(
+      StepType step,
+      Set<StepType> steps,
+      Map<StepType, StepHandler> handlers,
+      RunState state,
+      Map<StepType, CompletableFuture<Boolean>> futures) {
+    CompletableFuture<Boolean> existing = futures.get(step);
+    if (existing != null) {
+      return existing;
+    }
+
+    List<CompletableFuture<Boolean>> predecessors =
+        graph.getPredecessors(step).stream()
+            .filter(steps::contains)
+            .map(p -> schedule(p, steps, handlers, state, futures))
+            .collect(Collectors.toList());
+
+    CompletableFuture<Boolean> future =
+        CompletableFuture.allOf(predecessors.toArray(new CompletableFuture[0]))
+            .thenApplyAsync(
+                v -> {
+                  if (!predecessors.stream().allMatch(CompletableFuture::join)) {
+                    state.skipped.add(step);
+                    return false;
+                  }
+                  return run(step, handlers.get(step), state);
+                },
+                executor);
+
+    futures.put(step, future);
+    return future;
+  }
+
+  private static boolean run(StepType step, StepHandler handler, RunState state) {
+    long start = System.nanoTime();
+    try {
+      handler.run(step);
+      state.completed.add(step);
+      return true;
+    } catch (Exception ex) {
+      state.failures.put(step, ex);
+      return false;
+    } finally {
+      state.timings.put(step, Duration.ofNanos(System.nanoTime() - start));
+    }
+  }
+
+  /**
+   * Mutable state shared by the steps of a run.
+   */
+  private static class RunState {
+    private final Set<StepType> completed = ConcurrentHashMap.newKeySet();
+    private final Set<StepType> skipped = ConcurrentHashMap.newKeySet();
+    private final Map<StepType, Exception> failures = new ConcurrentHashMap<>();
+    private final Map<StepType, Duration> timings = new ConcurrentHashMap<>();
+
+    private Execution toExecution() {
+      return new Execution(completed, skipped, failures, timings);
+    }
+  }
+
+  /**
+   * Outcome of a workflow run.
+   */
+  public static class Execution {
+
+    private final Set<StepType> completed;
+    private final Set<StepType> skipped;
+    private final Map<StepType, Exception> failures;
+    private final Map<StepType, Duration> timings;
+
+    private Execution(
+        Set<StepType> completed,
+        Set<StepType> skipped,
+        Map<StepType, Exception> failures,
+        Map<StepType, Duration> timings) {
+      this.completed = Collections.unmodifiableSet(copyOf(completed));
+      this.skipped = Collections.unmodifiableSet(copyOf(skipped));
+      this.failures = Collections.unmodifiableMap(copyOf(failures));
+      this.timings = Collections.unmodifiableMap(copyOf(timings));
+    }
+
+    private static Set<StepType> copyOf(Set<StepType> steps) {
+      return steps.isEmpty() ? EnumSet.noneOf(StepType.class) : EnumSet.copyOf(steps);
+    }
+
+    private static <V> Map<StepType, V> copyOf(Map<StepType, V> values) {
+      Map<StepType, V> copy = new EnumMap<>(StepType.class);
+      copy.putAll(values);
+      return copy;
+    }
+
+    /** Steps that finished successfully. */
+    public Set<StepType> getCompleted() {
+      return completed;
+    }
+
+    /** Steps not run because a step they depend on failed. */
+    public Set<StepType> getSkipped() {
+      return skipped;
+    }
+
+    /** Steps that failed, with the exception thrown by their handler. */
+    public Map<StepType, Exception> getFailures() {
+      return failures;
+    }
+
+    /** Time spent running each step, failed steps included. */
+    public Map<StepType, Duration> getTimings() {
+      return timings;
+    }
+
+    public boolean isSuccessful() {
+      return failures.isEmpty() && skipped.isEmpty();
+    }
+  }
+}
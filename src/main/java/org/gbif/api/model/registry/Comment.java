@@ -26,7 +26,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Size;
 
-public class Comment implements Serializable, LenientEquals<Comment> {
+public class Comment implements Serializable, LenientEquals<Comment>, Fingerprintable {
 
   @Schema(
     description = "Identifier for the comment",
@@ -63,6 +63,9 @@ public class Comment implements Serializable, LenientEquals<Comment> {
   )
   private Date modified;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Null(groups = {PrePersist.class})
   @NotNull(groups = {PostPersist.class})
   public Integer getKey() {
@@ -167,4 +170,17 @@ public class Comment implements Serializable, LenientEquals<Comment> {
     if (other == null) return false;
     return Objects.equals(this.content, other.content);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint.add(content);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
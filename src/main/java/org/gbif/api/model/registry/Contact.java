@@ -38,7 +38,7 @@ import org.apache.commons.lang3.StringUtils;
 
 // TODO: Should have a cross-field validation for key & created
 @SuppressWarnings({"unused", "LombokSetterMayBeUsed", "LombokGetterMayBeUsed"})
-public class Contact implements Address, LenientEquals<Contact> {
+public class Contact implements Address, LenientEquals<Contact>, Fingerprintable {
 
   @Schema(
     description = "Identifier for the contact",
@@ -157,6 +157,9 @@ public class Contact implements Address, LenientEquals<Contact> {
   )
   private Date modified;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Null(groups = {PrePersist.class})
   @NotNull(groups = {PostPersist.class})
   public Integer getKey() {
@@ -569,4 +572,34 @@ public class Contact implements Address, LenientEquals<Contact> {
         && Objects.equals(country, contact.country)
         && Objects.equals(postalCode, contact.postalCode);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(type)
+        .add(primary)
+        .add(userId)
+        .add(salutation)
+        .add(firstName)
+        .add(lastName)
+        .add(position)
+        .add(description)
+        .add(email)
+        .add(phone)
+        .add(homepage)
+        .add(organization)
+        .add(address)
+        .add(city)
+        .add(province)
+        .add(country)
+        .add(postalCode);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
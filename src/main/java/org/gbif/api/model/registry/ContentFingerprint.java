@@ -0,0 +1,524 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry;
+
+import org.gbif.api.model.common.DOI;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * A deterministic 64 or 128 bit fingerprint of the content of a {@link Fingerprintable} entity, to detect changes by
+ * comparing fingerprints instead of walking entity graphs.
+ * <p>
+ * The fingerprint covers the fields an entity compares in {@link LenientEquals#lenientEquals(Object)}, so server
+ * managed fields like keys and created or modified dates are skipped, and the contacts, endpoints, machine tags, tags,
+ * identifiers and comments of the entity, each folded in order using its own fingerprint. Fingerprints only depend on
+ * the content, never on identity hash codes, so they are stable across JVMs and can be stored. The 64 bit fingerprint
+ * is the low half of the 128 bit one.
+ * <p>
+ * Entities returning a {@link Cache} from {@link Fingerprintable#contentFingerprintCache()} keep their fingerprint
+ * together with the values it was computed from, including the elements of lists and sets, the times of dates and the
+ * fingerprints of nested entities. The next use of the cache only compares the current values with those, by
+ * reference or for immutable values by equality, and computes the fingerprint again if any differs, so changes made
+ * through the setters and in place are both seen without the setters knowing about the cache.
+ */
+public final class ContentFingerprint {
+
+  private static final long SEED = 0x2545F4914F6CDD1DL;
+  private static final long SEED_HIGH = 0x6A09E667F3BCC909L;
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+  private static final long MULTIPLIER_HIGH = 0xC2B2AE3D27D4EB4FL;
+
+  private static final long NULL = 0x01;
+  private static final long STRING = 0x02;
+  private static final long LIST = 0x03;
+  private static final long SET = 0x04;
+  private static final long ENTITY = 0x05;
+  private static final long VALUE = 0x06;
+  private static final long OBJECT = 0x07;
+  private static final long MAP = 0x09;
+  private static final long FLOATING = 0x0A;
+
+  private long hash = SEED;
+  private long high = SEED_HIGH;
+  // values of an entity recorded for or checked against its cache, null if not caching
+  @Nullable private final Trace trace;
+
+  /**
+   * Creates an empty fingerprint, to fingerprint values that aren't {@link Fingerprintable} entities.
+   */
+  public ContentFingerprint() {
+    this(null);
+  }
+
+  private ContentFingerprint(@Nullable Trace trace) {
+    this.trace = trace;
+  }
+
+  /**
+   * @return the 64 bit fingerprint of the content of the entity and its nested entities
+   * @throws IllegalArgumentException if the entity adds an unsupported value
+   */
+  public static long of(Fingerprintable entity) {
+    return compute(entity).value();
+  }
+
+  /**
+   * @return the 128 bit fingerprint of the content of the entity and its nested entities
+   * @throws IllegalArgumentException if the entity adds an unsupported value
+   */
+  public static Fingerprint128 of128(Fingerprintable entity) {
+    return compute(entity).value128();
+  }
+
+  private static ContentFingerprint compute(Fingerprintable entity) {
+    Cache cache = entity.contentFingerprintCache();
+    Snapshot snapshot = cache != null ? cache.snapshot : null;
+    if (snapshot != null) {
+      Trace check = new Trace(snapshot.values);
+      new ContentFingerprint(check).addEntity(entity);
+      if (check.matches()) {
+        ContentFingerprint cached = new ContentFingerprint(null);
+        cached.hash = snapshot.hash;
+        cached.high = snapshot.high;
+        return cached;
+      }
+    }
+
+    Trace record = cache != null ? new Trace(null) : null;
+    ContentFingerprint fingerprint = new ContentFingerprint(record);
+    fingerprint.addEntity(entity);
+    if (cache != null) {
+      cache.snapshot = new Snapshot(fingerprint.hash, fingerprint.high, record.recorded.toArray());
+    }
+    return fingerprint;
+  }
+
+  private void addEntity(Fingerprintable entity) {
+    entity.addContent(this);
+    if (entity instanceof Contactable) {
+      add(((Contactable) entity).getContacts());
+    }
+    if (entity instanceof Endpointable) {
+      add(((Endpointable) entity).getEndpoints());
+    }
+    if (entity instanceof MachineTaggable) {
+      add(((MachineTaggable) entity).getMachineTags());
+    }
+    if (entity instanceof Taggable) {
+      add(((Taggable) entity).getTags());
+    }
+    if (entity instanceof Identifiable) {
+      add(((Identifiable) entity).getIdentifiers());
+    }
+    if (entity instanceof Commentable) {
+      add(((Commentable) entity).getComments());
+    }
+  }
+
+  /**
+   * Adds a value to the fingerprint. Supported values are strings, enumerations, numbers, booleans, characters, dates,
+   * {@code java.time} values, UUIDs, URIs, URLs, locales, DOIs, other {@link Fingerprintable} entities, and lists,
+   * sets, maps and arrays of those. Sets and maps are added regardless of the iteration order.
+   *
+   * @return this fingerprint
+   * @throws IllegalArgumentException if the value isn't supported
+   */
+  public ContentFingerprint add(@Nullable Object value) {
+    if (trace != null && trace.changed) {
+      // the cache is stale, no need to look further
+      return this;
+    }
+
+    if (value == null) {
+      trace(null);
+      update(NULL);
+    } else if (value instanceof String || value instanceof Enum) {
+      trace(value);
+      addString(value instanceof Enum ? ((Enum<?>) value).name() : (String) value);
+    } else if (value instanceof CharSequence) {
+      String string = value.toString();
+      trace(string);
+      addString(string);
+    } else if (value instanceof Boolean) {
+      trace(value);
+      update(VALUE);
+      update((Boolean) value ? 1 : 0);
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      trace(value);
+      update(VALUE);
+      update(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      // the bits are equal exactly when the values are equal
+      trace(value);
+      update(FLOATING);
+      update(Double.doubleToLongBits(((Number) value).doubleValue()));
+    } else if (value instanceof Character) {
+      trace(value);
+      update(VALUE);
+      update((Character) value);
+    } else if (value instanceof Date) {
+      // dates are mutable, so their time is kept rather than the date
+      long time = ((Date) value).getTime();
+      traceMarker(time);
+      update(VALUE);
+      update(time);
+    } else if (value instanceof OffsetDateTime) {
+      // the instants are compared to the microsecond, as in OffsetDateTimeUtils.isEqualOffsetDateTime
+      Instant instant = ((OffsetDateTime) value).toInstant().truncatedTo(ChronoUnit.MICROS);
+      trace(value);
+      update(VALUE);
+      update(instant.getEpochSecond());
+      update(instant.getNano());
+    } else if (value instanceof UUID) {
+      trace(value);
+      update(VALUE);
+      update(((UUID) value).getMostSignificantBits());
+      update(((UUID) value).getLeastSignificantBits());
+    } else if (value instanceof BigDecimal
+        || value instanceof BigInteger
+        || value instanceof URI
+        || value instanceof DOI
+        || value instanceof Locale
+        || (value instanceof TemporalAccessor && value.getClass().getName().startsWith("java.time."))) {
+      // immutable values whose string forms are equal exactly when the values are equal
+      trace(value);
+      addString(value.toString());
+    } else if (value instanceof URL) {
+      trace(value);
+      addString(((URL) value).toExternalForm());
+    } else if (value instanceof Fingerprintable) {
+      ContentFingerprint nested = compute((Fingerprintable) value);
+      traceMarker(nested.hash);
+      traceMarker(nested.high);
+      update(ENTITY);
+      update(nested.hash);
+      update(nested.high);
+    } else if (value instanceof Set) {
+      addUnordered(SET, (Set<?>) value, ContentFingerprint::add);
+    } else if (value instanceof Collection) {
+      addOrdered((Collection<?>) value, ContentFingerprint::add);
+    } else if (value instanceof Object[]) {
+      addOrdered(Arrays.asList((Object[]) value), ContentFingerprint::add);
+    } else if (value instanceof Map) {
+      addUnordered(MAP, ((Map<?, ?>) value).entrySet(), (f, e) -> f.add(e.getKey()).add(e.getValue()));
+    } else {
+      throw new IllegalArgumentException("Unsupported fingerprint value " + value.getClass().getName());
+    }
+    return this;
+  }
+
+  /**
+   * Adds a mutable object that isn't an entity, like the citation of a dataset, with its fields.
+   *
+   * @param value the object
+   * @param fields adds the fields of a non null object to the fingerprint
+   * @return this fingerprint
+   */
+  public <T> ContentFingerprint add(@Nullable T value, BiConsumer<ContentFingerprint, ? super T> fields) {
+    if (trace != null && trace.changed) {
+      return this;
+    }
+    if (value == null) {
+      trace(null);
+      update(NULL);
+    } else {
+      traceMarker(OBJECT);
+      update(OBJECT);
+      fields.accept(this, value);
+    }
+    return this;
+  }
+
+  /**
+   * Adds a list or set of mutable objects that aren't entities, like {@link #add(Object, BiConsumer)} does for one.
+   * Sets are added regardless of the iteration order.
+   *
+   * @return this fingerprint
+   */
+  public <T> ContentFingerprint addAll(
+      @Nullable Collection<T> values, BiConsumer<ContentFingerprint, ? super T> fields) {
+    return add(
+        values,
+        (fingerprint, collection) -> {
+          if (collection instanceof Set) {
+            fingerprint.addUnordered(SET, collection, (f, element) -> f.add(element, fields));
+          } else {
+            fingerprint.addOrdered(collection, (f, element) -> f.add(element, fields));
+          }
+        });
+  }
+
+  /**
+   * @return the 64 bit fingerprint of the values added so far
+   */
+  public long value() {
+    return mix(hash);
+  }
+
+  /**
+   * @return the 128 bit fingerprint of the values added so far
+   */
+  public Fingerprint128 value128() {
+    return new Fingerprint128(mix(high), mix(hash));
+  }
+
+  private <T> void addOrdered(Collection<T> values, BiConsumer<ContentFingerprint, ? super T> element) {
+    traceMarker(values.size());
+    update(LIST);
+    update(values.size());
+    for (T value : values) {
+      element.accept(this, value);
+    }
+  }
+
+  private <T> void addUnordered(long type, Collection<T> values, BiConsumer<ContentFingerprint, ? super T> element) {
+    traceMarker(values.size());
+    long sum = 0;
+    long sumHigh = 0;
+    for (T value : values) {
+      if (checking()) {
+        // nothing to sum when checking a cache
+        element.accept(this, value);
+      } else {
+        ContentFingerprint fingerprint = new ContentFingerprint(trace);
+        element.accept(fingerprint, value);
+        sum += fingerprint.hash;
+        sumHigh += fingerprint.high;
+      }
+    }
+    update(type);
+    update(values.size());
+    update(sum);
+    update(sumHigh);
+  }
+
+  private void addString(String value) {
+    int length = value.length();
+    update(STRING);
+    update(length);
+    int i = 0;
+    for (; i + 4 <= length; i += 4) {
+      update(
+          (long) value.charAt(i)
+              | (long) value.charAt(i + 1) << 16
+              | (long) value.charAt(i + 2) << 32
+              | (long) value.charAt(i + 3) << 48);
+    }
+    long tail = 0;
+    for (int shift = 0; i < length; i++, shift += 16) {
+      tail |= (long) value.charAt(i) << shift;
+    }
+    update(tail);
+  }
+
+  private boolean checking() {
+    return trace != null && trace.expected != null;
+  }
+
+  private void trace(@Nullable Object value) {
+    if (trace != null) {
+      trace.value(value);
+    }
+  }
+
+  private void traceMarker(long value) {
+    if (trace != null) {
+      trace.marker(value);
+    }
+  }
+
+  private void update(long value) {
+    if (checking()) {
+      return;
+    }
+    long mixed = mix(value);
+    hash = Long.rotateLeft(hash ^ mixed, 31) * MULTIPLIER;
+    high = Long.rotateLeft(high + mixed, 27) * MULTIPLIER_HIGH;
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+    z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return z ^ (z >>> 33);
+  }
+
+  /**
+   * Holds the cached fingerprint of an entity. Entities keep one in a transient field, created by
+   * {@link Fingerprintable#contentFingerprintCache()}.
+   */
+  public static final class Cache {
+
+    @Nullable private volatile Snapshot snapshot;
+  }
+
+  /**
+   * A fingerprint and the values it was computed from.
+   */
+  private static final class Snapshot {
+
+    private final long hash;
+    private final long high;
+    private final Object[] values;
+
+    private Snapshot(long hash, long high, Object[] values) {
+      this.hash = hash;
+      this.high = high;
+      this.values = values;
+    }
+  }
+
+  /**
+   * Records the values added to a fingerprint, or checks them against the recorded ones.
+   */
+  private static final class Trace {
+
+    @Nullable private final List<Object> recorded;
+    @Nullable private final Object[] expected;
+    private int position;
+    private boolean changed;
+
+    private Trace(@Nullable Object[] expected) {
+      this.expected = expected;
+      this.recorded = expected == null ? new ArrayList<>() : null;
+    }
+
+    private void value(@Nullable Object value) {
+      if (recorded != null) {
+        recorded.add(value);
+      } else if (!changed) {
+        Object previous = next();
+        changed = previous != value && (previous == null || !immutable(value) || !value.equals(previous));
+      }
+    }
+
+    private void marker(long value) {
+      if (recorded != null) {
+        recorded.add(new Marker(value));
+      } else if (!changed) {
+        Object previous = next();
+        changed = !(previous instanceof Marker) || ((Marker) previous).value != value;
+      }
+    }
+
+    @Nullable
+    private Object next() {
+      if (position == expected.length) {
+        changed = true;
+        return null;
+      }
+      return expected[position++];
+    }
+
+    private boolean matches() {
+      return !changed && position == expected.length;
+    }
+
+    /**
+     * @return true if the value is immutable and equal values add the same content
+     */
+    private static boolean immutable(Object value) {
+      return value instanceof String
+          || value instanceof Integer
+          || value instanceof Long
+          || value instanceof Short
+          || value instanceof Byte
+          || value instanceof Boolean
+          || value instanceof Character
+          || value instanceof Double
+          || value instanceof Float
+          || value instanceof UUID
+          || value instanceof BigDecimal
+          || value instanceof BigInteger;
+    }
+  }
+
+  /**
+   * A recorded size, time or nested fingerprint.
+   */
+  private static final class Marker {
+
+    private final long value;
+
+    private Marker(long value) {
+      this.value = value;
+    }
+  }
+
+  /**
+   * A 128 bit fingerprint, whose low half is the 64 bit fingerprint.
+   */
+  public static final class Fingerprint128 {
+
+    private final long high;
+    private final long low;
+
+    public Fingerprint128(long high, long low) {
+      this.high = high;
+      this.low = low;
+    }
+
+    public long getHigh() {
+      return high;
+    }
+
+    public long getLow() {
+      return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Fingerprint128 that = (Fingerprint128) o;
+      return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(high ^ low);
+    }
+
+    /**
+     * @return the 32 hexadecimal digits of the fingerprint
+     */
+    @Override
+    public String toString() {
+      return String.format("%016x%016x", high, low);
+    }
+  }
+}
@@ -112,7 +112,8 @@ public class Dataset
     Taggable,
     Identifiable,
     Commentable,
-    LenientEquals<Dataset> {
+    LenientEquals<Dataset>,
+    Fingerprintable {
 
   @Schema(
     description = "Unique GBIF key for the dataset. This is used in the" +
@@ -305,6 +306,12 @@ public class Dataset
   )
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  private transient MachineTagIndex machineTagIndex;
+
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Schema(
     description = "A list of tags associated with this dataset.",
     accessMode = Schema.AccessMode.READ_ONLY
@@ -943,11 +950,21 @@ public class Dataset
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   @Override
@@ -1391,6 +1408,45 @@ public class Dataset
         && Objects.equals(this.category, other.category);
   }
 
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(parentDatasetKey)
+        .add(duplicateOfDatasetKey)
+        .add(installationKey)
+        .add(publishingOrganizationKey)
+        .add(publishingOrganizationName)
+        .add(doi)
+        .add(external)
+        .add(type)
+        .add(subtype)
+        .add(title)
+        .add(alias)
+        .add(abbreviation)
+        .add(description)
+        .add(language)
+        .add(homepage)
+        .add(logoUrl)
+        .add(
+            citation,
+            (f, c) -> f.add(c.getText()).add(c.getIdentifier()).add(c.isCitationProvidedBySource()))
+        .add(rights)
+        .add(lockedForAutoUpdate)
+        .add(deleted)
+        .add(maintenanceUpdateFrequency)
+        .add(maintenanceDescription)
+        .add(dwca, (f, d) -> f.add(d.getCoreType()).add(d.getExtensions()).add(d.getModified()))
+        .add(category);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
+
   /**
    * Metadata of dataset that has been published as a Darwin Core Archive (DwC-A).
    */
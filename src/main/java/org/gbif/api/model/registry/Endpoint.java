@@ -33,7 +33,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Size;
 
-public class Endpoint implements MachineTaggable, Serializable, LenientEquals<Endpoint> {
+public class Endpoint implements MachineTaggable, Serializable, LenientEquals<Endpoint>, Fingerprintable {
 
   @Schema(
     description = "Identifier for the endpoint",
@@ -77,6 +77,12 @@ public class Endpoint implements MachineTaggable, Serializable, LenientEquals<En
   )
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  private transient MachineTagIndex machineTagIndex;
+
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Null(groups = PrePersist.class)
   @NotNull(groups = PostPersist.class)
   @Min(1)
@@ -161,11 +167,21 @@ public class Endpoint implements MachineTaggable, Serializable, LenientEquals<En
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   @Override
@@ -224,4 +240,20 @@ public class Endpoint implements MachineTaggable, Serializable, LenientEquals<En
           && Objects.equals(this.description, other.description);
     }
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(type)
+        .add(url)
+        .add(description);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
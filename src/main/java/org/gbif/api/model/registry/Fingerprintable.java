@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Entities with a {@link ContentFingerprint} of their content, the fields they compare in
+ * {@link LenientEquals#lenientEquals(Object)}.
+ */
+public interface Fingerprintable {
+
+  /**
+   * Adds the fields compared by {@link LenientEquals#lenientEquals(Object)} to a fingerprint, in a fixed order. The
+   * contacts, endpoints, machine tags, tags, identifiers and comments of the interfaces giving them are added by
+   * {@link ContentFingerprint} itself.
+   *
+   * @param fingerprint to add the fields to
+   */
+  void addContent(ContentFingerprint fingerprint);
+
+  /**
+   * @return the cache of the {@link ContentFingerprint} of this entity, kept in a transient field, or null if it isn't
+   *     cached. The cache is checked against the content on every use, so the setters don't need to drop it.
+   */
+  @Nullable
+  default ContentFingerprint.Cache contentFingerprintCache() {
+    return null;
+  }
+
+  /**
+   * @return the 64 bit {@link ContentFingerprint} of this entity
+   */
+  default long contentFingerprint() {
+    return ContentFingerprint.of(this);
+  }
+
+  /**
+   * @return the 128 bit {@link ContentFingerprint} of this entity
+   */
+  default ContentFingerprint.Fingerprint128 contentFingerprint128() {
+    return ContentFingerprint.of128(this);
+  }
+}
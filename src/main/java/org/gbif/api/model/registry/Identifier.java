@@ -33,7 +33,7 @@ import jakarta.validation.constraints.Size;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-public class Identifier implements Serializable, LenientEquals<Identifier> {
+public class Identifier implements Serializable, LenientEquals<Identifier>, Fingerprintable {
 
   @Schema(
     description = "Database identifier for the identifier",
@@ -64,6 +64,9 @@ public class Identifier implements Serializable, LenientEquals<Identifier> {
   @NotNull
   private Boolean primary = false;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   public Identifier() {}
 
   public Identifier(IdentifierType type, String identifier) {
@@ -188,4 +191,19 @@ public class Identifier implements Serializable, LenientEquals<Identifier> {
     return Objects.equals(this.type, other.type)
         && Objects.equals(this.identifier, other.identifier);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(type)
+        .add(identifier);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -51,7 +51,8 @@ public class Installation
     Taggable,
     Commentable,
     Identifiable,
-    LenientEquals<Installation> {
+    LenientEquals<Installation>,
+    Fingerprintable {
 
   @Schema(
     description = "Unique GBIF key for the installation.",
@@ -146,6 +147,12 @@ public class Installation
   )
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  private transient MachineTagIndex machineTagIndex;
+
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Schema(
     description = "A list of tags associated with this installation.",
     accessMode = Schema.AccessMode.READ_ONLY
@@ -325,11 +332,21 @@ public class Installation
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   @Override
@@ -453,4 +470,21 @@ public class Installation
         && Objects.equals(this.title, other.title)
         && Objects.equals(this.description, other.description);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(organizationKey)
+        .add(type)
+        .add(title)
+        .add(description);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -34,7 +34,7 @@ import jakarta.validation.constraints.Size;
  */
 // TODO: Document the rules regarding duplicate names and values
 @SuppressWarnings("unused")
-public class MachineTag implements LenientEquals<MachineTag>, Serializable {
+public class MachineTag implements LenientEquals<MachineTag>, Fingerprintable, Serializable {
 
   private static final long serialVersionUID = 3475968899219274852L;
 
@@ -71,6 +71,9 @@ public class MachineTag implements LenientEquals<MachineTag>, Serializable {
   )
   private Date created;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   public static MachineTag newInstance(String namespace, String name, String value) {
     return new MachineTag(namespace, name, value);
   }
@@ -206,4 +209,20 @@ public class MachineTag implements LenientEquals<MachineTag>, Serializable {
         && Objects.equals(this.name, other.name)
         && Objects.equals(this.value, other.value);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(namespace)
+        .add(name)
+        .add(value);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
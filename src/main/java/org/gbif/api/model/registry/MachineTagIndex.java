@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry;
+
+import org.gbif.api.vocabulary.TagName;
+import org.gbif.api.vocabulary.TagNamespace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Index of the machine tags of an entity by namespace, name and {@link TagName}, to look tags up without scanning
+ * all of them.
+ * <p>
+ * The index is a snapshot of a tag list and is immutable. The machine taggable entities keep the index of their tags
+ * in a field, built on first use and dropped when their tags are set or added, see
+ * {@link MachineTaggable#machineTagIndex()}.
+ */
+@ThreadSafe
+public final class MachineTagIndex {
+
+  private static final Map<String, Map<String, TagName>> TAG_NAMES = new HashMap<>();
+
+  static {
+    for (TagName tagName : TagName.values()) {
+      TAG_NAMES
+          .computeIfAbsent(tagName.getNamespace().getNamespace(), k -> new HashMap<>())
+          .put(tagName.getName(), tagName);
+    }
+  }
+
+  private final List<MachineTag> source;
+  private final MachineTag[] tags;
+  private final Map<String, List<MachineTag>> byNamespace = new HashMap<>();
+  private final Map<String, Map<String, List<MachineTag>>> byName = new HashMap<>();
+  private final Map<TagName, List<MachineTag>> byTagName = new EnumMap<>(TagName.class);
+
+  private MachineTagIndex(List<MachineTag> source) {
+    this.source = source;
+    this.tags = source.toArray(new MachineTag[0]);
+    for (MachineTag tag : tags) {
+      byNamespace.computeIfAbsent(tag.getNamespace(), k -> new ArrayList<>()).add(tag);
+      byName
+          .computeIfAbsent(tag.getNamespace(), k -> new HashMap<>())
+          .computeIfAbsent(tag.getName(), k -> new ArrayList<>())
+          .add(tag);
+
+      Map<String, TagName> names = TAG_NAMES.get(tag.getNamespace());
+      TagName tagName = names != null ? names.get(tag.getName()) : null;
+      if (tagName != null) {
+        byTagName.computeIfAbsent(tagName, k -> new ArrayList<>()).add(tag);
+      }
+    }
+  }
+
+  /**
+   * Indexes a list of machine tags.
+   */
+  public static MachineTagIndex build(List<MachineTag> machineTags) {
+    return new MachineTagIndex(Objects.requireNonNull(machineTags, "Machine tags are required"));
+  }
+
+  /**
+   * Checks in O(1) that this index was built from the given list and that tags weren't added to or removed from it
+   * since. Tags replaced in place in the list aren't detected.
+   *
+   * @return true if this index is likely up to date with the list of machine tags given
+   */
+  public boolean isIndexOf(List<MachineTag> machineTags) {
+    return machineTags == source && machineTags.size() == tags.length;
+  }
+
+  /**
+   * @return the first machine tag with the given TagName or null if there is none
+   */
+  @Nullable
+  public MachineTag first(TagName tagName) {
+    List<MachineTag> matches = byTagName.get(tagName);
+    return matches != null ? matches.get(0) : null;
+  }
+
+  /**
+   * @return the first machine tag with the given namespace and name or null if there is none
+   */
+  @Nullable
+  public MachineTag first(String namespace, String name) {
+    List<MachineTag> matches = get(namespace, name);
+    return matches.isEmpty() ? null : matches.get(0);
+  }
+
+  /**
+   * @return the machine tags with the given TagName, in their original order
+   */
+  public List<MachineTag> get(TagName tagName) {
+    return unmodifiable(byTagName.get(tagName));
+  }
+
+  /**
+   * @return the machine tags with the given namespace and name, in their original order
+   */
+  public List<MachineTag> get(String namespace, String name) {
+    Map<String, List<MachineTag>> names = byName.get(namespace);
+    return unmodifiable(names != null ? names.get(name) : null);
+  }
+
+  /**
+   * @return the machine tags with the given namespace, in their original order
+   */
+  public List<MachineTag> get(TagNamespace tagNamespace) {
+    return getNamespace(tagNamespace.getNamespace());
+  }
+
+  /**
+   * @return the machine tags with the given namespace, in their original order
+   */
+  public List<MachineTag> getNamespace(String namespace) {
+    return unmodifiable(byNamespace.get(namespace));
+  }
+
+  /**
+   * @return true if there is a machine tag with the given namespace, name and value, null meaning any
+   */
+  public boolean contains(@Nullable String namespace, @Nullable String name, @Nullable String value) {
+    List<MachineTag> candidates;
+    if (namespace != null && name != null) {
+      candidates = get(namespace, name);
+    } else if (namespace != null) {
+      candidates = getNamespace(namespace);
+    } else {
+      candidates = Arrays.asList(tags);
+    }
+
+    for (MachineTag tag : candidates) {
+      if ((name == null || name.equals(tag.getName())) && (value == null || value.equals(tag.getValue()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of machine tags indexed
+   */
+  public int size() {
+    return tags.length;
+  }
+
+  private static List<MachineTag> unmodifiable(@Nullable List<MachineTag> tags) {
+    return tags != null ? Collections.unmodifiableList(tags) : Collections.emptyList();
+  }
+}
@@ -31,4 +31,14 @@ public interface MachineTaggable {
   void setMachineTags(List<MachineTag> machineTags);
 
   void addMachineTag(MachineTag machineTag);
+
+  /**
+   * Entities keep the index in a field, built on first use and dropped when the tags are set or added, so that
+   * lookups cost O(1) after the first one. This default builds a new index on every call.
+   *
+   * @return the index of the machine tags
+   */
+  default MachineTagIndex machineTagIndex() {
+    return MachineTagIndex.build(getMachineTags());
+  }
 }
@@ -30,7 +30,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.AssertTrue;
 
-public class Metadata implements Serializable, LenientEquals<Metadata> {
+public class Metadata implements Serializable, LenientEquals<Metadata>, Fingerprintable {
 
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
@@ -45,6 +45,9 @@ public class Metadata implements Serializable, LenientEquals<Metadata> {
   private Date created;
   private Date modified;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Min(1)
   public Integer getKey() {
     return key;
@@ -196,4 +199,21 @@ public class Metadata implements Serializable, LenientEquals<Metadata> {
         && Objects.equals(this.content, other.content)
         && Objects.equals(this.contentJson, other.contentJson);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(datasetKey)
+        .add(type)
+        .add(content)
+        .add(contentJson);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -56,6 +56,7 @@ public class Network
     Commentable,
     Identifiable,
     LenientEquals<Network>,
+    Fingerprintable,
     Address {
 
   @Schema(
@@ -181,6 +182,12 @@ public class Network
   )
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  private transient MachineTagIndex machineTagIndex;
+
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Schema(
     description = "A list of tags associated with this network.",
     accessMode = Schema.AccessMode.READ_ONLY
@@ -422,11 +429,21 @@ public class Network
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   @Override
@@ -606,4 +623,29 @@ public class Network
         && Objects.equals(this.country, other.country)
         && Objects.equals(this.postalCode, other.postalCode);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(title)
+        .add(description)
+        .add(language)
+        .add(email)
+        .add(phone)
+        .add(homepage)
+        .add(logoUrl)
+        .add(address)
+        .add(city)
+        .add(province)
+        .add(country)
+        .add(postalCode);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -64,6 +64,7 @@ public class Node
     Identifiable,
     Endpointable,
     LenientEquals<Node>,
+    Fingerprintable,
     Address {
 
   @Schema(
@@ -246,6 +247,12 @@ public class Node
   )
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  private transient MachineTagIndex machineTagIndex;
+
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Schema(
     description = "A list of tags associated with this participant node.",
     accessMode = Schema.AccessMode.READ_ONLY
@@ -563,11 +570,21 @@ public class Node
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   @Override
@@ -738,4 +755,24 @@ public class Node
         && Objects.equals(this.participantTitle, other.participantTitle)
         && Objects.equals(this.country, other.country);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(type)
+        .add(participationStatus)
+        .add(gbifRegion)
+        .add(continent)
+        .add(title)
+        .add(participantTitle)
+        .add(country);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -53,6 +53,7 @@ public class Organization
     Identifiable,
     Commentable,
     LenientEquals<Organization>,
+    Fingerprintable,
     Address {
 
   @Schema(
@@ -227,6 +228,12 @@ public class Organization
   )
   private List<MachineTag> machineTags = new ArrayList<>();
 
+  // index of the machine tags, built on demand and dropped when they change
+  private transient MachineTagIndex machineTagIndex;
+
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   @Schema(
     description = "A list of tags associated with this publishing organization.",
     accessMode = Schema.AccessMode.READ_ONLY
@@ -567,11 +574,21 @@ public class Organization
   @Override
   public void setMachineTags(List<MachineTag> machineTags) {
     this.machineTags = machineTags;
+    this.machineTagIndex = null;
   }
 
   @Override
   public void addMachineTag(MachineTag machineTag) {
     machineTags.add(machineTag);
+    machineTagIndex = null;
+  }
+
+  @Override
+  public MachineTagIndex machineTagIndex() {
+    if (machineTagIndex == null || !machineTagIndex.isIndexOf(machineTags)) {
+      machineTagIndex = MachineTagIndex.build(machineTags);
+    }
+    return machineTagIndex;
   }
 
   @Override
@@ -756,4 +773,37 @@ public class Organization
         && Objects.equals(this.deleted, other.deleted)
         && Objects.equals(this.endorsed, other.endorsed);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint
+        .add(endorsingNodeKey)
+        .add(endorsementApproved)
+        .add(endorsementStatus)
+        .add(title)
+        .add(abbreviation)
+        .add(description)
+        .add(language)
+        .add(email)
+        .add(phone)
+        .add(homepage)
+        .add(logoUrl)
+        .add(address)
+        .add(city)
+        .add(province)
+        .add(country)
+        .add(postalCode)
+        .add(latitude)
+        .add(longitude)
+        .add(deleted)
+        .add(endorsed);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
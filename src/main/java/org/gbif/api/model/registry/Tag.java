@@ -27,7 +27,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
 import jakarta.validation.constraints.Size;
 
-public class Tag implements Serializable, LenientEquals<Tag> {
+public class Tag implements Serializable, LenientEquals<Tag>, Fingerprintable {
 
   @Schema(
     description = "Identifier for the tag",
@@ -52,6 +52,9 @@ public class Tag implements Serializable, LenientEquals<Tag> {
   )
   private Date created;
 
+  // fingerprint of the content, checked against the content on every use
+  private transient ContentFingerprint.Cache contentFingerprintCache;
+
   public Tag() {}
 
   public Tag(String value) {
@@ -144,4 +147,17 @@ public class Tag implements Serializable, LenientEquals<Tag> {
     if (other == null) return false;
     return Objects.equals(this.value, other.value);
   }
+
+  @Override
+  public void addContent(ContentFingerprint fingerprint) {
+    fingerprint.add(value);
+  }
+
+  @Override
+  public ContentFingerprint.Cache contentFingerprintCache() {
+    if (contentFingerprintCache == null) {
+      contentFingerprintCache = new ContentFingerprint.Cache();
+    }
+    return contentFingerprintCache;
+  }
 }
@@ -0,0 +1,723 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry.eml;
+
+import org.gbif.api.model.common.InterpretedEnum;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.util.IsoDateParsingUtils;
+import org.gbif.api.util.VocabularyUtils;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.Language;
+import org.gbif.api.vocabulary.MaintenanceUpdateFrequency;
+import org.gbif.api.vocabulary.Rank;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Reads the EML elements mapped onto a {@link Dataset} from an EML document, streaming it with StAX instead of
+ * building a DOM.
+ * <p>
+ * The memory used doesn't depend on the size of the document but on what's kept of it: sections can be skipped without
+ * being parsed, and the taxonomic coverages, which can be tens of thousands, can be passed to a consumer instead of
+ * being kept in the dataset. Elements not mapped onto the dataset are skipped.
+ * <p>
+ * Instances are immutable and thread-safe, and can be reused to read many documents.
+ */
+public final class EmlReader {
+
+  /**
+   * Sections of the EML documents that can be skipped.
+   */
+  public enum Section {
+    /** The creators, metadata providers, contacts and associated parties. */
+    CONTACTS,
+    /** The keyword sets. */
+    KEYWORDS,
+    /** The geographic coverages. */
+    GEOGRAPHIC_COVERAGE,
+    /** The temporal coverages. */
+    TEMPORAL_COVERAGE,
+    /** The taxonomic coverages. */
+    TAXONOMIC_COVERAGE,
+    /** The project. */
+    PROJECT,
+    /** The maintenance description and update frequency. */
+    MAINTENANCE
+  }
+
+  private static final XMLInputFactory FACTORY = newFactory();
+
+  private final Set<Section> skipped;
+  @Nullable private final Consumer<TaxonomicCoverage> taxonomicCoverageConsumer;
+
+  private EmlReader(Builder builder) {
+    this.skipped = builder.skipped;
+    this.taxonomicCoverageConsumer = builder.taxonomicCoverageConsumer;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Reads a dataset from an EML document. The stream isn't closed.
+   *
+   * @throws IllegalArgumentException if the document isn't parsable
+   */
+  public Dataset read(InputStream document) {
+    XMLStreamReader reader = null;
+    try {
+      reader = FACTORY.createXMLStreamReader(document);
+      Dataset dataset = new Dataset();
+      while (reader.hasNext()) {
+        if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+          continue;
+        }
+        if ("eml".equals(reader.getLocalName())) {
+          // the language of the metadata
+          String language = reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang");
+          if (language != null) {
+            dataset.setLanguage(Language.fromIsoCode(language));
+          }
+        } else if ("dataset".equals(reader.getLocalName())) {
+          new DocumentReader(reader, dataset).readDataset();
+          return dataset;
+        }
+      }
+      throw new IllegalArgumentException("EML document without dataset element");
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("EML document is not parsable: " + e.getMessage(), e);
+    } finally {
+      close(reader);
+    }
+  }
+
+  private static XMLInputFactory newFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // no DTDs nor external entities in untrusted documents
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  private static void close(@Nullable XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // nothing to release
+      }
+    }
+  }
+
+  /**
+   * Builder of {@link EmlReader}s.
+   */
+  public static class Builder {
+
+    private final Set<Section> skipped = EnumSet.noneOf(Section.class);
+    private Consumer<TaxonomicCoverage> taxonomicCoverageConsumer;
+
+    private Builder() {}
+
+    /**
+     * Skips sections of the documents, leaving the corresponding fields of the dataset empty.
+     */
+    public Builder skip(Section... sections) {
+      for (Section section : sections) {
+        skipped.add(Objects.requireNonNull(section));
+      }
+      return this;
+    }
+
+    /**
+     * Passes the taxonomic coverages to a consumer as they are read. The {@link TaxonomicCoverages} of the dataset
+     * then only have their description, so the memory used doesn't grow with the number of taxa.
+     */
+    public Builder taxonomicCoverageConsumer(Consumer<TaxonomicCoverage> consumer) {
+      this.taxonomicCoverageConsumer = Objects.requireNonNull(consumer);
+      return this;
+    }
+
+    public EmlReader build() {
+      return new EmlReader(this);
+    }
+  }
+
+  /**
+   * Reads a single document.
+   */
+  private class DocumentReader {
+
+    private final XMLStreamReader reader;
+    private final Dataset dataset;
+    private final StringBuilder text = new StringBuilder();
+    // the same few ranks are repeated in all the taxonomic coverages
+    private final Map<String, Rank> ranks = new HashMap<>();
+
+    private DocumentReader(XMLStreamReader reader, Dataset dataset) {
+      this.reader = reader;
+      this.dataset = dataset;
+    }
+
+    private void readDataset() throws XMLStreamException {
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "title":
+            dataset.setTitle(readText());
+            break;
+          case "creator":
+            readContact(ContactType.ORIGINATOR);
+            break;
+          case "metadataProvider":
+            readContact(ContactType.METADATA_AUTHOR);
+            break;
+          case "associatedParty":
+            // the type is given by the role
+            readContact(null);
+            break;
+          case "contact":
+            readContact(ContactType.ADMINISTRATIVE_POINT_OF_CONTACT);
+            break;
+          case "pubDate":
+            dataset.setPubDate(toDate(readText()));
+            break;
+          case "language":
+            String language = readText();
+            if (language != null) {
+              dataset.setDataLanguage(Language.fromIsoCode(language));
+            }
+            break;
+          case "abstract":
+            dataset.setDescription(readText());
+            break;
+          case "keywordSet":
+            readKeywords();
+            break;
+          case "additionalInfo":
+            dataset.setAdditionalInfo(readText());
+            break;
+          case "intellectualRights":
+            dataset.setRights(readText());
+            break;
+          case "coverage":
+            readCoverage();
+            break;
+          case "purpose":
+            dataset.setPurpose(readText());
+            break;
+          case "introduction":
+            dataset.setIntroduction(readText());
+            break;
+          case "gettingStarted":
+            dataset.setGettingStarted(readText());
+            break;
+          case "acknowledgements":
+            dataset.setAcknowledgements(readText());
+            break;
+          case "maintenance":
+            readMaintenance();
+            break;
+          case "project":
+            readProject();
+            break;
+          default:
+            skip();
+        }
+      }
+    }
+
+    private void readContact(@Nullable ContactType defaultType) throws XMLStreamException {
+      if (skipped.contains(Section.CONTACTS)) {
+        skip();
+        return;
+      }
+      dataset.getContacts().add(readParty(defaultType));
+    }
+
+    private Contact readParty(@Nullable ContactType defaultType) throws XMLStreamException {
+      Contact contact = new Contact();
+      contact.setType(defaultType);
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "individualName":
+            while (nextChild()) {
+              switch (reader.getLocalName()) {
+                case "salutation":
+                  contact.setSalutation(readText());
+                  break;
+                case "givenName":
+                  contact.setFirstName(readText());
+                  break;
+                case "surName":
+                  contact.setLastName(readText());
+                  break;
+                default:
+                  skip();
+              }
+            }
+            break;
+          case "organizationName":
+            contact.setOrganization(readText());
+            break;
+          case "positionName":
+            addIfPresent(contact.getPosition(), readText());
+            break;
+          case "address":
+            readAddress(contact);
+            break;
+          case "phone":
+            addIfPresent(contact.getPhone(), readText());
+            break;
+          case "electronicMailAddress":
+            addIfPresent(contact.getEmail(), readText());
+            break;
+          case "onlineUrl":
+            String url = readText();
+            if (url != null) {
+              try {
+                contact.getHomepage().add(URI.create(url));
+              } catch (IllegalArgumentException e) {
+                // not a URL
+              }
+            }
+            break;
+          case "userId":
+            addIfPresent(contact.getUserId(), readText());
+            break;
+          case "role":
+            String role = readText();
+            try {
+              ContactType type = ContactType.inferType(role);
+              if (type != null) {
+                contact.setType(type);
+              }
+            } catch (IllegalArgumentException e) {
+              // a role without contact type
+            }
+            break;
+          default:
+            skip();
+        }
+      }
+      return contact;
+    }
+
+    private void readAddress(Contact contact) throws XMLStreamException {
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "deliveryPoint":
+            addIfPresent(contact.getAddress(), readText());
+            break;
+          case "city":
+            contact.setCity(readText());
+            break;
+          case "administrativeArea":
+            contact.setProvince(readText());
+            break;
+          case "postalCode":
+            contact.setPostalCode(readText());
+            break;
+          case "country":
+            contact.setCountry(Country.fromIsoCode(readText()));
+            break;
+          default:
+            skip();
+        }
+      }
+    }
+
+    private void readKeywords() throws XMLStreamException {
+      if (skipped.contains(Section.KEYWORDS)) {
+        skip();
+        return;
+      }
+      KeywordCollection keywords = new KeywordCollection();
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "keyword":
+            String keyword = readText();
+            if (keyword != null) {
+              keywords.addKeyword(keyword);
+            }
+            break;
+          case "keywordThesaurus":
+            keywords.setThesaurus(readText());
+            break;
+          default:
+            skip();
+        }
+      }
+      dataset.getKeywordCollections().add(keywords);
+    }
+
+    private void readCoverage() throws XMLStreamException {
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "geographicCoverage":
+            readGeographicCoverage();
+            break;
+          case "temporalCoverage":
+            readTemporalCoverage();
+            break;
+          case "taxonomicCoverage":
+            readTaxonomicCoverage();
+            break;
+          default:
+            skip();
+        }
+      }
+    }
+
+    private void readGeographicCoverage() throws XMLStreamException {
+      if (skipped.contains(Section.GEOGRAPHIC_COVERAGE)) {
+        skip();
+        return;
+      }
+      GeospatialCoverage coverage = new GeospatialCoverage();
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "geographicDescription":
+            coverage.setDescription(readText());
+            break;
+          case "boundingCoordinates":
+            Double west = null;
+            Double east = null;
+            Double north = null;
+            Double south = null;
+            while (nextChild()) {
+              switch (reader.getLocalName()) {
+                case "westBoundingCoordinate":
+                  west = toDouble(readText());
+                  break;
+                case "eastBoundingCoordinate":
+                  east = toDouble(readText());
+                  break;
+                case "northBoundingCoordinate":
+                  north = toDouble(readText());
+                  break;
+                case "southBoundingCoordinate":
+                  south = toDouble(readText());
+                  break;
+                default:
+                  skip();
+              }
+            }
+            // a box with a missing or invalid coordinate is left unset rather than stretched to 0
+            if (west != null && east != null && north != null && south != null) {
+              coverage.setBoundingBox(new BoundingBox(south, north, west, east));
+            }
+            break;
+          default:
+            skip();
+        }
+      }
+      dataset.getGeographicCoverages().add(coverage);
+    }
+
+    private void readTemporalCoverage() throws XMLStreamException {
+      if (skipped.contains(Section.TEMPORAL_COVERAGE)) {
+        skip();
+        return;
+      }
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "singleDateTime":
+            SingleDate single = new SingleDate();
+            single.setDate(readCalendarDate());
+            dataset.getTemporalCoverages().add(single);
+            break;
+          case "rangeOfDates":
+            DateRange range = new DateRange();
+            while (nextChild()) {
+              switch (reader.getLocalName()) {
+                case "beginDate":
+                  range.setStart(readCalendarDate());
+                  break;
+                case "endDate":
+                  range.setEnd(readCalendarDate());
+                  break;
+                default:
+                  skip();
+              }
+            }
+            dataset.getTemporalCoverages().add(range);
+            break;
+          default:
+            skip();
+        }
+      }
+    }
+
+    private Date readCalendarDate() throws XMLStreamException {
+      Date date = null;
+      while (nextChild()) {
+        if ("calendarDate".equals(reader.getLocalName())) {
+          date = toDate(readText());
+        } else {
+          skip();
+        }
+      }
+      return date;
+    }
+
+    private void readTaxonomicCoverage() throws XMLStreamException {
+      if (skipped.contains(Section.TAXONOMIC_COVERAGE)) {
+        skip();
+        return;
+      }
+      TaxonomicCoverages coverages = new TaxonomicCoverages();
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "generalTaxonomicCoverage":
+            coverages.setDescription(readText());
+            break;
+          case "taxonomicClassification":
+            TaxonomicCoverage coverage = readTaxonomicClassification();
+            if (taxonomicCoverageConsumer != null) {
+              taxonomicCoverageConsumer.accept(coverage);
+            } else {
+              coverages.addCoverages(coverage);
+            }
+            break;
+          default:
+            skip();
+        }
+      }
+      dataset.getTaxonomicCoverages().add(coverages);
+    }
+
+    private TaxonomicCoverage readTaxonomicClassification() throws XMLStreamException {
+      TaxonomicCoverage coverage = new TaxonomicCoverage();
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "taxonRankName":
+            String rank = readText();
+            if (rank != null) {
+              coverage.setRank(new InterpretedEnum<>(rank, ranks.computeIfAbsent(rank, EmlReader::toRank)));
+            }
+            break;
+          case "taxonRankValue":
+            coverage.setScientificName(readText());
+            break;
+          case "commonName":
+            coverage.setCommonName(readText());
+            break;
+          default:
+            // nested classifications aren't mapped onto the model
+            skip();
+        }
+      }
+      return coverage;
+    }
+
+    private void readMaintenance() throws XMLStreamException {
+      if (skipped.contains(Section.MAINTENANCE)) {
+        skip();
+        return;
+      }
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "description":
+            dataset.setMaintenanceDescription(readText());
+            break;
+          case "maintenanceUpdateFrequency":
+            dataset.setMaintenanceUpdateFrequency(
+                VocabularyUtils.lookup(readText(), MaintenanceUpdateFrequency.class).orElse(null));
+            break;
+          default:
+            skip();
+        }
+      }
+    }
+
+    private void readProject() throws XMLStreamException {
+      if (skipped.contains(Section.PROJECT)) {
+        skip();
+        return;
+      }
+      Project project = new Project();
+      project.setContacts(new ArrayList<>());
+      String identifier = reader.getAttributeValue(null, "id");
+      project.setIdentifier(identifier);
+      while (nextChild()) {
+        switch (reader.getLocalName()) {
+          case "title":
+            project.setTitle(readText());
+            break;
+          case "personnel":
+            project.getContacts().add(readParty(null));
+            break;
+          case "abstract":
+            project.setAbstract(readText());
+            break;
+          case "funding":
+            project.setFunding(readText());
+            break;
+          case "studyAreaDescription":
+            project.setStudyAreaDescription(readText());
+            break;
+          case "designDescription":
+            project.setDesignDescription(readText());
+            break;
+          default:
+            skip();
+        }
+      }
+      dataset.setProject(project);
+    }
+
+    /**
+     * Moves to the next child element of the current element.
+     *
+     * @return false once the end of the current element is reached
+     */
+    private boolean nextChild() throws XMLStreamException {
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          return true;
+        }
+        if (event == XMLStreamConstants.END_ELEMENT) {
+          return false;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Skips the current element and its descendants.
+     */
+    private void skip() throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0 && reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+    }
+
+    /**
+     * Reads the text of the current element and its descendants, e.g. the paragraphs of an abstract, separated by
+     * new lines.
+     *
+     * @return the trimmed text or null if it's empty
+     */
+    @Nullable
+    private String readText() throws XMLStreamException {
+      text.setLength(0);
+      int depth = 1;
+      while (depth > 0 && reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if ("para".equals(reader.getLocalName()) && text.length() > 0) {
+            text.append('\n');
+          }
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+          appendTrimmed(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+      }
+      return text.length() > 0 ? text.toString() : null;
+    }
+
+    private void appendTrimmed(char[] chars, int start, int length) {
+      int from = start;
+      int to = start + length;
+      while (from < to && Character.isWhitespace(chars[from])) {
+        from++;
+      }
+      while (to > from && Character.isWhitespace(chars[to - 1])) {
+        to--;
+      }
+      if (from < to) {
+        if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') {
+          text.append(' ');
+        }
+        text.append(chars, from, to - from);
+      }
+    }
+  }
+
+  private static void addIfPresent(List<String> values, @Nullable String value) {
+    if (value != null) {
+      values.add(value);
+    }
+  }
+
+  @Nullable
+  private static Rank toRank(String rank) {
+    return VocabularyUtils.lookup(rank, Rank.class).orElse(null);
+  }
+
+  @Nullable
+  private static Date toDate(@Nullable String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      LocalDate date = IsoDateParsingUtils.parseDate(value.length() > 10 ? value.substring(0, 10) : value);
+      return date != null ? Date.from(date.atStartOfDay(ZoneOffset.UTC).toInstant()) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private static Double toDouble(@Nullable String value) {
+    if (value != null) {
+      try {
+        double coordinate = Double.parseDouble(value);
+        if (Double.isFinite(coordinate)) {
+          return coordinate;
+        }
+      } catch (NumberFormatException e) {
+        // not a coordinate
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,404 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry.eml;
+
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.TemporalCoverage;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Language;
+import org.gbif.api.vocabulary.MaintenanceUpdateFrequency;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Writes the EML elements mapped onto a {@link Dataset} as an EML 2.1.1 document, streaming it with StAX. It writes
+ * the elements read by {@link EmlReader}, except the introduction, getting started and acknowledgements which EML 2.1.1
+ * doesn't define.
+ * <p>
+ * The document is written as the dataset is traversed, so no copy of it is kept in memory. This class is
+ * thread-safe.
+ */
+public final class EmlWriter {
+
+  private static final String EML_NAMESPACE = "eml://ecoinformatics.org/eml-2.1.1";
+  private static final String INDENT = "  ";
+
+  private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+  /**
+   * Writes a dataset as an EML document, encoded in UTF-8. The stream isn't closed.
+   */
+  public void write(Dataset dataset, OutputStream out) throws IOException {
+    XMLStreamWriter writer = null;
+    try {
+      writer = FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+      new DocumentWriter(writer).writeDocument(dataset);
+      writer.flush();
+    } catch (XMLStreamException e) {
+      throw new IOException("Can't write EML document", e);
+    } finally {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (XMLStreamException e) {
+          // nothing to release
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a single document, indenting the elements.
+   */
+  private static class DocumentWriter {
+
+    private final XMLStreamWriter writer;
+    private int depth;
+    private boolean hasChildren;
+
+    private DocumentWriter(XMLStreamWriter writer) {
+      this.writer = writer;
+    }
+
+    private void writeDocument(Dataset dataset) throws XMLStreamException {
+      writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+      writer.writeCharacters("\n");
+      writer.writeStartElement("eml", "eml", EML_NAMESPACE);
+      writer.writeNamespace("eml", EML_NAMESPACE);
+      if (dataset.getKey() != null) {
+        writer.writeAttribute("packageId", dataset.getKey().toString());
+      }
+      writer.writeAttribute("system", "http://gbif.org");
+      if (dataset.getLanguage() != null && dataset.getLanguage() != Language.UNKNOWN) {
+        writer.writeAttribute(
+            "xml", XMLConstants.XML_NS_URI, "lang", dataset.getLanguage().getIso3LetterCode());
+      }
+      depth = 1;
+      hasChildren = false;
+
+      start("dataset");
+      element("title", dataset.getTitle());
+      writeContacts(dataset.getContacts(), ContactType.ORIGINATOR, "creator");
+      writeContacts(dataset.getContacts(), ContactType.METADATA_AUTHOR, "metadataProvider");
+      for (Contact contact : dataset.getContacts()) {
+        if (!isMainType(contact.getType())) {
+          start("associatedParty");
+          writeParty(contact, true);
+          end();
+        }
+      }
+      element("pubDate", formatDate(dataset.getPubDate()));
+      if (dataset.getDataLanguage() != null && dataset.getDataLanguage() != Language.UNKNOWN) {
+        element("language", dataset.getDataLanguage().getIso3LetterCode());
+      }
+      paragraphs("abstract", dataset.getDescription());
+      for (KeywordCollection keywords : dataset.getKeywordCollections()) {
+        start("keywordSet");
+        for (String keyword : keywords.getKeywords()) {
+          element("keyword", keyword);
+        }
+        element("keywordThesaurus", keywords.getThesaurus());
+        end();
+      }
+      paragraphs("additionalInfo", dataset.getAdditionalInfo());
+      paragraphs("intellectualRights", dataset.getRights());
+      writeCoverage(dataset);
+      paragraphs("purpose", dataset.getPurpose());
+      if (dataset.getMaintenanceDescription() != null || dataset.getMaintenanceUpdateFrequency() != null) {
+        start("maintenance");
+        paragraphs("description", dataset.getMaintenanceDescription());
+        if (dataset.getMaintenanceUpdateFrequency() != null) {
+          element("maintenanceUpdateFrequency", maintUpFreqType(dataset.getMaintenanceUpdateFrequency()));
+        }
+        end();
+      }
+      writeContacts(dataset.getContacts(), ContactType.ADMINISTRATIVE_POINT_OF_CONTACT, "contact");
+      if (dataset.getProject() != null) {
+        writeProject(dataset.getProject());
+      }
+      end();
+
+      depth = 0;
+      writer.writeCharacters("\n");
+      writer.writeEndElement();
+      writer.writeCharacters("\n");
+      writer.writeEndDocument();
+    }
+
+    private void writeContacts(List<Contact> contacts, ContactType type, String elementName)
+        throws XMLStreamException {
+      for (Contact contact : contacts) {
+        if (contact.getType() == type) {
+          start(elementName);
+          writeParty(contact, false);
+          end();
+        }
+      }
+    }
+
+    private void writeParty(Contact contact, boolean withRole) throws XMLStreamException {
+      if (contact.getFirstName() != null || contact.getLastName() != null || contact.getSalutation() != null) {
+        start("individualName");
+        element("salutation", contact.getSalutation());
+        element("givenName", contact.getFirstName());
+        element("surName", contact.getLastName());
+        end();
+      }
+      element("organizationName", contact.getOrganization());
+      for (String position : contact.getPosition()) {
+        element("positionName", position);
+      }
+      if (!contact.getAddress().isEmpty()
+          || contact.getCity() != null
+          || contact.getProvince() != null
+          || contact.getPostalCode() != null
+          || contact.getCountry() != null) {
+        start("address");
+        for (String address : contact.getAddress()) {
+          element("deliveryPoint", address);
+        }
+        element("city", contact.getCity());
+        element("administrativeArea", contact.getProvince());
+        element("postalCode", contact.getPostalCode());
+        if (contact.getCountry() != null) {
+          element("country", contact.getCountry().getIso2LetterCode());
+        }
+        end();
+      }
+      for (String phone : contact.getPhone()) {
+        element("phone", phone);
+      }
+      for (String email : contact.getEmail()) {
+        element("electronicMailAddress", email);
+      }
+      for (URI homepage : contact.getHomepage()) {
+        element("onlineUrl", homepage.toString());
+      }
+      for (String userId : contact.getUserId()) {
+        element("userId", userId);
+      }
+      if (withRole && contact.getType() != null) {
+        element("role", contact.getType().name());
+      }
+    }
+
+    private void writeCoverage(Dataset dataset) throws XMLStreamException {
+      if (dataset.getGeographicCoverages().isEmpty()
+          && dataset.getTemporalCoverages().isEmpty()
+          && dataset.getTaxonomicCoverages().isEmpty()) {
+        return;
+      }
+
+      start("coverage");
+      for (GeospatialCoverage coverage : dataset.getGeographicCoverages()) {
+        start("geographicCoverage");
+        element("geographicDescription", coverage.getDescription());
+        BoundingBox box = coverage.getBoundingBox();
+        if (box != null) {
+          start("boundingCoordinates");
+          element("westBoundingCoordinate", String.valueOf(box.getMinLongitude()));
+          element("eastBoundingCoordinate", String.valueOf(box.getMaxLongitude()));
+          element("northBoundingCoordinate", String.valueOf(box.getMaxLatitude()));
+          element("southBoundingCoordinate", String.valueOf(box.getMinLatitude()));
+          end();
+        }
+        end();
+      }
+      for (TemporalCoverage coverage : dataset.getTemporalCoverages()) {
+        if (coverage instanceof SingleDate) {
+          start("temporalCoverage");
+          start("singleDateTime");
+          element("calendarDate", formatDate(((SingleDate) coverage).getDate()));
+          end();
+          end();
+        } else if (coverage instanceof DateRange) {
+          DateRange range = (DateRange) coverage;
+          start("temporalCoverage");
+          start("rangeOfDates");
+          start("beginDate");
+          element("calendarDate", formatDate(range.getStart()));
+          end();
+          start("endDate");
+          element("calendarDate", formatDate(range.getEnd()));
+          end();
+          end();
+          end();
+        }
+        // verbatim time periods aren't temporal coverages in EML
+      }
+      for (TaxonomicCoverages coverages : dataset.getTaxonomicCoverages()) {
+        start("taxonomicCoverage");
+        element("generalTaxonomicCoverage", coverages.getDescription());
+        for (TaxonomicCoverage coverage : coverages.getCoverages()) {
+          start("taxonomicClassification");
+          if (coverage.getRank() != null) {
+            element("taxonRankName", coverage.getRank().getVerbatim());
+          }
+          element("taxonRankValue", coverage.getScientificName());
+          element("commonName", coverage.getCommonName());
+          end();
+        }
+        end();
+      }
+      end();
+    }
+
+    private void writeProject(Project project) throws XMLStreamException {
+      start("project");
+      if (project.getIdentifier() != null) {
+        writer.writeAttribute("id", project.getIdentifier());
+      }
+      element("title", project.getTitle());
+      if (project.getContacts() != null) {
+        for (Contact contact : project.getContacts()) {
+          start("personnel");
+          writeParty(contact, true);
+          end();
+        }
+      }
+      paragraphs("abstract", project.getAbstract());
+      paragraphs("funding", project.getFunding());
+      if (project.getStudyAreaDescription() != null) {
+        start("studyAreaDescription");
+        start("descriptor");
+        writer.writeAttribute("name", "generic");
+        writer.writeAttribute("citableClassificationSystem", "false");
+        element("descriptorValue", project.getStudyAreaDescription());
+        end();
+        end();
+      }
+      if (project.getDesignDescription() != null) {
+        start("designDescription");
+        paragraphs("description", project.getDesignDescription());
+        end();
+      }
+      end();
+    }
+
+    private static boolean isMainType(@Nullable ContactType type) {
+      return type == ContactType.ORIGINATOR
+          || type == ContactType.METADATA_AUTHOR
+          || type == ContactType.ADMINISTRATIVE_POINT_OF_CONTACT;
+    }
+
+    /**
+     * @return the value of the frequency in the EML 2.1.1 MaintUpFreqType enumeration
+     */
+    private static String maintUpFreqType(MaintenanceUpdateFrequency frequency) {
+      switch (frequency) {
+        case DAILY:
+          return "daily";
+        case WEEKLY:
+          return "weekly";
+        case MONTHLY:
+          return "monthly";
+        case BIANNUALLY:
+          return "biannually";
+        case ANNUALLY:
+          return "annually";
+        case AS_NEEDED:
+          return "asNeeded";
+        case CONTINUALLY:
+          return "continually";
+        case IRREGULAR:
+          return "irregular";
+        case NOT_PLANNED:
+          return "notPlanned";
+        case OTHER_MAINTENANCE_PERIOD:
+          return "otherMaintenancePeriod";
+        default:
+          // EML 2.1.1 only has the misspelled value
+          return "unkown";
+      }
+    }
+
+    private void start(String name) throws XMLStreamException {
+      indent();
+      writer.writeStartElement(name);
+      depth++;
+      hasChildren = false;
+    }
+
+    private void end() throws XMLStreamException {
+      depth--;
+      if (hasChildren) {
+        indent();
+      }
+      writer.writeEndElement();
+      hasChildren = true;
+    }
+
+    /**
+     * Writes an element with a text, unless the text is null.
+     */
+    private void element(String name, @Nullable String text) throws XMLStreamException {
+      if (text != null) {
+        indent();
+        writer.writeStartElement(name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+        hasChildren = true;
+      }
+    }
+
+    /**
+     * Writes an element with a paragraph per line of the text, unless the text is null.
+     */
+    private void paragraphs(String name, @Nullable String text) throws XMLStreamException {
+      if (text != null) {
+        start(name);
+        int from = 0;
+        while (from <= text.length()) {
+          int to = text.indexOf('\n', from);
+          if (to < 0) {
+            to = text.length();
+          }
+          element("para", text.substring(from, to));
+          from = to + 1;
+        }
+        end();
+      }
+    }
+
+    private void indent() throws XMLStreamException {
+      writer.writeCharacters("\n");
+      for (int i = 0; i < depth; i++) {
+        writer.writeCharacters(INDENT);
+      }
+    }
+
+    @Nullable
+    private static String formatDate(@Nullable Date date) {
+      return date != null ? date.toInstant().atOffset(ZoneOffset.UTC).toLocalDate().toString() : null;
+    }
+  }
+}
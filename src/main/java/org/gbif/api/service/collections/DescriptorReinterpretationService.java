@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.service.collections;
+
+import org.gbif.api.model.collections.descriptors.DescriptorReinterpretationJob;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * API service to reinterpret all the descriptor groups as a job running in the background, an alternative to the
+ * blocking {@link DescriptorsService#reinterpretAllDescriptorGroups()}.
+ *
+ * <p>Jobs are partitioned by descriptor group and the groups are reinterpreted by a bounded pool of workers. Each
+ * reinterpreted group is checkpointed, so a job that failed or was interrupted can be resumed without reinterpreting
+ * the groups again.
+ */
+public interface DescriptorReinterpretationService {
+
+  /**
+   * Starts a job reinterpreting all the descriptor groups of all collections.
+   *
+   * @param incremental if true, only the descriptor groups whose verbatim descriptors changed since they were last
+   *     reinterpreted are reinterpreted
+   * @return key of the job
+   */
+  UUID startReinterpretation(boolean incremental);
+
+  /**
+   * Resumes a job that failed or was interrupted, reinterpreting only the descriptor groups that weren't
+   * reinterpreted yet.
+   *
+   * @param jobKey key of the job
+   * @throws IllegalArgumentException if the job doesn't exist
+   * @throws IllegalStateException if the job is running
+   */
+  void resumeReinterpretation(@NotNull UUID jobKey);
+
+  /**
+   * Retrieves the status and metrics of a job.
+   *
+   * @param jobKey key of the job
+   * @return the job or null if it doesn't exist
+   */
+  DescriptorReinterpretationJob getReinterpretationJob(@NotNull UUID jobKey);
+}
@@ -123,6 +123,10 @@ public interface DescriptorsService {
    */
   void reinterpretCollectionDescriptorGroups(@NotNull UUID collectionKey);
 
-  /** Reinterprets all the descriptor groups of all collections. */
+  /**
+   * Reinterprets all the descriptor groups of all collections.
+   *
+   * @see DescriptorReinterpretationService for a job running in the background that can be resumed
+   */
   void reinterpretAllDescriptorGroups();
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.service.collections;
+
+import org.gbif.api.model.common.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Handles batches reading the files incrementally, an alternative to {@link BatchService#handleBatch(byte[], byte[],
+ * ExportFormat)} for files too large to be held in memory.
+ *
+ * <p>This is separate from {@link BatchService} so that only the services able to stream the files need to implement
+ * it, e.g. with {@link org.gbif.api.util.ChunkedRowImporter}.
+ */
+public interface StreamingBatchService {
+
+  /**
+   * Handles a batch reading the files from streams. The streams are closed by the service once read, which can be
+   * after this method returns if the batch is processed asynchronously.
+   *
+   * @param entitiesFile stream with the entities to import or update
+   * @param contactsFile stream with the contacts to import or update, if any
+   * @param format {@link ExportFormat} of the files
+   * @return key of the batch created
+   */
+  int handleBatch(InputStream entitiesFile, @Nullable InputStream contactsFile, ExportFormat format);
+
+  /**
+   * Handles a batch reading the files from the file system, see {@link #handleBatch(InputStream, InputStream,
+   * ExportFormat)}.
+   *
+   * @param entitiesFile file with the entities to import or update
+   * @param contactsFile file with the contacts to import or update, if any
+   * @param format {@link ExportFormat} of the files
+   * @return key of the batch created
+   */
+  default int handleBatch(Path entitiesFile, @Nullable Path contactsFile, ExportFormat format) {
+    try {
+      InputStream entities = Files.newInputStream(entitiesFile);
+      InputStream contacts;
+      try {
+        contacts = contactsFile != null ? Files.newInputStream(contactsFile) : null;
+      } catch (IOException e) {
+        entities.close();
+        throw e;
+      }
+      return handleBatch(entities, contacts, format);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
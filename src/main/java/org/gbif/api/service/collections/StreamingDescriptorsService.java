@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.service.collections;
+
+import org.gbif.api.model.common.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Creates and updates descriptor groups reading the descriptors incrementally, an alternative to the byte array
+ * methods of {@link DescriptorsService} for files too large to be held in memory.
+ *
+ * <p>This is separate from {@link DescriptorsService} so that only the services able to stream the files need to
+ * implement it, e.g. with {@link org.gbif.api.util.ChunkedRowImporter}.
+ */
+public interface StreamingDescriptorsService {
+
+  /**
+   * Creates a new descriptor group reading the descriptors from a stream. The stream is closed by the service once
+   * read.
+   *
+   * @param descriptorsGroupFile The content of the descriptor group file.
+   * @param format The format of the descriptor group file (e.g., CSV, TSV).
+   * @param title The title of the descriptor group.
+   * @param description Optional description for the descriptor group.
+   * @param tags Optional set of tags associated with the descriptor group.
+   * @param collectionKey The UUID key of the collection this descriptor group belongs to.
+   * @return key of the created descriptor group.
+   */
+  long createDescriptorGroup(
+      @NotNull InputStream descriptorsGroupFile,
+      @NotNull ExportFormat format,
+      @NotNull String title,
+      String description,
+      Set<String> tags,
+      @NotNull UUID collectionKey);
+
+  /**
+   * Creates a new descriptor group reading the descriptors from the file system, see {@link
+   * #createDescriptorGroup(InputStream, ExportFormat, String, String, Set, UUID)}.
+   *
+   * @param descriptorsGroupFile The descriptor group file.
+   * @param format The format of the descriptor group file (e.g., CSV, TSV).
+   * @param title The title of the descriptor group.
+   * @param description Optional description for the descriptor group.
+   * @param tags Optional set of tags associated with the descriptor group.
+   * @param collectionKey The UUID key of the collection this descriptor group belongs to.
+   * @return key of the created descriptor group.
+   */
+  default long createDescriptorGroup(
+      @NotNull Path descriptorsGroupFile,
+      @NotNull ExportFormat format,
+      @NotNull String title,
+      String description,
+      Set<String> tags,
+      @NotNull UUID collectionKey) {
+    try {
+      return createDescriptorGroup(
+          Files.newInputStream(descriptorsGroupFile), format, title, description, tags, collectionKey);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Updates an existing descriptor group reading the descriptors from a stream. The stream is closed by the service
+   * once read.
+   *
+   * @param descriptorGroupKey The key of the descriptor group to update.
+   * @param descriptorsGroupFile The new content of the descriptor group file.
+   * @param format The format of the new descriptor group file.
+   * @param title The new title for the descriptor group.
+   * @param tags An optional set of new tags for the descriptor group. Existing tags not included will be removed.
+   * @param description An optional new description for the descriptor group.
+   */
+  void updateDescriptorGroup(
+      @NotNull long descriptorGroupKey,
+      @NotNull InputStream descriptorsGroupFile,
+      @NotNull ExportFormat format,
+      @NotNull String title,
+      Set<String> tags,
+      String description);
+
+  /**
+   * Updates an existing descriptor group reading the descriptors from the file system, see {@link
+   * #updateDescriptorGroup(long, InputStream, ExportFormat, String, Set, String)}.
+   *
+   * @param descriptorGroupKey The key of the descriptor group to update.
+   * @param descriptorsGroupFile The new descriptor group file.
+   * @param format The format of the new descriptor group file.
+   * @param title The new title for the descriptor group.
+   * @param tags An optional set of new tags for the descriptor group. Existing tags not included will be removed.
+   * @param description An optional new description for the descriptor group.
+   */
+  default void updateDescriptorGroup(
+      @NotNull long descriptorGroupKey,
+      @NotNull Path descriptorsGroupFile,
+      @NotNull ExportFormat format,
+      @NotNull String title,
+      Set<String> tags,
+      String description) {
+    try {
+      updateDescriptorGroup(
+          descriptorGroupKey, Files.newInputStream(descriptorsGroupFile), format, title, tags, description);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.service.occurrence;
+
+import org.gbif.api.model.occurrence.DownloadResultMetadata;
+import org.gbif.api.util.DownloadResultUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Random access to zipped download result files, so they can be served with zero-copy transfers and HTTP range
+ * requests, and resumed. The default methods work on {@link #getResultFile(String)}.
+ * <p>
+ * This is separate from {@link DownloadRequestService} so that only the services serving the files need to implement
+ * it, together with the request service if they like.
+ */
+public interface DownloadResultAccess {
+
+  /**
+   * @param downloadKey of the corresponding download request
+   * @return the zipped download result file or null if it's not existing or ready yet
+   */
+  @Nullable
+  File getResultFile(String downloadKey);
+
+  /**
+   * @param downloadKey of the corresponding download request
+   * @return a read only channel on the zipped download result file or null if it's not existing or ready yet, to be
+   * closed by the caller
+   */
+  @Nullable
+  default SeekableByteChannel openResult(String downloadKey) throws IOException {
+    File file = getResultFile(downloadKey);
+    return file == null ? null : FileChannel.open(file.toPath(), StandardOpenOption.READ);
+  }
+
+  /**
+   * Transfers a range of the zipped download result file, without copying it through the heap when the target allows.
+   *
+   * @param downloadKey of the corresponding download request
+   * @param position of the first byte of the range
+   * @param count maximum number of bytes of the range
+   * @param target channel the range is written to, left open
+   * @return the number of bytes transferred, less than count if the file ends before, or -1 if the file is not
+   * existing or ready yet
+   */
+  default long transferResult(String downloadKey, long position, long count, WritableByteChannel target)
+      throws IOException {
+    checkArgument(position >= 0 && count >= 0, "Position and count must not be negative");
+    File file = getResultFile(downloadKey);
+    if (file == null) {
+      return -1;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return DownloadResultUtils.transfer(channel, position, count, target);
+    }
+  }
+
+  /**
+   * Computing the checksums reads the whole file, so implementations are expected to keep the metadata, e.g. with
+   * {@link DownloadResultUtils#computeMetadata} once per file version.
+   *
+   * @param downloadKey of the corresponding download request
+   * @return the size and checksums of the zipped download result file or null if it's not existing or ready yet
+   */
+  @Nullable
+  DownloadResultMetadata getResultMetadata(String downloadKey) throws IOException;
+}
@@ -17,6 +17,7 @@ import org.gbif.api.model.common.paging.Pageable;
 import org.gbif.api.model.common.paging.PagingResponse;
 import org.gbif.api.model.occurrence.Download;
 import org.gbif.api.model.occurrence.DownloadStatistics;
+import org.gbif.api.model.occurrence.YearMonthSeries;
 import org.gbif.api.model.registry.CountryOccurrenceDownloadUsage;
 import org.gbif.api.model.registry.DatasetOccurrenceDownloadUsage;
 import org.gbif.api.model.registry.OrganizationOccurrenceDownloadUsage;
@@ -147,6 +148,40 @@ public interface OccurrenceDownloadService {
       @Nullable UUID datasetKey,
       @Nullable UUID publishingOrgKey);
 
+  /** Same as {@link #getDownloadsByUserCountry} as a {@link YearMonthSeries}. */
+  default YearMonthSeries getDownloadsByUserCountrySeries(
+      @Nullable Date fromDate, @Nullable Date toDate, @Nullable Country userCountry) {
+    return YearMonthSeries.of(getDownloadsByUserCountry(fromDate, toDate, userCountry));
+  }
+
+  /** Same as {@link #getDownloadsBySource} as a {@link YearMonthSeries}. */
+  default YearMonthSeries getDownloadsBySourceSeries(
+      @Nullable Date fromDate, @Nullable Date toDate, @Nullable String source) {
+    return YearMonthSeries.of(getDownloadsBySource(fromDate, toDate, source));
+  }
+
+  /** Same as {@link #getDownloadedRecordsByDataset} as a {@link YearMonthSeries}. */
+  default YearMonthSeries getDownloadedRecordsByDatasetSeries(
+      @Nullable Date fromDate,
+      @Nullable Date toDate,
+      @Nullable Country publishingCountry,
+      @Nullable UUID datasetKey,
+      @Nullable UUID publishingOrgKey) {
+    return YearMonthSeries.of(
+        getDownloadedRecordsByDataset(fromDate, toDate, publishingCountry, datasetKey, publishingOrgKey));
+  }
+
+  /** Same as {@link #getDownloadsByDataset} as a {@link YearMonthSeries}. */
+  default YearMonthSeries getDownloadsByDatasetSeries(
+      @Nullable Date fromDate,
+      @Nullable Date toDate,
+      @Nullable Country publishingCountry,
+      @Nullable UUID datasetKey,
+      @Nullable UUID publishingOrgKey) {
+    return YearMonthSeries.of(
+        getDownloadsByDataset(fromDate, toDate, publishingCountry, datasetKey, publishingOrgKey));
+  }
+
   /** Retrieves downloads monthly stats by country (user and publishing country) and dataset. */
   PagingResponse<DownloadStatistics> getDownloadStatistics(
       @Nullable Date fromDate,
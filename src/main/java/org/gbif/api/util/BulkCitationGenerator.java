@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Organization;
+import org.gbif.api.util.CitationGenerator.CitationData;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Generates the citations of many datasets at once, e.g. for the datasets of a large download.
+ * <p>
+ * Citations are generated in parallel with {@link CitationGenerator#generateCitation(Dataset, String)}
+ * and memoized per dataset key, modification date and organization title, so datasets that are cited
+ * again while unchanged are not processed twice. Since citations include the access date, memoized
+ * citations are only reused on the day they were generated.
+ * <p>
+ * The memoized {@link CitationData} instances are shared between calls and shouldn't be modified.
+ */
+@ThreadSafe
+public class BulkCitationGenerator {
+
+  private static final ZoneId UTC = ZoneId.of("UTC");
+
+  private final Map<CitationKey, CitationData> cache;
+
+  /**
+   * @param maxCacheSize maximum number of citations memoized, the least recently used are discarded first
+   */
+  public BulkCitationGenerator(int maxCacheSize) {
+    checkArgument(maxCacheSize >= 0, "maxCacheSize can't be negative");
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<CitationKey, CitationData>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<CitationKey, CitationData> eldest) {
+        return size() > maxCacheSize;
+      }
+    });
+  }
+
+  /**
+   * Generates the citations of the given datasets with their publishing organizations.
+   *
+   * @param datasets pairs of dataset and organization
+   * @return the citations in the same order as the datasets
+   */
+  public List<CitationData> generateCitations(Collection<? extends Map.Entry<Dataset, Organization>> datasets) {
+    LocalDate accessDate = LocalDate.now(UTC);
+    return datasets.parallelStream()
+      .map(e -> generateCitation(e.getKey(), e.getValue(), accessDate))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Generates the citation of a dataset, reusing the memoized citation if there is one.
+   */
+  public CitationData generateCitation(Dataset dataset, Organization organization) {
+    return generateCitation(dataset, organization, LocalDate.now(UTC));
+  }
+
+  /**
+   * @return the number of citations memoized
+   */
+  public int getCacheSize() {
+    return cache.size();
+  }
+
+  public void clearCache() {
+    cache.clear();
+  }
+
+  private CitationData generateCitation(Dataset dataset, Organization organization, LocalDate accessDate) {
+    Objects.requireNonNull(dataset, "Dataset shall be provided");
+    Objects.requireNonNull(organization, "Organization shall be provided");
+
+    if (dataset.getKey() == null) {
+      // nothing to identify the dataset by
+      return CitationGenerator.generateCitation(dataset, organization);
+    }
+
+    CitationKey key =
+      new CitationKey(dataset.getKey(), dataset.getModified(), organization.getTitle(), accessDate);
+    CitationData citation = cache.get(key);
+    if (citation == null) {
+      // generated outside the lock, a concurrent call for the same dataset generates an identical citation
+      citation = CitationGenerator.generateCitation(dataset, organization);
+      cache.put(key, citation);
+    }
+    return citation;
+  }
+
+  /**
+   * Identifies a generated citation.
+   */
+  private static class CitationKey {
+
+    private final UUID datasetKey;
+    private final Long modified;
+    private final String organizationTitle;
+    private final LocalDate accessDate;
+
+    private CitationKey(UUID datasetKey, Date modified, String organizationTitle, LocalDate accessDate) {
+      this.datasetKey = datasetKey;
+      this.modified = modified != null ? modified.getTime() : null;
+      this.organizationTitle = organizationTitle;
+      this.accessDate = accessDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CitationKey that = (CitationKey) o;
+      return Objects.equals(datasetKey, that.datasetKey)
+        && Objects.equals(modified, that.modified)
+        && Objects.equals(organizationTitle, that.organizationTitle)
+        && Objects.equals(accessDate, that.accessDate);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(datasetKey, modified, organizationTitle, accessDate);
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.exception.UnparsableException;
+import org.gbif.api.model.checklistbank.ParsedName;
+import org.gbif.api.service.checklistbank.NameParser;
+import org.gbif.api.vocabulary.NameType;
+import org.gbif.api.vocabulary.Rank;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * {@link NameParser} decorator memoizing the results of another parser, as most names are parsed many times.
+ * <p>
+ * Results are kept per name, rank and method in a bounded cache, the least recently used discarded first. Names the
+ * parser can't parse are cached too, and {@link #parse(String, Rank)} throws a new {@link UnparsableException} with
+ * the same type for them without calling the parser again. Concurrent calls for the same name wait for a single parse.
+ * <p>
+ * The memoized {@link ParsedName} instances are shared between calls and shouldn't be modified.
+ */
+@ThreadSafe
+public class CachingNameParser implements NameParser {
+
+  private enum Method {
+    PARSE,
+    PARSE_QUIETLY,
+    PARSE_TO_CANONICAL
+  }
+
+  private final NameParser parser;
+  // results by key, in access order so the least recently used is discarded first, guarded by itself
+  private final Map<Key, CompletableFuture<Result>> cache;
+  private long hits;
+  private long misses;
+
+  /**
+   * @param parser the parser to memoize
+   * @param maxCacheSize maximum number of results memoized
+   */
+  public CachingNameParser(NameParser parser, long maxCacheSize) {
+    checkArgument(maxCacheSize >= 0, "maxCacheSize can't be negative");
+    this.parser = Objects.requireNonNull(parser, "Name parser shall be provided");
+    this.cache = new LinkedHashMap<Key, CompletableFuture<Result>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Result>> eldest) {
+        return size() > maxCacheSize;
+      }
+    };
+  }
+
+  @Override
+  public ParsedName parse(String scientificName, @Nullable Rank rank) throws UnparsableException {
+    Result result =
+        get(
+            Method.PARSE,
+            scientificName,
+            rank,
+            () -> {
+              try {
+                return new Result(parser.parse(scientificName, rank), null);
+              } catch (UnparsableException e) {
+                return new Result(null, e.type);
+              }
+            });
+    if (result.unparsable != null) {
+      throw new UnparsableException(result.unparsable, scientificName);
+    }
+    return (ParsedName) result.value;
+  }
+
+  @Override
+  public ParsedName parse(String scientificName) throws UnparsableException {
+    return parse(scientificName, null);
+  }
+
+  @Override
+  public ParsedName parseQuietly(String scientificName, @Nullable Rank rank) {
+    return (ParsedName)
+        get(
+                Method.PARSE_QUIETLY,
+                scientificName,
+                rank,
+                () -> new Result(parser.parseQuietly(scientificName, rank), null))
+            .value;
+  }
+
+  @Override
+  public ParsedName parseQuietly(String scientificName) {
+    return parseQuietly(scientificName, null);
+  }
+
+  @Override
+  public String parseToCanonical(String scientificName, @Nullable Rank rank) {
+    return (String)
+        get(
+                Method.PARSE_TO_CANONICAL,
+                scientificName,
+                rank,
+                () -> new Result(parser.parseToCanonical(scientificName, rank), null))
+            .value;
+  }
+
+  @Override
+  public String parseToCanonical(String scientificName) {
+    return parseToCanonical(scientificName, null);
+  }
+
+  /**
+   * Parses many names quietly, parsing each distinct name once and the distinct names in parallel.
+   *
+   * @param scientificNames names to parse, of unknown rank
+   * @return the parsed names by name, in the order of the names given
+   * @see #parseQuietly(String)
+   */
+  public Map<String, ParsedName> parseAll(Collection<String> scientificNames) {
+    List<String> distinct = new ArrayList<>(new LinkedHashSet<>(scientificNames));
+    List<ParsedName> results = distinct.parallelStream().map(this::parseQuietly).collect(Collectors.toList());
+
+    Map<String, ParsedName> parsed = new LinkedHashMap<>();
+    for (int i = 0; i < distinct.size(); i++) {
+      parsed.put(distinct.get(i), results.get(i));
+    }
+    return parsed;
+  }
+
+  /**
+   * @return the number of results memoized
+   */
+  public long getCacheSize() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  /**
+   * @return the number of calls answered from the cache since it was created
+   */
+  public long getCacheHits() {
+    synchronized (cache) {
+      return hits;
+    }
+  }
+
+  /**
+   * @return the number of calls that went to the parser since the cache was created
+   */
+  public long getCacheMisses() {
+    synchronized (cache) {
+      return misses;
+    }
+  }
+
+  public void clearCache() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  private Result get(Method method, String scientificName, @Nullable Rank rank, Supplier<Result> loader) {
+    if (scientificName == null) {
+      // nothing to key the result by
+      return loader.get();
+    }
+    Key key = new Key(method, scientificName, rank);
+    CompletableFuture<Result> future;
+    boolean load = false;
+    synchronized (cache) {
+      future = cache.get(key);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        cache.put(key, future);
+        load = true;
+        misses++;
+      } else {
+        hits++;
+      }
+    }
+
+    if (load) {
+      // parsed outside the lock, concurrent calls for the same name wait for the future
+      try {
+        Result result = loader.get();
+        future.complete(result);
+        return result;
+      } catch (RuntimeException | Error e) {
+        synchronized (cache) {
+          cache.remove(key, future);
+        }
+        future.completeExceptionally(e);
+        throw e;
+      }
+    }
+
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Failed to parse " + scientificName, cause);
+    }
+  }
+
+  /**
+   * The result of a parser method, a parsed name, a canonical name or the type of an unparsable name.
+   */
+  private static class Result {
+
+    @Nullable private final Object value;
+    @Nullable private final NameType unparsable;
+
+    private Result(@Nullable Object value, @Nullable NameType unparsable) {
+      this.value = value;
+      this.unparsable = unparsable;
+    }
+  }
+
+  /**
+   * Identifies a memoized result.
+   */
+  private static class Key {
+
+    private final Method method;
+    private final String scientificName;
+    private final Rank rank;
+
+    private Key(Method method, String scientificName, @Nullable Rank rank) {
+      this.method = method;
+      this.scientificName = scientificName;
+      this.rank = rank;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key that = (Key) o;
+      return method == that.method && rank == that.rank && scientificName.equals(that.scientificName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(method, scientificName, rank);
+    }
+  }
+}
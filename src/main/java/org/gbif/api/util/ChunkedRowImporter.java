@@ -0,0 +1,369 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.collections.Batch;
+import org.gbif.api.model.common.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Imports the rows of a {@link ExportFormat#CSV} or {@link ExportFormat#TSV} file in chunks, e.g. the entities of a
+ * {@link Batch} or the descriptors of a descriptor group.
+ * <p>
+ * The file is read incrementally and only a bounded number of chunks is held in memory: the rows of each chunk are
+ * mapped and validated in parallel by the executor, and the valid entities are handed to the sink chunk by chunk, in
+ * the order of the file. The errors of the invalid rows and the number of rows processed are reported into the
+ * {@link Batch} while the import runs.
+ * <p>
+ * The mapper and validator are called concurrently and must be thread-safe; the sink is only called by the thread
+ * running the import.
+ *
+ * @param <T> type of the entities imported
+ */
+public class ChunkedRowImporter<T> {
+
+  public static final int DEFAULT_CHUNK_SIZE = 1000;
+  public static final int DEFAULT_MAX_ERRORS = 1000;
+
+  private final Function<Row, T> mapper;
+  private final Function<T, List<String>> validator;
+  private final Consumer<List<T>> sink;
+  private final Executor executor;
+  private final int maxChunksInFlight;
+  private final int chunkSize;
+  private final int maxErrors;
+
+  private ChunkedRowImporter(Builder<T> builder) {
+    this.mapper = builder.mapper;
+    this.validator = builder.validator;
+    this.sink = builder.sink;
+    this.executor = builder.executor;
+    this.maxChunksInFlight = builder.maxChunksInFlight;
+    this.chunkSize = builder.chunkSize;
+    this.maxErrors = builder.maxErrors;
+  }
+
+  /**
+   * @param mapper creates the entity of a row, throwing an {@link IllegalArgumentException} if the row is invalid
+   * @param sink receives the valid entities of each chunk
+   */
+  public static <T> Builder<T> builder(Function<Row, T> mapper, Consumer<List<T>> sink) {
+    return new Builder<>(mapper, sink);
+  }
+
+  /**
+   * Imports a file.
+   *
+   * @param file file with a header row
+   * @param format format of the file
+   * @param batch batch the errors and progress are reported to, if any
+   * @return the summary of the import
+   */
+  public ImportSummary importRows(Path file, ExportFormat format, @Nullable Batch batch) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return importRows(in, format, batch);
+    }
+  }
+
+  /**
+   * Imports the UTF-8 encoded content of a stream, which is read to the end but not closed.
+   *
+   * @param in content with a header row
+   * @param format format of the content
+   * @param batch batch the errors and progress are reported to, if any
+   * @return the summary of the import
+   */
+  public ImportSummary importRows(InputStream in, ExportFormat format, @Nullable Batch batch) throws IOException {
+    DelimitedFileReader reader = new DelimitedFileReader(in, format);
+    ImportSummary summary = new ImportSummary(batch, maxErrors);
+
+    String[] header = reader.readRow();
+    if (header == null) {
+      return summary;
+    }
+    Map<String, Integer> columns = new HashMap<>();
+    for (int i = 0; i < header.length; i++) {
+      columns.putIfAbsent(header[i].trim(), i);
+    }
+
+    Deque<CompletableFuture<ChunkResult<T>>> inFlight = new ArrayDeque<>();
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    String[] values;
+    while ((values = reader.readRow()) != null) {
+      chunk.add(new Row(columns, header.length, values, reader.getRowLineNumber()));
+      if (chunk.size() == chunkSize) {
+        submit(chunk, inFlight, summary);
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+    if (!chunk.isEmpty()) {
+      submit(chunk, inFlight, summary);
+    }
+    while (!inFlight.isEmpty()) {
+      complete(inFlight.poll(), summary);
+    }
+    summary.reportOmittedErrors();
+    return summary;
+  }
+
+  private void submit(List<Row> chunk, Deque<CompletableFuture<ChunkResult<T>>> inFlight, ImportSummary summary) {
+    inFlight.add(CompletableFuture.supplyAsync(() -> process(chunk), executor));
+    // bounds the memory used, and keeps the order of the file
+    while (inFlight.size() > maxChunksInFlight) {
+      complete(inFlight.poll(), summary);
+    }
+  }
+
+  private ChunkResult<T> process(List<Row> chunk) {
+    ChunkResult<T> result = new ChunkResult<>(chunk.size());
+    for (Row row : chunk) {
+      if (row.values.length != row.expectedValues) {
+        result.errors.add(error(row, "Expected " + row.expectedValues + " values but found " + row.values.length));
+        continue;
+      }
+
+      T entity;
+      try {
+        entity = mapper.apply(row);
+      } catch (IllegalArgumentException e) {
+        result.errors.add(error(row, e.getMessage()));
+        continue;
+      }
+
+      List<String> issues = validator.apply(entity);
+      if (issues == null || issues.isEmpty()) {
+        result.entities.add(entity);
+      } else {
+        issues.forEach(issue -> result.errors.add(error(row, issue)));
+      }
+    }
+    return result;
+  }
+
+  private void complete(CompletableFuture<ChunkResult<T>> future, ImportSummary summary) {
+    ChunkResult<T> result;
+    try {
+      result = future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+
+    if (!result.entities.isEmpty()) {
+      sink.accept(result.entities);
+    }
+    summary.add(result.rows, result.entities.size(), result.errors);
+  }
+
+  private static String error(Row row, String message) {
+    return "Line " + row.lineNumber + ": " + message;
+  }
+
+  /**
+   * A row of the file.
+   */
+  public static class Row {
+
+    private final Map<String, Integer> columns;
+    private final int expectedValues;
+    private final String[] values;
+    private final long lineNumber;
+
+    private Row(Map<String, Integer> columns, int expectedValues, String[] values, long lineNumber) {
+      this.columns = columns;
+      this.expectedValues = expectedValues;
+      this.values = values;
+      this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return the value of the column or null if the file doesn't have the column or the value is empty
+     */
+    @Nullable
+    public String get(String column) {
+      Integer index = columns.get(column);
+      if (index == null || index >= values.length || values[index].isEmpty()) {
+        return null;
+      }
+      return values[index];
+    }
+
+    /**
+     * @return the line number where the row starts, the header being the line 1
+     */
+    public long getLineNumber() {
+      return lineNumber;
+    }
+  }
+
+  /**
+   * Summary of an import, updated as the chunks are processed.
+   */
+  public static class ImportSummary {
+
+    private final Batch batch;
+    private final int maxErrors;
+    private long processedRows;
+    private long importedRows;
+    private long rejectedRows;
+    private long errors;
+
+    private ImportSummary(Batch batch, int maxErrors) {
+      this.batch = batch;
+      this.maxErrors = maxErrors;
+    }
+
+    public long getProcessedRows() {
+      return processedRows;
+    }
+
+    public long getImportedRows() {
+      return importedRows;
+    }
+
+    public long getRejectedRows() {
+      return rejectedRows;
+    }
+
+    /**
+     * @return the number of errors found, including those not reported to the batch
+     */
+    public long getErrors() {
+      return errors;
+    }
+
+    private void add(int rows, int imported, List<String> chunkErrors) {
+      processedRows += rows;
+      importedRows += imported;
+      rejectedRows += rows - imported;
+
+      if (batch != null) {
+        List<String> batchErrors = batch.getErrors();
+        if (batchErrors != null) {
+          // the batch can be read by other threads while the import runs
+          synchronized (batchErrors) {
+            for (int i = 0; i < chunkErrors.size() && errors + i < maxErrors; i++) {
+              batchErrors.add(chunkErrors.get(i));
+            }
+          }
+        }
+        batch.setProcessedRows(processedRows);
+      }
+      errors += chunkErrors.size();
+    }
+
+    private void reportOmittedErrors() {
+      if (batch != null && batch.getErrors() != null && errors > maxErrors) {
+        synchronized (batch.getErrors()) {
+          batch.getErrors().add((errors - maxErrors) + " more errors not reported");
+        }
+      }
+    }
+  }
+
+  private static class ChunkResult<T> {
+
+    private final int rows;
+    private final List<T> entities;
+    private final List<String> errors = new ArrayList<>();
+
+    private ChunkResult(int rows) {
+      this.rows = rows;
+      this.entities = new ArrayList<>(rows);
+    }
+  }
+
+  /**
+   * Builder of {@link ChunkedRowImporter}.
+   */
+  public static class Builder<T> {
+
+    private final Function<Row, T> mapper;
+    private final Consumer<List<T>> sink;
+    private Function<T, List<String>> validator = e -> Collections.emptyList();
+    private Executor executor = Runnable::run;
+    private int maxChunksInFlight = 1;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxErrors = DEFAULT_MAX_ERRORS;
+
+    private Builder(Function<Row, T> mapper, Consumer<List<T>> sink) {
+      this.mapper = Objects.requireNonNull(mapper, "Mapper is required");
+      this.sink = Objects.requireNonNull(sink, "Sink is required");
+    }
+
+    /**
+     * @param validator returns the issues of an entity, the entity is rejected if there are any
+     */
+    public Builder<T> validator(Function<T, List<String>> validator) {
+      this.validator = Objects.requireNonNull(validator, "Validator can't be null");
+      return this;
+    }
+
+    /**
+     * Processes the chunks with an executor instead of the thread running the import.
+     *
+     * @param executor executor processing the chunks
+     * @param parallelism number of chunks processed at the same time, ideally the threads of the executor
+     */
+    public Builder<T> executor(Executor executor, int parallelism) {
+      checkArgument(parallelism > 0, "Parallelism must be greater than 0");
+      this.executor = Objects.requireNonNull(executor, "Executor can't be null");
+      // one more chunk so the executor isn't idle while a completed chunk is handed to the sink
+      this.maxChunksInFlight = parallelism + 1;
+      return this;
+    }
+
+    public Builder<T> chunkSize(int chunkSize) {
+      checkArgument(chunkSize > 0, "Chunk size must be greater than 0");
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    /**
+     * @param maxErrors maximum number of errors reported to the batch, the rest are only counted
+     */
+    public Builder<T> maxErrors(int maxErrors) {
+      checkArgument(maxErrors >= 0, "Max errors can't be negative");
+      this.maxErrors = maxErrors;
+      return this;
+    }
+
+    public ChunkedRowImporter<T> build() {
+      return new ChunkedRowImporter<>(this);
+    }
+  }
+}
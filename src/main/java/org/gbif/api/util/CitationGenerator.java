@@ -30,7 +30,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.StringJoiner;
@@ -149,12 +151,7 @@ public final class CitationGenerator {
 
     // add DOI as the identifier.
     if (dataset.getDoi() != null) {
-      try {
-        joiner.add(
-            URLDecoder.decode(dataset.getDoi().getUrl().toString(), StandardCharsets.UTF_8.name()));
-      } catch (UnsupportedEncodingException e) {
-        throw new IllegalArgumentException("Couldn't decode DOI URL", e);
-      }
+      joiner.add(URLDecoder.decode(dataset.getDoi().getUrl().toString(), StandardCharsets.UTF_8));
     }
 
     joiner.add("accessed via GBIF.org on " + LocalDate.now(UTC) + ".");
@@ -224,13 +221,15 @@ public final class CitationGenerator {
    */
   private static List<CitationContact> getUniqueAuthors(
       List<Contact> authors, Predicate<Contact> filter) {
-    List<CitationContact> uniqueContact = new ArrayList<>();
+    // insertion order of the map keeps the order of the provided list
+    Map<List<String>, CitationContact> uniqueContact = new LinkedHashMap<>();
     if (authors != null) {
       authors.forEach(
           ctc -> {
             if (filter.test(ctc)) {
-              Optional<CitationContact> author = findInAuthorList(ctc, uniqueContact);
-              if (!author.isPresent()) {
+              List<String> key = authorKey(ctc.getLastName(), ctc.getFirstName());
+              CitationContact author = uniqueContact.get(key);
+              if (author == null) {
                 HashSet<ContactType> contactTypes = new HashSet<>();
                 if (ctc.getType() != null) {
                   contactTypes.add(ctc.getType());
@@ -239,7 +238,8 @@ public final class CitationGenerator {
                 if (ctc.getUserId() != null && !ctc.getUserId().isEmpty()) {
                   userIds.addAll(ctc.getUserId());
                 }
-                uniqueContact.add(
+                uniqueContact.put(
+                    key,
                     new CitationContact(
                         ctc.getKey(),
                         getAuthorName(ctc),
@@ -248,36 +248,42 @@ public final class CitationGenerator {
                         contactTypes,
                         userIds));
               } else {
-                author.ifPresent(
-                    a -> {
-                      a.getRoles().add(ctc.getType());
-                      if (ctc.getUserId() != null) {
-                        a.getUserId().addAll(ctc.getUserId());
-                      }
-                    });
+                author.getRoles().add(ctc.getType());
+                if (ctc.getUserId() != null) {
+                  author.getUserId().addAll(ctc.getUserId());
+                }
               }
             }
           });
     }
-    return uniqueContact;
+    return new ArrayList<>(uniqueContact.values());
   }
 
   /**
-   * Check if a specific {@link Contact} is NOT already in the list of "unique" contact. Currently,
-   * uniqueness is based on the comparisons of lastName and firstNames.
+   * Builds the key used to check if a {@link Contact} is already in the list of "unique" contacts.
+   * Currently, uniqueness is based on the case-insensitive comparison of lastName and firstNames.
    *
-   * @param ctc contact to check
-   * @param uniqueContacts list of contacts
-   * @return contact wrapped in optional
+   * @param lastName last name of the contact
+   * @param firstName first names of the contact
+   * @return key that is equal for contacts considered the same author
    */
-  private static Optional<CitationContact> findInAuthorList(
-      Contact ctc, List<CitationContact> uniqueContacts) {
-    return uniqueContacts.stream()
-        .filter(
-            author ->
-                StringUtils.equalsIgnoreCase(ctc.getLastName(), author.getLastName())
-                    && StringUtils.equalsIgnoreCase(ctc.getFirstName(), author.getFirstName()))
-        .findFirst();
+  private static List<String> authorKey(String lastName, String firstName) {
+    return Arrays.asList(foldCase(lastName), foldCase(firstName));
+  }
+
+  /**
+   * Folds the case of every char the same way {@link String#equalsIgnoreCase(String)} compares them,
+   * so two strings are equal ignoring case if and only if their folded versions are equal.
+   */
+  private static String foldCase(String value) {
+    if (value == null) {
+      return null;
+    }
+    char[] chars = value.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
   }
 
   /**
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.common.export.ExportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads the rows of a {@link ExportFormat#CSV} or {@link ExportFormat#TSV} file one at a time, so files of any size
+ * can be read with a fixed amount of memory.
+ * <p>
+ * Values can be quoted with double quotes, in which case they can contain delimiters, line breaks and escaped
+ * quotes ({@code ""}). Empty lines are skipped and a leading byte order mark is ignored.
+ * <p>
+ * Instances aren't thread-safe.
+ */
+public class DelimitedFileReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final char QUOTE = '"';
+  private static final char BOM = '\uFEFF';
+
+  private final Reader reader;
+  private final char delimiter;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private final StringBuilder value = new StringBuilder();
+  private final List<String> values = new ArrayList<>();
+
+  private int position;
+  private int limit;
+  private boolean start = true;
+  private long lineNumber = 1;
+  private long rowLineNumber;
+
+  /**
+   * Reads UTF-8 encoded text.
+   */
+  public DelimitedFileReader(InputStream in, ExportFormat format) {
+    this(new InputStreamReader(in, StandardCharsets.UTF_8), format);
+  }
+
+  public DelimitedFileReader(Reader reader, ExportFormat format) {
+    this.reader = Objects.requireNonNull(reader, "Reader is required");
+    this.delimiter = Objects.requireNonNull(format, "Format is required").getDelimiter();
+  }
+
+  /**
+   * Reads the next row.
+   *
+   * @return the values of the row or null at the end of the file
+   */
+  public String[] readRow() throws IOException {
+    values.clear();
+    int c;
+    // skip empty lines
+    do {
+      c = read();
+      if (c == '\r' || c == '\n') {
+        endOfLine(c);
+      }
+    } while (c == '\r' || c == '\n');
+
+    if (c < 0) {
+      return null;
+    }
+    rowLineNumber = lineNumber;
+
+    while (true) {
+      value.setLength(0);
+      if (c == QUOTE) {
+        c = readQuoted();
+      }
+      while (c >= 0 && c != delimiter && c != '\r' && c != '\n') {
+        value.append((char) c);
+        c = read();
+      }
+      values.add(value.toString());
+
+      if (c == delimiter) {
+        c = read();
+      } else {
+        if (c >= 0) {
+          endOfLine(c);
+        }
+        return values.toArray(new String[0]);
+      }
+    }
+  }
+
+  /**
+   * @return the line number where the last row read starts, from 1
+   */
+  public long getRowLineNumber() {
+    return rowLineNumber;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Reads a quoted value, up to the char following the closing quote.
+   */
+  private int readQuoted() throws IOException {
+    while (true) {
+      int c = read();
+      if (c < 0) {
+        // unterminated quote
+        return c;
+      } else if (c == QUOTE) {
+        c = read();
+        if (c != QUOTE) {
+          // anything after the closing quote is kept as it is
+          return c;
+        }
+        value.append(QUOTE);
+      } else {
+        if (c == '\n' || (c == '\r' && peek() != '\n')) {
+          lineNumber++;
+        }
+        value.append((char) c);
+      }
+    }
+  }
+
+  private void endOfLine(int c) throws IOException {
+    if (c == '\r' && peek() == '\n') {
+      position++;
+    }
+    lineNumber++;
+  }
+
+  private int read() throws IOException {
+    int c = peek();
+    if (c >= 0) {
+      position++;
+    }
+    return c;
+  }
+
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position];
+  }
+
+  private boolean fill() throws IOException {
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+    if (read < 0) {
+      return false;
+    }
+    position = 0;
+    limit = read;
+    if (start) {
+      start = false;
+      if (buffer[0] == BOM) {
+        position++;
+        return position < limit || fill();
+      }
+    }
+    return true;
+  }
+}
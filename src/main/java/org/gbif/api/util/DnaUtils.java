@@ -1,15 +1,13 @@
 package org.gbif.api.util;
 
-import java.util.regex.Pattern;
-import org.apache.commons.codec.digest.DigestUtils;
-
 public class DnaUtils {
 
-  private static final Pattern NON_IUPAC = Pattern.compile("[^ACGTURYSWKMBDHVN]");
-
+  /**
+   * @return the MD5 hex digest of the upper cased sequence without the characters that aren't IUPAC nucleotide codes
+   */
   public static String convertDnaSequenceToID(String dnaSequence) {
     if (dnaSequence != null && !dnaSequence.isEmpty()) {
-      return DigestUtils.md5Hex(NON_IUPAC.matcher(dnaSequence.toUpperCase()).replaceAll(""));
+      return NucleotideSequenceAnalyzer.iupacMd5(dnaSequence);
     }
     return dnaSequence;
   }
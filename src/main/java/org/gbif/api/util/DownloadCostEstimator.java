@@ -0,0 +1,529 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.metrics.cube.Dimension;
+import org.gbif.api.model.metrics.cube.OccurrenceCube;
+import org.gbif.api.model.metrics.cube.ReadBuilder;
+import org.gbif.api.model.metrics.cube.Rollup;
+import org.gbif.api.model.occurrence.PredicateDownloadRequest;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.predicate.ConjunctionPredicate;
+import org.gbif.api.model.predicate.DisjunctionPredicate;
+import org.gbif.api.model.predicate.EqualsPredicate;
+import org.gbif.api.model.predicate.GreaterThanOrEqualsPredicate;
+import org.gbif.api.model.predicate.GreaterThanPredicate;
+import org.gbif.api.model.predicate.InPredicate;
+import org.gbif.api.model.predicate.LessThanOrEqualsPredicate;
+import org.gbif.api.model.predicate.LessThanPredicate;
+import org.gbif.api.model.predicate.Predicate;
+import org.gbif.api.model.predicate.RangePredicate;
+import org.gbif.api.model.predicate.SimplePredicate;
+import org.gbif.api.service.metrics.CubeService;
+import org.gbif.api.vocabulary.Country;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Estimates the number of records and the size of an occurrence download from the {@link OccurrenceCube} counts,
+ * without running a search, for admission control and prioritization of downloads.
+ * <p>
+ * The predicate is reduced to the set of values allowed for each cube dimension: equals, in and disjunctions of those
+ * on the same parameter, year ranges, and a coordinate check combined with the exclusion of geospatial issues, all
+ * within conjunctions. The rollup having exactly these dimensions gives the count as the sum of its reads over the
+ * combinations of the allowed values. Predicates the cube can't answer, like other parameters or negations, make the
+ * estimate a range: the count of the rollup covering most of the answerable dimensions is the maximum, and 0 the
+ * minimum.
+ * <p>
+ * Taxa, type statuses and issues are multi-valued dimensions: a record counted for several of the values is counted
+ * several times, so the sum of their reads is a maximum and the largest read a minimum.
+ */
+public class DownloadCostEstimator {
+
+  /**
+   * Maximum number of cube reads per estimate when not given.
+   */
+  public static final int DEFAULT_MAX_READS = 1_000;
+
+  private static final Map<OccurrenceSearchParameter, Dimension<?>> DIMENSIONS = new HashMap<>();
+
+  static {
+    DIMENSIONS.put(OccurrenceSearchParameter.BASIS_OF_RECORD, OccurrenceCube.BASIS_OF_RECORD);
+    DIMENSIONS.put(OccurrenceSearchParameter.COUNTRY, OccurrenceCube.COUNTRY);
+    DIMENSIONS.put(OccurrenceSearchParameter.DATASET_KEY, OccurrenceCube.DATASET_KEY);
+    DIMENSIONS.put(OccurrenceSearchParameter.ISSUE, OccurrenceCube.ISSUE);
+    DIMENSIONS.put(OccurrenceSearchParameter.PROTOCOL, OccurrenceCube.PROTOCOL);
+    DIMENSIONS.put(OccurrenceSearchParameter.PUBLISHING_COUNTRY, OccurrenceCube.PUBLISHING_COUNTRY);
+    DIMENSIONS.put(OccurrenceSearchParameter.TAXON_KEY, OccurrenceCube.TAXON_KEY);
+    DIMENSIONS.put(OccurrenceSearchParameter.TYPE_STATUS, OccurrenceCube.TYPE_STATUS);
+    DIMENSIONS.put(OccurrenceSearchParameter.YEAR, OccurrenceCube.YEAR);
+  }
+
+  private static final Set<Dimension<?>> MULTI_VALUED =
+      new LinkedHashSet<>(
+          Arrays.asList(OccurrenceCube.TAXON_KEY, OccurrenceCube.TYPE_STATUS, OccurrenceCube.ISSUE));
+
+  private final CubeService cube;
+  private final long bytesPerRecord;
+  private final int maxReads;
+
+  /**
+   * @param cube the occurrence cube
+   * @param bytesPerRecord average size of a record in the download format
+   */
+  public DownloadCostEstimator(CubeService cube, long bytesPerRecord) {
+    this(cube, bytesPerRecord, DEFAULT_MAX_READS);
+  }
+
+  /**
+   * @param cube the occurrence cube
+   * @param bytesPerRecord average size of a record in the download format
+   * @param maxReads maximum number of cube reads per estimate
+   */
+  public DownloadCostEstimator(CubeService cube, long bytesPerRecord, int maxReads) {
+    checkArgument(bytesPerRecord >= 0, "bytesPerRecord can't be negative");
+    checkArgument(maxReads > 0, "maxReads must be positive");
+    this.cube = Objects.requireNonNull(cube, "Cube service shall be provided");
+    this.bytesPerRecord = bytesPerRecord;
+    this.maxReads = maxReads;
+  }
+
+  /**
+   * Estimates the records of a download request.
+   */
+  public Estimate estimate(PredicateDownloadRequest request) {
+    return estimate(request.getPredicate());
+  }
+
+  /**
+   * Estimates the records matching a predicate.
+   *
+   * @param predicate the predicate, null for all records
+   */
+  public Estimate estimate(@Nullable Predicate predicate) {
+    Constraints constraints = new Constraints();
+    constraints.add(predicate);
+    constraints.finish();
+
+    for (Set<Object> values : constraints.values.values()) {
+      if (values.isEmpty()) {
+        return new Estimate(0, 0L, null, 0, bytesPerRecord);
+      }
+    }
+
+    // rollups answering part of the dimensions, the most dimensions and fewest reads first
+    List<Rollup> candidates = new ArrayList<>();
+    for (Rollup rollup : cube.getSchema()) {
+      if (constraints.values.keySet().containsAll(rollup.getDimensions())) {
+        candidates.add(rollup);
+      }
+    }
+    candidates.add(new Rollup(Collections.emptySet()));
+    candidates.sort(
+        Comparator.<Rollup>comparingInt(r -> -r.getDimensions().size()).thenComparingLong(constraints::reads));
+
+    int reads = 0;
+    Rollup best = null;
+    long bestMax = 0;
+    for (Rollup rollup : candidates) {
+      long cost = constraints.reads(rollup);
+      if (reads + cost > maxReads) {
+        continue;
+      }
+      long[] sumAndMax;
+      try {
+        sumAndMax = read(rollup, constraints);
+      } catch (IllegalArgumentException e) {
+        // the cube doesn't have this address, e.g. no count of all records
+        continue;
+      }
+      reads += cost;
+
+      boolean complete = rollup.getDimensions().size() == constraints.values.size();
+      boolean summedMultiValues = false;
+      for (Dimension<?> dimension : rollup.getDimensions()) {
+        summedMultiValues |= MULTI_VALUED.contains(dimension) && constraints.values.get(dimension).size() > 1;
+      }
+      if (complete && !constraints.residual) {
+        return new Estimate(
+            summedMultiValues ? sumAndMax[1] : sumAndMax[0], sumAndMax[0], rollup, reads, bytesPerRecord);
+      }
+      if (best == null || sumAndMax[0] < bestMax) {
+        best = rollup;
+        bestMax = sumAndMax[0];
+      }
+      if (complete && !summedMultiValues) {
+        // rollups with fewer dimensions can't give a lower maximum
+        break;
+      }
+    }
+    return new Estimate(0, best != null ? bestMax : null, best, reads, bytesPerRecord);
+  }
+
+  /**
+   * Reads all the addresses of the rollup within the constraints.
+   *
+   * @return the sum and the largest of the reads
+   */
+  private long[] read(Rollup rollup, Constraints constraints) {
+    List<Dimension<?>> dimensions = new ArrayList<>(rollup.getDimensions());
+    List<List<Object>> values = new ArrayList<>();
+    for (Dimension<?> dimension : dimensions) {
+      values.add(new ArrayList<>(constraints.values.get(dimension)));
+    }
+
+    long sum = 0;
+    long max = 0;
+    int[] position = new int[dimensions.size()];
+    while (true) {
+      ReadBuilder address = new ReadBuilder();
+      for (int i = 0; i < dimensions.size(); i++) {
+        at(address, dimensions.get(i), values.get(i).get(position[i]));
+      }
+      long count = cube.get(address);
+      sum += count;
+      max = Math.max(max, count);
+
+      // next combination, odometer style
+      int i = dimensions.size() - 1;
+      while (i >= 0 && ++position[i] == values.get(i).size()) {
+        position[i--] = 0;
+      }
+      if (i < 0) {
+        return new long[] {sum, max};
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void at(ReadBuilder address, Dimension<?> dimension, Object value) {
+    if (value instanceof UUID) {
+      address.at((Dimension<UUID>) dimension, (UUID) value);
+    } else if (value instanceof Country) {
+      address.at((Dimension<Country>) dimension, (Country) value);
+    } else if (value instanceof Enum) {
+      address.at((Dimension<? extends Enum<?>>) dimension, (Enum<?>) value);
+    } else if (value instanceof Boolean) {
+      address.at((Dimension<Boolean>) dimension, (boolean) (Boolean) value);
+    } else if (value instanceof Integer) {
+      address.at((Dimension<Integer>) dimension, (int) (Integer) value);
+    } else {
+      address.at((Dimension<String>) dimension, (String) value);
+    }
+  }
+
+  /**
+   * The values allowed for each dimension by a predicate, and whether the predicate has more to it.
+   */
+  private class Constraints {
+
+    private final Map<Dimension<?>, Set<Object>> values = new LinkedHashMap<>();
+    private boolean residual;
+    private Integer fromYear;
+    private Integer toYear;
+    private Boolean hasCoordinate;
+    private Boolean hasGeospatialIssue;
+
+    private void add(@Nullable Predicate predicate) {
+      if (predicate == null) {
+        return;
+      }
+      if (predicate instanceof ConjunctionPredicate) {
+        for (Predicate p : ((ConjunctionPredicate) predicate).getPredicates()) {
+          add(p);
+        }
+      } else if (predicate instanceof DisjunctionPredicate) {
+        addDisjunction(((DisjunctionPredicate) predicate).getPredicates());
+      } else if (predicate instanceof EqualsPredicate) {
+        EqualsPredicate<?> equals = (EqualsPredicate<?>) predicate;
+        if (equals.getChecklistKey() != null) {
+          residual = true;
+        } else if (OccurrenceSearchParameter.HAS_COORDINATE.equals(equals.getKey())) {
+          hasCoordinate = Boolean.valueOf(equals.getValue());
+        } else if (OccurrenceSearchParameter.HAS_GEOSPATIAL_ISSUE.equals(equals.getKey())) {
+          hasGeospatialIssue = Boolean.valueOf(equals.getValue());
+        } else if (OccurrenceSearchParameter.YEAR.equals(equals.getKey()) && equals.getValue().contains(",")) {
+          String[] range = equals.getValue().split(",", 2);
+          restrictYears(range[0], true, range[1], true);
+        } else {
+          restrict(equals.getKey(), Collections.singleton(equals.getValue()));
+        }
+      } else if (predicate instanceof InPredicate) {
+        InPredicate<?> in = (InPredicate<?>) predicate;
+        if (in.getChecklistKey() != null) {
+          residual = true;
+        } else {
+          restrict(in.getKey(), in.getValues());
+        }
+      } else if (predicate instanceof RangePredicate && isYear(((RangePredicate<?>) predicate).getKey())) {
+        RangeValue range = ((RangePredicate<?>) predicate).getValue();
+        restrictYears(
+            range.getGte() != null ? range.getGte() : range.getGt(),
+            range.getGte() != null,
+            range.getLte() != null ? range.getLte() : range.getLt(),
+            range.getLte() != null);
+      } else if (predicate instanceof GreaterThanOrEqualsPredicate && isYear(predicate)) {
+        restrictYears(((SimplePredicate<?>) predicate).getValue(), true, null, true);
+      } else if (predicate instanceof GreaterThanPredicate && isYear(predicate)) {
+        restrictYears(((SimplePredicate<?>) predicate).getValue(), false, null, true);
+      } else if (predicate instanceof LessThanOrEqualsPredicate && isYear(predicate)) {
+        restrictYears(null, true, ((SimplePredicate<?>) predicate).getValue(), true);
+      } else if (predicate instanceof LessThanPredicate && isYear(predicate)) {
+        restrictYears(null, true, ((SimplePredicate<?>) predicate).getValue(), false);
+      } else {
+        residual = true;
+      }
+    }
+
+    /**
+     * A disjunction of equals and in predicates on a single parameter is an in predicate, anything else is residual.
+     */
+    private void addDisjunction(Collection<Predicate> predicates) {
+      Object key = null;
+      Set<String> union = new LinkedHashSet<>();
+      for (Predicate p : predicates) {
+        Object pKey;
+        if (p instanceof EqualsPredicate && ((EqualsPredicate<?>) p).getChecklistKey() == null) {
+          pKey = ((EqualsPredicate<?>) p).getKey();
+          union.add(((EqualsPredicate<?>) p).getValue());
+        } else if (p instanceof InPredicate && ((InPredicate<?>) p).getChecklistKey() == null) {
+          pKey = ((InPredicate<?>) p).getKey();
+          union.addAll(((InPredicate<?>) p).getValues());
+        } else {
+          residual = true;
+          return;
+        }
+        if (key != null && !key.equals(pKey)) {
+          residual = true;
+          return;
+        }
+        key = pKey;
+      }
+      boolean yearRanges = isYear(key) && union.stream().anyMatch(v -> v != null && v.contains(","));
+      if (key == null || yearRanges) {
+        residual = true;
+      } else {
+        restrict(key, union);
+      }
+    }
+
+    private void restrict(Object key, Collection<String> raw) {
+      Dimension<?> dimension = DIMENSIONS.get(key);
+      if (dimension == null) {
+        residual = true;
+        return;
+      }
+      Set<Object> allowed = new LinkedHashSet<>();
+      for (String value : raw) {
+        Object converted = value != null ? convert(dimension, value.trim()) : null;
+        if (converted == null) {
+          // not a value the cube knows, the clause can't be answered
+          residual = true;
+          return;
+        }
+        allowed.add(converted);
+      }
+      restrict(dimension, allowed);
+    }
+
+    private void restrict(Dimension<?> dimension, Set<Object> allowed) {
+      Set<Object> current = values.get(dimension);
+      if (current == null) {
+        values.put(dimension, allowed);
+      } else {
+        current.retainAll(allowed);
+      }
+    }
+
+    private void restrictYears(@Nullable String from, boolean fromInclusive, @Nullable String to, boolean toInclusive) {
+      try {
+        if (from != null && !from.trim().equals("*")) {
+          int year = Integer.parseInt(from.trim()) + (fromInclusive ? 0 : 1);
+          fromYear = fromYear == null ? year : Math.max(fromYear, year);
+        }
+        if (to != null && !to.trim().equals("*")) {
+          int year = Integer.parseInt(to.trim()) - (toInclusive ? 0 : 1);
+          toYear = toYear == null ? year : Math.min(toYear, year);
+        }
+      } catch (NumberFormatException e) {
+        residual = true;
+      }
+    }
+
+    /**
+     * Turns the year range and the georeferencing checks into dimension values.
+     */
+    private void finish() {
+      if (fromYear != null) {
+        int to = toYear != null ? toYear : Year.now().getValue();
+        if ((long) to - fromYear >= maxReads) {
+          residual = true;
+        } else {
+          Set<Object> years = new LinkedHashSet<>();
+          for (int year = fromYear; year <= to; year++) {
+            years.add(year);
+          }
+          restrict(OccurrenceCube.YEAR, years);
+        }
+      } else if (toYear != null) {
+        // the cube has no lower year bound to enumerate from
+        residual = true;
+      }
+
+      if (Boolean.TRUE.equals(hasCoordinate) && Boolean.FALSE.equals(hasGeospatialIssue)) {
+        restrict(OccurrenceCube.IS_GEOREFERENCED, new LinkedHashSet<>(Collections.singleton(true)));
+      } else if (hasCoordinate != null || hasGeospatialIssue != null) {
+        residual = true;
+      }
+    }
+
+    /**
+     * @return the number of reads of the rollup
+     */
+    private long reads(Rollup rollup) {
+      long reads = 1;
+      for (Dimension<?> dimension : rollup.getDimensions()) {
+        reads = Math.min((long) Integer.MAX_VALUE, reads * values.get(dimension).size());
+      }
+      return reads;
+    }
+  }
+
+  private static boolean isYear(Predicate predicate) {
+    return isYear(((SimplePredicate<?>) predicate).getKey());
+  }
+
+  private static boolean isYear(Object key) {
+    return OccurrenceSearchParameter.YEAR.equals(key);
+  }
+
+  @Nullable
+  private static Object convert(Dimension<?> dimension, String value) {
+    try {
+      Class<?> type = dimension.getType();
+      if (type == UUID.class) {
+        return UUID.fromString(value);
+      }
+      if (type == Country.class) {
+        return Country.fromIsoCode(value);
+      }
+      if (type == Integer.class) {
+        return Integer.valueOf(value);
+      }
+      if (type.isEnum()) {
+        @SuppressWarnings("unchecked")
+        Class<? extends Enum<?>> vocabulary = (Class<? extends Enum<?>>) type;
+        return VocabularyUtils.lookup(value, vocabulary).orElse(null);
+      }
+      return value.isEmpty() ? null : value;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * The estimated number and size of the records of a download.
+   */
+  public static class Estimate {
+
+    private final long minRecords;
+    private final Long maxRecords;
+    private final Rollup rollup;
+    private final int reads;
+    private final long bytesPerRecord;
+
+    private Estimate(
+        long minRecords, @Nullable Long maxRecords, @Nullable Rollup rollup, int reads, long bytesPerRecord) {
+      this.minRecords = minRecords;
+      this.maxRecords = maxRecords;
+      this.rollup = rollup;
+      this.reads = reads;
+      this.bytesPerRecord = bytesPerRecord;
+    }
+
+    /**
+     * @return true if the number of records is known exactly
+     */
+    public boolean isExact() {
+      return maxRecords != null && minRecords == maxRecords;
+    }
+
+    public long getMinRecords() {
+      return minRecords;
+    }
+
+    /**
+     * @return the maximum number of records, null if the cube couldn't tell
+     */
+    @Nullable
+    public Long getMaxRecords() {
+      return maxRecords;
+    }
+
+    public long getMinBytes() {
+      return minRecords * bytesPerRecord;
+    }
+
+    /**
+     * @return the maximum size of the download, null if the cube couldn't tell
+     */
+    @Nullable
+    public Long getMaxBytes() {
+      return maxRecords != null ? maxRecords * bytesPerRecord : null;
+    }
+
+    /**
+     * @return the rollup the counts were read from, null if none was read
+     */
+    @Nullable
+    public Rollup getRollup() {
+      return rollup;
+    }
+
+    /**
+     * @return the number of cube reads made
+     */
+    public int getReads() {
+      return reads;
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", Estimate.class.getSimpleName() + "[", "]")
+          .add("minRecords=" + minRecords)
+          .add("maxRecords=" + maxRecords)
+          .add("rollup=" + rollup)
+          .add("reads=" + reads)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.DownloadResultMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility methods to serve download result files, used by the
+ * {@link org.gbif.api.service.occurrence.DownloadResultAccess} implementations.
+ */
+public final class DownloadResultUtils {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private DownloadResultUtils() {}
+
+  /**
+   * Transfers a range of a file with {@link FileChannel#transferTo}, which lets the operating system copy the bytes
+   * directly to files and sockets.
+   *
+   * @return the number of bytes transferred, less than count if the file ends before or a non-blocking target is full
+   */
+  public static long transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+      throws IOException {
+    long remaining = Math.min(count, Math.max(0, channel.size() - position));
+    long transferred = 0;
+    while (transferred < remaining) {
+      long n = channel.transferTo(position + transferred, remaining - transferred, target);
+      if (n <= 0) {
+        break;
+      }
+      transferred += n;
+    }
+    return transferred;
+  }
+
+  /**
+   * Reads the whole file to compute its checksums. The size and modification time are read first, so a file
+   * modified while reading gets metadata that don't match it anymore.
+   */
+  public static DownloadResultMetadata computeMetadata(Path file) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    MessageDigest md5;
+    MessageDigest sha256;
+    try {
+      md5 = MessageDigest.getInstance("MD5");
+      sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform supports both
+      throw new IllegalStateException(e);
+    }
+
+    byte[] buffer = new byte[BUFFER_SIZE];
+    ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      for (int read = channel.read(wrapped); read >= 0; read = channel.read(wrapped)) {
+        md5.update(buffer, 0, wrapped.position());
+        sha256.update(buffer, 0, wrapped.position());
+        wrapped.clear();
+      }
+    }
+    return new DownloadResultMetadata(
+        attributes.size(), attributes.lastModifiedTime().toMillis(), hex(md5.digest()), hex(sha256.digest()));
+  }
+
+  private static String hex(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+      chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+    }
+    return new String(chars);
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.exception.ServiceUnavailableException;
+import org.gbif.api.model.common.search.FacetedSearchRequest;
+import org.gbif.api.model.common.search.SearchParameter;
+import org.gbif.api.model.common.search.SearchResponse;
+import org.gbif.api.model.common.search.SearchResponseMerger;
+import org.gbif.api.service.common.SearchService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * {@link SearchService} searching several shards in parallel and merging their responses with
+ * {@link SearchResponseMerger}.
+ * <p>
+ * Each shard is served by one or more replicas. A shard is first searched on its first replica, and the next
+ * replica is searched as well, or hedged, whenever the replicas searched so far fail or don't answer within the hedge
+ * delay. The first answer of a shard is used. The replicas share the shard request, which they must not modify.
+ */
+@ThreadSafe
+public class FanOutSearchService<T, P extends SearchParameter, R extends FacetedSearchRequest<P>>
+    implements SearchService<T, P, R> {
+
+  private final List<List<SearchService<T, P, R>>> shards;
+  private final Supplier<R> requestFactory;
+  private final Comparator<? super T> hitOrder;
+  private final Executor executor;
+  private final long hedgeDelayMillis;
+  private final long timeoutMillis;
+
+  /**
+   * @param shards the replicas of each shard, in order of preference
+   * @param requestFactory creates the empty shard requests
+   * @param hitOrder the order the shards sort the hits in, or null to interleave the hits of the shards
+   * @param executor runs the searches of the replicas
+   * @param hedgeDelay time to wait for a replica before searching the next one as well
+   * @param timeout time to wait for all the shards
+   */
+  public FanOutSearchService(
+      List<? extends List<? extends SearchService<T, P, R>>> shards,
+      Supplier<R> requestFactory,
+      @Nullable Comparator<? super T> hitOrder,
+      Executor executor,
+      Duration hedgeDelay,
+      Duration timeout) {
+    checkArgument(!shards.isEmpty(), "At least one shard is required");
+    this.shards = new ArrayList<>(shards.size());
+    for (List<? extends SearchService<T, P, R>> replicas : shards) {
+      checkArgument(!replicas.isEmpty(), "Every shard needs at least one replica");
+      this.shards.add(new ArrayList<>(replicas));
+    }
+    this.requestFactory = requestFactory;
+    this.hitOrder = hitOrder;
+    this.executor = executor;
+    this.hedgeDelayMillis = hedgeDelay.toMillis();
+    this.timeoutMillis = timeout.toMillis();
+  }
+
+  /**
+   * @throws ServiceUnavailableException if all the replicas of a shard failed, or a shard didn't answer in time
+   */
+  @Override
+  public SearchResponse<T, P> search(R searchRequest) {
+    return searchMerged(searchRequest).getResponse();
+  }
+
+  /**
+   * Same as {@link #search}, with the error bounds of the facets truncated by the shards.
+   */
+  public SearchResponseMerger.Merged<T, P> searchMerged(R searchRequest) {
+    R shardRequest = SearchResponseMerger.shardRequest(searchRequest, requestFactory);
+    List<CompletableFuture<SearchResponse<T, P>>> futures = new ArrayList<>(shards.size());
+    for (List<SearchService<T, P, R>> replicas : shards) {
+      futures.add(searchShard(replicas, shardRequest));
+    }
+
+    CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    try {
+      all.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      futures.forEach(future -> future.cancel(false));
+      throw new ServiceUnavailableException("Search shards didn't answer within " + timeoutMillis + " ms", e);
+    } catch (ExecutionException e) {
+      throw new ServiceUnavailableException("Search shard failed on all its replicas", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while searching the shards", e);
+    }
+
+    List<SearchResponse<T, P>> responses = new ArrayList<>(futures.size());
+    futures.forEach(future -> responses.add(future.join()));
+    return SearchResponseMerger.merge(searchRequest, responses, hitOrder);
+  }
+
+  private CompletableFuture<SearchResponse<T, P>> searchShard(List<SearchService<T, P, R>> replicas, R request) {
+    CompletableFuture<SearchResponse<T, P>> response = new CompletableFuture<>();
+    new Hedge(replicas, request, response).searchNext();
+    return response;
+  }
+
+  /**
+   * The searches of the replicas of a shard.
+   */
+  private class Hedge {
+
+    private final List<SearchService<T, P, R>> replicas;
+    private final R request;
+    private final CompletableFuture<SearchResponse<T, P>> response;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private Hedge(List<SearchService<T, P, R>> replicas, R request, CompletableFuture<SearchResponse<T, P>> response) {
+      this.replicas = replicas;
+      this.request = request;
+      this.response = response;
+    }
+
+    private void searchNext() {
+      if (response.isDone()) {
+        return;
+      }
+      int replica = next.getAndIncrement();
+      if (replica >= replicas.size()) {
+        return;
+      }
+      if (replica + 1 < replicas.size()) {
+        CompletableFuture.delayedExecutor(hedgeDelayMillis, TimeUnit.MILLISECONDS, executor).execute(this::searchNext);
+      }
+      CompletableFuture.supplyAsync(() -> replicas.get(replica).search(request), executor)
+          .whenComplete(
+              (result, error) -> {
+                if (error == null) {
+                  response.complete(result);
+                } else if (failed.incrementAndGet() == replicas.size()) {
+                  response.completeExceptionally(error);
+                } else {
+                  searchNext();
+                }
+              });
+    }
+  }
+}
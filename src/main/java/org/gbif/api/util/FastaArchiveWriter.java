@@ -0,0 +1,420 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.NucleotideSequence;
+import org.gbif.api.model.occurrence.Occurrence;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Streams the nucleotide sequences of occurrences into a zipped FASTA archive, the sequence file of a
+ * {@link org.gbif.api.model.occurrence.DownloadFormat#FASTA_ARCHIVE} download.
+ * <p>
+ * The archive has two entries:
+ * <ul>
+ *   <li>{@value #FASTA_ENTRY}: each distinct sequence once, with its nucleotide sequence ID as header</li>
+ *   <li>{@value #INDEX_ENTRY}: the nucleotide sequence IDs of each occurrence, one tab separated row per sequence</li>
+ * </ul>
+ * Sequences are deduplicated by a 64 bit digest of the MD5 of their ID, kept in a primitive open addressing
+ * set, so memory grows by 8 to 16 bytes per distinct sequence whatever the number of occurrences. Sequences without
+ * ID are identified using {@link DnaUtils#convertDnaSequenceToID(String)}.
+ * <p>
+ * Compression runs on its own thread: the calling thread formats records into buffers handed over through a bounded
+ * queue, and the index is spooled to a temporary file until the sequences are written.
+ */
+public class FastaArchiveWriter {
+
+  public static final String FASTA_ENTRY = "sequences.fasta";
+  public static final String INDEX_ENTRY = "sequences_index.tsv";
+  public static final String INDEX_HEADER = "gbifID\tnucleotideSequenceID\n";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int QUEUE_SIZE = 16;
+  private static final byte[] END = new byte[0];
+
+  private final int expectedSequences;
+
+  public FastaArchiveWriter() {
+    this(1024);
+  }
+
+  /**
+   * @param expectedSequences expected number of distinct sequences, to size the deduplication set
+   */
+  public FastaArchiveWriter(int expectedSequences) {
+    checkArgument(expectedSequences >= 0, "expectedSequences can't be negative");
+    this.expectedSequences = expectedSequences;
+  }
+
+  /**
+   * Writes the archive of the sequences of the occurrences. The output stream is finished but not closed.
+   *
+   * @param occurrences occurrences to write the sequences of
+   * @param out stream to write the zip archive to
+   * @return the counts of what was written
+   */
+  public Counts write(Iterator<Occurrence> occurrences, OutputStream out) throws IOException {
+    Path index = Files.createTempFile("fasta-index", ".tsv");
+    ExecutorService compressor = Executors.newSingleThreadExecutor();
+    try (OutputStream indexOut = new BufferedOutputStream(Files.newOutputStream(index), BUFFER_SIZE)) {
+      BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+      Future<?> compression = compressor.submit(() -> compress(queue, index, out));
+
+      Counts counts = new Counts();
+      LongHashSet written = new LongHashSet(expectedSequences);
+      IdDigest digest = new IdDigest();
+      Chunk fasta = new Chunk(queue, compression);
+      indexOut.write(INDEX_HEADER.getBytes(StandardCharsets.UTF_8));
+
+      while (occurrences.hasNext()) {
+        Occurrence occurrence = occurrences.next();
+        counts.occurrences++;
+        if (occurrence.getNucleotideSequence() == null) {
+          continue;
+        }
+        String key = occurrence.getKey() != null ? occurrence.getKey().toString() : "";
+        for (NucleotideSequence sequence : occurrence.getNucleotideSequence()) {
+          if (sequence == null || sequence.getSequence() == null || sequence.getSequence().isEmpty()) {
+            continue;
+          }
+          String id = sequence.getNucleotideSequenceID();
+          if (id == null || id.isEmpty()) {
+            id = DnaUtils.convertDnaSequenceToID(sequence.getSequence());
+          }
+          counts.sequences++;
+          if (written.add(digest.of(id))) {
+            counts.distinctSequences++;
+            fasta.write('>').write(id).write('\n').write(sequence.getSequence()).write('\n');
+          }
+          writeAscii(indexOut, key);
+          indexOut.write('\t');
+          writeAscii(indexOut, id);
+          indexOut.write('\n');
+        }
+      }
+      indexOut.close();
+      fasta.end();
+      await(compression);
+      return counts;
+    } finally {
+      compressor.shutdownNow();
+      Files.deleteIfExists(index);
+    }
+  }
+
+  /**
+   * Runs on the compression thread: writes the FASTA chunks until the end marker, then the spooled index.
+   */
+  private static Void compress(BlockingQueue<byte[]> queue, Path index, OutputStream out) throws Exception {
+    ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new NonClosingOutputStream(out), BUFFER_SIZE));
+    zip.putNextEntry(new ZipEntry(FASTA_ENTRY));
+    for (byte[] chunk = queue.take(); chunk != END; chunk = queue.take()) {
+      zip.write(chunk);
+    }
+    zip.closeEntry();
+    zip.putNextEntry(new ZipEntry(INDEX_ENTRY));
+    Files.copy(index, zip);
+    zip.closeEntry();
+    zip.close();
+    return null;
+  }
+
+  private static void await(Future<?> compression) throws IOException {
+    try {
+      compression.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted writing the FASTA archive");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException("Failed to compress the FASTA archive", cause);
+    }
+  }
+
+  private static void writeAscii(OutputStream out, String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        out.write(c);
+      } else {
+        out.write(value.substring(i).getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+    }
+  }
+
+  /**
+   * What was written to an archive.
+   */
+  public static class Counts {
+
+    private long occurrences;
+    private long sequences;
+    private long distinctSequences;
+
+    /**
+     * @return number of occurrences read
+     */
+    public long getOccurrences() {
+      return occurrences;
+    }
+
+    /**
+     * @return number of sequences written to the index
+     */
+    public long getSequences() {
+      return sequences;
+    }
+
+    /**
+     * @return number of sequences written to the FASTA file
+     */
+    public long getDistinctSequences() {
+      return distinctSequences;
+    }
+  }
+
+  /**
+   * Buffer of FASTA bytes handed over to the compression thread when full.
+   */
+  private static class Chunk {
+
+    private final BlockingQueue<byte[]> queue;
+    private final Future<?> compression;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int size;
+
+    private Chunk(BlockingQueue<byte[]> queue, Future<?> compression) {
+      this.queue = queue;
+      this.compression = compression;
+    }
+
+    private Chunk write(char c) throws IOException {
+      if (size == buffer.length) {
+        flush();
+      }
+      buffer[size++] = (byte) c;
+      return this;
+    }
+
+    private Chunk write(String value) throws IOException {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          write(c);
+        } else {
+          for (byte b : value.substring(i).getBytes(StandardCharsets.UTF_8)) {
+            write((char) (b & 0xFF));
+          }
+          break;
+        }
+      }
+      return this;
+    }
+
+    private void flush() throws IOException {
+      if (size > 0) {
+        put(size == buffer.length ? buffer : Arrays.copyOf(buffer, size));
+        buffer = new byte[BUFFER_SIZE];
+        size = 0;
+      }
+    }
+
+    private void end() throws IOException {
+      flush();
+      put(END);
+    }
+
+    private void put(byte[] chunk) throws IOException {
+      try {
+        // stop waiting if the compression failed, it won't take anything anymore
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+          if (compression.isDone()) {
+            await(compression);
+            throw new IOException("FASTA compression stopped");
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted writing the FASTA archive");
+      }
+    }
+  }
+
+  /**
+   * 64 bit digests of sequence IDs. Lowercase MD5 hex IDs already are digests, other IDs are hashed with MD5.
+   */
+  private static class IdDigest {
+
+    private final MessageDigest md5;
+
+    private IdDigest() {
+      try {
+        md5 = MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("MD5 is not available", e);
+      }
+    }
+
+    private long of(String id) {
+      if (isMd5Hex(id)) {
+        // fold both halves so every character of the ID counts
+        return hex(id, 0) ^ hex(id, 16);
+      }
+      byte[] bytes = md5.digest(id.getBytes(StandardCharsets.UTF_8));
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = value << 8 | (bytes[i] & 0xFF);
+      }
+      return value;
+    }
+
+    /**
+     * @return true if the ID is 32 lowercase hex digits, as written by {@link DnaUtils#convertDnaSequenceToID(String)}
+     */
+    private static boolean isMd5Hex(String id) {
+      if (id.length() != 32) {
+        return false;
+      }
+      for (int i = 0; i < 32; i++) {
+        char c = id.charAt(i);
+        if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static long hex(String id, int from) {
+      long value = 0;
+      for (int i = from; i < from + 16; i++) {
+        value = value << 4 | Character.digit(id.charAt(i), 16);
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Open addressing set of longs with linear probing, 0 being tracked apart as it marks empty slots.
+   */
+  static class LongHashSet {
+
+    private long[] slots;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet(int expectedSize) {
+      int capacity = 16;
+      while (capacity < expectedSize * 2L && capacity < 1 << 30) {
+        capacity <<= 1;
+      }
+      slots = new long[capacity];
+    }
+
+    /**
+     * @return true if the value wasn't in the set
+     */
+    boolean add(long value) {
+      if (value == 0) {
+        boolean added = !containsZero;
+        containsZero = true;
+        return added;
+      }
+      if (insert(slots, value)) {
+        if (++size * 2 > slots.length) {
+          grow();
+        }
+        return true;
+      }
+      return false;
+    }
+
+    int size() {
+      return size + (containsZero ? 1 : 0);
+    }
+
+    private void grow() {
+      long[] grown = new long[slots.length * 2];
+      for (long value : slots) {
+        if (value != 0) {
+          insert(grown, value);
+        }
+      }
+      slots = grown;
+    }
+
+    private static boolean insert(long[] slots, long value) {
+      int mask = slots.length - 1;
+      long h = value * 0x9E3779B97F4A7C15L;
+      for (int i = (int) (h ^ (h >>> 32)) & mask; ; i = (i + 1) & mask) {
+        if (slots[i] == value) {
+          return false;
+        }
+        if (slots[i] == 0) {
+          slots[i] = value;
+          return true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Lets the zip stream be finished without closing the stream it writes to.
+   */
+  private static class NonClosingOutputStream extends FilterOutputStream {
+
+    private NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
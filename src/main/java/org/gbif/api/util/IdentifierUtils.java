@@ -101,7 +101,12 @@ public class IdentifierUtils {
       return false;
     }
 
-    return WIKIDATA_PATTERN.matcher(identifier).matches();
+    // same as WIKIDATA_PATTERN, scanned without a regex as it's used in bulk validations
+    int i = schemeEnd(identifier, "www.wikidata.org/entity/");
+    if (i < 0 || identifier.length() - i < 2 || !isAsciiLetter(identifier.charAt(i))) {
+      return false;
+    }
+    return isAsciiDigits(identifier, i + 1, identifier.length());
   }
 
   public static boolean isValidRORIdentifier(String identifier) {
@@ -109,7 +114,18 @@ public class IdentifierUtils {
       return false;
     }
 
-    return ROR_PATTERN.matcher(identifier).matches();
+    // same as ROR_PATTERN
+    int i = schemeEnd(identifier, "ror.org/0");
+    if (i < 0 || identifier.length() - i != 8) {
+      return false;
+    }
+    for (int j = i; j < i + 6; j++) {
+      char c = identifier.charAt(j);
+      if (!isAsciiDigit(c) && (c < 'a' || c > 'z')) {
+        return false;
+      }
+    }
+    return isAsciiDigits(identifier, i + 6, identifier.length());
   }
 
   /** ISIL identifier validation according to
@@ -119,7 +135,22 @@ public class IdentifierUtils {
       return false;
     }
 
-    return ISIL_PATTERN.matcher(identifier).matches();
+    // same as ISIL_PATTERN
+    int dash = 0;
+    while (dash < identifier.length() && dash < 5 && isAsciiLetter(identifier.charAt(dash))) {
+      dash++;
+    }
+    int suffixLength = identifier.length() - dash - 1;
+    if (dash == 0 || dash > 4 || suffixLength < 1 || suffixLength > 11 || identifier.charAt(dash) != '-') {
+      return false;
+    }
+    for (int i = dash + 1; i < identifier.length(); i++) {
+      char c = identifier.charAt(i);
+      if (!isAsciiLetter(c) && !isAsciiDigit(c) && c != ':' && c != '/' && c != '-') {
+        return false;
+      }
+    }
+    return true;
   }
 
   public static boolean isValidCLBDatasetKey(String identifier) {
@@ -137,4 +168,29 @@ public class IdentifierUtils {
     }
     return RNC_PATTERN.matcher(identifier).matches();
   }
+
+  /**
+   * @return the position after {@code http[s]://} followed by the host and path given, or -1 if they don't match
+   */
+  private static int schemeEnd(String identifier, String hostAndPath) {
+    int i = identifier.startsWith("https://") ? 8 : identifier.startsWith("http://") ? 7 : -1;
+    return i >= 0 && identifier.startsWith(hostAndPath, i) ? i + hostAndPath.length() : -1;
+  }
+
+  private static boolean isAsciiDigits(String identifier, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (!isAsciiDigit(identifier.charAt(i))) {
+        return false;
+      }
+    }
+    return from < to;
+  }
+
+  private static boolean isAsciiDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
 }
@@ -0,0 +1,284 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.collections.descriptors.Descriptor;
+import org.gbif.api.model.collections.descriptors.DescriptorReinterpretationJob;
+import org.gbif.api.model.collections.descriptors.ReinterpretationCheckpointStore;
+import org.gbif.api.model.registry.ContentFingerprint;
+import org.gbif.api.service.collections.DescriptorReinterpretationService;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Reference implementation of {@link DescriptorReinterpretationService} running the jobs in this process.
+ * <p>
+ * The descriptor groups are reinterpreted by a fixed pool of workers, and the progress is persisted in a
+ * {@link ReinterpretationCheckpointStore}: a group is checkpointed once reinterpreted, together with a fingerprint of
+ * its verbatim descriptors that incremental jobs compare to skip unchanged groups. A failed group isn't checkpointed,
+ * so resuming the job retries it.
+ */
+@ThreadSafe
+public class InMemoryDescriptorReinterpretationService implements DescriptorReinterpretationService, Closeable {
+
+  private static final int MAX_ERRORS = 100;
+
+  private final DescriptorGroupSource source;
+  private final Reinterpreter reinterpreter;
+  private final ReinterpretationCheckpointStore store;
+  private final int parallelism;
+  private final ExecutorService workers;
+  private final Map<UUID, Run> runs = new ConcurrentHashMap<>();
+
+  /**
+   * @param source provides the descriptor groups
+   * @param reinterpreter reinterprets a descriptor group, e.g. {@code DescriptorsService::reinterpretDescriptorGroup}
+   * @param store store of the checkpoints
+   * @param parallelism number of descriptor groups reinterpreted at the same time
+   */
+  public InMemoryDescriptorReinterpretationService(
+      DescriptorGroupSource source,
+      Reinterpreter reinterpreter,
+      ReinterpretationCheckpointStore store,
+      int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be greater than 0");
+    this.source = Objects.requireNonNull(source, "Source is required");
+    this.reinterpreter = Objects.requireNonNull(reinterpreter, "Reinterpreter is required");
+    this.store = Objects.requireNonNull(store, "Checkpoint store is required");
+    this.parallelism = parallelism;
+    this.workers = Executors.newFixedThreadPool(parallelism);
+  }
+
+  @Override
+  public UUID startReinterpretation(boolean incremental) {
+    UUID key = UUID.randomUUID();
+    start(new Run(key, incremental));
+    return key;
+  }
+
+  @Override
+  public void resumeReinterpretation(UUID jobKey) {
+    DescriptorReinterpretationJob job = store.getJob(jobKey);
+    checkArgument(job != null, "Reinterpretation job " + jobKey + " doesn't exist");
+
+    Run run = runs.get(jobKey);
+    if (run != null && !run.completion.isDone()) {
+      throw new IllegalStateException("Reinterpretation job " + jobKey + " is running");
+    }
+    // a job saved as running without a run in this process was interrupted by a crash
+    start(new Run(jobKey, job.isIncremental()));
+  }
+
+  @Override
+  public DescriptorReinterpretationJob getReinterpretationJob(UUID jobKey) {
+    Run run = runs.get(jobKey);
+    return run != null ? run.toJob() : store.getJob(jobKey);
+  }
+
+  /**
+   * Waits for a job started or resumed by this service to finish.
+   *
+   * @return the job once finished
+   */
+  public DescriptorReinterpretationJob awaitReinterpretation(UUID jobKey, long timeout, TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    Run run = runs.get(jobKey);
+    checkArgument(run != null, "Reinterpretation job " + jobKey + " isn't run by this service");
+    try {
+      run.completion.get(timeout, unit);
+    } catch (ExecutionException e) {
+      // failures are recorded in the job
+    }
+    return run.toJob();
+  }
+
+  /**
+   * Stops the workers, interrupting the running jobs.
+   */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+  private void start(Run run) {
+    runs.put(run.key, run);
+    store.saveJob(run.toJob());
+
+    List<Long> groupKeys;
+    Set<Long> checkpoints;
+    try {
+      groupKeys = source.getDescriptorGroupKeys();
+      checkpoints = store.getCheckpoints(run.key);
+    } catch (RuntimeException e) {
+      run.aborted = true;
+      run.finish();
+      throw e;
+    }
+    run.totalGroups = groupKeys.size();
+
+    CompletableFuture<?>[] partitions = new CompletableFuture<?>[groupKeys.size()];
+    for (int i = 0; i < partitions.length; i++) {
+      long groupKey = groupKeys.get(i);
+      partitions[i] = CompletableFuture.runAsync(() -> run.process(groupKey, checkpoints), workers);
+    }
+    CompletableFuture.allOf(partitions).whenComplete((r, e) -> run.finish());
+  }
+
+  /**
+   * Fingerprint of the verbatim descriptors of a group, independent of the order of the descriptors and fields. The
+   * keys and values are hashed in full, see {@link ContentFingerprint}.
+   */
+  static long fingerprint(Collection<Descriptor> descriptors) {
+    long sum = 0;
+    for (Descriptor descriptor : descriptors) {
+      ContentFingerprint fingerprint = new ContentFingerprint();
+      if (descriptor != null) {
+        fingerprint.add(descriptor.getKey()).add(descriptor.getVerbatim());
+      }
+      sum += fingerprint.value();
+    }
+    return new ContentFingerprint().add(descriptors.size()).add(sum).value();
+  }
+
+  /**
+   * Provides the descriptor groups to reinterpret.
+   */
+  public interface DescriptorGroupSource {
+
+    /**
+     * @return the keys of all the descriptor groups
+     */
+    List<Long> getDescriptorGroupKeys();
+
+    /**
+     * @return the descriptors of a group
+     */
+    Collection<Descriptor> getDescriptors(long descriptorGroupKey);
+  }
+
+  /**
+   * Reinterprets a descriptor group.
+   */
+  @FunctionalInterface
+  public interface Reinterpreter {
+    void reinterpret(long descriptorGroupKey) throws Exception;
+  }
+
+  /**
+   * A run of a job, from when it's started or resumed until it finishes.
+   */
+  private class Run {
+
+    private final UUID key;
+    private final boolean incremental;
+    private final Date started = new Date();
+    private final LongAdder reinterpretedGroups = new LongAdder();
+    private final LongAdder skippedGroups = new LongAdder();
+    private final LongAdder failedGroups = new LongAdder();
+    private final LongAdder reinterpretedDescriptors = new LongAdder();
+    private final List<String> errors = new ArrayList<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile long totalGroups;
+    private volatile boolean aborted;
+    private volatile Date finished;
+
+    private Run(UUID key, boolean incremental) {
+      this.key = key;
+      this.incremental = incremental;
+    }
+
+    private void process(long groupKey, Set<Long> checkpoints) {
+      if (checkpoints.contains(groupKey)) {
+        // done before the job was resumed
+        skippedGroups.increment();
+        return;
+      }
+
+      try {
+        Collection<Descriptor> descriptors = source.getDescriptors(groupKey);
+        long fingerprint = fingerprint(descriptors);
+        if (incremental && Objects.equals(fingerprint, store.getFingerprint(groupKey))) {
+          store.checkpoint(key, groupKey);
+          skippedGroups.increment();
+          return;
+        }
+
+        reinterpreter.reinterpret(groupKey);
+        store.saveFingerprint(groupKey, fingerprint);
+        store.checkpoint(key, groupKey);
+        reinterpretedGroups.increment();
+        reinterpretedDescriptors.add(descriptors.size());
+      } catch (Exception e) {
+        failedGroups.increment();
+        synchronized (errors) {
+          if (errors.size() < MAX_ERRORS) {
+            errors.add("Descriptor group " + groupKey + ": " + e.getMessage());
+          }
+        }
+      }
+    }
+
+    private void finish() {
+      finished = new Date();
+      store.saveJob(toJob());
+      completion.complete(null);
+    }
+
+    private DescriptorReinterpretationJob toJob() {
+      DescriptorReinterpretationJob job = new DescriptorReinterpretationJob();
+      job.setKey(key);
+      job.setIncremental(incremental);
+      job.setParallelism(parallelism);
+      job.setTotalGroups(totalGroups);
+      job.setReinterpretedGroups(reinterpretedGroups.sum());
+      job.setSkippedGroups(skippedGroups.sum());
+      job.setFailedGroups(failedGroups.sum());
+      job.setReinterpretedDescriptors(reinterpretedDescriptors.sum());
+      job.setStarted(started);
+      job.setFinished(finished);
+      synchronized (errors) {
+        job.setErrors(new ArrayList<>(errors));
+      }
+      if (finished == null) {
+        job.setState(DescriptorReinterpretationJob.State.RUNNING);
+      } else {
+        job.setState(
+            aborted || job.getFailedGroups() > 0
+                ? DescriptorReinterpretationJob.State.FAILED
+                : DescriptorReinterpretationJob.State.FINISHED);
+      }
+      return job;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.collections.descriptors.DescriptorReinterpretationJob;
+import org.gbif.api.model.collections.descriptors.ReinterpretationCheckpointStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link ReinterpretationCheckpointStore} keeping the checkpoints in memory, e.g. for tests.
+ */
+@ThreadSafe
+public class InMemoryReinterpretationCheckpointStore implements ReinterpretationCheckpointStore {
+
+  private final Map<UUID, DescriptorReinterpretationJob> jobs = new ConcurrentHashMap<>();
+  private final Map<UUID, Set<Long>> checkpoints = new ConcurrentHashMap<>();
+  private final Map<Long, Long> fingerprints = new ConcurrentHashMap<>();
+
+  @Override
+  public void saveJob(DescriptorReinterpretationJob job) {
+    jobs.put(job.getKey(), copy(job));
+  }
+
+  @Override
+  public DescriptorReinterpretationJob getJob(UUID jobKey) {
+    DescriptorReinterpretationJob job = jobs.get(jobKey);
+    return job != null ? copy(job) : null;
+  }
+
+  @Override
+  public void checkpoint(UUID jobKey, long descriptorGroupKey) {
+    checkpoints.computeIfAbsent(jobKey, k -> ConcurrentHashMap.newKeySet()).add(descriptorGroupKey);
+  }
+
+  @Override
+  public Set<Long> getCheckpoints(UUID jobKey) {
+    Set<Long> keys = checkpoints.get(jobKey);
+    return keys != null ? Collections.unmodifiableSet(keys) : Collections.emptySet();
+  }
+
+  @Override
+  public void saveFingerprint(long descriptorGroupKey, long fingerprint) {
+    fingerprints.put(descriptorGroupKey, fingerprint);
+  }
+
+  @Override
+  public Long getFingerprint(long descriptorGroupKey) {
+    return fingerprints.get(descriptorGroupKey);
+  }
+
+  private static DescriptorReinterpretationJob copy(DescriptorReinterpretationJob job) {
+    DescriptorReinterpretationJob copy = new DescriptorReinterpretationJob();
+    copy.setKey(job.getKey());
+    copy.setState(job.getState());
+    copy.setIncremental(job.isIncremental());
+    copy.setParallelism(job.getParallelism());
+    copy.setTotalGroups(job.getTotalGroups());
+    copy.setReinterpretedGroups(job.getReinterpretedGroups());
+    copy.setSkippedGroups(job.getSkippedGroups());
+    copy.setFailedGroups(job.getFailedGroups());
+    copy.setReinterpretedDescriptors(job.getReinterpretedDescriptors());
+    copy.setStarted(job.getStarted() != null ? new Date(job.getStarted().getTime()) : null);
+    copy.setFinished(job.getFinished() != null ? new Date(job.getFinished().getTime()) : null);
+    copy.setErrors(new ArrayList<>(job.getErrors()));
+    return copy;
+  }
+}
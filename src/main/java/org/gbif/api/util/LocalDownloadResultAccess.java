@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.DownloadResultMetadata;
+import org.gbif.api.service.occurrence.DownloadResultAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * {@link DownloadResultAccess} to the result files of a local directory, named after the download key with a
+ * {@code .zip} extension. The metadata of each file is computed once and kept until the file size or modification
+ * time changes. A file is read by a single caller at a time, outside of any lock, while the concurrent callers of the
+ * same file wait for its result.
+ */
+@ThreadSafe
+public class LocalDownloadResultAccess implements DownloadResultAccess {
+
+  public static final String RESULT_EXTENSION = ".zip";
+
+  private final Path directory;
+  private final Map<String, CompletableFuture<DownloadResultMetadata>> metadata = new ConcurrentHashMap<>();
+
+  public LocalDownloadResultAccess(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the key could name a file outside the directory
+   */
+  @Nullable
+  @Override
+  public File getResultFile(String downloadKey) {
+    Path file = resolve(downloadKey);
+    return Files.isRegularFile(file) ? file.toFile() : null;
+  }
+
+  @Nullable
+  @Override
+  public DownloadResultMetadata getResultMetadata(String downloadKey) throws IOException {
+    Path file = resolve(downloadKey);
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      metadata.remove(downloadKey);
+      return null;
+    }
+    if (!attributes.isRegularFile()) {
+      return null;
+    }
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    CompletableFuture<DownloadResultMetadata> cached = metadata.get(downloadKey);
+    while (true) {
+      if (cached != null) {
+        DownloadResultMetadata current = await(downloadKey, cached);
+        if (isCurrent(current, size, lastModified)) {
+          return current;
+        }
+      }
+      CompletableFuture<DownloadResultMetadata> computation = new CompletableFuture<>();
+      boolean placed =
+          cached == null
+              ? metadata.putIfAbsent(downloadKey, computation) == null
+              : metadata.replace(downloadKey, cached, computation);
+      if (!placed) {
+        // another caller placed a computation first, which is awaited instead
+        cached = metadata.get(downloadKey);
+        continue;
+      }
+      // the file is read outside of the map, concurrent callers of the same file wait for the future
+      try {
+        DownloadResultMetadata computed = DownloadResultUtils.computeMetadata(file);
+        computation.complete(computed);
+        return computed;
+      } catch (IOException | RuntimeException e) {
+        metadata.remove(downloadKey, computation);
+        computation.completeExceptionally(e);
+        throw e;
+      }
+    }
+  }
+
+  private static DownloadResultMetadata await(String downloadKey, CompletableFuture<DownloadResultMetadata> future)
+      throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while computing the metadata of " + downloadKey);
+    } catch (ExecutionException e) {
+      throw new IOException("Can't compute the metadata of " + downloadKey, e.getCause());
+    }
+  }
+
+  private static boolean isCurrent(@Nullable DownloadResultMetadata metadata, long size, long lastModified) {
+    return metadata != null && metadata.getSize() == size && metadata.getLastModified() == lastModified;
+  }
+
+  private Path resolve(String downloadKey) {
+    checkArgument(
+        downloadKey != null
+            && !downloadKey.isEmpty()
+            && downloadKey.charAt(0) != '.'
+            && downloadKey.indexOf('/') < 0
+            && downloadKey.indexOf('\\') < 0
+            && downloadKey.indexOf(File.separatorChar) < 0,
+        "Invalid download key");
+    return directory.resolve(downloadKey + RESULT_EXTENSION);
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.common.search.SearchResponse;
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.model.occurrence.search.OccurrencePredicateSearchRequest;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+import org.gbif.api.model.occurrence.search.OccurrenceSuggestIndex;
+import org.gbif.api.model.predicate.Predicate;
+import org.gbif.api.service.occurrence.OccurrenceSearchService;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * {@link OccurrenceSearchService} answering the suggest methods from an {@link OccurrenceSuggestIndex}.
+ * <p>
+ * Searches, and suggestions of fields the index doesn't contain, go to the delegate service. The index can be replaced
+ * while the service is in use, for example after rebuilding it from a fresh term dump.
+ */
+@ThreadSafe
+public class LocalSuggestOccurrenceSearchService implements OccurrenceSearchService {
+
+  private final OccurrenceSearchService delegate;
+  private volatile OccurrenceSuggestIndex index;
+
+  public LocalSuggestOccurrenceSearchService(OccurrenceSearchService delegate, OccurrenceSuggestIndex index) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate service is required");
+    this.index = Objects.requireNonNull(index, "Suggest index is required");
+  }
+
+  /**
+   * Replaces the index used for suggestions.
+   */
+  public void setIndex(OccurrenceSuggestIndex index) {
+    this.index = Objects.requireNonNull(index, "Suggest index is required");
+  }
+
+  public OccurrenceSuggestIndex getIndex() {
+    return index;
+  }
+
+  @Override
+  public SearchResponse<Occurrence, OccurrenceSearchParameter> search(OccurrenceSearchRequest request) {
+    return delegate.search(request);
+  }
+
+  @Override
+  public SearchResponse<Occurrence, OccurrenceSearchParameter> search(OccurrencePredicateSearchRequest request) {
+    return delegate.search(request);
+  }
+
+  @Override
+  public long countRecords(Predicate predicate) {
+    return delegate.countRecords(predicate);
+  }
+
+  @Override
+  public List<String> suggestCatalogNumbers(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.CATALOG_NUMBER, prefix, limit, () -> delegate.suggestCatalogNumbers(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestCollectionCodes(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.COLLECTION_CODE, prefix, limit, () -> delegate.suggestCollectionCodes(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestRecordedBy(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.RECORDED_BY, prefix, limit, () -> delegate.suggestRecordedBy(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestIdentifiedBy(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.IDENTIFIED_BY, prefix, limit, () -> delegate.suggestIdentifiedBy(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestRecordNumbers(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.RECORD_NUMBER, prefix, limit, () -> delegate.suggestRecordNumbers(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestInstitutionCodes(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.INSTITUTION_CODE,
+        prefix,
+        limit,
+        () -> delegate.suggestInstitutionCodes(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestOccurrenceIds(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.OCCURRENCE_ID, prefix, limit, () -> delegate.suggestOccurrenceIds(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestOrganismIds(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.ORGANISM_ID, prefix, limit, () -> delegate.suggestOrganismIds(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestLocalities(String prefix, @Nullable Integer limit) {
+    return suggest(OccurrenceSearchParameter.LOCALITY, prefix, limit, () -> delegate.suggestLocalities(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestWaterBodies(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.WATER_BODY, prefix, limit, () -> delegate.suggestWaterBodies(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestStateProvinces(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.STATE_PROVINCE, prefix, limit, () -> delegate.suggestStateProvinces(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestSamplingProtocol(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.SAMPLING_PROTOCOL,
+        prefix,
+        limit,
+        () -> delegate.suggestSamplingProtocol(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestEventId(String prefix, @Nullable Integer limit) {
+    return suggest(OccurrenceSearchParameter.EVENT_ID, prefix, limit, () -> delegate.suggestEventId(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestParentEventId(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.PARENT_EVENT_ID, prefix, limit, () -> delegate.suggestParentEventId(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestOtherCatalogNumbers(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.OTHER_CATALOG_NUMBERS,
+        prefix,
+        limit,
+        () -> delegate.suggestOtherCatalogNumbers(prefix, limit));
+  }
+
+  @Override
+  public List<String> suggestDatasetName(String prefix, @Nullable Integer limit) {
+    return suggest(
+        OccurrenceSearchParameter.DATASET_NAME, prefix, limit, () -> delegate.suggestDatasetName(prefix, limit));
+  }
+
+  private List<String> suggest(
+      OccurrenceSearchParameter field,
+      String prefix,
+      @Nullable Integer limit,
+      Supplier<List<String>> fallback) {
+    OccurrenceSuggestIndex current = index;
+    if (current.contains(field)) {
+      return current.suggest(field, prefix, limit);
+    }
+    return fallback.get();
+  }
+}
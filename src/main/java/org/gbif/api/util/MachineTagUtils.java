@@ -21,7 +21,10 @@ import org.gbif.api.vocabulary.TagName;
 import org.gbif.api.vocabulary.TagNamespace;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -45,12 +48,70 @@ public class MachineTagUtils {
       .collect(Collectors.toList());
   }
 
+  /**
+   * Returns a copy of the original list of machine taggable entities, that have a machine tag with the given TagName.
+   */
+  public static <T extends MachineTaggable> List<T> filter(List<T> source, TagName tagName) {
+    return filter(source, tagName, null);
+  }
+
+  /**
+   * Returns a copy of the original list of machine taggable entities, that have a machine tag with the given TagName
+   * and value, any value if null.
+   */
+  public static <T extends MachineTaggable> List<T> filter(List<T> source, TagName tagName,
+    @Nullable String value) {
+    List<T> filtered = new ArrayList<>();
+    for (T element : source) {
+      List<MachineTag> tags = element.machineTagIndex().get(tagName);
+      if (!tags.isEmpty() && (value == null || hasValue(tags, value))) {
+        filtered.add(element);
+      }
+    }
+    return filtered;
+  }
+
+  /**
+   * Returns a copy of the original list of machine taggable entities, that have a machine tag in the given namespace.
+   */
+  public static <T extends MachineTaggable> List<T> filter(List<T> source, TagNamespace tagNamespace) {
+    List<T> filtered = new ArrayList<>();
+    for (T element : source) {
+      if (!element.machineTagIndex().get(tagNamespace).isEmpty()) {
+        filtered.add(element);
+      }
+    }
+    return filtered;
+  }
+
+  /**
+   * Groups the machine taggable entities by the values of their machine tags with the given TagName. An entity with
+   * several values is in several groups, and entities without the tag aren't in any.
+   *
+   * @return the entities by tag value, in the order of the source list
+   */
+  public static <T extends MachineTaggable> Map<String, List<T>> groupByValue(List<T> source, TagName tagName) {
+    Map<String, List<T>> groups = new LinkedHashMap<>();
+    for (T element : source) {
+      List<MachineTag> tags = element.machineTagIndex().get(tagName);
+      for (int i = 0; i < tags.size(); i++) {
+        String value = tags.get(i).getValue();
+        if (!hasValue(tags.subList(0, i), value)) {
+          groups.computeIfAbsent(value, k -> new ArrayList<>()).add(element);
+        }
+      }
+    }
+    return groups;
+  }
+
   private static <T extends MachineTaggable> boolean predicate(
     @Nullable String namespace, @Nullable String name, @Nullable String value, T element) {
-    for (MachineTag machineTag : element.getMachineTags()) {
-      if ((namespace == null || machineTag.getNamespace().equals(namespace)) &&
-        (name == null || machineTag.getName().equals(name)) &&
-        (value == null || machineTag.getValue().equals(value))) {
+    return element.machineTagIndex().contains(namespace, name, value);
+  }
+
+  private static boolean hasValue(List<MachineTag> tags, String value) {
+    for (MachineTag tag : tags) {
+      if (Objects.equals(value, tag.getValue())) {
         return true;
       }
     }
@@ -89,19 +150,14 @@ public class MachineTagUtils {
    * @return the first machine tag that with the given TagName.
    */
   public static MachineTag firstTag(MachineTaggable taggable, TagName tagName) {
-    return firstTag(taggable, tagName.getNamespace().getNamespace(), tagName.getName());
+    return taggable.machineTagIndex().first(tagName);
   }
 
   /**
    * @return the first machine tag that with the given namespace and name.
    */
   public static MachineTag firstTag(MachineTaggable taggable, String namespace, String tagName) {
-    for (MachineTag mt : taggable.getMachineTags()) {
-      if (mt.getNamespace().equals(namespace) && mt.getName().equals(tagName)) {
-        return mt;
-      }
-    }
-    return null;
+    return taggable.machineTagIndex().first(namespace, tagName);
   }
 
   /**
@@ -122,33 +178,21 @@ public class MachineTagUtils {
    * @return a new list of machine tags which have the given tagNamespace.
    */
   public static List<MachineTag> list(MachineTaggable taggable, TagNamespace tagNamespace) {
-    List<MachineTag> tags = new ArrayList<>();
-    for (MachineTag mt : taggable.getMachineTags()) {
-      if (mt.getNamespace().equals(tagNamespace.getNamespace())) {
-        tags.add(mt);
-      }
-    }
-    return tags;
+    return new ArrayList<>(taggable.machineTagIndex().get(tagNamespace));
   }
 
   /**
    * @return a new list of machine tags which have the given tagName.
    */
   public static List<MachineTag> list(MachineTaggable taggable, TagName tagName) {
-    return list(taggable, tagName.getNamespace().getNamespace(), tagName.getName());
+    return new ArrayList<>(taggable.machineTagIndex().get(tagName));
   }
 
   /**
    * @return a new list of machine tags which have the given namespace and name.
    */
   public static List<MachineTag> list(MachineTaggable taggable, String namespace, String tagName) {
-    List<MachineTag> tags = new ArrayList<>();
-    for (MachineTag mt : taggable.getMachineTags()) {
-      if (mt.getNamespace().equals(namespace) && mt.getName().equals(tagName)) {
-        tags.add(mt);
-      }
-    }
-    return tags;
+    return new ArrayList<>(taggable.machineTagIndex().get(namespace, tagName));
   }
 
   /**
@@ -156,8 +200,8 @@ public class MachineTagUtils {
    */
   public static List<MachineTag> listByPrefix(MachineTaggable taggable, String namespace, String prefix) {
     List<MachineTag> tags = new ArrayList<>();
-    for (MachineTag mt : taggable.getMachineTags()) {
-      if (mt.getNamespace().equals(namespace) && mt.getName().startsWith(prefix)) {
+    for (MachineTag mt : taggable.machineTagIndex().getNamespace(namespace)) {
+      if (mt.getName().startsWith(prefix)) {
         tags.add(mt);
       }
     }
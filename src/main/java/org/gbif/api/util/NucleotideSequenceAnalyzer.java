@@ -0,0 +1,275 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.NucleotideSequence;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.commons.codec.binary.Hex;
+
+import jakarta.annotation.Nullable;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Cleans nucleotide sequences and computes their quality metrics and identifier in a single pass over the characters.
+ * <p>
+ * The sequence is cleaned by:
+ * <ul>
+ *   <li>upper casing it</li>
+ *   <li>removing whitespace and the gap characters '-' and '.'</li>
+ *   <li>trimming the leading and trailing runs of N</li>
+ *   <li>capping the runs of N longer than the maximum run length to that length</li>
+ * </ul>
+ * The metrics are computed over the cleaned sequence, and the identifier is the {@link DnaUtils#convertDnaSequenceToID}
+ * of the cleaned sequence, or null if nothing is left. Fractions are relative to the cleaned length, and the GC content
+ * to the number of A, C, G and T. Natural language detection and the validity of the sequence are left to the caller.
+ */
+@ThreadSafe
+public class NucleotideSequenceAnalyzer {
+
+  /**
+   * Runs of N longer than this are capped by default.
+   */
+  public static final int DEFAULT_MAX_N_RUN_LENGTH = 5;
+
+  // IUPAC nucleotide codes, see DnaUtils
+  private static final boolean[] IUPAC = new boolean[128];
+
+  static {
+    for (char c : "ACGTURYSWKMBDHVN".toCharArray()) {
+      IUPAC[c] = true;
+    }
+  }
+
+  private final int maxNRunLength;
+
+  public NucleotideSequenceAnalyzer() {
+    this(DEFAULT_MAX_N_RUN_LENGTH);
+  }
+
+  /**
+   * @param maxNRunLength length runs of N are capped to
+   */
+  public NucleotideSequenceAnalyzer(int maxNRunLength) {
+    checkArgument(maxNRunLength > 0, "maxNRunLength must be positive");
+    this.maxNRunLength = maxNRunLength;
+  }
+
+  /**
+   * Cleans and analyzes a sequence.
+   *
+   * @param sequence the sequence as recorded
+   * @return the cleaned sequence with its metrics and identifier, or null for null sequences
+   */
+  @Nullable
+  public NucleotideSequence analyze(@Nullable String sequence) {
+    if (sequence == null) {
+      return null;
+    }
+
+    Analysis analysis = new Analysis(sequence.length());
+    for (int i = 0; i < sequence.length(); i++) {
+      char c = sequence.charAt(i);
+      if (c < 0x80) {
+        analysis.accept(c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c);
+      } else {
+        String upper = upperCase(c);
+        for (int j = 0; j < upper.length(); j++) {
+          analysis.accept(upper.charAt(j));
+        }
+      }
+    }
+    return analysis.finish();
+  }
+
+  /**
+   * Cleans and analyzes sequences in parallel.
+   *
+   * @return the analyzed sequences in the same order as the sequences given
+   */
+  public List<NucleotideSequence> analyzeAll(Collection<String> sequences) {
+    return sequences.parallelStream().map(this::analyze).collect(Collectors.toList());
+  }
+
+  /**
+   * MD5 hex digest of the upper cased sequence without the characters that aren't IUPAC nucleotide codes, computed
+   * without intermediate strings.
+   */
+  static String iupacMd5(String sequence) {
+    IupacDigest digest = new IupacDigest();
+    for (int i = 0; i < sequence.length(); i++) {
+      char c = sequence.charAt(i);
+      if (c < 0x80) {
+        digest.accept(c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c);
+      } else {
+        // upper casing some characters gives IUPAC codes, e.g. ß becomes SS
+        String upper = upperCase(c);
+        for (int j = 0; j < upper.length(); j++) {
+          digest.accept(upper.charAt(j));
+        }
+      }
+    }
+    return digest.hex();
+  }
+
+  private static String upperCase(char c) {
+    return Character.isSurrogate(c) ? "" : String.valueOf(c).toUpperCase();
+  }
+
+  private static boolean isIupac(char c) {
+    return c < 0x80 && IUPAC[c];
+  }
+
+  /**
+   * The state of the analysis of a sequence.
+   */
+  private class Analysis {
+
+    private final StringBuilder sequence;
+    private final IupacDigest digest = new IupacDigest();
+    private boolean started;
+    private int pendingN;
+    private int a;
+    private int c;
+    private int g;
+    private int t;
+    private int n;
+    private int nonIupac;
+    private int nRunsCapped;
+    private boolean endsTrimmed;
+    private boolean gapsOrWhitespaceRemoved;
+
+    private Analysis(int length) {
+      sequence = new StringBuilder(length);
+    }
+
+    private void accept(char base) {
+      if (base == '-' || base == '.' || Character.isWhitespace(base)) {
+        gapsOrWhitespaceRemoved = true;
+      } else if (base == 'N') {
+        if (started) {
+          pendingN++;
+        } else {
+          endsTrimmed = true;
+        }
+      } else {
+        started = true;
+        flushN();
+        append(base);
+      }
+    }
+
+    private void flushN() {
+      if (pendingN > maxNRunLength) {
+        nRunsCapped++;
+        pendingN = maxNRunLength;
+      }
+      for (; pendingN > 0; pendingN--) {
+        append('N');
+      }
+    }
+
+    private void append(char base) {
+      sequence.append(base);
+      digest.accept(base);
+      switch (base) {
+        case 'A':
+          a++;
+          break;
+        case 'C':
+          c++;
+          break;
+        case 'G':
+          g++;
+          break;
+        case 'T':
+          t++;
+          break;
+        case 'N':
+          n++;
+          break;
+        default:
+          if (!isIupac(base)) {
+            nonIupac++;
+          }
+      }
+    }
+
+    private NucleotideSequence finish() {
+      if (pendingN > 0) {
+        endsTrimmed = true;
+      }
+
+      int length = sequence.length();
+      NucleotideSequence result = new NucleotideSequence();
+      result.setSequence(sequence.toString());
+      result.setNucleotideSequenceID(length > 0 ? digest.hex() : null);
+      result.setSequenceLength(length);
+      result.setGcContent(a + c + g + t > 0 ? (double) (g + c) / (a + c + g + t) : null);
+      result.setNonIupacFraction(fraction(nonIupac, length));
+      result.setNonACGTNFraction(fraction(length - a - c - g - t - n, length));
+      result.setnFraction(fraction(n, length));
+      result.setnRunsCapped(nRunsCapped);
+      result.setEndsTrimmed(endsTrimmed);
+      result.setGapsOrWhitespaceRemoved(gapsOrWhitespaceRemoved);
+      return result;
+    }
+
+    private Double fraction(int count, int length) {
+      return length > 0 ? (double) count / length : null;
+    }
+  }
+
+  /**
+   * MD5 digest of the IUPAC codes of a sequence, fed through a small buffer.
+   */
+  private static class IupacDigest {
+
+    private final MessageDigest md5;
+    private final byte[] buffer = new byte[256];
+    private int size;
+
+    private IupacDigest() {
+      try {
+        md5 = MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("MD5 is not available", e);
+      }
+    }
+
+    private void accept(char base) {
+      if (isIupac(base)) {
+        if (size == buffer.length) {
+          md5.update(buffer, 0, size);
+          size = 0;
+        }
+        buffer[size++] = (byte) base;
+      }
+    }
+
+    private String hex() {
+      md5.update(buffer, 0, size);
+      size = 0;
+      return Hex.encodeHexString(md5.digest());
+    }
+  }
+}
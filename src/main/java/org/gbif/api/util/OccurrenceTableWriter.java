@@ -0,0 +1,685 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.common.MediaObject;
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.dwc.terms.IucnTerm;
+import org.gbif.dwc.terms.Term;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static org.gbif.api.util.PreconditionUtils.checkArgument;
+
+/**
+ * Streams occurrences as delimited text, the rows of the
+ * {@link org.gbif.api.model.occurrence.DownloadFormat#SIMPLE_CSV} and similar tabular downloads.
+ * <p>
+ * The columns are bound once, when the writer is created: interpreted terms to the {@link Occurrence} getter holding
+ * their value and all other terms to the verbatim value. Rows are encoded as UTF-8 straight into a reused byte buffer,
+ * escaping values while they are copied, and the buffer is written out in chunks.
+ * <p>
+ * Values are written as:
+ * <ul>
+ *   <li>countries as ISO 2 letter codes and other enumerations by name</li>
+ *   <li>dates as ISO 8601 instants in UTC</li>
+ *   <li>collections, like issues or media types, joined by {@value #LIST_DELIMITER}</li>
+ * </ul>
+ * The output can be gzip compressed. Chunks are deflated independently with a sync flush, like pigz does, so
+ * {@link #writeAll(Iterator, int)} can encode and compress chunks in parallel and still produce a single gzip stream.
+ * Writers aren't thread safe.
+ */
+public class OccurrenceTableWriter implements Closeable {
+
+  /**
+   * The columns of the simple CSV download.
+   */
+  public static final List<Term> SIMPLE_CSV_TERMS =
+      Collections.unmodifiableList(
+          Arrays.asList(
+              GbifTerm.gbifID,
+              GbifTerm.datasetKey,
+              DwcTerm.occurrenceID,
+              DwcTerm.kingdom,
+              DwcTerm.phylum,
+              DwcTerm.class_,
+              DwcTerm.order,
+              DwcTerm.family,
+              DwcTerm.genus,
+              GbifTerm.species,
+              DwcTerm.infraspecificEpithet,
+              DwcTerm.taxonRank,
+              DwcTerm.scientificName,
+              GbifTerm.verbatimScientificName,
+              DwcTerm.scientificNameAuthorship,
+              DwcTerm.countryCode,
+              DwcTerm.locality,
+              DwcTerm.stateProvince,
+              DwcTerm.occurrenceStatus,
+              DwcTerm.individualCount,
+              GbifTerm.publishingOrgKey,
+              DwcTerm.decimalLatitude,
+              DwcTerm.decimalLongitude,
+              DwcTerm.coordinateUncertaintyInMeters,
+              DwcTerm.coordinatePrecision,
+              GbifTerm.elevation,
+              GbifTerm.elevationAccuracy,
+              GbifTerm.depth,
+              GbifTerm.depthAccuracy,
+              DwcTerm.eventDate,
+              DwcTerm.day,
+              DwcTerm.month,
+              DwcTerm.year,
+              GbifTerm.taxonKey,
+              GbifTerm.speciesKey,
+              DwcTerm.basisOfRecord,
+              DwcTerm.institutionCode,
+              DwcTerm.collectionCode,
+              DwcTerm.catalogNumber,
+              DwcTerm.recordNumber,
+              DwcTerm.identifiedBy,
+              DwcTerm.dateIdentified,
+              DcTerm.license,
+              DcTerm.rightsHolder,
+              DwcTerm.recordedBy,
+              DwcTerm.typeStatus,
+              DwcTerm.establishmentMeans,
+              GbifTerm.lastInterpreted,
+              GbifTerm.mediaType,
+              GbifTerm.issue));
+
+  public static final char LIST_DELIMITER = ';';
+
+  /**
+   * Size above which the encoded rows are written out.
+   */
+  private static final int CHUNK_SIZE = 256 * 1024;
+  private static final int CHUNK_ROWS = 2_000;
+
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private static final Map<Term, Function<Occurrence, Object>> INTERPRETED = new HashMap<>();
+
+  static {
+    INTERPRETED.put(GbifTerm.gbifID, Occurrence::getKey);
+    INTERPRETED.put(GbifTerm.datasetKey, Occurrence::getDatasetKey);
+    INTERPRETED.put(GbifTerm.publishingOrgKey, Occurrence::getPublishingOrgKey);
+    INTERPRETED.put(GbifTerm.publishingCountry, Occurrence::getPublishingCountry);
+    INTERPRETED.put(GbifTerm.protocol, Occurrence::getProtocol);
+    INTERPRETED.put(GbifTerm.lastCrawled, Occurrence::getLastCrawled);
+    INTERPRETED.put(GbifTerm.lastParsed, Occurrence::getLastParsed);
+    INTERPRETED.put(GbifTerm.lastInterpreted, Occurrence::getLastInterpreted);
+    INTERPRETED.put(GbifTerm.issue, Occurrence::getIssues);
+    INTERPRETED.put(GbifTerm.mediaType, OccurrenceTableWriter::mediaTypes);
+    INTERPRETED.put(DwcTerm.basisOfRecord, Occurrence::getBasisOfRecord);
+    INTERPRETED.put(DwcTerm.individualCount, Occurrence::getIndividualCount);
+    INTERPRETED.put(DwcTerm.occurrenceStatus, Occurrence::getOccurrenceStatus);
+    INTERPRETED.put(DwcTerm.sex, Occurrence::getSex);
+    INTERPRETED.put(DwcTerm.lifeStage, Occurrence::getLifeStage);
+    INTERPRETED.put(DwcTerm.establishmentMeans, Occurrence::getEstablishmentMeans);
+    INTERPRETED.put(DwcTerm.degreeOfEstablishment, Occurrence::getDegreeOfEstablishment);
+    INTERPRETED.put(DwcTerm.pathway, Occurrence::getPathway);
+    INTERPRETED.put(DwcTerm.recordedBy, Occurrence::getRecordedBy);
+    INTERPRETED.put(DwcTerm.identifiedBy, Occurrence::getIdentifiedBy);
+    INTERPRETED.put(DwcTerm.dateIdentified, Occurrence::getDateIdentified);
+    INTERPRETED.put(DwcTerm.typeStatus, Occurrence::getTypeStatus);
+    INTERPRETED.put(DwcTerm.preparations, Occurrence::getPreparations);
+    INTERPRETED.put(DwcTerm.samplingProtocol, Occurrence::getSamplingProtocol);
+    INTERPRETED.put(DwcTerm.otherCatalogNumbers, Occurrence::getOtherCatalogNumbers);
+    INTERPRETED.put(DwcTerm.datasetID, Occurrence::getDatasetID);
+    INTERPRETED.put(DwcTerm.datasetName, Occurrence::getDatasetName);
+    // taxonomy
+    INTERPRETED.put(GbifTerm.taxonKey, Occurrence::getTaxonKey);
+    INTERPRETED.put(GbifTerm.acceptedTaxonKey, Occurrence::getAcceptedTaxonKey);
+    INTERPRETED.put(GbifTerm.kingdomKey, Occurrence::getKingdomKey);
+    INTERPRETED.put(GbifTerm.phylumKey, Occurrence::getPhylumKey);
+    INTERPRETED.put(GbifTerm.classKey, Occurrence::getClassKey);
+    INTERPRETED.put(GbifTerm.orderKey, Occurrence::getOrderKey);
+    INTERPRETED.put(GbifTerm.familyKey, Occurrence::getFamilyKey);
+    INTERPRETED.put(GbifTerm.genusKey, Occurrence::getGenusKey);
+    INTERPRETED.put(GbifTerm.subgenusKey, Occurrence::getSubgenusKey);
+    INTERPRETED.put(GbifTerm.speciesKey, Occurrence::getSpeciesKey);
+    INTERPRETED.put(GbifTerm.species, Occurrence::getSpecies);
+    INTERPRETED.put(GbifTerm.acceptedScientificName, Occurrence::getAcceptedScientificName);
+    INTERPRETED.put(GbifTerm.verbatimScientificName, Occurrence::getVerbatimScientificName);
+    INTERPRETED.put(DwcTerm.kingdom, Occurrence::getKingdom);
+    INTERPRETED.put(DwcTerm.phylum, Occurrence::getPhylum);
+    INTERPRETED.put(DwcTerm.class_, Occurrence::getClazz);
+    INTERPRETED.put(DwcTerm.order, Occurrence::getOrder);
+    INTERPRETED.put(DwcTerm.family, Occurrence::getFamily);
+    INTERPRETED.put(DwcTerm.genus, Occurrence::getGenus);
+    INTERPRETED.put(DwcTerm.genericName, Occurrence::getGenericName);
+    INTERPRETED.put(DwcTerm.subgenus, Occurrence::getSubgenus);
+    INTERPRETED.put(DwcTerm.specificEpithet, Occurrence::getSpecificEpithet);
+    INTERPRETED.put(DwcTerm.infraspecificEpithet, Occurrence::getInfraspecificEpithet);
+    INTERPRETED.put(DwcTerm.taxonRank, Occurrence::getTaxonRank);
+    INTERPRETED.put(DwcTerm.taxonomicStatus, Occurrence::getTaxonomicStatus);
+    INTERPRETED.put(DwcTerm.scientificName, Occurrence::getScientificName);
+    INTERPRETED.put(DwcTerm.scientificNameAuthorship, Occurrence::getScientificNameAuthorship);
+    INTERPRETED.put(IucnTerm.iucnRedListCategory, Occurrence::getIucnRedListCategory);
+    // location
+    INTERPRETED.put(DwcTerm.decimalLatitude, Occurrence::getDecimalLatitude);
+    INTERPRETED.put(DwcTerm.decimalLongitude, Occurrence::getDecimalLongitude);
+    INTERPRETED.put(DwcTerm.coordinateUncertaintyInMeters, Occurrence::getCoordinateUncertaintyInMeters);
+    INTERPRETED.put(DwcTerm.coordinatePrecision, Occurrence::getCoordinatePrecision);
+    INTERPRETED.put(GbifTerm.coordinateAccuracy, Occurrence::getCoordinateAccuracy);
+    INTERPRETED.put(DwcTerm.geodeticDatum, Occurrence::getGeodeticDatum);
+    INTERPRETED.put(GbifTerm.elevation, Occurrence::getElevation);
+    INTERPRETED.put(GbifTerm.elevationAccuracy, Occurrence::getElevationAccuracy);
+    INTERPRETED.put(GbifTerm.depth, Occurrence::getDepth);
+    INTERPRETED.put(GbifTerm.depthAccuracy, Occurrence::getDepthAccuracy);
+    INTERPRETED.put(GbifTerm.distanceFromCentroidInMeters, Occurrence::getDistanceFromCentroidInMeters);
+    INTERPRETED.put(DwcTerm.continent, Occurrence::getContinent);
+    INTERPRETED.put(DwcTerm.countryCode, Occurrence::getCountry);
+    INTERPRETED.put(GbifTerm.gbifRegion, Occurrence::getGbifRegion);
+    INTERPRETED.put(GbifTerm.publishedByGbifRegion, Occurrence::getPublishedByGbifRegion);
+    INTERPRETED.put(DwcTerm.stateProvince, Occurrence::getStateProvince);
+    INTERPRETED.put(DwcTerm.waterBody, Occurrence::getWaterBody);
+    INTERPRETED.put(DwcTerm.higherGeography, Occurrence::getHigherGeography);
+    INTERPRETED.put(DwcTerm.georeferencedBy, Occurrence::getGeoreferencedBy);
+    // time
+    INTERPRETED.put(DwcTerm.year, Occurrence::getYear);
+    INTERPRETED.put(DwcTerm.month, Occurrence::getMonth);
+    INTERPRETED.put(DwcTerm.day, Occurrence::getDay);
+    INTERPRETED.put(DwcTerm.eventDate, Occurrence::getEventDate);
+    INTERPRETED.put(DwcTerm.startDayOfYear, Occurrence::getStartDayOfYear);
+    INTERPRETED.put(DwcTerm.endDayOfYear, Occurrence::getEndDayOfYear);
+    // record
+    INTERPRETED.put(DcTerm.modified, Occurrence::getModified);
+    INTERPRETED.put(DcTerm.references, Occurrence::getReferences);
+    INTERPRETED.put(DcTerm.license, Occurrence::getLicense);
+    INTERPRETED.put(DwcTerm.organismQuantity, Occurrence::getOrganismQuantity);
+    INTERPRETED.put(DwcTerm.organismQuantityType, Occurrence::getOrganismQuantityType);
+    INTERPRETED.put(DwcTerm.sampleSizeUnit, Occurrence::getSampleSizeUnit);
+    INTERPRETED.put(DwcTerm.sampleSizeValue, Occurrence::getSampleSizeValue);
+    INTERPRETED.put(GbifTerm.relativeOrganismQuantity, Occurrence::getRelativeOrganismQuantity);
+  }
+
+  /**
+   * How values are delimited and escaped.
+   */
+  public enum Format {
+
+    /**
+     * Tab separated values, with tabs and line breaks in values replaced by spaces.
+     */
+    TSV('\t'),
+
+    /**
+     * Comma separated values as in RFC 4180, values with commas, quotes or line breaks quoted.
+     */
+    CSV(',');
+
+    private final byte delimiter;
+
+    Format(char delimiter) {
+      this.delimiter = (byte) delimiter;
+    }
+  }
+
+  private final OutputStream out;
+  private final List<Term> terms;
+  private final Encoder encoder;
+  private final boolean gzip;
+  private final CRC32 crc = new CRC32();
+  private long size;
+  private boolean started;
+
+  /**
+   * Creates an uncompressed writer.
+   */
+  public OccurrenceTableWriter(OutputStream out, List<Term> terms, Format format) {
+    this(out, terms, format, false);
+  }
+
+  /**
+   * @param out stream to write to, closed by {@link #close()}
+   * @param terms the columns
+   * @param format how to delimit the values
+   * @param gzip true to gzip the output
+   */
+  public OccurrenceTableWriter(OutputStream out, List<Term> terms, Format format, boolean gzip) {
+    checkArgument(!terms.isEmpty(), "At least one column is required");
+    this.out = Objects.requireNonNull(out, "Output stream shall be provided");
+    this.terms = Collections.unmodifiableList(new ArrayList<>(terms));
+    this.encoder = new Encoder(columns(terms), Objects.requireNonNull(format, "Format shall be provided"));
+    this.gzip = gzip;
+  }
+
+  /**
+   * @return true if the term is read from an interpreted property of {@link Occurrence}, false if it's verbatim
+   */
+  public static boolean isInterpreted(Term term) {
+    return INTERPRETED.containsKey(term);
+  }
+
+  /**
+   * Writes the simple names of the terms as header row.
+   */
+  public void writeHeader() throws IOException {
+    encoder.header(terms);
+    flushIfFull();
+  }
+
+  /**
+   * Writes an occurrence row.
+   */
+  public void write(Occurrence occurrence) throws IOException {
+    encoder.row(occurrence);
+    flushIfFull();
+  }
+
+  /**
+   * Writes occurrence rows, encoding and compressing chunks of rows on several threads. The rows are written in the
+   * order of the occurrences.
+   *
+   * @param occurrences the occurrences to write
+   * @param threads number of threads encoding, 1 to encode on the calling thread
+   * @return the number of rows written
+   */
+  public long writeAll(Iterator<? extends Occurrence> occurrences, int threads) throws IOException {
+    checkArgument(threads > 0, "threads must be positive");
+    long rows = 0;
+    if (threads == 1) {
+      while (occurrences.hasNext()) {
+        write(occurrences.next());
+        rows++;
+      }
+      return rows;
+    }
+
+    flushBuffer();
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    try {
+      Deque<Future<Chunk>> pending = new ArrayDeque<>();
+      while (occurrences.hasNext()) {
+        List<Occurrence> batch = new ArrayList<>(CHUNK_ROWS);
+        while (batch.size() < CHUNK_ROWS && occurrences.hasNext()) {
+          batch.add(occurrences.next());
+        }
+        rows += batch.size();
+        pending.add(workers.submit(() -> encode(batch)));
+        if (pending.size() > 2 * threads) {
+          emit(await(pending.poll()));
+        }
+      }
+      while (!pending.isEmpty()) {
+        emit(await(pending.poll()));
+      }
+      return rows;
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes the buffered rows out. With gzip the rows are flushed, but the stream can only be read once closed.
+   */
+  public void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  /**
+   * Writes the buffered rows and the gzip trailer, and closes the stream.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+      if (gzip) {
+        start();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+          deflater.finish();
+          byte[] last = new byte[16];
+          int length = deflater.deflate(last);
+          out.write(last, 0, length);
+        } finally {
+          deflater.end();
+        }
+        writeIntLE((int) crc.getValue());
+        writeIntLE((int) size);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private void flushIfFull() throws IOException {
+    if (encoder.size >= CHUNK_SIZE) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (encoder.size > 0) {
+      emit(chunk(encoder.buffer, encoder.size));
+      encoder.size = 0;
+    }
+  }
+
+  /**
+   * Runs on a worker: encodes a batch of rows, deflated if needed.
+   */
+  private Chunk encode(List<Occurrence> batch) {
+    Encoder chunkEncoder = new Encoder(encoder.columns, encoder.format);
+    for (Occurrence occurrence : batch) {
+      chunkEncoder.row(occurrence);
+    }
+    return chunk(chunkEncoder.buffer, chunkEncoder.size);
+  }
+
+  private Chunk chunk(byte[] raw, int length) {
+    if (!gzip) {
+      return new Chunk(raw, length, raw, length);
+    }
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(raw, 0, length);
+      ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 4 + 64);
+      byte[] buffer = new byte[8192];
+      int written;
+      do {
+        written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+        deflated.write(buffer, 0, written);
+      } while (written == buffer.length);
+      byte[] bytes = deflated.toByteArray();
+      return new Chunk(raw, length, bytes, bytes.length);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void emit(Chunk chunk) throws IOException {
+    if (gzip) {
+      start();
+      crc.update(chunk.raw, 0, chunk.rawLength);
+      size += chunk.rawLength;
+    }
+    out.write(chunk.bytes, 0, chunk.length);
+  }
+
+  private void start() throws IOException {
+    if (!started) {
+      out.write(GZIP_HEADER);
+      started = true;
+    }
+  }
+
+  private void writeIntLE(int value) throws IOException {
+    out.write(value);
+    out.write(value >>> 8);
+    out.write(value >>> 16);
+    out.write(value >>> 24);
+  }
+
+  private static Chunk await(Future<Chunk> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted writing occurrences");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException("Failed to encode occurrences", e.getCause());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Function<Occurrence, Object>[] columns(List<Term> terms) {
+    Function<Occurrence, Object>[] columns = new Function[terms.size()];
+    for (int i = 0; i < columns.length; i++) {
+      Term term = Objects.requireNonNull(terms.get(i), "Terms can't be null");
+      Function<Occurrence, Object> interpreted = INTERPRETED.get(term);
+      columns[i] = interpreted != null ? interpreted : o -> o.getVerbatimField(term);
+    }
+    return columns;
+  }
+
+  private static Set<Object> mediaTypes(Occurrence occurrence) {
+    if (occurrence.getMedia() == null || occurrence.getMedia().isEmpty()) {
+      return null;
+    }
+    Set<Object> types = new LinkedHashSet<>();
+    for (MediaObject media : occurrence.getMedia()) {
+      if (media != null && media.getType() != null) {
+        types.add(media.getType());
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Encoded rows, deflated or not.
+   */
+  private static class Chunk {
+
+    private final byte[] raw;
+    private final int rawLength;
+    private final byte[] bytes;
+    private final int length;
+
+    private Chunk(byte[] raw, int rawLength, byte[] bytes, int length) {
+      this.raw = raw;
+      this.rawLength = rawLength;
+      this.bytes = bytes;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Encodes rows into a growing byte buffer.
+   */
+  private static class Encoder {
+
+    private final Function<Occurrence, Object>[] columns;
+    private final Format format;
+    private byte[] buffer = new byte[CHUNK_SIZE + 8192];
+    private int size;
+
+    private Encoder(Function<Occurrence, Object>[] columns, Format format) {
+      this.columns = columns;
+      this.format = format;
+    }
+
+    private void header(List<Term> terms) {
+      for (int i = 0; i < terms.size(); i++) {
+        if (i > 0) {
+          put(format.delimiter);
+        }
+        text(terms.get(i).simpleName());
+      }
+      put((byte) '\n');
+    }
+
+    private void row(Occurrence occurrence) {
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          put(format.delimiter);
+        }
+        value(columns[i].apply(occurrence));
+      }
+      put((byte) '\n');
+    }
+
+    private void value(Object value) {
+      if (value == null) {
+        return;
+      }
+      if (value instanceof String) {
+        text((String) value);
+      } else if (value instanceof Integer || value instanceof Long) {
+        number(((Number) value).longValue());
+      } else if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+        text(plain((Number) value));
+      } else if (value instanceof Country) {
+        text(((Country) value).getIso2LetterCode());
+      } else if (value instanceof Enum) {
+        text(((Enum<?>) value).name());
+      } else if (value instanceof Date) {
+        text(Instant.ofEpochMilli(((Date) value).getTime()).toString());
+      } else if (value instanceof Collection) {
+        StringBuilder joined = new StringBuilder();
+        for (Object element : (Collection<?>) value) {
+          if (joined.length() > 0) {
+            joined.append(LIST_DELIMITER);
+          }
+          if (element instanceof Enum) {
+            joined.append(((Enum<?>) element).name());
+          } else if (element instanceof Double || element instanceof Float || element instanceof BigDecimal) {
+            joined.append(plain((Number) element));
+          } else {
+            joined.append(element);
+          }
+        }
+        text(joined.toString());
+      } else {
+        text(value.toString());
+      }
+    }
+
+    /**
+     * @return the decimal number in plain notation, never in the scientific notation of Double.toString
+     */
+    private String plain(Number value) {
+      if (value instanceof BigDecimal) {
+        return ((BigDecimal) value).toPlainString();
+      }
+      // the shortest decimal form, as a float widened to a double has more digits
+      String text = value instanceof Float ? value.toString() : Double.toString(value.doubleValue());
+      if (text.indexOf('E') < 0) {
+        return text;
+      }
+      return new BigDecimal(text).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Writes the digits of a number without creating a string.
+     */
+    private void number(long value) {
+      if (value == Long.MIN_VALUE) {
+        text(Long.toString(value));
+        return;
+      }
+      if (value < 0) {
+        put((byte) '-');
+        value = -value;
+      }
+      int digits = 1;
+      for (long v = value; v >= 10; v /= 10) {
+        digits++;
+      }
+      ensure(digits);
+      for (int i = size + digits - 1; i >= size; i--) {
+        buffer[i] = (byte) ('0' + value % 10);
+        value /= 10;
+      }
+      size += digits;
+    }
+
+    /**
+     * Writes the UTF-8 bytes of a value, escaping it on the way.
+     */
+    private void text(String value) {
+      int start = size;
+      boolean quote = false;
+      ensure(value.length() * 3);
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          if (format == Format.TSV) {
+            buffer[size++] = c == '\t' || c == '\n' || c == '\r' ? (byte) ' ' : (byte) c;
+          } else {
+            if (c == '"') {
+              // fits, a quote takes 2 of the 3 bytes reserved per char
+              buffer[size++] = '"';
+            }
+            quote |= c == '"' || c == ',' || c == '\n' || c == '\r';
+            buffer[size++] = (byte) c;
+          }
+        } else if (c < 0x800) {
+          buffer[size++] = (byte) (0xC0 | c >> 6);
+          buffer[size++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < value.length()
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          int cp = Character.toCodePoint(c, value.charAt(++i));
+          buffer[size++] = (byte) (0xF0 | cp >> 18);
+          buffer[size++] = (byte) (0x80 | cp >> 12 & 0x3F);
+          buffer[size++] = (byte) (0x80 | cp >> 6 & 0x3F);
+          buffer[size++] = (byte) (0x80 | cp & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+          buffer[size++] = '?';
+        } else {
+          buffer[size++] = (byte) (0xE0 | c >> 12);
+          buffer[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+          buffer[size++] = (byte) (0x80 | c & 0x3F);
+        }
+      }
+      if (quote) {
+        // shift the escaped value to open the quotes in place
+        ensure(2);
+        System.arraycopy(buffer, start, buffer, start + 1, size - start);
+        buffer[start] = '"';
+        size++;
+        buffer[size++] = '"';
+      }
+    }
+
+    private void put(byte b) {
+      ensure(1);
+      buffer[size++] = b;
+    }
+
+    private void ensure(int bytes) {
+      if (size + bytes > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+      }
+    }
+  }
+}
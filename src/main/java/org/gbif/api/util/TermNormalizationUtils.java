@@ -1,5 +1,7 @@
 package org.gbif.api.util;
 
+import java.util.Locale;
+
 public class TermNormalizationUtils {
 
   /**
@@ -9,6 +11,40 @@ public class TermNormalizationUtils {
    * these extensions from ES(occurrence->DownloadDwcaActor).
    */
   public static String normalizeFieldName(String name) {
+    int start = 0;
+    int end = name.length();
+    while (start < end && name.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && name.charAt(end - 1) <= ' ') {
+      end--;
+    }
+
+    // single pass for ASCII names, unless the default locale lower cases ASCII letters differently
+    StringBuilder sb = new StringBuilder(end - start + 1);
+    boolean simpleLowerCase = !isTurkic(Locale.getDefault());
+    for (int i = start; i < end && simpleLowerCase; i++) {
+      char c = name.charAt(i);
+      if (c >= 0x80) {
+        simpleLowerCase = false;
+      } else if (c == ':') {
+        sb.append('_');
+      } else if (c >= 'A' && c <= 'Z') {
+        sb.append((char) (c + ('a' - 'A')));
+      } else if (c != '-' && c != '_') {
+        sb.append(c);
+      }
+    }
+    if (!simpleLowerCase || sb.length() == 0) {
+      return normalizeFieldNameSlowly(name);
+    }
+    if (sb.charAt(0) >= '0' && sb.charAt(0) <= '9') {
+      sb.insert(0, '_');
+    }
+    return sb.toString();
+  }
+
+  private static String normalizeFieldNameSlowly(String name) {
     String normalizedNamed = name.toLowerCase().trim()
       .replace("-", "")
       .replace("_", "")
@@ -18,4 +54,9 @@ public class TermNormalizationUtils {
     }
     return normalizedNamed;
   }
+
+  private static boolean isTurkic(Locale locale) {
+    String language = locale.getLanguage();
+    return "tr".equals(language) || "az".equals(language);
+  }
 }
@@ -17,27 +17,46 @@ package org.gbif.api.util;
 
 import java.text.Normalizer;
 
-import org.apache.commons.lang3.StringUtils;
-
 /**
  * Utilities dealing with unicode strings
+ * <p>
+ * The transliterations are table driven and done in a single pass, returning the input itself when nothing has to be
+ * replaced, e.g. for pure ASCII input.
  */
 public class UnicodeUtils {
 
+    private static final String[] LIGATURES = new String[0x250];
+    private static final String[] PRESENTATION_LIGATURES = new String[0x07];
+
+    static {
+        LIGATURES['æ'] = "ae";
+        LIGATURES['Æ'] = "Ae";
+        LIGATURES['œ'] = "oe";
+        LIGATURES['Œ'] = "Oe";
+        LIGATURES['Ĳ'] = "Ij";
+        LIGATURES['ĳ'] = "ij";
+        LIGATURES['ǈ'] = "Lj";
+        LIGATURES['ǉ'] = "lj";
+        LIGATURES['ȸ'] = "db";
+        LIGATURES['ȹ'] = "qp";
+        LIGATURES['ß'] = "ss";
+        PRESENTATION_LIGATURES['ﬆ' - 0xFB00] = "st";
+        PRESENTATION_LIGATURES['ﬅ' - 0xFB00] = "ft";
+        PRESENTATION_LIGATURES['ﬀ' - 0xFB00] = "ff";
+        PRESENTATION_LIGATURES['ﬁ' - 0xFB00] = "fi";
+        PRESENTATION_LIGATURES['ﬂ' - 0xFB00] = "fl";
+        PRESENTATION_LIGATURES['ﬃ' - 0xFB00] = "ffi";
+        PRESENTATION_LIGATURES['ﬄ' - 0xFB00] = "ffl";
+    }
+
+    // ascii replacement of each BMP character, filled when first needed
+    private static final String[] ASCII = new String[Character.MAX_VALUE + 1];
+
     /**
      * Replaces all diacretics with their ascii counterpart.
      */
     public static String ascii(String x) {
-        if (x == null) {
-            return null;
-        }
-        // manually normalize characters not dealt with by the java Normalizer
-        x = StringUtils.replaceChars(x, "øØðÐ", "oOdD");
-
-        // use java unicode normalizer to remove accents and punctuation
-        x = Normalizer.normalize(x, Normalizer.Form.NFD);
-        x = x.replaceAll("\\p{M}", "");
-        return x;
+        return transliterate(x, false, true);
     }
 
     /**
@@ -46,26 +65,108 @@ public class UnicodeUtils {
      * @param x the string to decompose
      */
     public static String decompose(String x) {
+        return transliterate(x, true, false);
+    }
+
+    /**
+     * Replaces digraphs and ligatures with their underlying latin letters and all diacretics with their ascii
+     * counterpart in a single pass, the same as {@code ascii(decompose(x))}.
+     */
+    public static String foldToAscii(String x) {
+        return transliterate(x, true, true);
+    }
+
+    private static String transliterate(String x, boolean decompose, boolean ascii) {
         if (x == null) {
             return null;
         }
-        return x.replaceAll("æ", "ae")
-                .replaceAll("Æ", "Ae")
-                .replaceAll("œ", "oe")
-                .replaceAll("Œ", "Oe")
-                .replaceAll("Ĳ", "Ij")
-                .replaceAll("ĳ", "ij")
-                .replaceAll("ǈ", "Lj")
-                .replaceAll("ǉ", "lj")
-                .replaceAll("ȸ", "db")
-                .replaceAll("ȹ", "qp")
-                .replaceAll("ß", "ss")
-                .replaceAll("ﬆ", "st")
-                .replaceAll("ﬅ", "ft")
-                .replaceAll("ﬀ", "ff")
-                .replaceAll("ﬁ", "fi")
-                .replaceAll("ﬂ", "fl")
-                .replaceAll("ﬃ", "ffi")
-                .replaceAll("ﬄ", "ffl");
+        StringBuilder sb = null;
+        int length = x.length();
+        for (int i = 0; i < length; ) {
+            char c = x.charAt(i);
+            if (c < 0x80) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                i++;
+                continue;
+            }
+
+            int cp = x.codePointAt(i);
+            int count = Character.charCount(cp);
+            String replacement = decompose ? ligature(cp) : null;
+            if (replacement == null && ascii) {
+                replacement = asciiOf(cp);
+            }
+            if (replacement != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(length + 8);
+                    sb.append(x, 0, i);
+                }
+                sb.append(replacement);
+            } else if (sb != null) {
+                sb.append(x, i, i + count);
+            }
+            i += count;
+        }
+        return sb == null ? x : sb.toString();
+    }
+
+    private static String ligature(int cp) {
+        if (cp < LIGATURES.length) {
+            return LIGATURES[cp];
+        }
+        if (cp >= 0xFB00 && cp < 0xFB00 + PRESENTATION_LIGATURES.length) {
+            return PRESENTATION_LIGATURES[cp - 0xFB00];
+        }
+        return null;
+    }
+
+    /**
+     * @return the ascii replacement of the code point or null if it stays as it is
+     */
+    private static String asciiOf(int cp) {
+        String replacement;
+        if (cp <= Character.MAX_VALUE) {
+            replacement = ASCII[cp];
+            if (replacement == null) {
+                // strings are immutable, so filling the table concurrently is harmless
+                replacement = computeAscii(cp);
+                ASCII[cp] = replacement;
+            }
+        } else {
+            replacement = computeAscii(cp);
+        }
+        return replacement.length() == Character.charCount(cp) && replacement.codePointAt(0) == cp ? null : replacement;
+    }
+
+    private static String computeAscii(int cp) {
+        // characters not dealt with by the java Normalizer
+        switch (cp) {
+            case 'ø':
+                return "o";
+            case 'Ø':
+                return "O";
+            case 'ð':
+                return "d";
+            case 'Ð':
+                return "D";
+            default:
+        }
+
+        // use java unicode normalizer to remove accents and punctuation
+        String decomposed = Normalizer.normalize(new String(Character.toChars(cp)), Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        decomposed.codePoints()
+            .filter(c -> !isMark(c))
+            .forEach(sb::appendCodePoint);
+        return sb.toString();
+    }
+
+    private static boolean isMark(int cp) {
+        int type = Character.getType(cp);
+        return type == Character.NON_SPACING_MARK
+            || type == Character.ENCLOSING_MARK
+            || type == Character.COMBINING_SPACING_MARK;
     }
 }
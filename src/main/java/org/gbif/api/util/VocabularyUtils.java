@@ -20,6 +20,9 @@ import org.gbif.api.vocabulary.EndpointType;
 import org.gbif.api.vocabulary.IdentifierType;
 import org.gbif.api.vocabulary.TechnicalInstallationType;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
@@ -30,6 +33,21 @@ public final class VocabularyUtils {
 
   private static final Logger LOG = LoggerFactory.getLogger(VocabularyUtils.class);
 
+  // enumeration members by normalized name, the first member wins if several have the same normalized name
+  private static final ClassValue<Map<String, Enum<?>>> NORMALIZED_NAMES = new ClassValue<Map<String, Enum<?>>>() {
+    @Override
+    protected Map<String, Enum<?>> computeValue(Class<?> type) {
+      Map<String, Enum<?>> names = new HashMap<>();
+      Object[] values = type.getEnumConstants();
+      if (values != null) {
+        for (Object val : values) {
+          names.putIfAbsent(normalizeEnumName(((Enum<?>) val).name()), (Enum<?>) val);
+        }
+      }
+      return names;
+    }
+  };
+
   public static ContactType parseContactType(String type) {
     return lookupEnum(type, ContactType.class);
   }
@@ -60,19 +78,32 @@ public final class VocabularyUtils {
     if (StringUtils.isEmpty(name)) {
       return null;
     }
-    final String normedType = name.toUpperCase().replaceAll("[. _-]", "");
-    T[] values = vocab.getEnumConstants();
-    if (values != null) {
-      for (T val : values) {
-        final String normedVal = val.name().toUpperCase().replaceAll("[. _-]", "");
-        if (normedType.equals(normedVal)) {
-          return val;
-        }
-      }
+    Enum<?> val = NORMALIZED_NAMES.get(vocab).get(normalizeEnumName(name));
+    if (val != null) {
+      return vocab.cast(val);
     }
     throw new IllegalArgumentException("Cannot parse " + name + " into a known " + vocab.getSimpleName());
   }
 
+  /**
+   * Upper cases the name and removes dots, spaces, underscores and dashes.
+   */
+  private static String normalizeEnumName(String name) {
+    String upper = name.toUpperCase(Locale.ROOT);
+    StringBuilder sb = null;
+    for (int i = 0; i < upper.length(); i++) {
+      char c = upper.charAt(i);
+      boolean separator = c == '.' || c == ' ' || c == '_' || c == '-';
+      if (separator && sb == null) {
+        sb = new StringBuilder(upper.length());
+        sb.append(upper, 0, i);
+      } else if (!separator && sb != null) {
+        sb.append(c);
+      }
+    }
+    return sb == null ? upper : sb.toString();
+  }
+
   /**
    * Same as {@link #lookupEnum(String, Class)} } without IllegalArgumentException.
    * On failure, this method will return Optional.empty().
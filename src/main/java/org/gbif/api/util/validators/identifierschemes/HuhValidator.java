@@ -14,41 +14,58 @@
 package org.gbif.api.util.validators.identifierschemes;
 
 import java.util.Objects;
-import java.util.regex.Pattern;
 
-public class HuhValidator implements IdentifierSchemeValidator {
-
-  private static final Pattern HUH_KIKI_PATTERN =
-      Pattern.compile(
-          "^(?<scheme>http(?:s)?:\\/\\/kiki.huh.harvard.edu\\/)(databases\\/rdfgen.php\\?uuid=)([0-9a-fA-F]{8}\\-[0-9a-fA-F]{4}\\-[0-9a-fA-F]{4}\\-[0-9a-fA-F]{4}\\-[0-9a-fA-F]{12})$");
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.digits;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.end;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.http;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.optional;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.uuid;
 
-  private static final Pattern HUH_KIKI_SEARCH_PATTERN =
-      Pattern.compile(
-          "^(?<scheme>http(?:s)?:\\/\\/kiki.huh.harvard.edu\\/)(databases\\/botanist_search.php\\?(mode=details&)?id=)([0-9]+)$");
+public class HuhValidator implements IdentifierSchemeValidator {
 
-  private static final Pattern HUH_PURL_PATTERN =
-      Pattern.compile(
-          "^(?<scheme>http(?:s)?:\\/\\/purl.oclc.org\\/)(net\\/edu.harvard.huh\\/guid\\/uuid\\/)([0-9a-fA-F]{8}\\-[0-9a-fA-F]{4}\\-[0-9a-fA-F]{4}\\-[0-9a-fA-F]{4}\\-[0-9a-fA-F]{12})$");
+  private static final String KIKI_HOST = "kiki.huh.harvard.edu/databases/";
+  private static final String KIKI_PATH = "rdfgen.php?uuid=";
+  private static final String KIKI_SEARCH_PATH = "botanist_search.php?";
+  private static final String PURL_PATH = "purl.oclc.org/net/edu.harvard.huh/guid/uuid/";
 
   @Override
   public boolean isValid(String value) {
     if (value == null || value.isEmpty()) {
       return false;
     }
-    return HUH_KIKI_PATTERN.matcher(value).matches()
-        || HUH_KIKI_SEARCH_PATTERN.matcher(value).matches()
-        || HUH_PURL_PATTERN.matcher(value).matches();
+    return matches(value);
   }
 
   @Override
   public String normalize(String value) {
     Objects.requireNonNull(value, "Identifier value can't be null");
     String trimmedValue = value.trim();
-    if (HUH_KIKI_PATTERN.matcher(trimmedValue).matches()
-        || HUH_KIKI_SEARCH_PATTERN.matcher(trimmedValue).matches()
-        || HUH_PURL_PATTERN.matcher(trimmedValue).matches()) {
+    if (matches(trimmedValue)) {
       return trimmedValue;
     }
     throw new IllegalArgumentException(value + " it not a valid HUH");
   }
+
+  /**
+   * Matches the kiki RDF and botanist search URLs and the PURL.
+   */
+  private static boolean matches(String value) {
+    int i = http(value, 0);
+    if (i < 0) {
+      return false;
+    }
+
+    int kiki = literal(value, i, KIKI_HOST);
+    if (kiki >= 0) {
+      int search = literal(value, kiki, KIKI_SEARCH_PATH);
+      if (search >= 0) {
+        search = literal(value, optional(value, search, "mode=details&"), "id=");
+        return end(value, digits(value, search, 1, Integer.MAX_VALUE));
+      }
+      return end(value, uuid(value, literal(value, kiki, KIKI_PATH)));
+    }
+
+    return end(value, uuid(value, literal(value, i, PURL_PATH)));
+  }
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util.validators.identifierschemes;
+
+/**
+ * Helpers for the validators to scan identifiers in place, without regular expressions or intermediate strings.
+ * <p>
+ * Methods take the position to scan from and return the position after what they matched, or -1 if it didn't match.
+ * A -1 position is propagated, so calls can be chained.
+ */
+final class IdentifierScanner {
+
+  private IdentifierScanner() {
+    // NOP
+  }
+
+  /**
+   * Matches {@code http://} or {@code https://}.
+   */
+  static int http(String value, int from) {
+    if (from < 0 || !value.startsWith("http", from)) {
+      return -1;
+    }
+    int i = from + 4;
+    if (i < value.length() && value.charAt(i) == 's') {
+      i++;
+    }
+    return value.startsWith("://", i) ? i + 3 : -1;
+  }
+
+  /**
+   * Matches a literal.
+   */
+  static int literal(String value, int from, String literal) {
+    return from >= 0 && value.startsWith(literal, from) ? from + literal.length() : -1;
+  }
+
+  /**
+   * Matches a literal if present.
+   *
+   * @return the position after the literal or {@code from} if it isn't there
+   */
+  static int optional(String value, int from, String literal) {
+    int i = literal(value, from, literal);
+    return i >= 0 ? i : from;
+  }
+
+  /**
+   * Matches a char.
+   */
+  static int character(String value, int from, char c) {
+    return from >= 0 && from < value.length() && value.charAt(from) == c ? from + 1 : -1;
+  }
+
+  /**
+   * Matches between min and max ASCII digits, as many as possible.
+   */
+  static int digits(String value, int from, int min, int max) {
+    if (from < 0) {
+      return -1;
+    }
+    int i = from;
+    while (i < value.length() && i - from < max && isDigit(value.charAt(i))) {
+      i++;
+    }
+    return i - from >= min ? i : -1;
+  }
+
+  /**
+   * Matches one or more word chars, i.e. ASCII letters, digits and underscores.
+   */
+  static int word(String value, int from) {
+    if (from < 0) {
+      return -1;
+    }
+    int i = from;
+    while (i < value.length() && isWordChar(value.charAt(i))) {
+      i++;
+    }
+    return i > from ? i : -1;
+  }
+
+  /**
+   * Matches a UUID in its 8-4-4-4-12 hexadecimal form.
+   */
+  static int uuid(String value, int from) {
+    if (from < 0 || value.length() - from < 36) {
+      return -1;
+    }
+    for (int i = 0; i < 36; i++) {
+      char c = value.charAt(from + i);
+      boolean valid = i == 8 || i == 13 || i == 18 || i == 23 ? c == '-' : isHexDigit(c);
+      if (!valid) {
+        return -1;
+      }
+    }
+    return from + 36;
+  }
+
+  /**
+   * @return true if the position is the end of the value
+   */
+  static boolean end(String value, int position) {
+    return position == value.length();
+  }
+
+  static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  static boolean isUpperCaseLetter(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  static boolean isLetter(char c) {
+    return isUpperCaseLetter(c) || (c >= 'a' && c <= 'z');
+  }
+
+  static boolean isWordChar(char c) {
+    return isLetter(c) || isDigit(c) || c == '_';
+  }
+
+  static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  /**
+   * Whitespace as matched by {@code \s} in a regular expression.
+   */
+  static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Line terminators, not matched by {@code .} in a regular expression.
+   */
+  static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
@@ -13,23 +13,67 @@
  */
 package org.gbif.api.util.validators.identifierschemes;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public enum IdentifierScheme {
-  ORCID("https://orcid.org"),
-  WIKIDATA("https://www.wikidata.org"),
-  ISNI("http://www.isni.org"),
-  VIAF("https://viaf.org"),
-  HUH("https://kiki.huh.harvard.edu"),
-  RESEARCHER_ID("http://www.researcherid.com"),
-  IH_IRN("http://sweetgum.nybg.org"),
-  OTHER("");
+  ORCID("https://orcid.org", new OrcidValidator()),
+  WIKIDATA("https://www.wikidata.org", new WikidataValidator()),
+  ISNI("http://www.isni.org", new IsniValidator()),
+  VIAF("https://viaf.org", new ViafValidator()),
+  HUH("https://kiki.huh.harvard.edu", new HuhValidator()),
+  RESEARCHER_ID("http://www.researcherid.com", new ResearcherIdValidator()),
+  IH_IRN("http://sweetgum.nybg.org", new IhIrnValidator()),
+  OTHER("", new OtherValidator());
 
   private String schemeURI;
+  private final IdentifierSchemeValidator validator;
 
-  IdentifierScheme(String schemeURI) {
+  IdentifierScheme(String schemeURI, IdentifierSchemeValidator validator) {
     this.schemeURI = schemeURI;
+    this.validator = validator;
   }
 
   public String getSchemeURI() {
     return schemeURI;
   }
+
+  /**
+   * @return the validator of the identifiers of this scheme
+   */
+  public IdentifierSchemeValidator getValidator() {
+    return validator;
+  }
+
+  /**
+   * Validates many identifiers of this scheme, e.g. the identifiers of the contacts of an import.
+   *
+   * @return for each value, in the same order, whether it's valid
+   */
+  public boolean[] validateAll(List<String> values) {
+    boolean[] valid = new boolean[values.size()];
+    int i = 0;
+    for (String value : values) {
+      valid[i++] = validator.isValid(value);
+    }
+    return valid;
+  }
+
+  /**
+   * Normalizes many identifiers of this scheme, e.g. the identifiers of the contacts of an import.
+   *
+   * @return for each value, in the same order, the normalized value or null if the value isn't valid
+   */
+  public List<String> normalizeAll(List<String> values) {
+    List<String> normalized = new ArrayList<>(values.size());
+    for (String value : values) {
+      normalized.add(normalizeOrNull(value));
+    }
+    return normalized;
+  }
+
+  private String normalizeOrNull(String value) {
+    // the validators normalize the trimmed value, so it avoids the exceptions of the invalid ones
+    return value != null && validator.isValid(value.trim()) ? validator.normalize(value) : null;
+  }
 }
@@ -14,31 +14,44 @@
 package org.gbif.api.util.validators.identifierschemes;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.digits;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.end;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.optional;
 
 public class IhIrnValidator implements IdentifierSchemeValidator {
 
-  private static final Pattern IH_IRN_PATTERN =
-      Pattern.compile("^(?<prefix>http:\\/\\/sweetgum.nybg.org\\/science\\/ih\\/person-details(\\/)?\\?irn=)?([0-9]+)$");
+  private static final String PREFIX = "http://sweetgum.nybg.org/science/ih/person-details";
 
   @Override
   public boolean isValid(String value) {
     if (value == null || value.isEmpty()) {
       return false;
     }
-    Matcher matcher = IH_IRN_PATTERN.matcher(value);
-    return matcher.matches();
+    return matches(value);
   }
 
   @Override
   public String normalize(String value) {
     Objects.requireNonNull(value, "Identifier value can't be null");
     String trimmedValue = value.trim();
-    Matcher matcher = IH_IRN_PATTERN.matcher(trimmedValue);
-    if (matcher.matches()) {
+    if (matches(trimmedValue)) {
       return trimmedValue;
     }
     throw new IllegalArgumentException(value + " it not a valid IH IRN");
   }
+
+  /**
+   * Matches an IRN, optionally as a person details URL.
+   */
+  private static boolean matches(String value) {
+    int i = literal(value, 0, PREFIX);
+    if (i >= 0) {
+      i = literal(value, optional(value, i, "/"), "?irn=");
+    } else {
+      i = 0;
+    }
+    return end(value, digits(value, i, 1, Integer.MAX_VALUE));
+  }
 }
@@ -14,15 +14,17 @@
 package org.gbif.api.util.validators.identifierschemes;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.http;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.isDigit;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.isWhitespace;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
 
 /** Validator for ISNI numbers. */
 public class IsniValidator implements IdentifierSchemeValidator {
 
-  private static final Pattern ISNI_PATTERN =
-      Pattern.compile(
-          "^(?<prefix>http(?:s)?:\\/\\/isni.org\\/isni\\/)?([\\p{Digit}xX\\p{Pd}\\s]{16,24})$");
+  private static final int MIN_LENGTH = 16;
+  private static final int MAX_LENGTH = 24;
 
   @Override
   public boolean isValid(String value) {
@@ -30,15 +32,27 @@ public class IsniValidator implements IdentifierSchemeValidator {
       return false;
     }
 
-    Matcher matcher = ISNI_PATTERN.matcher(value);
-    if (!matcher.matches()) {
-      return false;
+    int start = literal(value, http(value, 0), "isni.org/isni/");
+    if (start < 0) {
+      start = 0;
     }
 
-    String prefixGroup = matcher.group("prefix");
-    String isniNumber = prefixGroup == null ? value : value.substring(prefixGroup.length());
+    int length = value.length() - start;
+    if (length < MIN_LENGTH || length > MAX_LENGTH) {
+      return false;
+    }
+    for (int i = start; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (!isDigit(c)
+          && c != 'x'
+          && c != 'X'
+          && !isWhitespace(c)
+          && Character.getType(c) != Character.DASH_PUNCTUATION) {
+        return false;
+      }
+    }
 
-    return Mod112.hasValidChecksumDigit(isniNumber);
+    return Mod112.hasValidChecksumDigit(value, start, value.length());
   }
 
   @Override
@@ -13,15 +13,11 @@
  */
 package org.gbif.api.util.validators.identifierschemes;
 
-import java.util.regex.Pattern;
-
 /**
  * Util class that generates a validates Mod11,2 checksums.
  */
 public abstract class Mod112 {
 
-  private static final Pattern NORMALIZE_PATTERN = Pattern.compile("-|\\s+");
-
   /**
    * Private constructor.
    */
@@ -33,9 +29,27 @@ public abstract class Mod112 {
    * Validates that value contains an valid checksum digit according to ISO 7064 11,2.
    */
   static boolean hasValidChecksumDigit(String value) {
-    String normalized = NORMALIZE_PATTERN.matcher(value).replaceAll("");
-    return normalized.charAt(normalized.length() - 1) ==
-           generateChecksumDigit(normalized.substring(0, normalized.length() - 1));
+    return hasValidChecksumDigit(value, 0, value.length());
+  }
+
+  /**
+   * Validates that the chars between from and to contain an valid checksum digit according to ISO 7064 11,2.
+   * Hyphens and whitespaces are ignored, and the checksum is computed in a single pass without copying the value.
+   */
+  static boolean hasValidChecksumDigit(CharSequence value, int from, int to) {
+    int total = 0;
+    char last = 0;
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      if (c == '-' || IdentifierScanner.isWhitespace(c)) {
+        continue;
+      }
+      if (last != 0) {
+        total = (total + Character.getNumericValue(last)) << 1;
+      }
+      last = c;
+    }
+    return last != 0 && last == checksumDigit(total);
   }
 
   /**
@@ -48,6 +62,10 @@ public abstract class Mod112 {
       int digit = Character.getNumericValue(baseDigits.charAt(i));
       total = (total + digit) << 1;
     }
+    return checksumDigit(total);
+  }
+
+  private static char checksumDigit(int total) {
     int remainder = total % 11;
     int result = (12 - remainder) % 11;
     return result == 10 ? 'X' : Character.forDigit(result, 10);
@@ -56,7 +74,14 @@ public abstract class Mod112 {
   public abstract boolean isValid(String value);
 
   public String normalize(String value) {
-    return NORMALIZE_PATTERN.matcher(value).replaceAll("");
+    StringBuilder normalized = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c != '-' && !IdentifierScanner.isWhitespace(c)) {
+        normalized.append(c);
+      }
+    }
+    return normalized.toString();
   }
 
 }
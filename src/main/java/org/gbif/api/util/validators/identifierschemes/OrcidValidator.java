@@ -14,42 +14,65 @@
 package org.gbif.api.util.validators.identifierschemes;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.http;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.isDigit;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
 
 /**
  *  Validator for Orcid identifiers.
  */
 public class OrcidValidator implements IdentifierSchemeValidator {
 
-  private static final Pattern ORCID_PATTERN = Pattern.compile("^(?<scheme>http(?:s)?:\\/\\/orcid.org\\/)?(([0-9]{4}-){3}([0-9]{3}[0-9X]{1}))$");
+  private static final int ORCID_LENGTH = 19;
 
   @Override
   public boolean isValid(String value) {
     if (value == null || value.isEmpty()) {
       return false;
     }
-    Matcher matcher = ORCID_PATTERN.matcher(value);
-    return matcher.matches() && Mod112.hasValidChecksumDigit(withoutScheme(matcher, value));
+    int start = orcidStart(value);
+    return start >= 0 && Mod112.hasValidChecksumDigit(value, start, value.length());
   }
 
   @Override
   public String normalize(String value) {
     Objects.requireNonNull(value, "Identifier value can't be null");
     String trimmedValue = value.trim();
-    Matcher matcher = ORCID_PATTERN.matcher(trimmedValue);
-    if (matcher.matches()) {
-      return IdentifierScheme.ORCID.getSchemeURI() + '/' + withoutScheme(matcher, trimmedValue);
+    int start = orcidStart(trimmedValue);
+    if (start >= 0) {
+      return IdentifierScheme.ORCID.getSchemeURI() + '/' + trimmedValue.substring(start);
     }
     throw new IllegalArgumentException(value + " it not a valid Orcid");
   }
 
   /**
-   * This
+   * Finds where the ORCID starts, after the optional scheme.
+   *
+   * @return the position of the ORCID or -1 if the value isn't in the ORCID format
    */
-  private static String withoutScheme(Matcher matcher, String value) {
-    String schemeGroup = matcher.group("scheme");
-    return schemeGroup == null ? value : value.substring(schemeGroup.length());
+  private static int orcidStart(String value) {
+    int start = literal(value, http(value, 0), "orcid.org/");
+    if (start < 0) {
+      start = 0;
+    }
+    if (value.length() - start != ORCID_LENGTH) {
+      return -1;
+    }
+    for (int i = 0; i < ORCID_LENGTH; i++) {
+      char c = value.charAt(start + i);
+      boolean valid;
+      if (i % 5 == 4) {
+        valid = c == '-';
+      } else if (i == ORCID_LENGTH - 1) {
+        valid = isDigit(c) || c == 'X';
+      } else {
+        valid = isDigit(c);
+      }
+      if (!valid) {
+        return -1;
+      }
+    }
+    return start;
   }
-
 }
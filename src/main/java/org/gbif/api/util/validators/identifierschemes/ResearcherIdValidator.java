@@ -16,32 +16,123 @@ package org.gbif.api.util.validators.identifierschemes;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.character;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.digits;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.end;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.http;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.isLetter;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.isLineTerminator;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.isUpperCaseLetter;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.optional;
+
 public class ResearcherIdValidator implements IdentifierSchemeValidator {
 
+  /**
+   * Format of the ResearcherIDs, on its own or at the end of a URL. Kept for clients, the validator doesn't use it.
+   */
   public static final Pattern FORMAT_PATTERN =
       Pattern.compile(
           "^(?<prefix>http(?:s)?:\\/\\/(?:www.)?.+)?([A-Z]{1,3}-\\d{4}-(19|20)\\d\\d)$");
 
-  private static final Pattern PUBLONS_PATTERN =
-      Pattern.compile(
-          "^(?<prefix>http(?:s)?:\\/\\/(?:www.)?publons.com\\/researcher\\/)?(([A-Z]{1,3}-\\d{4}-(19|20)\\d\\d)|([0-9]+\\/[a-zA-Z\\-\\_]+\\/?))$");
+  // shortest ResearcherID, e.g. A-1234-2010
+  private static final int MIN_ID_LENGTH = 11;
 
   @Override
   public boolean isValid(String value) {
     if (value == null || value.isEmpty()) {
       return false;
     }
-    return FORMAT_PATTERN.matcher(value).matches() || PUBLONS_PATTERN.matcher(value).matches();
+    return matches(value);
   }
 
   @Override
   public String normalize(String value) {
     Objects.requireNonNull(value, "Identifier value can't be null");
     String trimmedValue = value.trim();
-    if (FORMAT_PATTERN.matcher(trimmedValue).matches()
-        || PUBLONS_PATTERN.matcher(trimmedValue).matches()) {
+    if (matches(trimmedValue)) {
       return trimmedValue;
     }
     throw new IllegalArgumentException(value + " it not a valid ResearcherID");
   }
+
+  private static boolean matches(String value) {
+    return matchesFormat(value) || matchesPublons(value);
+  }
+
+  /**
+   * Matches a ResearcherID, on its own or at the end of any http URL.
+   */
+  private static boolean matchesFormat(String value) {
+    if (end(value, researcherId(value, 0))) {
+      return true;
+    }
+
+    // the URL can end with the letters of the ID, so it's enough to check the ID with a single letter
+    int idStart = value.length() - MIN_ID_LENGTH;
+    int urlEnd = http(value, 0);
+    if (urlEnd < 0 || urlEnd >= idStart || !end(value, researcherId(value, idStart))) {
+      return false;
+    }
+    for (int i = urlEnd; i < idStart; i++) {
+      if (isLineTerminator(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Matches a ResearcherID or a Publons ID, optionally as a Publons researcher URL.
+   */
+  private static boolean matchesPublons(String value) {
+    int i = http(value, 0);
+    if (i >= 0) {
+      i = literal(value, optional(value, i, "www."), "publons.com/researcher/");
+    } else {
+      i = 0;
+    }
+    if (i < 0) {
+      return false;
+    }
+    if (end(value, researcherId(value, i))) {
+      return true;
+    }
+
+    // Publons ID, e.g. 1234/john-doe/
+    i = character(value, digits(value, i, 1, Integer.MAX_VALUE), '/');
+    if (i < 0) {
+      return false;
+    }
+    int nameStart = i;
+    while (i < value.length() && isPublonsNameChar(value.charAt(i))) {
+      i++;
+    }
+    if (i == nameStart) {
+      return false;
+    }
+    return end(value, i) || (i == value.length() - 1 && value.charAt(i) == '/');
+  }
+
+  /**
+   * Matches the {@code [A-Z]{1,3}-dddd-(19|20)dd} ResearcherID format.
+   */
+  private static int researcherId(String value, int from) {
+    int i = from;
+    while (i < value.length() && i - from < 3 && isUpperCaseLetter(value.charAt(i))) {
+      i++;
+    }
+    if (i == from) {
+      return -1;
+    }
+    i = character(value, digits(value, character(value, i, '-'), 4, 4), '-');
+    if (literal(value, i, "19") < 0 && literal(value, i, "20") < 0) {
+      return -1;
+    }
+    return digits(value, i + 2, 2, 2);
+  }
+
+  private static boolean isPublonsNameChar(char c) {
+    return isLetter(c) || c == '-' || c == '_';
+  }
 }
@@ -14,31 +14,59 @@
 package org.gbif.api.util.validators.identifierschemes;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.digits;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.end;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.http;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.word;
 
 public class ViafValidator implements IdentifierSchemeValidator {
 
-  private static final Pattern VIAF_PATTERN =
-      Pattern.compile("^((?<scheme>http(?:s)?:\\/\\/viaf.org\\/)(?:\\w+\\/)+)?([0-9]{1,22})$");
+  private static final int MAX_DIGITS = 22;
 
   @Override
   public boolean isValid(String value) {
     if (value == null || value.isEmpty()) {
       return false;
     }
-    Matcher matcher = VIAF_PATTERN.matcher(value);
-    return matcher.matches();
+    return matches(value);
   }
 
   @Override
   public String normalize(String value) {
     Objects.requireNonNull(value, "Identifier value can't be null");
     String trimmedValue = value.trim();
-    Matcher matcher = VIAF_PATTERN.matcher(trimmedValue);
-    if (matcher.matches()) {
+    if (matches(trimmedValue)) {
       return trimmedValue;
     }
     throw new IllegalArgumentException(value + " it not a valid VIAF");
   }
+
+  /**
+   * Matches a VIAF number, or a VIAF URL with one or more path segments before the number.
+   */
+  private static boolean matches(String value) {
+    int i = literal(value, http(value, 0), "viaf.org/");
+    if (i < 0) {
+      return end(value, digits(value, 0, 1, MAX_DIGITS));
+    }
+
+    int segments = 0;
+    while (true) {
+      int segmentEnd = word(value, i);
+      if (segmentEnd < 0) {
+        return false;
+      }
+      if (end(value, segmentEnd)) {
+        // the last segment is the number
+        return segments > 0 && end(value, digits(value, i, 1, MAX_DIGITS));
+      }
+      if (value.charAt(segmentEnd) != '/') {
+        return false;
+      }
+      segments++;
+      i = segmentEnd + 1;
+    }
+  }
 }
@@ -14,31 +14,46 @@
 package org.gbif.api.util.validators.identifierschemes;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-public class WikidataValidator implements IdentifierSchemeValidator {
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.character;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.end;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.http;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.literal;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.optional;
+import static org.gbif.api.util.validators.identifierschemes.IdentifierScanner.word;
 
-  private static final Pattern WIKIDATA_PATTERN =
-      Pattern.compile("^(?<scheme>(http(?:s)?://)?(www\\.))?(wikidata\\.org/\\w+/\\w+(?::\\w+)?)$");
+public class WikidataValidator implements IdentifierSchemeValidator {
 
   @Override
   public boolean isValid(String value) {
     if (value == null || value.isEmpty()) {
       return false;
     }
-    Matcher matcher = WIKIDATA_PATTERN.matcher(value);
-    return matcher.matches();
+    return matches(value);
   }
 
   @Override
   public String normalize(String value) {
     Objects.requireNonNull(value, "Identifier value can't be null");
     String trimmedValue = value.trim();
-    Matcher matcher = WIKIDATA_PATTERN.matcher(trimmedValue);
-    if (matcher.matches()) {
+    if (matches(trimmedValue)) {
       return trimmedValue;
     }
     throw new IllegalArgumentException(value + " it not a valid Wikidata");
   }
+
+  /**
+   * Matches {@code [[http[s]://]www.]wikidata.org/<word>/<word>[:<word>]}.
+   */
+  private static boolean matches(String value) {
+    int i = http(value, 0);
+    // the scheme is only allowed before www.
+    i = i >= 0 ? literal(value, i, "www.") : optional(value, 0, "www.");
+    i = literal(value, i, "wikidata.org/");
+    i = word(value, character(value, word(value, i), '/'));
+    if (i >= 0 && i < value.length() && value.charAt(i) == ':') {
+      i = word(value, i + 1);
+    }
+    return end(value, i);
+  }
 }
@@ -79,6 +79,18 @@ public class IsoDateIntervalDeserTest {
     test(Year.of(2009), Year.of(2010), "2009/2010");
   }
 
+  @Test
+  public void testSameAsFromString() throws Exception {
+    for (String text : new String[] {"2023-02-30", "0999-01-01", "2023-01-01T23:59", "2023-01-01T10:11:12.1",
+      "2023-01-01/2023-12-31", "2023-01-01T10:11/2023-01-01T10:12", "/2023"}) {
+      IsoDateInterval expected = IsoDateInterval.fromString(text);
+      IsoDateInterval actual =
+        MAPPER.readValue("{\"isoDateInterval\":\"" + text + "\"}", DateRangeWrapper.class).isoDateInterval;
+      assertEquals(expected.getFrom(), actual.getFrom(), text);
+      assertEquals(expected.getTo(), actual.getTo(), text);
+    }
+  }
+
   private void test(Temporal from, Temporal to, String expectedJson) throws IOException {
     IsoDateInterval isoDateInterval = new IsoDateInterval(from, to);
     DateRangeWrapper drw = new DateRangeWrapper(isoDateInterval);
@@ -0,0 +1,280 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.jackson;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the serdes using {@link IsoDateTimeCodec} write and read the same as the java.time and java.text formats.
+ */
+public class IsoDateTimeCodecTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final DateTimeFormatter OFFSET_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX");
+
+  // 1500 to 2200
+  private static final long MIN_SECOND = -14_831_769_600L;
+  private static final long MAX_SECOND = 7_258_118_400L;
+
+  @Test
+  public void testDatesConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        long seed = t;
+        futures.add(executor.submit(() -> {
+          checkRandomValues(new Random(seed), 20_000);
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        // rethrows assertion failures
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testEdgeCases() throws IOException {
+    assertDate(new Date(-12_219_292_800_000L - 1));
+    assertDate(new Date(-12_219_292_800_000L));
+    assertDate(new Date(253_402_300_800_000L - 1));
+    assertDate(new Date(253_402_300_800_000L));
+    assertDate(new Date(-1));
+    assertEquals("2024-02-29T00:00:00Z", readDate("2024-02-29T00:00:00").toInstant().toString());
+    // left to Instant.parse
+    assertEquals("2023-01-02T00:00:00Z", readDate("2023-01-01T24:00:00").toInstant().toString());
+
+    assertLocalDateTime(LocalDateTime.of(2023, 8, 29, 10, 11));
+    assertLocalDateTime(LocalDateTime.of(2023, 8, 29, 10, 11, 0, 1));
+    assertLocalDateTime(LocalDateTime.of(2023, 8, 29, 10, 11, 12, 130_000_000));
+    assertLocalDateTime(LocalDateTime.of(2023, 8, 29, 10, 11, 12, 130_100_000));
+    assertLocalDateTime(LocalDateTime.of(999, 1, 1, 0, 0));
+    assertLocalDateTime(LocalDateTime.of(12345, 1, 1, 0, 0));
+    assertLocalDateTime(LocalDateTime.of(-1, 1, 1, 0, 0));
+    assertEquals(LocalDateTime.of(2023, 8, 29, 10, 11, 12, 100_000_000), readLocalDateTime("2023-08-29T10:11:12.1"));
+    assertEquals(LocalDateTime.of(2023, 8, 29, 10, 11, 12), readLocalDateTime("2023-08-29t10:11:12"));
+
+    assertOffsetDateTime(OffsetDateTime.of(2023, 8, 29, 10, 11, 12, 0, ZoneOffset.UTC));
+    assertOffsetDateTime(OffsetDateTime.of(2023, 8, 29, 10, 11, 12, 0, ZoneOffset.ofHoursMinutes(-9, -30)));
+    assertOffsetDateTime(OffsetDateTime.of(2023, 8, 29, 10, 11, 12, 0, ZoneOffset.ofHoursMinutesSeconds(1, 2, 3)));
+    assertOffsetDateTime(OffsetDateTime.of(2023, 8, 29, 10, 11, 12, 0, ZoneOffset.ofHours(18)));
+    assertEquals(OffsetDateTime.of(2023, 8, 29, 10, 11, 12, 0, ZoneOffset.UTC),
+      readOffsetDateTime("2023-08-29 10:11:12+00:00"));
+  }
+
+  @Test
+  public void testInvalidValues() {
+    assertThrows(JsonMappingException.class, () -> readDate("2023-02-29T10:11:12"));
+    assertThrows(JsonMappingException.class, () -> readLocalDateTime("2023-13-01T10:11:12"));
+    assertThrows(JsonMappingException.class, () -> readOffsetDateTime("2023-01-01 10:11:12+18:30"));
+  }
+
+  /**
+   * Formats and parses dates on 4 threads with the codec and with the previous implementation, a shared
+   * {@link SimpleDateFormat} that has to be locked and {@code Instant.parse(text + "Z")}. Only run with the benchmark
+   * profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() throws Exception {
+    int threads = 4;
+    int count = 1_000_000;
+    Random random = new Random(17);
+    long[] millis = new long[count];
+    String[] texts = new String[count];
+    SimpleDateFormat sharedFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    sharedFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    for (int i = 0; i < count; i++) {
+      millis[i] = 946_684_800_000L + (long) (random.nextDouble() * 946_684_800_000L);
+      texts[i] = sharedFormat.format(new Date(millis[i]));
+    }
+
+    for (int run = 0; run < 2; run++) {
+      long formatLocked = time(threads, count, i -> {
+        synchronized (sharedFormat) {
+          return sharedFormat.format(new Date(millis[i])).length();
+        }
+      });
+      long formatCodec = time(threads, count, i -> {
+        char[] buf = new char[19];
+        return IsoDateTimeCodec.writeUtcDateTime(millis[i], buf, 0);
+      });
+      long parseInstant = time(threads, count, i -> Date.from(Instant.parse(texts[i] + "Z")).getTime() > 0 ? 1 : 0);
+      long parseCodec = time(threads, count, i -> {
+        char[] buf = texts[i].toCharArray();
+        return IsoDateTimeCodec.parseUtcDateTime(buf, 0, buf.length) > 0 ? 1 : 0;
+      });
+      System.out.printf(
+          "%,d dates on %d threads: format %,d ms locked SimpleDateFormat, %,d ms codec; "
+              + "parse %,d ms Instant.parse, %,d ms codec%n",
+          count,
+          threads,
+          formatLocked,
+          formatCodec,
+          parseInstant,
+          parseCodec);
+    }
+  }
+
+  /**
+   * @return the milliseconds taken to run the task for each index, the indexes being split between the threads
+   */
+  private static long time(int threads, int count, IntUnaryOperator task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      long start = System.nanoTime();
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int from = count * t / threads;
+        int to = count * (t + 1) / threads;
+        futures.add(executor.submit(() -> {
+          long sum = 0;
+          for (int i = from; i < to; i++) {
+            sum += task.applyAsInt(i);
+          }
+          return sum;
+        }));
+      }
+      long sum = 0;
+      for (Future<Long> future : futures) {
+        sum += future.get();
+      }
+      assertTrue(sum > 0);
+      return (System.nanoTime() - start) / 1_000_000;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void checkRandomValues(Random random, int count) throws IOException {
+    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    for (int i = 0; i < count; i++) {
+      long second = MIN_SECOND + (long) (random.nextDouble() * (MAX_SECOND - MIN_SECOND));
+      Date date = new Date(second * 1000 + random.nextInt(1000));
+      String json = MAPPER.writeValueAsString(new DateSerdeWrapper(date));
+      assertEquals("{\"value\":\"" + dateFormat.format(date) + "\"}", json);
+      if (second * 1000 >= -12_219_292_800_000L) {
+        assertEquals(second * 1000, MAPPER.readValue(json, DateSerdeWrapper.class).value.getTime());
+      }
+
+      int nano = random.nextBoolean() ? 0 : random.nextInt(1_000_000_000);
+      assertLocalDateTime(LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC));
+
+      ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(36) - 18) * 1800);
+      assertOffsetDateTime(OffsetDateTime.ofInstant(Instant.ofEpochSecond(second), offset));
+    }
+  }
+
+  private static void assertDate(Date date) throws IOException {
+    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    assertEquals("{\"value\":\"" + dateFormat.format(date) + "\"}",
+      MAPPER.writeValueAsString(new DateSerdeWrapper(date)));
+  }
+
+  private static void assertLocalDateTime(LocalDateTime value) throws IOException {
+    String json = MAPPER.writeValueAsString(new LocalDateTimeWrapper(value));
+    assertEquals("{\"value\":\"" + value + "\"}", json);
+    assertEquals(value, MAPPER.readValue(json, LocalDateTimeWrapper.class).value);
+  }
+
+  private static void assertOffsetDateTime(OffsetDateTime value) throws IOException {
+    String json = MAPPER.writeValueAsString(new OffsetDateTimeWrapper(value));
+    String expected = value.format(OFFSET_FORMATTER);
+    assertEquals("{\"value\":\"" + expected + "\"}", json);
+    assertEquals(OffsetDateTime.parse(expected, OFFSET_FORMATTER),
+      MAPPER.readValue(json, OffsetDateTimeWrapper.class).value);
+  }
+
+  private static Date readDate(String text) throws IOException {
+    return MAPPER.readValue("{\"value\":\"" + text + "\"}", DateSerdeWrapper.class).value;
+  }
+
+  private static LocalDateTime readLocalDateTime(String text) throws IOException {
+    return MAPPER.readValue("{\"value\":\"" + text + "\"}", LocalDateTimeWrapper.class).value;
+  }
+
+  private static OffsetDateTime readOffsetDateTime(String text) throws IOException {
+    return MAPPER.readValue("{\"value\":\"" + text + "\"}", OffsetDateTimeWrapper.class).value;
+  }
+
+  public static class DateSerdeWrapper {
+    @JsonSerialize(using = DateSerde.NoTimezoneDateJsonSerializer.class)
+    @JsonDeserialize(using = DateSerde.FlexibleDateJsonDeserializer.class)
+    public Date value;
+
+    public DateSerdeWrapper() {}
+
+    public DateSerdeWrapper(Date value) {
+      this.value = value;
+    }
+  }
+
+  public static class LocalDateTimeWrapper {
+    @JsonSerialize(using = LocalDateTimeSerDe.LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeSerDe.LocalDateTimeDeserializer.class)
+    public LocalDateTime value;
+
+    public LocalDateTimeWrapper() {}
+
+    public LocalDateTimeWrapper(LocalDateTime value) {
+      this.value = value;
+    }
+  }
+
+  public static class OffsetDateTimeWrapper {
+    @JsonSerialize(using = OffsetDateTimeSerDe.OffsetDateTimeSerializer.class)
+    @JsonDeserialize(using = OffsetDateTimeSerDe.OffsetDateTimeDeserializer.class)
+    public OffsetDateTime value;
+
+    public OffsetDateTimeWrapper() {}
+
+    public OffsetDateTimeWrapper(OffsetDateTime value) {
+      this.value = value;
+    }
+  }
+}
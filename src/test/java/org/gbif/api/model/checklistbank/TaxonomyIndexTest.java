@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.checklistbank;
+
+import org.gbif.api.vocabulary.TaxonomicStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaxonomyIndexTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void testTaxonomy() {
+    assertTaxonomy(TaxonomyIndex.of(usages()));
+  }
+
+  @Test
+  public void testMapped() throws Exception {
+    Path file = tempDir.resolve("taxonomy.idx");
+    TaxonomyIndex.of(usages()).write(file);
+    assertTaxonomy(TaxonomyIndex.map(file));
+    assertTaxonomy(TaxonomyIndex.wrap(ByteBuffer.wrap(Files.readAllBytes(file))));
+
+    byte[] truncated = Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 4);
+    assertThrows(IllegalArgumentException.class, () -> TaxonomyIndex.wrap(ByteBuffer.wrap(truncated)));
+    assertThrows(IllegalArgumentException.class, () -> TaxonomyIndex.wrap(ByteBuffer.allocate(64)));
+  }
+
+  @Test
+  public void testInvalid() {
+    assertThrows(
+        IllegalArgumentException.class, () -> TaxonomyIndex.builder().add(1, null, null).add(1, 2, null).build());
+    assertThrows(IllegalArgumentException.class, () -> TaxonomyIndex.builder().add(1, 1, null).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TaxonomyIndex.builder().add(3, null, null).add(1, 2, null).add(2, 1, null).build());
+    assertThrows(IllegalArgumentException.class, () -> TaxonomyIndex.of(Arrays.asList(new NameUsage())));
+
+    TaxonomyIndex empty = TaxonomyIndex.builder().build();
+    assertEquals(0, empty.size());
+    assertFalse(empty.contains(1));
+  }
+
+  @Test
+  public void testGeneratedTaxonomy() throws Exception {
+    int size = 10_000;
+    Path file = tempDir.resolve("generated.idx");
+    generate(size, new Random(42)).write(file);
+    assertGenerated(TaxonomyIndex.map(file), size);
+  }
+
+  /**
+   * Loads and queries a taxonomy of the size of the backbone, printing the rates.
+   * Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testLargeTaxonomy() throws Exception {
+    int size = 2_000_000;
+    Random random = new Random(42);
+    long start = System.nanoTime();
+    TaxonomyIndex built = generate(size, random);
+    long buildEnd = System.nanoTime();
+
+    Path file = tempDir.resolve("large.idx");
+    built.write(file);
+    long writeEnd = System.nanoTime();
+    TaxonomyIndex index = TaxonomyIndex.map(file);
+    long mapEnd = System.nanoTime();
+
+    int queries = 5_000_000;
+    int within = 0;
+    for (int i = 0; i < queries; i++) {
+      if (index.isWithin(1 + random.nextInt(size), 1 + random.nextInt(size))) {
+        within++;
+      }
+    }
+    long queryEnd = System.nanoTime();
+    System.out.printf(
+        "Built %d usages in %d ms, wrote %d MB in %d ms, mapped in %d ms, %.1f M isWithin/s (%d within)%n",
+        size,
+        (buildEnd - start) / 1_000_000,
+        Files.size(file) >> 20,
+        (writeEnd - buildEnd) / 1_000_000,
+        (mapEnd - writeEnd) / 1_000_000,
+        queries * 1e3 / (queryEnd - mapEnd),
+        within);
+
+    assertGenerated(index, size);
+  }
+
+  /**
+   * A taxonomy with parents among the previous usages, closer ones more likely, and a synonym every 5 usages.
+   */
+  private static TaxonomyIndex generate(int size, Random random) {
+    TaxonomyIndex.Builder builder = TaxonomyIndex.builder();
+    for (int key = 1; key <= size; key++) {
+      Integer parent = key == 1 ? null : key - 1 - (int) (Math.abs(random.nextGaussian()) * 1000) % (key - 1);
+      builder.add(key, parent, key % 5 == 0 && key > 1 ? Integer.valueOf(key - 1) : null);
+    }
+    return builder.build();
+  }
+
+  private static void assertGenerated(TaxonomyIndex index, int size) {
+    assertEquals(size, index.size());
+    // all accepted usages descend from the first one
+    assertEquals(size - size / 5 - 1, index.countDescendants(1));
+    assertTrue(index.isWithin(size, 1));
+    assertEquals(Integer.valueOf(size - 1), index.getAcceptedKey(size));
+  }
+
+  /**
+   * A small taxonomy, in no particular order:
+   * 1 - 2 - 3 - 5 - 6 - 7, 2 - 4, synonym 10 of 6, synonym 11 without accepted usage, roots 20 and 21.
+   */
+  private static List<NameUsage> usages() {
+    return Arrays.asList(
+        usage(7, 6, null, TaxonomicStatus.ACCEPTED),
+        usage(1, null, null, TaxonomicStatus.ACCEPTED),
+        usage(5, 3, null, TaxonomicStatus.ACCEPTED),
+        usage(2, 1, null, TaxonomicStatus.ACCEPTED),
+        usage(3, 2, null, TaxonomicStatus.ACCEPTED),
+        usage(10, 5, 6, TaxonomicStatus.SYNONYM),
+        usage(4, 2, null, TaxonomicStatus.DOUBTFUL),
+        usage(6, 5, 6, TaxonomicStatus.ACCEPTED),
+        usage(11, 5, null, TaxonomicStatus.HETEROTYPIC_SYNONYM),
+        usage(20, null, null, TaxonomicStatus.ACCEPTED),
+        // unknown parent
+        usage(21, 99, null, TaxonomicStatus.ACCEPTED));
+  }
+
+  private static void assertTaxonomy(TaxonomyIndex index) {
+    assertEquals(11, index.size());
+    assertTrue(index.contains(11));
+    assertFalse(index.contains(99));
+
+    assertTrue(index.isWithin(7, 5));
+    assertTrue(index.isWithin(5, 5));
+    assertTrue(index.isWithin(10, 5));
+    assertTrue(index.isWithin(7, 10));
+    assertFalse(index.isWithin(5, 7));
+    assertFalse(index.isWithin(4, 3));
+    assertFalse(index.isWithin(11, 1));
+    assertFalse(index.isWithin(99, 1));
+    assertFalse(index.isWithin(21, 1));
+
+    assertEquals(6, index.countDescendants(1));
+    assertArrayEquals(new int[] {2, 3, 5, 6, 7, 4}, index.getDescendantKeys(1));
+    assertArrayEquals(new int[] {7}, index.getDescendantKeys(10));
+    assertArrayEquals(new int[0], index.getDescendantKeys(11));
+    assertArrayEquals(new int[] {3, 4}, index.getChildKeys(2));
+    assertArrayEquals(new int[0], index.getChildKeys(7));
+
+    assertEquals(Integer.valueOf(6), index.getAcceptedKey(10));
+    assertEquals(Integer.valueOf(6), index.getAcceptedKey(6));
+    assertNull(index.getAcceptedKey(11));
+    assertEquals(Integer.valueOf(5), index.getParentKey(10));
+    assertNull(index.getParentKey(1));
+    assertNull(index.getParentKey(21));
+
+    assertEquals(Integer.valueOf(2), index.getLowestCommonAncestor(7, 4));
+    assertEquals(Integer.valueOf(5), index.getLowestCommonAncestor(10, 5));
+    assertEquals(Integer.valueOf(6), index.getLowestCommonAncestor(7, 10));
+    assertNull(index.getLowestCommonAncestor(7, 20));
+    assertNull(index.getLowestCommonAncestor(7, 11));
+  }
+
+  private static NameUsage usage(int key, Integer parentKey, Integer acceptedKey, TaxonomicStatus status) {
+    NameUsage usage = new NameUsage();
+    usage.setKey(key);
+    usage.setParentKey(parentKey);
+    usage.setAcceptedKey(acceptedKey);
+    usage.setTaxonomicStatus(status);
+    return usage;
+  }
+}
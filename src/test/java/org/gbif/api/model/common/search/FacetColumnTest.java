@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.common.search;
+
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FacetColumnTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final Comparator<Facet.Count> FACET_ORDER =
+      Comparator.comparing(Facet.Count::getCount, Comparator.reverseOrder())
+          .thenComparing(Facet.Count::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  @Test
+  public void testSortAndTop() {
+    Random random = new Random(42);
+    List<Facet.Count> counts = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      counts.add(new Facet.Count(i == 7 ? null : String.valueOf(random.nextInt(100_000)), (long) random.nextInt(50)));
+    }
+    List<Facet.Count> sorted = new ArrayList<>(counts);
+    sorted.sort(FACET_ORDER);
+
+    assertEquals(sorted, FacetColumn.of(counts).sort().asCounts());
+    assertEquals(sorted.subList(0, 100), FacetColumn.of(counts).top(100).asCounts());
+    assertEquals(sorted, FacetColumn.of(counts).top(10_000).asCounts());
+    assertEquals(0, FacetColumn.of(counts).top(0).size());
+    assertEquals(0, new FacetColumn(0).sort().size());
+  }
+
+  @Test
+  public void testMerge() {
+    FacetColumn shard1 = new FacetColumn().add("DK", 5).add("SE", 3).add(null, 1);
+    FacetColumn shard2 = new FacetColumn(1).add("SE", 4).add("NO", 2).add(null, 1);
+
+    FacetColumn merged = FacetColumn.merge(Arrays.asList(shard1, shard2, new FacetColumn(0)));
+    assertEquals(new FacetColumn().add("DK", 5).add("SE", 7).add(null, 2).add("NO", 2), merged);
+    assertEquals(16, merged.total());
+    assertEquals(new FacetColumn().add("SE", 7).add("DK", 5).add(null, 2), merged.sort().top(3));
+    assertEquals(0, FacetColumn.merge(new ArrayList<>()).size());
+  }
+
+  @Test
+  public void testJson() throws Exception {
+    List<Facet.Count> counts =
+        Arrays.asList(new Facet.Count("Abies \"alba\"", 10L), new Facet.Count("Pinus", 3L), new Facet.Count(null, 1L));
+    FacetColumn column = FacetColumn.of(counts);
+
+    // same JSON as the facet with a list of counts
+    Facet<OccurrenceSearchParameter> facet = new Facet<>(OccurrenceSearchParameter.SCIENTIFIC_NAME, counts);
+    Facet<OccurrenceSearchParameter> columnFacet = new Facet<>(OccurrenceSearchParameter.SCIENTIFIC_NAME, column);
+    String json = MAPPER.writeValueAsString(facet);
+    assertEquals(json, MAPPER.writeValueAsString(columnFacet));
+    assertEquals(MAPPER.writeValueAsString(counts), MAPPER.writeValueAsString(column.asCounts()));
+    assertEquals(facet, columnFacet);
+
+    Facet<OccurrenceSearchParameter> read =
+        MAPPER.readValue(json, new TypeReference<Facet<OccurrenceSearchParameter>>() {});
+    assertEquals(counts, read.getCounts());
+
+    Map<String, Object> nulls = new LinkedHashMap<>();
+    nulls.put("field", null);
+    nulls.put("counts", null);
+    assertEquals(MAPPER.writeValueAsString(nulls), MAPPER.writeValueAsString(new Facet<OccurrenceSearchParameter>()));
+  }
+
+  @Test
+  public void testBounds() {
+    FacetColumn column = new FacetColumn(0).add("a", 1);
+    assertEquals("a", column.getName(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> column.getCount(1));
+    assertThrows(UnsupportedOperationException.class, () -> column.asCounts().add(new Facet.Count("b", 2L)));
+    assertThrows(IllegalArgumentException.class, () -> column.top(-1));
+  }
+}
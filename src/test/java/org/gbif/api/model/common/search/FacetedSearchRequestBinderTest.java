@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.common.search;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+
+import java.lang.reflect.Field;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FacetedSearchRequestBinderTest {
+
+  /**
+   * A search of the portal with many filters.
+   */
+  private static final String PORTAL_QUERY =
+      "?q=abies&country=DK&country=SE&taxon_key=2685484&year=1990,2020&month=5&basis_of_record=HUMAN_OBSERVATION"
+          + "&basis_of_record=PRESERVED_SPECIMEN&has_coordinate=true&has_geospatial_issue=false"
+          + "&occurrence_status=present&dataset_key=50c9509d-22c7-4a22-a47d-8c48425ef4a7&publishing_country=DK"
+          + "&media_type=StillImage&license=CC_BY_4_0&recorded_by=Tim+Robertson&recorded_by=Ren%C3%A9e%20Smith"
+          + "&institution_code=NHMD&catalog_number=C-1&coordinate_uncertainty_in_meters=0,1000&elevation=0,2000"
+          + "&decimal_latitude=54,58&decimal_longitude=8,13&gadm_gid=DNK.1_1&protocol=DWC_ARCHIVE&continent=EUROPE"
+          + "&event_date=2000-01-01,2020-12-31&locale=en&facet=basis_of_record&facet=country&facetLimit=5"
+          + "&country.facetLimit=20&country.facetOffset=10&dataset_key.facetLimit=3&facetMultiselect=true"
+          + "&limit=50&offset=100&hl=true";
+
+  @Test
+  public void testPortalQuery() {
+    OccurrenceSearchRequest request = FacetedSearchRequestBinder.occurrence().bindQueryString(PORTAL_QUERY);
+
+    assertEquals("abies", request.getQ());
+    assertEquals(50, request.getLimit());
+    assertEquals(100, request.getOffset());
+    assertTrue(request.isHighlight());
+    assertTrue(request.isFacetMultiSelect());
+    assertEquals(Integer.valueOf(5), request.getFacetLimit());
+    assertEquals(
+        new HashSet<>(Arrays.asList(OccurrenceSearchParameter.BASIS_OF_RECORD, OccurrenceSearchParameter.COUNTRY)),
+        request.getFacets());
+    // the paging of the dataset key facet is ignored as it is not requested
+    assertEquals(
+        Collections.singletonMap(OccurrenceSearchParameter.COUNTRY, new PagingRequest(10, 20)),
+        request.getFacetPages());
+
+    assertEquals(23, request.getParameters().size());
+    assertEquals(
+        new HashSet<>(Arrays.asList("Tim Robertson", "Renée Smith")),
+        request.getParameters().get(OccurrenceSearchParameter.RECORDED_BY));
+    assertEquals(
+        Collections.singleton("2000-01-01,2020-12-31"),
+        request.getParameters().get(OccurrenceSearchParameter.EVENT_DATE));
+
+    // the same request built by hand
+    OccurrenceSearchRequest expected = new OccurrenceSearchRequest();
+    for (String pair : PORTAL_QUERY.substring(1).replace("+", " ").replace("%C3%A9", "é").split("&")) {
+      String[] nameAndValue = pair.split("=");
+      OccurrenceSearchParameter.lookup(nameAndValue[0])
+          .ifPresent(parameter -> expected.addParameter(parameter, nameAndValue[1].replace("%20", " ")));
+    }
+    assertEquals(expected.getParameters(), request.getParameters());
+  }
+
+  /**
+   * Binds the portal query with the binder and the way requests were bound before it: splitting and decoding the query
+   * string with the JDK and looking the parameters up with the reflective scan OccurrenceSearchParameter used. Only
+   * run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() throws Exception {
+    FacetedSearchRequestBinder<OccurrenceSearchParameter, OccurrenceSearchRequest> binder =
+        FacetedSearchRequestBinder.occurrence();
+    assertEquals(
+        binder.bindQueryString(PORTAL_QUERY).getParameters(), bindReflectively(PORTAL_QUERY).getParameters());
+
+    int count = 100_000;
+    for (int run = 0; run < 2; run++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        binder.bindQueryString(PORTAL_QUERY);
+      }
+      long binding = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < count / 10; i++) {
+        bindReflectively(PORTAL_QUERY);
+      }
+      long reflective = (System.nanoTime() - start) * 10;
+
+      System.out.printf(
+          "portal query with %d filters: %,d ns binding, %,d ns with the reflective lookup%n",
+          binder.bindQueryString(PORTAL_QUERY).getParameters().size(),
+          binding / count,
+          reflective / count);
+    }
+  }
+
+  @Test
+  public void testMultiMap() {
+    Map<String, List<String>> parameters = new HashMap<>();
+    parameters.put("TAXON_KEY", Arrays.asList("1", "2", "1"));
+    parameters.put("taxonKey", Collections.singletonList("3"));
+    parameters.put("facet", Collections.singletonList("taxonKey"));
+    parameters.put("taxonKey.facetOffset", Collections.singletonList("40"));
+    parameters.put("facetLimit", Collections.singletonList("15"));
+    parameters.put("facetMinCount", Collections.singletonList("2"));
+    parameters.put("geometry", Collections.singletonList(""));
+    parameters.put("unknown", Collections.singletonList("ignored"));
+
+    OccurrenceSearchRequest request = FacetedSearchRequestBinder.occurrence().bind(parameters);
+    assertEquals(
+        new HashSet<>(Arrays.asList("1", "2", "3")), request.getParameters().get(OccurrenceSearchParameter.TAXON_KEY));
+    assertEquals(1, request.getParameters().size());
+    assertEquals(Integer.valueOf(2), request.getFacetMinCount());
+    assertEquals(new PagingRequest(40, 15), request.getFacetPage(OccurrenceSearchParameter.TAXON_KEY));
+    assertFalse(request.isHighlight());
+    assertNull(request.getQ());
+  }
+
+  @Test
+  public void testErrors() {
+    FacetedSearchRequestBinder.BindingException e =
+        assertThrows(
+            FacetedSearchRequestBinder.BindingException.class,
+            () ->
+                FacetedSearchRequestBinder.occurrence()
+                    .bindQueryString(
+                        "month=13&dataset_key=abc&country=DK&limit=-1&hl=yes&facet=nothing&year=2000&q=%E"));
+    assertEquals(
+        Arrays.asList(
+            "Invalid value 13 for parameter MONTH",
+            "Invalid value abc for parameter DATASET_KEY",
+            "Invalid value -1 for parameter limit, expected a non negative integer",
+            "Invalid value yes for parameter hl, expected true or false",
+            "Unknown facet nothing",
+            "Malformed query parameter q=%E"),
+        e.getErrors());
+  }
+
+  @Test
+  public void testEmpty() {
+    OccurrenceSearchRequest request = FacetedSearchRequestBinder.occurrence().bindQueryString("");
+    assertTrue(request.getParameters().isEmpty());
+    assertEquals(20, request.getLimit());
+    assertTrue(FacetedSearchRequestBinder.occurrence().bindQueryString(null).getFacets().isEmpty());
+    assertTrue(FacetedSearchRequestBinder.occurrence().bindQueryString("?&&=&a").getParameters().isEmpty());
+  }
+
+  /**
+   * Binds the filters of a query string as done before the binder, with the lookup OccurrenceSearchParameter had.
+   */
+  private static OccurrenceSearchRequest bindReflectively(String query) throws Exception {
+    OccurrenceSearchRequest request = new OccurrenceSearchRequest();
+    for (String pair : query.substring(1).split("&")) {
+      int separator = pair.indexOf('=');
+      String name = URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8.name());
+      String value = URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8.name());
+
+      String normedName = name.toUpperCase().replaceAll("[. _-]", "");
+      for (Field field : OccurrenceSearchParameter.class.getFields()) {
+        if (normedName.equals(field.getName().replaceAll("[. _-]", ""))) {
+          request.addParameter((OccurrenceSearchParameter) field.get(OccurrenceSearchParameter.class), value);
+          break;
+        }
+      }
+    }
+    return request;
+  }
+}
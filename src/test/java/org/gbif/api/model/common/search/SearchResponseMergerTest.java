@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.common.search;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchResponseMergerTest {
+
+  private static final OccurrenceSearchParameter COUNTRY = OccurrenceSearchParameter.COUNTRY;
+  private static final OccurrenceSearchParameter YEAR = OccurrenceSearchParameter.YEAR;
+
+  @Test
+  public void testShardRequest() {
+    OccurrenceSearchRequest request = new OccurrenceSearchRequest(new PagingRequest(40, 20));
+    request.addParameter(COUNTRY, "DK");
+    request.setQ("abies");
+    request.addFacets(COUNTRY, YEAR);
+    request.setFacetMinCount(5);
+    request.setFacetOffset(10);
+    request.addFacetPage(YEAR, 100, 50);
+
+    OccurrenceSearchRequest shardRequest = SearchResponseMerger.shardRequest(request, OccurrenceSearchRequest::new);
+    assertEquals(request.getParameters(), shardRequest.getParameters());
+    assertEquals("abies", shardRequest.getQ());
+    assertEquals(0, shardRequest.getOffset());
+    assertEquals(60, shardRequest.getLimit());
+    assertEquals(request.getFacets(), shardRequest.getFacets());
+    assertEquals(Integer.valueOf(1), shardRequest.getFacetMinCount());
+    assertEquals(Integer.valueOf(0), shardRequest.getFacetOffset());
+    assertEquals(Integer.valueOf(SearchResponseMerger.shardFacetLimit(10, 10)), shardRequest.getFacetLimit());
+    assertEquals(new PagingRequest(0, SearchResponseMerger.shardFacetLimit(100, 50)), shardRequest.getFacetPage(YEAR));
+
+    // the request is copied
+    shardRequest.addParameter(COUNTRY, "SE");
+    assertEquals(Collections.singleton("DK"), request.getParameters().get(COUNTRY));
+  }
+
+  @Test
+  public void testHits() {
+    OccurrenceSearchRequest request = new OccurrenceSearchRequest(new PagingRequest(2, 4));
+    List<SearchResponse<Integer, OccurrenceSearchParameter>> shards =
+        Arrays.asList(response(10L, 1, 4, 5, 9), response(3L, 2, 3), response(null), response(7L, 6, 7, 8));
+
+    SearchResponse<Integer, OccurrenceSearchParameter> merged =
+        SearchResponseMerger.merge(request, shards, Comparator.naturalOrder()).getResponse();
+    assertEquals(Arrays.asList(3, 4, 5, 6), merged.getResults());
+    assertEquals(Long.valueOf(20), merged.getCount());
+    assertEquals(2, merged.getOffset());
+    assertEquals(4, merged.getLimit());
+    assertFalse(merged.isEndOfRecords());
+
+    // without an order the shards are interleaved
+    assertEquals(
+        Arrays.asList(6, 4, 3, 7), SearchResponseMerger.merge(request, shards, null).getResponse().getResults());
+
+    assertNull(
+        SearchResponseMerger.merge(request, Collections.singletonList(response(null)), null).getResponse().getCount());
+  }
+
+  @Test
+  public void testFacets() {
+    OccurrenceSearchRequest request = new OccurrenceSearchRequest();
+    request.addFacets(COUNTRY, YEAR);
+    request.setFacetMinCount(3);
+    request.setFacetLimit(2);
+    request.addFacetPage(YEAR, 1, 1);
+
+    SearchResponse<Integer, OccurrenceSearchParameter> shard1 = response(0L);
+    shard1.setFacets(
+        Arrays.asList(
+            new Facet<>(COUNTRY, counts("DK", 5, "SE", 2, "NO", 1)), new Facet<>(YEAR, counts("2000", 4))));
+    SearchResponse<Integer, OccurrenceSearchParameter> shard2 = response(0L);
+    shard2.setFacets(
+        Collections.singletonList(new Facet<>(COUNTRY, counts("SE", 2, "NO", 2, "FI", 2, "DK", 1))));
+    SearchResponse<Integer, OccurrenceSearchParameter> shard3 = response(0L);
+    shard3.setFacets(Collections.singletonList(new Facet<>(YEAR, counts("2001", 6, "2000", 1))));
+
+    SearchResponseMerger.Merged<Integer, OccurrenceSearchParameter> merged =
+        SearchResponseMerger.merge(request, Arrays.asList(shard1, shard2, shard3), null);
+    // FI is under the min count
+    assertEquals(
+        Arrays.asList(new Facet<>(COUNTRY, counts("DK", 6, "SE", 4)), new Facet<>(YEAR, counts("2000", 5))),
+        merged.getResponse().getFacets());
+    assertTrue(merged.isExact());
+    assertEquals(0, merged.getFacetErrorBound(COUNTRY));
+  }
+
+  @Test
+  public void testTruncatedFacets() {
+    OccurrenceSearchRequest request = new OccurrenceSearchRequest();
+    request.addFacets(COUNTRY);
+    request.setFacetLimit(1);
+    // the shards return as many categories as asked
+    int shardLimit = SearchResponseMerger.shardFacetLimit(0, 1);
+
+    SearchResponse<Integer, OccurrenceSearchParameter> shard1 = response(0L);
+    shard1.setFacets(Collections.singletonList(new Facet<>(COUNTRY, truncated("A", 100, shardLimit))));
+    SearchResponse<Integer, OccurrenceSearchParameter> shard2 = response(0L);
+    shard2.setFacets(Collections.singletonList(new Facet<>(COUNTRY, truncated("B", 50, shardLimit))));
+    SearchResponse<Integer, OccurrenceSearchParameter> shard3 = response(0L);
+    shard3.setFacets(Collections.singletonList(new Facet<>(COUNTRY, counts("A0", 3))));
+
+    SearchResponseMerger.Merged<Integer, OccurrenceSearchParameter> merged =
+        SearchResponseMerger.merge(request, Arrays.asList(shard1, shard2, shard3), null);
+    assertEquals(
+        Collections.singletonList(new Facet<>(COUNTRY, counts("A0", 103))), merged.getResponse().getFacets());
+    assertFalse(merged.isExact());
+    assertEquals((100 - shardLimit + 1) + (50 - shardLimit + 1), merged.getFacetErrorBound(COUNTRY));
+  }
+
+  private static SearchResponse<Integer, OccurrenceSearchParameter> response(Long count, Integer... hits) {
+    SearchResponse<Integer, OccurrenceSearchParameter> response = new SearchResponse<>(0, 100);
+    response.setCount(count);
+    response.setResults(Arrays.asList(hits));
+    return response;
+  }
+
+  private static FacetColumn counts(Object... namesAndCounts) {
+    FacetColumn column = new FacetColumn();
+    for (int i = 0; i < namesAndCounts.length; i += 2) {
+      column.add((String) namesAndCounts[i], (Integer) namesAndCounts[i + 1]);
+    }
+    return column;
+  }
+
+  /**
+   * @return decreasing counts from the given one, named prefix0, prefix1...
+   */
+  private static FacetColumn truncated(String prefix, int count, int size) {
+    FacetColumn column = new FacetColumn();
+    for (int i = 0; i < size; i++) {
+      column.add(prefix + i, count - i);
+    }
+    return column;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.crawler;
+
+import org.gbif.api.model.crawler.DatasetProcessStatusAccumulator.Counter;
+import org.gbif.api.vocabulary.EndpointType;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DatasetProcessStatusAccumulatorTest {
+
+  private static final UUID DATASET_KEY = UUID.randomUUID();
+  private static final CrawlJob CRAWL_JOB =
+    new CrawlJob(DATASET_KEY, EndpointType.DWC_ARCHIVE, URI.create("http://www.foo.com"), 1, null);
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    DatasetProcessStatusAccumulator accumulator = new DatasetProcessStatusAccumulator(CRAWL_JOB);
+
+    int threads = 8;
+    int updates = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < updates; i++) {
+            accumulator.increment(Counter.PAGES_CRAWLED);
+            accumulator.add(Counter.FRAGMENTS_EMITTED, 2);
+          }
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    DatasetProcessStatus status = accumulator.snapshot();
+    assertEquals(DATASET_KEY, status.getDatasetKey());
+    assertEquals(CRAWL_JOB, status.getCrawlJob());
+    assertEquals((long) threads * updates, status.getPagesCrawled());
+    assertEquals(2L * threads * updates, status.getFragmentsEmitted());
+    assertEquals(0, status.getFragmentsReceived());
+  }
+
+  @Test
+  public void testDelta() {
+    DatasetProcessStatusAccumulator accumulator = new DatasetProcessStatusAccumulator(CRAWL_JOB);
+    accumulator.updateAttributes(s -> s.setProcessStateOccurrence(ProcessState.RUNNING));
+
+    accumulator.add(Counter.RAW_OCCURRENCES_PERSISTED_NEW, 10);
+    DatasetProcessStatus delta = accumulator.delta();
+    assertEquals(10, delta.getRawOccurrencesPersistedNew());
+    assertEquals(ProcessState.RUNNING, delta.getProcessStateOccurrence());
+
+    assertNull(accumulator.delta());
+
+    accumulator.add(Counter.RAW_OCCURRENCES_PERSISTED_NEW, 5);
+    accumulator.increment(Counter.INTERPRETED_OCCURRENCES_PERSISTED_ERROR);
+    delta = accumulator.delta();
+    assertEquals(5, delta.getRawOccurrencesPersistedNew());
+    assertEquals(1, delta.getInterpretedOccurrencesPersistedError());
+
+    // deltas don't reset the totals
+    assertEquals(15, accumulator.snapshot().getRawOccurrencesPersistedNew());
+  }
+
+  @Test
+  public void testResumeFromStatus() {
+    DatasetProcessStatus initial = DatasetProcessStatus.builder()
+      .datasetKey(DATASET_KEY)
+      .crawlJob(CRAWL_JOB)
+      .declaredCount(100L)
+      .pagesCrawled(3)
+      .build();
+
+    DatasetProcessStatusAccumulator accumulator = new DatasetProcessStatusAccumulator(initial);
+    assertEquals(initial, accumulator.snapshot());
+    assertNull(accumulator.delta());
+
+    accumulator.increment(Counter.PAGES_CRAWLED);
+    assertEquals(4, accumulator.get(Counter.PAGES_CRAWLED));
+    assertEquals(1, accumulator.delta().getPagesCrawled());
+    assertEquals(Long.valueOf(100), accumulator.snapshot().getDeclaredCount());
+  }
+
+  @Test
+  public void testNegativeValue() {
+    DatasetProcessStatusAccumulator accumulator = new DatasetProcessStatusAccumulator(CRAWL_JOB);
+    assertThrows(IllegalArgumentException.class, () -> accumulator.add(Counter.PAGES_CRAWLED, -1));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.event;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventHierarchyTest {
+
+  @Test
+  public void testHierarchy() {
+    // children before their parents, and a parent without event
+    List<Event> events =
+        Arrays.asList(
+            event("sample1", "subplot1", "Sample"),
+            event("plot1", "site", "Plot"),
+            event("subplot1", "plot1", "Subplot"),
+            event("site", null, "Site"),
+            event("plot2", "site", "Plot"),
+            event("sample2", "subplot1", "Sample"),
+            event("orphan", "missing", "Sample"));
+    EventHierarchy hierarchy = EventHierarchy.of(events);
+
+    assertEquals(8, hierarchy.size());
+    assertEquals(Arrays.asList("site", "missing"), hierarchy.getRoots());
+    assertEquals(Arrays.asList("plot1", "plot2"), hierarchy.getChildren("site"));
+    assertEquals(
+        Arrays.asList("plot1", "subplot1", "sample1", "sample2", "plot2"), hierarchy.getDescendants("site"));
+    assertEquals(5, hierarchy.countDescendants("site"));
+    assertEquals(Collections.emptyList(), hierarchy.getDescendants("sample2"));
+    assertEquals("subplot1", hierarchy.getParentEventID("sample2"));
+    assertNull(hierarchy.getParentEventID("site"));
+    assertEquals(3, hierarchy.getDepth("sample1"));
+    assertEquals(Arrays.asList("subplot1", "plot1", "site"), hierarchy.getAncestors("sample1"));
+
+    assertTrue(hierarchy.isAncestor("site", "sample2"));
+    assertTrue(hierarchy.isAncestor("missing", "orphan"));
+    assertFalse(hierarchy.isAncestor("plot2", "sample2"));
+    assertFalse(hierarchy.isAncestor("sample2", "site"));
+    assertFalse(hierarchy.isAncestor("site", "site"));
+    assertFalse(hierarchy.isAncestor("site", "unknown"));
+
+    assertTrue(hierarchy.contains("missing"));
+    assertNull(hierarchy.getEventType("missing"));
+    assertThrows(IllegalArgumentException.class, () -> hierarchy.getChildren("unknown"));
+  }
+
+  @Test
+  public void testParentsLineage() {
+    List<Event> events =
+        Arrays.asList(
+            event("sample", "subplot", "Sample"),
+            event("site", null, "Site"),
+            event("plot", "site", "Plot"),
+            event("subplot", "plot", "Subplot"),
+            event("orphan", "missing", "Sample"));
+    EventHierarchy hierarchy = EventHierarchy.of(events);
+    hierarchy.setParentsLineage(events);
+
+    List<Event.ParentLineage> lineage =
+        Arrays.asList(
+            new Event.ParentLineage("subplot", "Subplot"),
+            new Event.ParentLineage("plot", "Plot"),
+            new Event.ParentLineage("site", "Site"));
+    assertEquals(lineage, events.get(0).getParentsLineage());
+    assertEquals(lineage, hierarchy.getParentsLineage("sample"));
+    assertEquals(Collections.emptyList(), events.get(1).getParentsLineage());
+    assertEquals(lineage.subList(1, 3), events.get(3).getParentsLineage());
+    assertEquals(
+        Collections.singletonList(new Event.ParentLineage("missing", null)), events.get(4).getParentsLineage());
+    // the entries are shared
+    assertSame(events.get(0).getParentsLineage().get(2), events.get(2).getParentsLineage().get(0));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> hierarchy.setParentsLineage(Collections.singletonList(event("unknown", null, null))));
+  }
+
+  @Test
+  public void testDeepHierarchy() {
+    int depth = 200_000;
+    EventHierarchy.Builder builder = EventHierarchy.builder();
+    for (int i = depth - 1; i >= 0; i--) {
+      builder.add("e" + i, i == 0 ? null : "e" + (i - 1), null);
+    }
+    EventHierarchy hierarchy = builder.build();
+
+    assertEquals(depth - 1, hierarchy.getDepth("e" + (depth - 1)));
+    assertEquals(depth - 1, hierarchy.countDescendants("e0"));
+    assertEquals("e" + (depth - 1), hierarchy.getDescendants("e0").get(depth - 2));
+    assertTrue(hierarchy.isAncestor("e1", "e" + (depth - 1)));
+    assertEquals(depth - 1, hierarchy.getParentsLineage("e" + (depth - 1)).size());
+  }
+
+  @Test
+  public void testInvalid() {
+    assertThrows(IllegalArgumentException.class, () -> EventHierarchy.builder().add(null, "a", null));
+    assertThrows(
+        IllegalArgumentException.class, () -> EventHierarchy.builder().add("a", null, null).add("a", "b", null));
+    assertThrows(IllegalArgumentException.class, () -> EventHierarchy.builder().add("a", "a", null).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> EventHierarchy.builder().add("root", null, null).add("a", "b", null).add("b", "a", null).build());
+    assertEquals(0, EventHierarchy.builder().build().size());
+  }
+
+  private static Event event(String eventID, String parentEventID, String eventType) {
+    Event event = new Event();
+    event.setEventID(eventID);
+    event.setParentEventID(parentEventID);
+    event.setEventType(eventType);
+    return event;
+  }
+}
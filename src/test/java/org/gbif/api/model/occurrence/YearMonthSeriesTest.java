@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class YearMonthSeriesTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Test
+  public void testQueries() {
+    YearMonthSeries series =
+        YearMonthSeries.builder().add(2021, 3, 5).add(2019, 12, 2).add(2021, 3, 1).add(2022, 1, 10).build();
+
+    assertEquals(2019, series.getFirstYear());
+    assertEquals(2022, series.getLastYear());
+    assertEquals(6, series.get(2021, 3));
+    assertEquals(0, series.get(2021, 4));
+    assertEquals(0, series.get(1900, 1));
+    assertEquals(0, series.get(2100, 1));
+    assertEquals(18, series.total());
+    assertEquals(2, series.sum(2019));
+    assertEquals(0, series.sum(2020));
+    assertEquals(8, series.sum(1000, 1, 2021, 3));
+    assertEquals(16, series.sum(2021, 3, 3000, 12));
+    assertEquals(0, series.sum(2021, 4, 2021, 12));
+    assertEquals(0, series.sum(2022, 1, 2021, 1));
+    assertThrows(IllegalArgumentException.class, () -> series.get(2021, 13));
+    assertThrows(IllegalArgumentException.class, () -> YearMonthSeries.builder().add(2021, 0, 1));
+  }
+
+  @Test
+  public void testMapsAndMerge() {
+    Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+    counts.computeIfAbsent(2020, y -> new HashMap<>()).put(1, 3L);
+    counts.computeIfAbsent(2020, y -> new HashMap<>()).put(12, 4L);
+    counts.computeIfAbsent(2018, y -> new HashMap<>()).put(6, 0L);
+    YearMonthSeries series = YearMonthSeries.of(counts);
+
+    // the year without counts is dropped
+    assertEquals(2020, series.getFirstYear());
+    counts.remove(2018);
+    assertEquals(counts, series.toMap());
+
+    YearMonthSeries other = YearMonthSeries.builder().add(2023, 2, 1).add(2020, 1, 2).build();
+    YearMonthSeries merged = series.merge(other);
+    assertEquals(5, merged.get(2020, 1));
+    assertEquals(1, merged.get(2023, 2));
+    assertEquals(10, merged.total());
+    assertEquals(merged, other.merge(series));
+    assertEquals(merged, YearMonthSeries.builder().addAll(series).addAll(other).build());
+    assertEquals(series, series.merge(YearMonthSeries.empty()));
+    assertEquals(YearMonthSeries.empty(), YearMonthSeries.builder().add(2000, 1, 0).build());
+    assertTrue(YearMonthSeries.empty().toMap().isEmpty());
+  }
+
+  @Test
+  public void testJson() throws IOException {
+    YearMonthSeries series = YearMonthSeries.builder().add(2019, 11, 7).add(2020, 2, 1).build();
+
+    String json = MAPPER.writeValueAsString(series);
+    assertEquals("{\"2019\":{\"11\":7},\"2020\":{\"2\":1}}", json);
+    assertEquals(series, MAPPER.readValue(json, YearMonthSeries.class));
+
+    // same JSON as the maps of the download statistics
+    Map<Integer, Map<Integer, Long>> counts =
+        MAPPER.readValue(json, new TypeReference<Map<Integer, Map<Integer, Long>>>() {});
+    assertEquals(series, YearMonthSeries.of(counts));
+    assertEquals(YearMonthSeries.empty(), MAPPER.readValue("{}", YearMonthSeries.class));
+    assertThrows(JsonMappingException.class, () -> MAPPER.readValue("{\"2019\":{\"13\":1}}", YearMonthSeries.class));
+    assertThrows(JsonMappingException.class, () -> MAPPER.readValue("{\"x\":{}}", YearMonthSeries.class));
+  }
+}
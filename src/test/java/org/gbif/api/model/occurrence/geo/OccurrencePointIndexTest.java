@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence.geo;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.model.predicate.GeoDistancePredicate;
+import org.gbif.api.model.predicate.WithinPredicate;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.io.WKTReader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for OccurrencePointIndex class.
+ */
+public class OccurrencePointIndexTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  @Test
+  public void testWithin() {
+    OccurrencePointIndex index = OccurrencePointIndex.builder()
+      .add(1, 5, 5)
+      .add(2, 5, 15)
+      .add(3, 9.5, 0.5)
+      .add(4, 5, -5)
+      .add(5, 0.5, 9.99)
+      .build();
+
+    long[] keys = index.within(new WithinPredicate("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))"));
+    Arrays.sort(keys);
+    assertArrayEquals(new long[] {1, 3, 5}, keys);
+    assertEquals(3, index.countWithin("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))"));
+  }
+
+  @Test
+  public void testWithinDistance() {
+    OccurrencePointIndex index = OccurrencePointIndex.builder()
+      .add(1, 1, 0)
+      .add(2, 0, 1.9)
+      .add(3, 0, 1.7)
+      // across the dateline
+      .add(4, 0, 179.5)
+      .add(5, 0, -179.8)
+      .add(6, 0, -179)
+      .build();
+
+    long[] keys = index.withinDistance(new GeoDistancePredicate("0", "0", "200km"));
+    Arrays.sort(keys);
+    assertArrayEquals(new long[] {1, 3}, keys);
+
+    keys = index.withinDistance(DistanceUnit.GeoDistance.parseGeoDistance("0", "179.5", "100km"));
+    Arrays.sort(keys);
+    assertArrayEquals(new long[] {4, 5}, keys);
+  }
+
+  @Test
+  public void testDistanceMatchesBruteForce() {
+    Random random = new Random(42);
+    OccurrencePointIndex.Builder builder = OccurrencePointIndex.builder(0.5);
+    double[][] points = new double[10_000][];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new double[] {random.nextDouble() * 40 + 30, random.nextDouble() * 40 - 20};
+      builder.add(i, points[i][0], points[i][1]);
+    }
+    OccurrencePointIndex index = builder.build();
+
+    long expected = Arrays.stream(points)
+      .filter(p -> OccurrencePointIndex.haversineMeters(50, 0, p[0], p[1]) <= 500_000)
+      .count();
+    assertEquals(expected, index.countWithinDistance(DistanceUnit.GeoDistance.parseGeoDistance("50", "0", "500km")));
+  }
+
+  @Test
+  public void testWithinMatchesBruteForce() throws Exception {
+    String[] wkts = {
+      // concave
+      "POLYGON((-20 -10, 60 -10, 60 40, 20 0, -20 40, -20 -10))",
+      // with a hole
+      "POLYGON((-40 -20, 70 -20, 70 50, -40 50, -40 -20), (0 0, 30 0, 30 30, 0 30, 0 0))",
+      "MULTIPOLYGON(((-10 -10, 0 -10, 0 0, -10 0, -10 -10)), ((10.05 10.05, 10.95 10.07, 10.5 10.9, 10.05 10.05)))",
+      // smaller than a cell
+      "POLYGON((5.001 5.001, 5.009 5.001, 5.009 5.009, 5.001 5.009, 5.001 5.001))"
+    };
+    Random random = new Random(13);
+    double[][] points = new double[20_000][];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = i % 4 == 0
+        // some dense spots
+        ? new double[] {5 + random.nextDouble() * 0.01, 5 + random.nextDouble() * 0.01}
+        : new double[] {random.nextDouble() * 90 - 30, random.nextDouble() * 130 - 50};
+    }
+
+    for (double cellSize : new double[] {0.001, 0.01, 0.1, 1, 5}) {
+      OccurrencePointIndex.Builder builder = OccurrencePointIndex.builder(cellSize);
+      for (int i = 0; i < points.length; i++) {
+        builder.add(i, points[i][0], points[i][1]);
+      }
+      OccurrencePointIndex index = builder.build();
+
+      for (String wkt : wkts) {
+        PreparedGeometry geometry = PreparedGeometryFactory.prepare(new WKTReader().read(wkt));
+        long[] expected = IntStream.range(0, points.length)
+          .filter(i -> geometry.intersects(GEOMETRY_FACTORY.createPoint(new Coordinate(points[i][1], points[i][0]))))
+          .asLongStream()
+          .toArray();
+        long[] keys = index.within(wkt);
+        Arrays.sort(keys);
+        assertArrayEquals(expected, keys, "Cell size " + cellSize + ", " + wkt);
+      }
+    }
+  }
+
+  @Test
+  public void testFineGrid() {
+    // a dense grid of 0.0001 degree cells over the whole world, only the occupied cells are kept
+    Random random = new Random(7);
+    OccurrencePointIndex.Builder builder = OccurrencePointIndex.builder(0.0001);
+    double[][] points = new double[10_000][];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new double[] {random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+      builder.add(i, points[i][0], points[i][1]);
+    }
+    OccurrencePointIndex index = builder.build();
+
+    long expected = Arrays.stream(points).filter(p -> p[0] >= -10 && p[0] <= 40 && p[1] >= -20 && p[1] <= 60).count();
+    assertEquals(expected, index.countWithin("POLYGON((-20 -10, 60 -10, 60 40, -20 40, -20 -10))"));
+    expected = Arrays.stream(points)
+      .filter(p -> OccurrencePointIndex.haversineMeters(50, 0, p[0], p[1]) <= 2_000_000)
+      .count();
+    assertEquals(expected, index.countWithinDistance(DistanceUnit.GeoDistance.parseGeoDistance("50", "0", "2000km")));
+
+    assertThrows(IllegalArgumentException.class, () -> OccurrencePointIndex.builder(1e-7));
+    assertThrows(IllegalArgumentException.class, () -> OccurrencePointIndex.builder(0));
+  }
+
+  @Test
+  public void testOccurrences() {
+    Occurrence withCoordinates = new Occurrence();
+    withCoordinates.setKey(1L);
+    withCoordinates.setDecimalLatitude(10d);
+    withCoordinates.setDecimalLongitude(10d);
+
+    Occurrence withoutCoordinates = new Occurrence();
+    withoutCoordinates.setKey(2L);
+
+    OccurrencePointIndex index = OccurrencePointIndex.builder()
+      .addAll(Arrays.asList(withCoordinates, withoutCoordinates))
+      .add(3, Double.NaN, 10)
+      .add(4, 91, 10)
+      .build();
+
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  public void testInvalidWkt() {
+    OccurrencePointIndex index = OccurrencePointIndex.builder().build();
+    assertThrows(IllegalArgumentException.class, () -> index.within("POLYGON((0 0, 10 0"));
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.occurrence.search;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.dwc.terms.DwcTerm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OccurrenceSuggestIndexTest {
+
+  @Test
+  public void testSuggestFromOccurrences() {
+    List<Occurrence> occurrences = new ArrayList<>();
+    occurrences.add(occurrence("Müller, J.", "MCZ-1"));
+    occurrences.add(occurrence("Muller, J.", "MCZ-2"));
+    occurrences.add(occurrence("Muller, J.", "MCZ-3"));
+    occurrences.add(occurrence("Møller, A.", "mcz-10"));
+    occurrences.add(occurrence("Mæhle, B.", "NHM-1"));
+    occurrences.add(occurrence("Smith", null));
+
+    OccurrenceSuggestIndex index = OccurrenceSuggestIndex.builder().addAll(occurrences).build();
+
+    assertEquals(
+        Arrays.asList("Muller, J.", "Mæhle, B.", "Møller, A.", "Müller, J."),
+        index.suggest(OccurrenceSearchParameter.RECORDED_BY, "m", null));
+    assertEquals(
+        Arrays.asList("Muller, J.", "Müller, J."),
+        index.suggest(OccurrenceSearchParameter.RECORDED_BY, " MÜL", -1));
+    assertEquals(
+        Collections.singletonList("Mæhle, B."), index.suggest(OccurrenceSearchParameter.RECORDED_BY, "Mae", 5));
+    assertEquals(
+        Collections.singletonList("Muller, J."), index.suggest(OccurrenceSearchParameter.RECORDED_BY, "m", 1));
+    assertEquals(
+        Arrays.asList("MCZ-1", "mcz-10"), index.suggest(OccurrenceSearchParameter.CATALOG_NUMBER, "mcz-1", 10));
+    assertTrue(index.suggest(OccurrenceSearchParameter.RECORDED_BY, "x", 10).isEmpty());
+    assertTrue(index.suggest(OccurrenceSearchParameter.RECORDED_BY, "m", 0).isEmpty());
+
+    assertEquals(5, index.size(OccurrenceSearchParameter.RECORDED_BY));
+    assertEquals(5, index.size(OccurrenceSearchParameter.CATALOG_NUMBER));
+    assertFalse(index.contains(OccurrenceSearchParameter.LOCALITY));
+    assertTrue(index.suggest(OccurrenceSearchParameter.LOCALITY, "a", 10).isEmpty());
+  }
+
+  /**
+   * Compares the suggestions with sorting all matching values by frequency.
+   */
+  @Test
+  public void testTopValuesByFrequency() {
+    Random random = new Random(42);
+    OccurrenceSuggestIndex.Builder builder = OccurrenceSuggestIndex.builder();
+    List<String> values = new ArrayList<>();
+    List<Long> counts = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      String value = Integer.toString(random.nextInt(100_000), 36);
+      long count = random.nextInt(50);
+      builder.add(OccurrenceSearchParameter.LOCALITY, value, count);
+      int existing = values.indexOf(value);
+      if (existing >= 0) {
+        counts.set(existing, counts.get(existing) + count);
+      } else {
+        values.add(value);
+        counts.add(count);
+      }
+    }
+    OccurrenceSuggestIndex index = builder.build();
+
+    for (String prefix : Arrays.asList("", "1", "a", "2b", "zz", "10")) {
+      List<String> expected =
+          values.stream()
+              .filter(v -> v.startsWith(prefix))
+              .sorted(
+                  Comparator.<String>comparingLong(v -> -counts.get(values.indexOf(v)))
+                      .thenComparing(Comparator.naturalOrder()))
+              .limit(20)
+              .collect(Collectors.toList());
+      assertEquals(expected, index.suggest(OccurrenceSearchParameter.LOCALITY, prefix, 20), prefix);
+    }
+  }
+
+  private static Occurrence occurrence(String recordedBy, String catalogNumber) {
+    Occurrence occurrence = new Occurrence();
+    occurrence.setRecordedBy(recordedBy);
+    occurrence.setVerbatimField(DwcTerm.catalogNumber, catalogNumber);
+    return occurrence;
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.pipelines;
+
+import org.gbif.api.model.pipelines.PipelinesWorkflowExecutor.Execution;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.gbif.api.model.pipelines.StepType.*;
+
+public class PipelinesWorkflowExecutorTest {
+
+  private ExecutorService executorService;
+
+  @BeforeEach
+  public void setUp() {
+    executorService = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void independentBranchesRunConcurrentlyTest() {
+    // the 3 branches after VERBATIM_TO_INTERPRETED only finish if they are running at the same time
+    CountDownLatch branches = new CountDownLatch(3);
+    List<StepType> order = new CopyOnWriteArrayList<>();
+
+    PipelinesWorkflowExecutor wfExecutor =
+      new PipelinesWorkflowExecutor(PipelinesWorkflow.getOccurrenceWorkflow(), executorService);
+
+    Execution execution = wfExecutor.execute(Collections.singleton(VERBATIM_TO_IDENTIFIER), step -> s -> {
+      order.add(s);
+      if (s == INTERPRETED_TO_INDEX || s == HDFS_VIEW || s == FRAGMENTER) {
+        branches.countDown();
+        if (!branches.await(10, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("Branches didn't run concurrently");
+        }
+      }
+    });
+
+    Assertions.assertTrue(execution.isSuccessful());
+    Assertions.assertEquals(
+      new HashSet<>(Arrays.asList(VERBATIM_TO_IDENTIFIER, VERBATIM_TO_INTERPRETED, INTERPRETED_TO_INDEX, HDFS_VIEW, FRAGMENTER)),
+      execution.getCompleted());
+    Assertions.assertEquals(execution.getCompleted(), execution.getTimings().keySet());
+    Assertions.assertEquals(VERBATIM_TO_IDENTIFIER, order.get(0));
+    Assertions.assertEquals(VERBATIM_TO_INTERPRETED, order.get(1));
+  }
+
+  @Test
+  public void failedStepSkipsDependentStepsTest() {
+    PipelinesWorkflowExecutor wfExecutor =
+      new PipelinesWorkflowExecutor(PipelinesWorkflow.getEventOccurrenceWorkflow(), executorService);
+
+    Execution execution = wfExecutor.execute(Collections.singleton(VERBATIM_TO_INTERPRETED), step -> s -> {
+      if (s == EVENTS_VERBATIM_TO_INTERPRETED) {
+        throw new IllegalStateException("failed");
+      }
+    });
+
+    Assertions.assertFalse(execution.isSuccessful());
+    Assertions.assertEquals(Collections.singleton(EVENTS_VERBATIM_TO_INTERPRETED), execution.getFailures().keySet());
+    Assertions.assertEquals(
+      new HashSet<>(Arrays.asList(EVENTS_INTERPRETED_TO_INDEX, EVENTS_HDFS_VIEW)), execution.getSkipped());
+    Assertions.assertEquals(
+      new HashSet<>(Arrays.asList(VERBATIM_TO_INTERPRETED, INTERPRETED_TO_INDEX, HDFS_VIEW, FRAGMENTER)),
+      execution.getCompleted());
+    Assertions.assertTrue(execution.getTimings().containsKey(EVENTS_VERBATIM_TO_INTERPRETED));
+  }
+
+  @Test
+  public void missingHandlerTest() {
+    PipelinesWorkflowExecutor wfExecutor =
+      new PipelinesWorkflowExecutor(PipelinesWorkflow.getOccurrenceWorkflow(), executorService);
+
+    Assertions.assertThrows(
+      IllegalArgumentException.class, () -> wfExecutor.execute(Collections.singleton(HDFS_VIEW), step -> null));
+  }
+}
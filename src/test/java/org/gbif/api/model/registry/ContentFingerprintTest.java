@@ -0,0 +1,401 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry;
+
+import org.gbif.api.model.collections.Address;
+import org.gbif.api.model.collections.AlternativeCode;
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.MasterSourceMetadata;
+import org.gbif.api.model.collections.OccurrenceMapping;
+import org.gbif.api.model.collections.descriptors.DescriptorGroup;
+import org.gbif.api.model.common.DOI;
+import org.gbif.api.model.pipelines.PipelineStep;
+import org.gbif.api.model.pipelines.StepType;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.DatasetType;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.api.vocabulary.TagName;
+import org.gbif.api.vocabulary.collections.Source;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentFingerprintTest {
+
+  private static final long STABLE_FINGERPRINT = 3798380016009362776L;
+
+  @Test
+  public void testServerManagedFieldsAreSkipped() {
+    Dataset d1 = dataset();
+    Dataset d2 = dataset();
+    d2.setKey(UUID.randomUUID());
+    d2.setCreated(new Date());
+    d2.setModifiedBy("someone");
+    d2.setNumConstituents(7);
+    d2.getContacts().get(0).setKey(42);
+    d2.getContacts().get(0).setCreated(new Date());
+    d2.getMachineTags().get(0).setKey(3);
+
+    assertTrue(d1.lenientEquals(d2));
+    assertEquals(d1.contentFingerprint(), d2.contentFingerprint());
+    assertEquals(ContentFingerprint.of(d1), d1.contentFingerprint());
+  }
+
+  @Test
+  public void testChangesAreDetected() {
+    long fingerprint = dataset().contentFingerprint();
+
+    Dataset dataset = dataset();
+    dataset.setTitle("Another title");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset = dataset();
+    dataset.setDescription("");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    dataset.setDescription(null);
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset = dataset();
+    dataset.getContacts().get(0).setFirstName("Tim");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset = dataset();
+    dataset.getContacts().add(dataset.getContacts().remove(0));
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset = dataset();
+    dataset.getMachineTags().get(0).setValue("dwc");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset = dataset();
+    dataset.getIdentifiers().clear();
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset = dataset();
+    dataset.getCitation().setText("Cite me");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+  }
+
+  @Test
+  public void testSetOrderIsIgnored() {
+    Dataset d1 = dataset();
+    d1.setCategory(new LinkedHashSet<>(Arrays.asList("a", "b", "c")));
+    Dataset d2 = dataset();
+    d2.setCategory(new LinkedHashSet<>(Arrays.asList("c", "a", "b")));
+    assertEquals(d1.contentFingerprint(), d2.contentFingerprint());
+
+    d2.setCategory(new LinkedHashSet<>(Arrays.asList("a", "b")));
+    assertNotEquals(d1.contentFingerprint(), d2.contentFingerprint());
+  }
+
+  /**
+   * Fingerprints are stored to compare them later, so they must not change between runs or JVMs.
+   */
+  @Test
+  public void testStable() {
+    MachineTag tag = MachineTag.newInstance("ns.org", "name", "value");
+    assertEquals(tag.contentFingerprint(), MachineTag.newInstance("ns.org", "name", "value").contentFingerprint());
+    assertEquals(STABLE_FINGERPRINT, tag.contentFingerprint());
+    assertNotEquals(tag.contentFingerprint(), MachineTag.newInstance("ns.orgn", "ame", "value").contentFingerprint());
+  }
+
+  @Test
+  public void testCache() {
+    Dataset dataset = dataset();
+    long fingerprint = dataset.contentFingerprint();
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    // changes through the setters and in place are both seen by the cached fingerprint
+    dataset.setTitle("Another title");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    dataset.setTitle("Birds");
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset.getContacts().get(1).setLastName("Smith");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    dataset.getContacts().get(1).setLastName(null);
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset.getContacts().get(0).getEmail().add("ana@example.org");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    dataset.getContacts().get(0).getEmail().remove(1);
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset.getCitation().setText("Cite me");
+    Dataset expected = dataset();
+    expected.getCitation().setText("Cite me");
+    assertEquals(expected.contentFingerprint(), dataset.contentFingerprint());
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+  }
+
+  @Test
+  public void testFingerprint128() {
+    Dataset dataset = dataset();
+    ContentFingerprint.Fingerprint128 fingerprint = dataset.contentFingerprint128();
+    assertEquals(dataset.contentFingerprint(), fingerprint.getLow());
+    assertEquals(fingerprint, dataset().contentFingerprint128());
+    assertEquals(32, fingerprint.toString().length());
+
+    dataset.getMachineTags().get(0).setValue("dwc");
+    ContentFingerprint.Fingerprint128 changed = dataset.contentFingerprint128();
+    assertNotEquals(fingerprint.getLow(), changed.getLow());
+    assertNotEquals(fingerprint.getHigh(), changed.getHigh());
+  }
+
+  @Test
+  public void testCollectionsAndPipelines() {
+    Collection collection = new Collection();
+    collection.setCode("B");
+    collection.getAlternativeCodes().add(new AlternativeCode("BGBM", "Old code"));
+    collection.setMasterSourceMetadata(new MasterSourceMetadata(Source.IH_IRN, "123"));
+    Address address = new Address();
+    address.setCity("Berlin");
+    collection.setAddress(address);
+    collection.setCreated(new Date());
+    long fingerprint = collection.contentFingerprint();
+
+    collection.setCreated(null);
+    assertEquals(fingerprint, collection.contentFingerprint());
+    collection.getAlternativeCodes().get(0).setDescription("Former code");
+    assertNotEquals(fingerprint, collection.contentFingerprint());
+    collection.getAlternativeCodes().get(0).setDescription("Old code");
+    collection.getAddress().setCountry(Country.GERMANY);
+    assertNotEquals(fingerprint, collection.contentFingerprint());
+
+    PipelineStep step = new PipelineStep().setType(StepType.DWCA_TO_VERBATIM).setState(PipelineStep.Status.RUNNING);
+    step.getMetrics().add(new PipelineStep.MetricInfo("records", "10"));
+    fingerprint = step.contentFingerprint();
+    PipelineStep same =
+        new PipelineStep()
+            .setType(StepType.DWCA_TO_VERBATIM)
+            .setState(PipelineStep.Status.RUNNING)
+            .setMetrics(Collections.singleton(new PipelineStep.MetricInfo("records", "10")));
+    assertEquals(fingerprint, same.contentFingerprint());
+    step.getMetrics().iterator().next().setValue("20");
+    assertNotEquals(fingerprint, step.contentFingerprint());
+  }
+
+  @Test
+  public void testCacheSeesChangesBypassingSetters() throws Exception {
+    Dataset dataset = dataset();
+    Dataset.DwcA dwca = new Dataset.DwcA();
+    dwca.setModified(new Date(1000));
+    dataset.setDwca(dwca);
+    long fingerprint = dataset.contentFingerprint();
+
+    Field title = Dataset.class.getDeclaredField("title");
+    title.setAccessible(true);
+    title.set(dataset, "Another title");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    // an equal string that isn't the same instance
+    title.set(dataset, new String("Birds".toCharArray()));
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    dwca.getModified().setTime(2000);
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    dwca.getModified().setTime(1000);
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset.getMachineTags().get(0).setValue("dwc");
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+    dataset.getMachineTags().get(0).setValue("abcd");
+    assertEquals(fingerprint, dataset.contentFingerprint());
+
+    dataset.getContacts().add(new Contact());
+    assertNotEquals(fingerprint, dataset.contentFingerprint());
+  }
+
+  @Test
+  public void testValueTypes() throws Exception {
+    List<Object> values =
+        Arrays.asList(
+            0.5d,
+            -0.0d,
+            0.25f,
+            (byte) 5,
+            'c',
+            new BigInteger("123456789012345678901234567890"),
+            LocalDate.of(2020, 1, 2),
+            Instant.ofEpochSecond(5),
+            Locale.GERMANY,
+            new URL("https://www.gbif.org"),
+            new StringBuilder("builder"),
+            new String[] {"a", "b"},
+            Collections.singletonMap("key", 1));
+    Set<Long> fingerprints = new HashSet<>();
+    for (Object value : values) {
+      long fingerprint = new ContentFingerprint().add(value).value();
+      assertEquals(fingerprint, new ContentFingerprint().add(value).value());
+      fingerprints.add(fingerprint);
+    }
+    assertEquals(values.size(), fingerprints.size());
+    assertNotEquals(new ContentFingerprint().add(0.0d).value(), new ContentFingerprint().add(-0.0d).value());
+
+    Map<String, Integer> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    Map<String, Integer> reversed = new LinkedHashMap<>();
+    reversed.put("b", 2);
+    reversed.put("a", 1);
+    assertEquals(new ContentFingerprint().add(map).value(), new ContentFingerprint().add(reversed).value());
+    reversed.put("a", 2);
+    assertNotEquals(new ContentFingerprint().add(map).value(), new ContentFingerprint().add(reversed).value());
+  }
+
+  /**
+   * Sets every property of the entities and checks that all the values they add are supported.
+   */
+  @Test
+  public void testAllEntities() throws Exception {
+    List<Class<? extends Fingerprintable>> entities =
+        Arrays.asList(
+            Comment.class,
+            Contact.class,
+            Dataset.class,
+            Endpoint.class,
+            Identifier.class,
+            Installation.class,
+            MachineTag.class,
+            Metadata.class,
+            Network.class,
+            Node.class,
+            Organization.class,
+            Tag.class,
+            Address.class,
+            org.gbif.api.model.collections.Contact.class,
+            Collection.class,
+            Institution.class,
+            OccurrenceMapping.class,
+            DescriptorGroup.class,
+            PipelineStep.class);
+    for (Class<? extends Fingerprintable> type : entities) {
+      Fingerprintable empty = type.getConstructor().newInstance();
+      Fingerprintable entity = type.getConstructor().newInstance();
+      for (Method setter : type.getMethods()) {
+        if (setter.getName().startsWith("set") && setter.getParameterCount() == 1) {
+          Object value = sample(setter.getParameterTypes()[0], setter.getGenericParameterTypes()[0]);
+          if (value != null) {
+            setter.invoke(entity, value);
+          }
+        }
+      }
+      assertNotEquals(empty.contentFingerprint(), entity.contentFingerprint(), type.getName());
+      assertEquals(entity.contentFingerprint(), entity.contentFingerprint(), type.getName());
+    }
+  }
+
+  @Test
+  public void testUnsupported() {
+    Fingerprintable unsupportedValue = fingerprint -> fingerprint.add(new Object());
+    assertThrows(IllegalArgumentException.class, unsupportedValue::contentFingerprint);
+  }
+
+  private static Object sample(Class<?> type, Type genericType) throws Exception {
+    if (type == String.class) {
+      return "value";
+    } else if (type == Integer.class || type == int.class) {
+      return 7;
+    } else if (type == Long.class || type == long.class) {
+      return 7L;
+    } else if (type == Boolean.class || type == boolean.class) {
+      return true;
+    } else if (type == BigDecimal.class) {
+      return BigDecimal.ONE;
+    } else if (type == URI.class) {
+      return URI.create("https://www.gbif.org");
+    } else if (type == Date.class) {
+      return new Date(1000);
+    } else if (type == OffsetDateTime.class) {
+      return OffsetDateTime.parse("2020-01-02T03:04:05Z");
+    } else if (type == UUID.class) {
+      return UUID.fromString("38b4c89f-584c-41bb-bd8f-cd1def33e92f");
+    } else if (type == DOI.class) {
+      return new DOI("10.15468/abc");
+    } else if (type.isEnum()) {
+      return type.getEnumConstants()[0];
+    } else if (type == List.class || type == Set.class) {
+      Type element = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+      Object value = element instanceof Class ? sample((Class<?>) element, element) : null;
+      if (value == null) {
+        return null;
+      }
+      return type == List.class ? new ArrayList<>(Collections.singletonList(value)) : Collections.singleton(value);
+    } else if (!Modifier.isAbstract(type.getModifiers()) && type.getName().startsWith("org.gbif.")) {
+      try {
+        return type.getConstructor().newInstance();
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static Dataset dataset() {
+    Dataset dataset = new Dataset();
+    dataset.setKey(UUID.fromString("38b4c89f-584c-41bb-bd8f-cd1def33e92f"));
+    dataset.setInstallationKey(UUID.fromString("d2c0ba5c-3c10-4fd4-bb31-a4e2c8b0b4b6"));
+    dataset.setType(DatasetType.OCCURRENCE);
+    dataset.setTitle("Birds");
+    dataset.setDescription("All the birds");
+    dataset.setCreated(new Date(0));
+
+    Contact contact = new Contact();
+    contact.setType(ContactType.ORIGINATOR);
+    contact.setFirstName("Ana");
+    contact.addEmail("ana@gbif.org");
+    Contact other = new Contact();
+    other.setType(ContactType.CURATOR);
+    other.setFirstName("Bo");
+    dataset.getContacts().add(contact);
+    dataset.getContacts().add(other);
+
+    dataset.getMachineTags().add(MachineTag.newInstance(TagName.CONCEPTUAL_SCHEMA, "abcd"));
+    Identifier identifier = new Identifier();
+    identifier.setType(IdentifierType.DOI);
+    identifier.setIdentifier("10.15468/abc");
+    dataset.getIdentifiers().add(identifier);
+    return dataset;
+  }
+}
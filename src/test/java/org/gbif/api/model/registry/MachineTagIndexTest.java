@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry;
+
+import org.gbif.api.util.MachineTagUtils;
+import org.gbif.api.vocabulary.TagName;
+import org.gbif.api.vocabulary.TagNamespace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MachineTagIndexTest {
+
+  @Test
+  public void testLookups() {
+    Taggable taggable = new Taggable();
+    MachineTag attempt = MachineTag.newInstance(TagName.CRAWL_ATTEMPT, "3");
+    MachineTag omit = MachineTag.newInstance(TagName.OMIT_FROM_SCHEDULED_CRAWL, "true");
+    MachineTag custom1 = MachineTag.newInstance("ns.org", "custom", "a");
+    MachineTag custom2 = MachineTag.newInstance("ns.org", "custom", "b");
+    MachineTag other = MachineTag.newInstance("ns.org", "customOther", "c");
+    taggable.setMachineTags(new ArrayList<>(Arrays.asList(attempt, custom1, omit, other, custom2)));
+
+    MachineTagIndex index = taggable.machineTagIndex();
+    assertEquals(5, index.size());
+    assertSame(attempt, index.first(TagName.CRAWL_ATTEMPT));
+    assertNull(index.first(TagName.DATASET_ID));
+    assertSame(custom1, index.first("ns.org", "custom"));
+    assertEquals(Arrays.asList(custom1, custom2), index.get("ns.org", "custom"));
+    assertEquals(Arrays.asList(attempt, omit), index.get(TagNamespace.GBIF_CRAWLER));
+    assertEquals(Collections.emptyList(), index.get("nope", "custom"));
+
+    assertTrue(index.contains("ns.org", "custom", "b"));
+    assertTrue(index.contains(null, null, "c"));
+    assertTrue(index.contains("ns.org", null, "c"));
+    assertFalse(index.contains("ns.org", "custom", "c"));
+
+    assertEquals(
+        Integer.valueOf(3),
+        MachineTagUtils.firstTag(taggable, TagName.CRAWL_ATTEMPT, MachineTagUtils::tagValueAsInteger));
+    assertEquals(Arrays.asList(custom1, other, custom2), MachineTagUtils.listByPrefix(taggable, "ns.org", "custom"));
+  }
+
+  @Test
+  public void testReindex() {
+    Dataset dataset = new Dataset();
+    dataset.addMachineTag(MachineTag.newInstance(TagName.CRAWL_ATTEMPT, "1"));
+
+    MachineTagIndex index = dataset.machineTagIndex();
+    assertSame(index, dataset.machineTagIndex());
+
+    MachineTag added = MachineTag.newInstance(TagName.DATASET_ID, "x");
+    dataset.addMachineTag(added);
+    assertNotSame(index, dataset.machineTagIndex());
+    assertSame(added, MachineTagUtils.firstTag(dataset, TagName.DATASET_ID));
+
+    // tags added to the list directly are detected too
+    MachineTag title = MachineTag.newInstance(TagName.DATASET_TITLE, "Title");
+    dataset.getMachineTags().add(title);
+    assertSame(title, MachineTagUtils.firstTag(dataset, TagName.DATASET_TITLE));
+
+    dataset.setMachineTags(new ArrayList<>());
+    assertNull(MachineTagUtils.firstTag(dataset, TagName.DATASET_ID));
+    assertEquals(0, dataset.machineTagIndex().size());
+
+    // entities without a field of their own get a new index every time
+    Taggable taggable = new Taggable();
+    assertNotSame(taggable.machineTagIndex(), taggable.machineTagIndex());
+  }
+
+  @Test
+  public void testBulkFilters() {
+    List<Taggable> taggables = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      Taggable taggable = new Taggable();
+      if (i % 2 == 0) {
+        taggable.addMachineTag(MachineTag.newInstance(TagName.CONCEPTUAL_SCHEMA, i < 3 ? "abcd" : "dwc"));
+      }
+      if (i == 4) {
+        taggable.addMachineTag(MachineTag.newInstance(TagName.CONCEPTUAL_SCHEMA, "abcd"));
+        taggable.addMachineTag(MachineTag.newInstance(TagName.CONCEPTUAL_SCHEMA, "dwc"));
+      }
+      if (i == 5) {
+        taggable.addMachineTag(MachineTag.newInstance("ns.org", "custom", "a"));
+      }
+      taggables.add(taggable);
+    }
+
+    assertEquals(3, MachineTagUtils.filter(taggables, TagName.CONCEPTUAL_SCHEMA).size());
+    assertEquals(
+        Arrays.asList(taggables.get(0), taggables.get(2), taggables.get(4)),
+        MachineTagUtils.filter(taggables, TagName.CONCEPTUAL_SCHEMA, "abcd"));
+    assertEquals(3, MachineTagUtils.filter(taggables, TagNamespace.GBIF_METASYNC).size());
+    assertEquals(
+        Collections.singletonList(taggables.get(5)), MachineTagUtils.filter(taggables, "ns.org", null, "a"));
+
+    Map<String, List<Taggable>> groups = MachineTagUtils.groupByValue(taggables, TagName.CONCEPTUAL_SCHEMA);
+    assertEquals(Arrays.asList("abcd", "dwc"), new ArrayList<>(groups.keySet()));
+    assertEquals(Arrays.asList(taggables.get(0), taggables.get(2), taggables.get(4)), groups.get("abcd"));
+    assertEquals(Collections.singletonList(taggables.get(4)), groups.get("dwc"));
+  }
+
+  private static class Taggable implements MachineTaggable {
+
+    private List<MachineTag> machineTags = new ArrayList<>();
+
+    @Override
+    public List<MachineTag> getMachineTags() {
+      return machineTags;
+    }
+
+    @Override
+    public void setMachineTags(List<MachineTag> machineTags) {
+      this.machineTags = machineTags;
+    }
+
+    @Override
+    public void addMachineTag(MachineTag machineTag) {
+      machineTags.add(machineTag);
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.model.registry.eml;
+
+import org.gbif.api.model.common.InterpretedEnum;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.Language;
+import org.gbif.api.vocabulary.MaintenanceUpdateFrequency;
+import org.gbif.api.vocabulary.Rank;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link EmlReader} and {@link EmlWriter}.
+ */
+public class EmlReaderTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Dataset dataset = dataset(3);
+
+    Dataset read = EmlReader.builder().build().read(write(dataset));
+
+    assertEquals(dataset.getTitle(), read.getTitle());
+    assertEquals(dataset.getDescription(), read.getDescription());
+    assertEquals(Language.GERMAN, read.getLanguage());
+    assertEquals(Language.DANISH, read.getDataLanguage());
+    assertEquals(dataset.getPubDate(), read.getPubDate());
+    assertEquals(dataset.getRights(), read.getRights());
+    assertEquals(dataset.getPurpose(), read.getPurpose());
+    assertEquals(MaintenanceUpdateFrequency.AS_NEEDED, read.getMaintenanceUpdateFrequency());
+    assertEquals(dataset.getMaintenanceDescription(), read.getMaintenanceDescription());
+    assertEquals(dataset.getContacts(), read.getContacts());
+    assertEquals(dataset.getKeywordCollections(), read.getKeywordCollections());
+    GeospatialCoverage geographicCoverage = read.getGeographicCoverages().get(0);
+    assertEquals("Denmark", geographicCoverage.getDescription());
+    assertEquals(dataset.getGeographicCoverages().get(0).toWellKnownText(), geographicCoverage.toWellKnownText());
+    assertEquals(dataset.getTemporalCoverages(), read.getTemporalCoverages());
+    assertEquals(dataset.getTaxonomicCoverages(), read.getTaxonomicCoverages());
+
+    Project project = read.getProject();
+    assertEquals("p1", project.getIdentifier());
+    assertEquals("The project", project.getTitle());
+    assertEquals("Funded", project.getFunding());
+    assertEquals("Area", project.getStudyAreaDescription());
+    assertEquals("Design\nin two paragraphs", project.getDesignDescription());
+    assertEquals(dataset.getProject().getContacts(), project.getContacts());
+  }
+
+  @Test
+  public void testMaintenanceUpdateFrequency() throws Exception {
+    Dataset dataset = new Dataset();
+    dataset.setMaintenanceUpdateFrequency(MaintenanceUpdateFrequency.AS_NEEDED);
+    String eml = new String(write(dataset).readAllBytes(), StandardCharsets.UTF_8);
+    assertTrue(eml.contains("<maintenanceUpdateFrequency>asNeeded</maintenanceUpdateFrequency>"));
+    // no key, no package ID
+    assertFalse(eml.contains("packageId"));
+    assertEquals(
+        MaintenanceUpdateFrequency.AS_NEEDED,
+        EmlReader.builder().build().read(stream(eml)).getMaintenanceUpdateFrequency());
+
+    for (MaintenanceUpdateFrequency frequency : MaintenanceUpdateFrequency.values()) {
+      dataset.setMaintenanceUpdateFrequency(frequency);
+      assertEquals(
+          frequency == MaintenanceUpdateFrequency.UNKNOWN ? MaintenanceUpdateFrequency.UNKOWN : frequency,
+          EmlReader.builder().build().read(write(dataset)).getMaintenanceUpdateFrequency());
+    }
+  }
+
+  @Test
+  public void testParagraphsAndUnknownElements() {
+    String eml =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<eml:eml xmlns:eml=\"eml://ecoinformatics.org/eml-2.1.1\" packageId=\"x\" system=\"x\">"
+            + "<dataset>"
+            + "<alternateIdentifier>ignored</alternateIdentifier>"
+            + "<title xml:lang=\"eng\">  A title </title>"
+            + "<abstract><para>First &amp; <emphasis>bold</emphasis> para</para>\n<para>Second</para></abstract>"
+            + "<unknown><title>Not the title</title></unknown>"
+            + "<associatedParty><organizationName>Org</organizationName><role>principalInvestigator</role></associatedParty>"
+            + "<associatedParty><organizationName>Org 2</organizationName><role>something</role></associatedParty>"
+            + "<coverage><taxonomicCoverage><taxonomicClassification><taxonRankName>kingdom</taxonRankName>"
+            + "<taxonRankValue>Plantae</taxonRankValue><taxonomicClassification><taxonRankValue>nested</taxonRankValue>"
+            + "</taxonomicClassification></taxonomicClassification></taxonomicCoverage></coverage>"
+            + "</dataset>"
+            + "<additionalMetadata><metadata><gbif><dateStamp>2020</dateStamp></gbif></metadata></additionalMetadata>"
+            + "</eml:eml>";
+
+    Dataset dataset = EmlReader.builder().build().read(stream(eml));
+
+    assertEquals("A title", dataset.getTitle());
+    assertEquals("First & bold para\nSecond", dataset.getDescription());
+    assertEquals(2, dataset.getContacts().size());
+    assertEquals(ContactType.PRINCIPAL_INVESTIGATOR, dataset.getContacts().get(0).getType());
+    assertNull(dataset.getContacts().get(1).getType());
+    TaxonomicCoverage coverage = dataset.getTaxonomicCoverages().get(0).getCoverages().get(0);
+    assertEquals("Plantae", coverage.getScientificName());
+    assertEquals(Rank.KINGDOM, coverage.getRank().getInterpreted());
+    assertEquals(1, dataset.getTaxonomicCoverages().get(0).getCoverages().size());
+
+    assertThrows(IllegalArgumentException.class, () -> EmlReader.builder().build().read(stream("<eml><dataset>")));
+    assertThrows(IllegalArgumentException.class, () -> EmlReader.builder().build().read(stream("<eml/>")));
+  }
+
+  @Test
+  public void testOnlyEml211Elements() throws Exception {
+    Dataset dataset = new Dataset();
+    dataset.setPurpose("Testing");
+    dataset.setIntroduction("Introduction");
+    dataset.setGettingStarted("Getting started");
+    dataset.setAcknowledgements("Thanks");
+    String eml = new String(write(dataset).readAllBytes(), StandardCharsets.UTF_8);
+    assertTrue(eml.contains("<purpose>"));
+    // not in the EML 2.1.1 schema
+    assertFalse(eml.contains("<introduction>"));
+    assertFalse(eml.contains("<gettingStarted>"));
+    assertFalse(eml.contains("<acknowledgements>"));
+  }
+
+  @Test
+  public void testBoundingCoordinates() {
+    BoundingBox box =
+        readBoundingBox(
+            "<westBoundingCoordinate>-30</westBoundingCoordinate><eastBoundingCoordinate>40.25</eastBoundingCoordinate>"
+                + "<northBoundingCoordinate>20</northBoundingCoordinate>"
+                + "<southBoundingCoordinate> -10.5 </southBoundingCoordinate>");
+    assertEquals(-10.5, box.getMinLatitude());
+    assertEquals(20.0, box.getMaxLatitude());
+    assertEquals(-30.0, box.getMinLongitude());
+    assertEquals(40.25, box.getMaxLongitude());
+    assertNull(
+        readBoundingBox(
+            "<westBoundingCoordinate>-30</westBoundingCoordinate><eastBoundingCoordinate>40</eastBoundingCoordinate>"
+                + "<northBoundingCoordinate>20</northBoundingCoordinate>"));
+    assertNull(
+        readBoundingBox(
+            "<westBoundingCoordinate>-30</westBoundingCoordinate><eastBoundingCoordinate>40</eastBoundingCoordinate>"
+                + "<northBoundingCoordinate>20</northBoundingCoordinate>"
+                + "<southBoundingCoordinate>10 S</southBoundingCoordinate>"));
+  }
+
+  @Test
+  public void testNoExternalEntities() {
+    String eml =
+        "<?xml version=\"1.0\"?><!DOCTYPE eml [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+            + "<eml><dataset><title>&xxe;</title></dataset></eml>";
+    assertThrows(IllegalArgumentException.class, () -> EmlReader.builder().build().read(stream(eml)));
+  }
+
+  /**
+   * Reads a document shaped like the largest checklist EMLs, with tens of thousands of taxonomic coverages, streaming
+   * the coverages or skipping them.
+   */
+  @Test
+  public void testLargeDocument() throws Exception {
+    int taxa = 50_000;
+    byte[] eml = write(dataset(taxa)).readAllBytes();
+
+    AtomicInteger streamed = new AtomicInteger();
+    Dataset dataset =
+        EmlReader.builder()
+            .taxonomicCoverageConsumer(
+                coverage -> {
+                  assertTrue(coverage.getScientificName().startsWith("Taxon "));
+                  streamed.incrementAndGet();
+                })
+            .build()
+            .read(new ByteArrayInputStream(eml));
+    assertEquals(taxa, streamed.get());
+    assertEquals(1, dataset.getTaxonomicCoverages().size());
+    assertEquals("All plants", dataset.getTaxonomicCoverages().get(0).getDescription());
+    assertTrue(dataset.getTaxonomicCoverages().get(0).getCoverages().isEmpty());
+
+    dataset =
+        EmlReader.builder()
+            .skip(EmlReader.Section.TAXONOMIC_COVERAGE, EmlReader.Section.CONTACTS)
+            .build()
+            .read(new ByteArrayInputStream(eml));
+    assertTrue(dataset.getTaxonomicCoverages().isEmpty());
+    assertTrue(dataset.getContacts().isEmpty());
+    assertEquals("The project", dataset.getProject().getTitle());
+
+    dataset = EmlReader.builder().build().read(new ByteArrayInputStream(eml));
+    assertEquals(taxa, dataset.getTaxonomicCoverages().get(0).getCoverages().size());
+  }
+
+  private static Dataset dataset(int taxa) {
+    Dataset dataset = new Dataset();
+    dataset.setTitle("Plants of <Denmark> & more");
+    dataset.setDescription("First paragraph\nSecond paragraph");
+    dataset.setLanguage(Language.GERMAN);
+    dataset.setDataLanguage(Language.DANISH);
+    dataset.setPubDate(date(2020, 3, 1));
+    dataset.setRights("CC0");
+    dataset.setPurpose("Testing");
+    dataset.setMaintenanceDescription("Yearly updates");
+    dataset.setMaintenanceUpdateFrequency(MaintenanceUpdateFrequency.AS_NEEDED);
+
+    dataset.getContacts().add(contact(ContactType.ORIGINATOR, "Ana"));
+    dataset.getContacts().add(contact(ContactType.METADATA_AUTHOR, "Bo"));
+    dataset.getContacts().add(contact(ContactType.CURATOR, "Cy"));
+    dataset.getContacts().add(contact(ContactType.ADMINISTRATIVE_POINT_OF_CONTACT, "Di"));
+
+    dataset.getKeywordCollections().add(new KeywordCollection("GBIF Dataset Type", new HashSet<>(Arrays.asList("Checklist"))));
+
+    dataset.getGeographicCoverages().add(new GeospatialCoverage("Denmark", new BoundingBox(54.5, 57.8, 8.0, 15.2)));
+    SingleDate single = new SingleDate();
+    single.setDate(date(1999, 12, 31));
+    dataset.getTemporalCoverages().add(single);
+    dataset.getTemporalCoverages().add(new DateRange(date(1900, 1, 1), date(2000, 6, 30)));
+
+    TaxonomicCoverages coverages = new TaxonomicCoverages();
+    coverages.setDescription("All plants");
+    for (int i = 0; i < taxa; i++) {
+      coverages.addCoverages(
+          new TaxonomicCoverage("Taxon " + i, "Common " + i, new InterpretedEnum<>("species", Rank.SPECIES)));
+    }
+    dataset.getTaxonomicCoverages().add(coverages);
+
+    Project project = new Project();
+    project.setIdentifier("p1");
+    project.setTitle("The project");
+    project.setFunding("Funded");
+    project.setStudyAreaDescription("Area");
+    project.setDesignDescription("Design\nin two paragraphs");
+    project.setContacts(new ArrayList<>(Arrays.asList(contact(ContactType.PRINCIPAL_INVESTIGATOR, "Ed"))));
+    dataset.setProject(project);
+    return dataset;
+  }
+
+  private static BoundingBox readBoundingBox(String coordinates) {
+    String eml =
+        "<eml><dataset><coverage><geographicCoverage><geographicDescription>Box</geographicDescription>"
+            + "<boundingCoordinates>"
+            + coordinates
+            + "</boundingCoordinates></geographicCoverage></coverage></dataset></eml>";
+    GeospatialCoverage coverage = EmlReader.builder().build().read(stream(eml)).getGeographicCoverages().get(0);
+    assertEquals("Box", coverage.getDescription());
+    return coverage.getBoundingBox();
+  }
+
+  private static Contact contact(ContactType type, String name) {
+    Contact contact = new Contact();
+    contact.setType(type);
+    contact.setFirstName(name);
+    contact.setLastName("Smith");
+    contact.setOrganization("GBIF");
+    contact.addPosition("Curator");
+    contact.addEmail(name.toLowerCase() + "@gbif.org");
+    contact.addAddress("Universitetsparken 15");
+    contact.setCity("Copenhagen");
+    contact.setCountry(Country.DENMARK);
+    return contact;
+  }
+
+  private static Date date(int year, int month, int day) {
+    return Date.from(LocalDate.of(year, month, day).atStartOfDay(ZoneOffset.UTC).toInstant());
+  }
+
+  private static ByteArrayInputStream write(Dataset dataset) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new EmlWriter().write(dataset, out);
+    return new ByteArrayInputStream(out.toByteArray());
+  }
+
+  private static ByteArrayInputStream stream(String eml) {
+    return new ByteArrayInputStream(eml.getBytes(StandardCharsets.UTF_8));
+  }
+}
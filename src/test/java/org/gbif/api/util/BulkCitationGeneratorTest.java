@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.common.DOI;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Organization;
+import org.gbif.api.util.CitationGenerator.CitationData;
+import org.gbif.api.vocabulary.ContactType;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** Unit tests related to {@link BulkCitationGenerator}. */
+public class BulkCitationGeneratorTest {
+
+  @Test
+  public void testSameCitationsAsSingleGeneration() {
+    Organization org = new Organization();
+    org.setTitle("Cited Organization");
+
+    List<Map.Entry<Dataset, Organization>> datasets = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      datasets.add(new AbstractMap.SimpleImmutableEntry<>(createDataset(i), org));
+    }
+
+    List<CitationData> citations = new BulkCitationGenerator(1000).generateCitations(datasets);
+
+    assertEquals(datasets.size(), citations.size());
+    for (int i = 0; i < datasets.size(); i++) {
+      assertEquals(
+          CitationGenerator.generateCitation(datasets.get(i).getKey(), org).getCitation().getText(),
+          citations.get(i).getCitation().getText());
+    }
+  }
+
+  @Test
+  public void testMemoization() {
+    Organization org = new Organization();
+    org.setTitle("Cited Organization");
+    Dataset dataset = createDataset(1);
+
+    BulkCitationGenerator generator = new BulkCitationGenerator(10);
+    CitationData first = generator.generateCitation(dataset, org);
+    assertSame(first, generator.generateCitation(dataset, org));
+    assertEquals(1, generator.getCacheSize());
+
+    // a modified dataset is cited again
+    dataset.setModified(new Date(dataset.getModified().getTime() + 1000));
+    assertNotSame(first, generator.generateCitation(dataset, org));
+
+    // so is a dataset published by a renamed organization
+    Organization renamed = new Organization();
+    renamed.setTitle("Renamed Organization");
+    assertNotSame(first, generator.generateCitation(dataset, renamed));
+    assertEquals(3, generator.getCacheSize());
+  }
+
+  @Test
+  public void testCacheSizeIsBounded() {
+    Organization org = new Organization();
+    org.setTitle("Cited Organization");
+
+    BulkCitationGenerator generator = new BulkCitationGenerator(5);
+    for (int i = 0; i < 20; i++) {
+      generator.generateCitation(createDataset(i), org);
+    }
+    assertEquals(5, generator.getCacheSize());
+  }
+
+  /**
+   * Cites 10k datasets with 200 contacts each, many of them authors listed more than once, one by one and in bulk, the
+   * second bulk run being memoized. Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() {
+    Organization org = new Organization();
+    org.setTitle("Cited Organization");
+    ContactType[] types = {ContactType.ORIGINATOR, ContactType.METADATA_AUTHOR, ContactType.POINT_OF_CONTACT};
+    List<Contact> people = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      people.add(createContact("First" + i, "Last" + i, types[i % types.length]));
+    }
+
+    Random random = new Random(13);
+    List<Map.Entry<Dataset, Organization>> datasets = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      Dataset dataset = createDataset(i);
+      dataset.getContacts().clear();
+      // contacts are shared between datasets to keep the heap small, they aren't modified
+      int first = random.nextInt(people.size());
+      for (int j = 0; j < 200; j++) {
+        dataset.getContacts().add(people.get((first + random.nextInt(120)) % people.size()));
+      }
+      datasets.add(new AbstractMap.SimpleImmutableEntry<>(dataset, org));
+    }
+
+    long start = System.nanoTime();
+    for (Map.Entry<Dataset, Organization> entry : datasets) {
+      CitationGenerator.generateCitation(entry.getKey(), entry.getValue());
+    }
+    long single = (System.nanoTime() - start) / 1_000_000;
+
+    BulkCitationGenerator generator = new BulkCitationGenerator(datasets.size());
+    start = System.nanoTime();
+    generator.generateCitations(datasets);
+    long bulk = (System.nanoTime() - start) / 1_000_000;
+
+    start = System.nanoTime();
+    List<CitationData> citations = generator.generateCitations(datasets);
+    long memoized = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(datasets.size(), citations.size());
+    System.out.printf(
+        "%,d datasets: %,d ms one by one, %,d ms in bulk, %,d ms in bulk memoized on %d cores%n",
+        datasets.size(),
+        single,
+        bulk,
+        memoized,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  private static Dataset createDataset(int i) {
+    Dataset dataset = new Dataset();
+    dataset.setKey(UUID.randomUUID());
+    dataset.setTitle("Dataset " + i);
+    dataset.setDoi(new DOI(DOI.TEST_PREFIX + "/" + i));
+    dataset.setModified(new Date());
+    dataset.setPubDate(new Date());
+    dataset.getContacts().add(createContact("John", "Doe", ContactType.ORIGINATOR));
+    dataset.getContacts().add(createContact("Jane", "Roe", ContactType.ORIGINATOR));
+    return dataset;
+  }
+
+  private static Contact createContact(String firstName, String lastName, ContactType type) {
+    Contact contact = new Contact();
+    contact.setFirstName(firstName);
+    contact.setLastName(lastName);
+    contact.setType(type);
+    return contact;
+  }
+}
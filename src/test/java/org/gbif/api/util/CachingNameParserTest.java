@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.exception.UnparsableException;
+import org.gbif.api.model.checklistbank.ParsedName;
+import org.gbif.api.service.checklistbank.NameParser;
+import org.gbif.api.vocabulary.NameType;
+import org.gbif.api.vocabulary.Rank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachingNameParserTest {
+
+  @Test
+  public void testMemoized() throws Exception {
+    CountingParser counting = new CountingParser();
+    CachingNameParser parser = new CachingNameParser(counting, 100);
+
+    ParsedName abies = parser.parse("Abies alba Mill.");
+    assertEquals("Abies alba", abies.canonicalName());
+    assertSame(abies, parser.parse("Abies alba Mill.", null));
+    assertEquals(1, counting.calls("Abies alba Mill."));
+
+    parser.parse("Abies alba Mill.", Rank.SPECIES);
+    assertEquals(2, counting.calls("Abies alba Mill."));
+
+    assertEquals("Abies alba", parser.parseToCanonical("Abies alba Mill."));
+    assertEquals("Abies alba", parser.parseToCanonical("Abies alba Mill."));
+    assertEquals(3, counting.calls("Abies alba Mill."));
+
+    assertEquals(2, parser.getCacheHits());
+    assertEquals(3, parser.getCacheMisses());
+    assertEquals(3, parser.getCacheSize());
+
+    parser.clearCache();
+    parser.parse("Abies alba Mill.");
+    assertEquals(4, counting.calls("Abies alba Mill."));
+  }
+
+  @Test
+  public void testUnparsable() {
+    CountingParser counting = new CountingParser();
+    CachingNameParser parser = new CachingNameParser(counting, 100);
+
+    for (int i = 0; i < 3; i++) {
+      UnparsableException e = assertThrows(UnparsableException.class, () -> parser.parse("Tobacco mosaic virus"));
+      assertEquals(NameType.VIRUS, e.type);
+      assertEquals("Tobacco mosaic virus", e.name);
+    }
+    assertEquals(1, counting.calls("Tobacco mosaic virus"));
+
+    assertNull(parser.parseToCanonical("Tobacco mosaic virus"));
+    assertNull(parser.parseToCanonical("Tobacco mosaic virus"));
+    assertEquals(NameType.VIRUS, parser.parseQuietly("Tobacco mosaic virus").getType());
+    assertEquals(3, counting.calls("Tobacco mosaic virus"));
+
+    assertThrows(IllegalStateException.class, () -> parser.parseQuietly("fail"));
+  }
+
+  @Test
+  public void testBounded() throws Exception {
+    CachingNameParser parser = new CachingNameParser(new CountingParser(), 10);
+    for (int i = 0; i < 100; i++) {
+      parser.parse("Abies alba" + i);
+    }
+    assertTrue(parser.getCacheSize() <= 10);
+  }
+
+  @Test
+  public void testParseAll() {
+    CountingParser counting = new CountingParser();
+    CachingNameParser parser = new CachingNameParser(counting, 1000);
+
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      // skewed towards the first names, like the names of a dataset
+      names.add("Puma concolor" + (i % 7 == 0 ? i % 500 : i % 5));
+    }
+    names.add("Tobacco mosaic virus");
+
+    Map<String, ParsedName> parsed = parser.parseAll(names);
+    assertEquals(501, parsed.size());
+    assertEquals(Arrays.asList("Puma concolor0", "Puma concolor1"), new ArrayList<>(parsed.keySet()).subList(0, 2));
+    assertEquals("Puma concolor7", parsed.get("Puma concolor7").getScientificName());
+    assertEquals(NameType.VIRUS, parsed.get("Tobacco mosaic virus").getType());
+    for (String name : parsed.keySet()) {
+      assertEquals(1, counting.calls(name));
+    }
+  }
+
+  /**
+   * Parses names drawn from a Zipf distribution, as names occur in occurrence data, to measure the hit ratio of a cache
+   * smaller than the number of distinct names and the cost of a call to the cache. The test parser is almost free, so
+   * the time saved with a real parser is the hit ratio times its cost per name. Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testZipfThroughput() {
+    int distinctNames = 100_000;
+    int calls = 2_000_000;
+    // inverse of the cumulative distribution, with an exponent of 1
+    double[] cumulative = new double[distinctNames];
+    double sum = 0;
+    for (int i = 0; i < distinctNames; i++) {
+      sum += 1.0 / (i + 1);
+      cumulative[i] = sum;
+    }
+    Random random = new Random(5);
+    String[] names = new String[calls];
+    for (int i = 0; i < calls; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+      names[i] = "Abies alba" + (rank < 0 ? -rank - 1 : rank);
+    }
+
+    NameParser uncached = new CountingParser();
+    CachingNameParser cached = new CachingNameParser(new CountingParser(), 10_000);
+    for (NameParser parser : Arrays.asList(uncached, cached, uncached, cached)) {
+      long start = System.nanoTime();
+      for (String name : names) {
+        parser.parseQuietly(name);
+      }
+      long nanos = System.nanoTime() - start;
+      System.out.printf("%s: %d ns per name%n", parser == cached ? "cached" : "uncached", nanos / calls);
+    }
+    System.out.printf(
+        "hit ratio %.3f%n", cached.getCacheHits() / (double) (cached.getCacheHits() + cached.getCacheMisses()));
+    assertTrue(cached.getCacheHits() > cached.getCacheMisses());
+  }
+
+  /**
+   * Parses names made of two words counting the calls per name, viruses are unparsable.
+   */
+  private static class CountingParser implements NameParser {
+
+    private final ConcurrentMap<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private int calls(String name) {
+      AtomicInteger count = calls.get(name);
+      return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public ParsedName parse(String scientificName, Rank rank) throws UnparsableException {
+      calls.computeIfAbsent(scientificName, k -> new AtomicInteger()).incrementAndGet();
+      if (scientificName.equals("fail")) {
+        throw new IllegalStateException("Parser failure");
+      }
+      if (scientificName.endsWith("virus")) {
+        throw new UnparsableException(NameType.VIRUS, scientificName);
+      }
+      String[] words = scientificName.split(" ");
+      ParsedName name = new ParsedName();
+      name.setScientificName(scientificName);
+      name.setType(NameType.SCIENTIFIC);
+      name.setRank(rank);
+      name.setGenusOrAbove(words[0]);
+      name.setSpecificEpithet(words[1]);
+      return name;
+    }
+
+    @Override
+    public ParsedName parse(String scientificName) throws UnparsableException {
+      return parse(scientificName, null);
+    }
+
+    @Override
+    public ParsedName parseQuietly(String scientificName, Rank rank) {
+      try {
+        return parse(scientificName, rank);
+      } catch (UnparsableException e) {
+        ParsedName name = new ParsedName();
+        name.setScientificName(scientificName);
+        name.setType(e.type);
+        return name;
+      }
+    }
+
+    @Override
+    public ParsedName parseQuietly(String scientificName) {
+      return parseQuietly(scientificName, null);
+    }
+
+    @Override
+    public String parseToCanonical(String scientificName, Rank rank) {
+      try {
+        return parse(scientificName, rank).canonicalName();
+      } catch (UnparsableException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public String parseToCanonical(String scientificName) {
+      return parseToCanonical(scientificName, null);
+    }
+  }
+}
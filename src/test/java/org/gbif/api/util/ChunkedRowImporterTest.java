@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.collections.Batch;
+import org.gbif.api.model.common.export.ExportFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChunkedRowImporterTest {
+
+  @Test
+  public void testReadRows() throws IOException {
+    String csv = "\uFEFFcode,name\r\nA,\"Herbarium, \"\"main\"\"\"\r\n\r\nB,\"two\nlines\"\nC,";
+    try (DelimitedFileReader reader = new DelimitedFileReader(new StringReader(csv), ExportFormat.CSV)) {
+      assertArrayEquals(new String[] {"code", "name"}, reader.readRow());
+      assertArrayEquals(new String[] {"A", "Herbarium, \"main\""}, reader.readRow());
+      assertEquals(2, reader.getRowLineNumber());
+      assertArrayEquals(new String[] {"B", "two\nlines"}, reader.readRow());
+      assertEquals(4, reader.getRowLineNumber());
+      assertArrayEquals(new String[] {"C", ""}, reader.readRow());
+      assertEquals(6, reader.getRowLineNumber());
+      assertNull(reader.readRow());
+    }
+
+    try (DelimitedFileReader reader = new DelimitedFileReader(new StringReader("a\tb,c\n"), ExportFormat.TSV)) {
+      assertArrayEquals(new String[] {"a", "b,c"}, reader.readRow());
+      assertNull(reader.readRow());
+    }
+  }
+
+  @Test
+  public void testImportInOrderWithErrors() throws IOException {
+    StringBuilder tsv = new StringBuilder("code\tcount\n");
+    for (int i = 0; i < 10_000; i++) {
+      tsv.append("C").append(i).append('\t').append(i % 100 == 0 ? "x" : String.valueOf(i)).append('\n');
+    }
+    tsv.append("too\tmany\tvalues\n");
+
+    List<Integer> imported = new ArrayList<>();
+    Batch batch = new Batch();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      ChunkedRowImporter<Integer> importer =
+          ChunkedRowImporter.<Integer>builder(
+                  row -> Integer.valueOf(row.get("count").replace("x", "invalid")), imported::addAll)
+              .validator(i -> i % 7 == 0 ? Collections.singletonList("multiple of 7") : null)
+              .executor(executor, 4)
+              .chunkSize(256)
+              .maxErrors(50)
+              .build();
+
+      ChunkedRowImporter.ImportSummary summary =
+          importer.importRows(
+              new ByteArrayInputStream(tsv.toString().getBytes(StandardCharsets.UTF_8)), ExportFormat.TSV, batch);
+
+      assertEquals(10_001, summary.getProcessedRows());
+      assertEquals(Long.valueOf(10_001), batch.getProcessedRows());
+      assertEquals(imported.size(), summary.getImportedRows());
+      assertEquals(10_001 - imported.size(), summary.getRejectedRows());
+      assertEquals(summary.getRejectedRows(), summary.getErrors());
+
+      // file order is kept
+      for (int i = 1; i < imported.size(); i++) {
+        assertTrue(imported.get(i - 1) < imported.get(i));
+      }
+      assertEquals(51, batch.getErrors().size());
+      assertEquals("Line 2: For input string: \"invalid\"", batch.getErrors().get(0));
+      assertEquals("Line 9: multiple of 7", batch.getErrors().get(1));
+      assertEquals((summary.getErrors() - 50) + " more errors not reported", batch.getErrors().get(50));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
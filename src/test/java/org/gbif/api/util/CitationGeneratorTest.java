@@ -338,6 +338,26 @@ public class CitationGeneratorTest {
         1, CitationGenerator.generateAuthorsName(getAuthors(dataset.getContacts())).size());
   }
 
+  @Test
+  public void testRepeatedAuthorDifferentCase() {
+    Dataset dataset = getTestDatasetObject();
+    dataset.getContacts().add(createContact("John", "Doe", ContactType.ORIGINATOR));
+    dataset.getContacts().add(createContact("Jim", "Carey", ContactType.ORIGINATOR));
+    dataset.getContacts().add(createContact("JOHN", "DOE", ContactType.METADATA_AUTHOR));
+
+    List<CitationContact> authors = getAuthors(dataset.getContacts());
+
+    // the repeated author is merged into the first one, keeping the order
+    assertEquals(2, authors.size());
+    assertEquals("Doe J", authors.get(0).getAbbreviatedName());
+    assertEquals("Carey J", authors.get(1).getAbbreviatedName());
+    assertTrue(
+        authors
+            .get(0)
+            .getRoles()
+            .containsAll(EnumSet.of(ContactType.ORIGINATOR, ContactType.METADATA_AUTHOR)));
+  }
+
   private Dataset getCamtrapDataset() {
     Dataset dataset = new Dataset();
     dataset.setTitle("GMU8_LEUVEN - Camera trap observations in natural habitats south of Leuven (Belgium)");
@@ -0,0 +1,271 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.metrics.cube.Dimension;
+import org.gbif.api.model.metrics.cube.OccurrenceCube;
+import org.gbif.api.model.metrics.cube.ReadBuilder;
+import org.gbif.api.model.metrics.cube.Rollup;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.predicate.ConjunctionPredicate;
+import org.gbif.api.model.predicate.DisjunctionPredicate;
+import org.gbif.api.model.predicate.EqualsPredicate;
+import org.gbif.api.model.predicate.GreaterThanOrEqualsPredicate;
+import org.gbif.api.model.predicate.InPredicate;
+import org.gbif.api.model.predicate.NotPredicate;
+import org.gbif.api.model.predicate.Predicate;
+import org.gbif.api.model.predicate.RangePredicate;
+import org.gbif.api.service.metrics.CubeService;
+import org.gbif.api.vocabulary.BasisOfRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DownloadCostEstimatorTest {
+
+  private static final long BYTES_PER_RECORD = 100;
+
+  /**
+   * A cube over a few records, each dimension holding a set of values.
+   */
+  private static class RecordCube implements CubeService {
+
+    private final List<Map<Dimension<?>, Set<String>>> records = new ArrayList<>();
+    private int reads;
+
+    private RecordCube add(Object... dimensionsAndValues) {
+      Map<Dimension<?>, Set<String>> record = new HashMap<>();
+      for (int i = 0; i < dimensionsAndValues.length; i += 2) {
+        record
+            .computeIfAbsent((Dimension<?>) dimensionsAndValues[i], d -> new HashSet<>())
+            .add(String.valueOf(dimensionsAndValues[i + 1]));
+      }
+      records.add(record);
+      return this;
+    }
+
+    @Override
+    public long get(ReadBuilder addressBuilder) {
+      Map<Dimension<?>, String> address = addressBuilder.build();
+      if (!address.isEmpty()
+          && OccurrenceCube.ROLLUPS.stream().noneMatch(r -> r.getDimensions().equals(address.keySet()))) {
+        throw new IllegalArgumentException("No rollup for " + address.keySet());
+      }
+      reads++;
+      return records.stream()
+          .filter(
+              r ->
+                  address.entrySet().stream()
+                      .allMatch(e -> r.getOrDefault(e.getKey(), Collections.emptySet()).contains(e.getValue())))
+          .count();
+    }
+
+    @Override
+    public List<Rollup> getSchema() {
+      return OccurrenceCube.ROLLUPS;
+    }
+  }
+
+  private final RecordCube cube =
+      new RecordCube()
+          .add(OccurrenceCube.COUNTRY, "DK", OccurrenceCube.BASIS_OF_RECORD, BasisOfRecord.HUMAN_OBSERVATION,
+              OccurrenceCube.YEAR, 1990, OccurrenceCube.TAXON_KEY, "1", OccurrenceCube.TAXON_KEY, "2",
+              OccurrenceCube.IS_GEOREFERENCED, true)
+          .add(OccurrenceCube.COUNTRY, "DK", OccurrenceCube.BASIS_OF_RECORD, BasisOfRecord.PRESERVED_SPECIMEN,
+              OccurrenceCube.YEAR, 2000, OccurrenceCube.TAXON_KEY, "1", OccurrenceCube.IS_GEOREFERENCED, false)
+          .add(OccurrenceCube.COUNTRY, "DK", OccurrenceCube.BASIS_OF_RECORD, BasisOfRecord.MATERIAL_SAMPLE,
+              OccurrenceCube.YEAR, 2010, OccurrenceCube.TAXON_KEY, "3", OccurrenceCube.IS_GEOREFERENCED, true)
+          .add(OccurrenceCube.COUNTRY, "SE", OccurrenceCube.BASIS_OF_RECORD, BasisOfRecord.HUMAN_OBSERVATION,
+              OccurrenceCube.YEAR, 2000, OccurrenceCube.TAXON_KEY, "2", OccurrenceCube.IS_GEOREFERENCED, true);
+
+  private final DownloadCostEstimator estimator = new DownloadCostEstimator(cube, BYTES_PER_RECORD);
+
+  @Test
+  public void testAllRecords() {
+    DownloadCostEstimator.Estimate estimate = estimator.estimate((Predicate) null);
+    assertExact(4, estimate);
+    assertEquals(400, estimate.getMinBytes());
+    assertEquals(Long.valueOf(400), estimate.getMaxBytes());
+  }
+
+  @Test
+  public void testConjunction() {
+    DownloadCostEstimator.Estimate estimate =
+        estimator.estimate(
+            and(
+                eq(OccurrenceSearchParameter.COUNTRY, "DK"),
+                new InPredicate<>(
+                    OccurrenceSearchParameter.BASIS_OF_RECORD,
+                    Arrays.asList("HUMAN_OBSERVATION", "PRESERVED_SPECIMEN"),
+                    false)));
+
+    assertExact(2, estimate);
+    assertEquals(
+        new HashSet<>(Arrays.asList(OccurrenceCube.COUNTRY, OccurrenceCube.BASIS_OF_RECORD)),
+        estimate.getRollup().getDimensions());
+    assertEquals(2, estimate.getReads());
+  }
+
+  @Test
+  public void testDisjunctionOfEquals() {
+    assertExact(
+        4,
+        estimator.estimate(
+            new DisjunctionPredicate(
+                Arrays.asList(
+                    eq(OccurrenceSearchParameter.COUNTRY, "DK"), eq(OccurrenceSearchParameter.COUNTRY, "SE")))));
+  }
+
+  @Test
+  public void testContradiction() {
+    DownloadCostEstimator.Estimate estimate =
+        estimator.estimate(
+            and(eq(OccurrenceSearchParameter.COUNTRY, "DK"), eq(OccurrenceSearchParameter.COUNTRY, "SE")));
+    assertExact(0, estimate);
+    assertEquals(0, estimate.getReads());
+  }
+
+  @Test
+  public void testYears() {
+    assertExact(2, estimator.estimate(eq(OccurrenceSearchParameter.YEAR, "1995,2005")));
+    assertExact(
+        3,
+        estimator.estimate(
+            new RangePredicate<>(OccurrenceSearchParameter.YEAR, new RangeValue("2000", null, null, "2011"))));
+    assertExact(3, estimator.estimate(new GreaterThanOrEqualsPredicate<>(OccurrenceSearchParameter.YEAR, "2000")));
+  }
+
+  @Test
+  public void testUnansweredDimensions() {
+    // there is no rollup of country and year
+    DownloadCostEstimator.Estimate estimate =
+        estimator.estimate(
+            and(eq(OccurrenceSearchParameter.COUNTRY, "DK"), eq(OccurrenceSearchParameter.YEAR, "2000")));
+    assertBounds(0, 2, estimate);
+    assertEquals(Collections.singleton(OccurrenceCube.YEAR), estimate.getRollup().getDimensions());
+  }
+
+  @Test
+  public void testResidualPredicates() {
+    assertBounds(
+        0,
+        1,
+        estimator.estimate(
+            and(eq(OccurrenceSearchParameter.COUNTRY, "SE"), eq(OccurrenceSearchParameter.RECORDED_BY, "Tim"))));
+    assertBounds(0, 4, estimator.estimate(new NotPredicate(eq(OccurrenceSearchParameter.COUNTRY, "SE"))));
+  }
+
+  @Test
+  public void testMultiValuedDimension() {
+    // the first record has both taxa and is counted twice
+    assertBounds(
+        2,
+        4,
+        estimator.estimate(
+            new InPredicate<>(OccurrenceSearchParameter.TAXON_KEY, Arrays.asList("1", "2"), false)));
+  }
+
+  @Test
+  public void testGeoreferenced() {
+    assertExact(
+        2,
+        estimator.estimate(
+            and(
+                eq(OccurrenceSearchParameter.COUNTRY, "DK"),
+                eq(OccurrenceSearchParameter.HAS_COORDINATE, "true"),
+                eq(OccurrenceSearchParameter.HAS_GEOSPATIAL_ISSUE, "false"))));
+    assertBounds(
+        0,
+        3,
+        estimator.estimate(
+            and(eq(OccurrenceSearchParameter.COUNTRY, "DK"), eq(OccurrenceSearchParameter.HAS_COORDINATE, "true"))));
+  }
+
+  @Test
+  public void testMaxReads() {
+    Predicate predicate =
+        and(
+            new InPredicate<>(OccurrenceSearchParameter.COUNTRY, Arrays.asList("DK", "SE", "NO"), false),
+            new InPredicate<>(
+                OccurrenceSearchParameter.BASIS_OF_RECORD,
+                Arrays.asList("HUMAN_OBSERVATION", "MATERIAL_SAMPLE"),
+                false));
+
+    // the rollup of both dimensions needs 6 reads
+    DownloadCostEstimator.Estimate estimate = new DownloadCostEstimator(cube, BYTES_PER_RECORD, 4).estimate(predicate);
+    assertBounds(0, 3, estimate);
+    assertEquals(Collections.singleton(OccurrenceCube.BASIS_OF_RECORD), estimate.getRollup().getDimensions());
+    assertEquals(3, estimate.getReads());
+    assertEquals(3, cube.reads);
+
+    estimate = new DownloadCostEstimator(cube, BYTES_PER_RECORD, 1).estimate(predicate);
+    assertBounds(0, 4, estimate);
+    assertTrue(estimate.getRollup().getDimensions().isEmpty());
+  }
+
+  @Test
+  public void testUnknownCount() {
+    CubeService emptyCube =
+        new CubeService() {
+          @Override
+          public long get(ReadBuilder addressBuilder) {
+            throw new IllegalArgumentException("No such address");
+          }
+
+          @Override
+          public List<Rollup> getSchema() {
+            return Collections.emptyList();
+          }
+        };
+
+    DownloadCostEstimator.Estimate estimate =
+        new DownloadCostEstimator(emptyCube, BYTES_PER_RECORD).estimate(eq(OccurrenceSearchParameter.COUNTRY, "DK"));
+    assertFalse(estimate.isExact());
+    assertNull(estimate.getMaxRecords());
+    assertNull(estimate.getMaxBytes());
+    assertNull(estimate.getRollup());
+  }
+
+  private static void assertExact(long records, DownloadCostEstimator.Estimate estimate) {
+    assertTrue(estimate.isExact(), estimate.toString());
+    assertEquals(records, estimate.getMinRecords());
+  }
+
+  private static void assertBounds(long min, long max, DownloadCostEstimator.Estimate estimate) {
+    assertFalse(estimate.isExact(), estimate.toString());
+    assertEquals(min, estimate.getMinRecords());
+    assertEquals(Long.valueOf(max), estimate.getMaxRecords());
+  }
+
+  private static Predicate and(Predicate... predicates) {
+    return new ConjunctionPredicate(Arrays.asList(predicates));
+  }
+
+  private static Predicate eq(OccurrenceSearchParameter parameter, String value) {
+    return new EqualsPredicate<>(parameter, value, false);
+  }
+}
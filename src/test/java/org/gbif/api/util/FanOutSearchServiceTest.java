@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.exception.ServiceUnavailableException;
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.common.search.SearchResponse;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+import org.gbif.api.service.common.SearchService;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FanOutSearchServiceTest {
+
+  private static final Duration LONG = Duration.ofSeconds(30);
+
+  private ExecutorService executor;
+  private CountDownLatch release;
+
+  @BeforeEach
+  public void setUp() {
+    executor = Executors.newCachedThreadPool();
+    release = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSearch() {
+    FanOutSearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> service =
+        service(
+            Arrays.asList(
+                Collections.singletonList(replica(new AtomicInteger(), 1, 3, 5)),
+                Collections.singletonList(replica(new AtomicInteger(), 2, 4))),
+            LONG,
+            LONG);
+
+    SearchResponse<Integer, OccurrenceSearchParameter> response =
+        service.search(new OccurrenceSearchRequest(new PagingRequest(1, 3)));
+    assertEquals(Arrays.asList(2, 3, 4), response.getResults());
+    assertEquals(Long.valueOf(5), response.getCount());
+  }
+
+  @Test
+  public void testHedging() {
+    AtomicInteger fastCalls = new AtomicInteger();
+    FanOutSearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> service =
+        service(
+            Collections.singletonList(Arrays.asList(stuck(), replica(fastCalls, 1, 2))),
+            Duration.ofMillis(10),
+            LONG);
+
+    assertEquals(Arrays.asList(1, 2), service.search(new OccurrenceSearchRequest()).getResults());
+    assertEquals(1, fastCalls.get());
+  }
+
+  @Test
+  public void testFailover() {
+    AtomicInteger secondCalls = new AtomicInteger();
+    AtomicInteger thirdCalls = new AtomicInteger();
+    FanOutSearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> service =
+        service(
+            Collections.singletonList(Arrays.asList(failing(), replica(secondCalls, 7), replica(thirdCalls, 8))),
+            LONG,
+            LONG);
+
+    // a failed replica is hedged at once, without waiting for the delay
+    assertEquals(Collections.singletonList(7), service.search(new OccurrenceSearchRequest()).getResults());
+    assertEquals(1, secondCalls.get());
+    assertEquals(0, thirdCalls.get());
+  }
+
+  @Test
+  public void testUnavailable() {
+    FanOutSearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> failed =
+        service(
+            Arrays.asList(
+                Collections.singletonList(replica(new AtomicInteger(), 1)), Arrays.asList(failing(), failing())),
+            LONG,
+            LONG);
+    assertThrows(ServiceUnavailableException.class, () -> failed.search(new OccurrenceSearchRequest()));
+
+    FanOutSearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> timedOut =
+        service(Collections.singletonList(Collections.singletonList(stuck())), LONG, Duration.ofMillis(50));
+    assertThrows(ServiceUnavailableException.class, () -> timedOut.search(new OccurrenceSearchRequest()));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> service(Collections.singletonList(Collections.emptyList()), LONG, LONG));
+  }
+
+  private FanOutSearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> service(
+      List<List<SearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest>>> shards,
+      Duration hedgeDelay,
+      Duration timeout) {
+    return new FanOutSearchService<>(
+        shards, OccurrenceSearchRequest::new, Comparator.naturalOrder(), executor, hedgeDelay, timeout);
+  }
+
+  /**
+   * @return a replica answering the given sorted hits, paged as asked
+   */
+  private static SearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> replica(
+      AtomicInteger calls, Integer... hits) {
+    return request -> {
+      calls.incrementAndGet();
+      SearchResponse<Integer, OccurrenceSearchParameter> response = new SearchResponse<>(request);
+      response.setCount((long) hits.length);
+      int from = (int) Math.min(request.getOffset(), hits.length);
+      response.setResults(Arrays.asList(hits).subList(from, Math.min(hits.length, from + request.getLimit())));
+      return response;
+    };
+  }
+
+  private SearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> stuck() {
+    return request -> {
+      try {
+        release.await(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IllegalStateException("Stuck replica");
+    };
+  }
+
+  private static SearchService<Integer, OccurrenceSearchParameter, OccurrenceSearchRequest> failing() {
+    return request -> {
+      throw new IllegalStateException("Failing replica");
+    };
+  }
+}
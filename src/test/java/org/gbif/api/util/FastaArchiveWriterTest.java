@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.NucleotideSequence;
+import org.gbif.api.model.occurrence.Occurrence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FastaArchiveWriterTest {
+
+  @Test
+  public void testWrite() throws IOException {
+    List<Occurrence> occurrences =
+        Arrays.asList(
+            occurrence(1L, sequence("id1", "ACGT"), sequence(null, "GGCC")),
+            occurrence(2L, sequence("id1", "ACGT")),
+            occurrence(3L),
+            occurrence(4L, sequence(null, "GGCC"), sequence("id2", "")));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FastaArchiveWriter.Counts counts = new FastaArchiveWriter().write(occurrences.iterator(), out);
+
+    assertEquals(4, counts.getOccurrences());
+    assertEquals(4, counts.getSequences());
+    assertEquals(2, counts.getDistinctSequences());
+
+    String ggccId = DnaUtils.convertDnaSequenceToID("GGCC");
+    Map<String, String> entries = unzip(out.toByteArray());
+    assertEquals(
+        Arrays.asList(FastaArchiveWriter.FASTA_ENTRY, FastaArchiveWriter.INDEX_ENTRY),
+        new ArrayList<>(entries.keySet()));
+    assertEquals(">id1\nACGT\n>" + ggccId + "\nGGCC\n", entries.get(FastaArchiveWriter.FASTA_ENTRY));
+    assertEquals(
+        FastaArchiveWriter.INDEX_HEADER + "1\tid1\n1\t" + ggccId + "\n2\tid1\n4\t" + ggccId + "\n",
+        entries.get(FastaArchiveWriter.INDEX_ENTRY));
+  }
+
+  @Test
+  public void testWriteManyBuffers() throws IOException {
+    Random random = new Random(7);
+    List<Occurrence> occurrences = new ArrayList<>();
+    Set<String> distinct = new HashSet<>();
+    for (long key = 0; key < 20_000; key++) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 8; i++) {
+        sb.append("ACGT".charAt(random.nextInt(4)));
+      }
+      distinct.add(sb.toString());
+      occurrences.add(occurrence(key, sequence(null, sb.toString())));
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FastaArchiveWriter.Counts counts = new FastaArchiveWriter(0).write(occurrences.iterator(), out);
+
+    assertEquals(20_000, counts.getSequences());
+    assertEquals(distinct.size(), counts.getDistinctSequences());
+    Map<String, String> entries = unzip(out.toByteArray());
+    assertEquals(distinct.size() * 2, entries.get(FastaArchiveWriter.FASTA_ENTRY).split("\n").length);
+    assertEquals(20_001, entries.get(FastaArchiveWriter.INDEX_ENTRY).split("\n").length);
+  }
+
+  @Test
+  public void testCompressionFailure() {
+    Iterator<Occurrence> occurrences =
+        new Iterator<Occurrence>() {
+          private long key;
+
+          @Override
+          public boolean hasNext() {
+            return key < 100_000;
+          }
+
+          @Override
+          public Occurrence next() {
+            return occurrence(key, sequence(null, Long.toString(key++, 4).replace('0', 'A')));
+          }
+        };
+    OutputStream failing =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("disk full");
+          }
+        };
+
+    IOException e = assertThrows(IOException.class, () -> new FastaArchiveWriter().write(occurrences, failing));
+    assertEquals("disk full", e.getMessage());
+  }
+
+  @Test
+  public void testIdsLookingLikeMd5() throws IOException {
+    String md5 = DnaUtils.convertDnaSequenceToID("ACGT");
+    List<Occurrence> occurrences =
+        Arrays.asList(
+            occurrence(1L, sequence("0123456789abcdefzzzzzzzzzzzzzzzz", "ACGT")),
+            occurrence(2L, sequence("0123456789abcdefyyyyyyyyyyyyyyyy", "ACGT")),
+            occurrence(3L, sequence("0123456789abcdef0000000000000000", "ACGT")),
+            occurrence(4L, sequence("0123456789abcdef0000000000000001", "ACGT")),
+            occurrence(5L, sequence(md5, "ACGT")),
+            occurrence(6L, sequence(md5.toUpperCase(), "ACGT")),
+            occurrence(7L, sequence(null, "ACGT")));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FastaArchiveWriter.Counts counts = new FastaArchiveWriter().write(occurrences.iterator(), out);
+
+    assertEquals(7, counts.getSequences());
+    assertEquals(6, counts.getDistinctSequences());
+  }
+
+  /**
+   * Writes 10 million synthetic sequences, a tenth of them duplicates, to measure the throughput and memory of the
+   * writer. Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() throws IOException {
+    int sequences = 10_000_000;
+    Iterator<Occurrence> occurrences =
+        new Iterator<Occurrence>() {
+          private final Random random = new Random(3);
+          private long key;
+
+          @Override
+          public boolean hasNext() {
+            return key < sequences;
+          }
+
+          @Override
+          public Occurrence next() {
+            long id = key % 10 == 9 ? random.nextInt((int) key) : key;
+            StringBuilder sb = new StringBuilder(120);
+            for (long bits = id * 0x9E3779B97F4A7C15L; sb.length() < 120; bits = bits * 31 + sb.length()) {
+              sb.append("ACGT".charAt((int) (bits >>> 62)));
+            }
+            return occurrence(key++, sequence("seq" + id, sb.toString()));
+          }
+        };
+
+    Runtime runtime = Runtime.getRuntime();
+    long start = System.nanoTime();
+    FastaArchiveWriter.Counts counts =
+        new FastaArchiveWriter(sequences).write(occurrences, OutputStream.nullOutputStream());
+    long millis = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(sequences, counts.getSequences());
+    System.out.printf(
+        "%,d sequences (%,d distinct) in %,d ms: %,d sequences/s, %,d MB heap used%n",
+        counts.getSequences(),
+        counts.getDistinctSequences(),
+        millis,
+        counts.getSequences() * 1000 / Math.max(1, millis),
+        (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+  }
+
+  @Test
+  public void testLongHashSet() {
+    FastaArchiveWriter.LongHashSet set = new FastaArchiveWriter.LongHashSet(0);
+    Random random = new Random(11);
+    Set<Long> expected = new HashSet<>();
+    for (int i = 0; i < 50_000; i++) {
+      long value = random.nextInt(10) == 0 ? random.nextInt(100) : random.nextLong();
+      assertEquals(expected.add(value), set.add(value));
+    }
+    assertEquals(expected.size(), set.size());
+    assertEquals(expected.add(0L), set.add(0));
+    assertFalse(set.add(0));
+  }
+
+  private static Map<String, String> unzip(byte[] zip) throws IOException {
+    Map<String, String> entries = new LinkedHashMap<>();
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+      for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+          content.write(buffer, 0, read);
+        }
+        entries.put(entry.getName(), new String(content.toByteArray(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  private static Occurrence occurrence(long key, NucleotideSequence... sequences) {
+    Occurrence occurrence = new Occurrence();
+    occurrence.setKey(key);
+    occurrence.setNucleotideSequence(new ArrayList<>(Arrays.asList(sequences)));
+    return occurrence;
+  }
+
+  private static NucleotideSequence sequence(String id, String sequence) {
+    NucleotideSequence nucleotideSequence = new NucleotideSequence();
+    nucleotideSequence.setNucleotideSequenceID(id);
+    nucleotideSequence.setSequence(sequence);
+    return nucleotideSequence;
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.collections.descriptors.Descriptor;
+import org.gbif.api.model.collections.descriptors.DescriptorReinterpretationJob;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryDescriptorReinterpretationServiceTest {
+
+  private final Map<Long, List<Descriptor>> groups = new HashMap<>();
+  private final Set<Long> failing = ConcurrentHashMap.newKeySet();
+  private final Map<Long, Integer> reinterpretations = new ConcurrentHashMap<>();
+  private final InMemoryReinterpretationCheckpointStore store = new InMemoryReinterpretationCheckpointStore();
+
+  private final InMemoryDescriptorReinterpretationService.DescriptorGroupSource source =
+      new InMemoryDescriptorReinterpretationService.DescriptorGroupSource() {
+        @Override
+        public List<Long> getDescriptorGroupKeys() {
+          return new ArrayList<>(groups.keySet());
+        }
+
+        @Override
+        public Collection<Descriptor> getDescriptors(long descriptorGroupKey) {
+          return groups.get(descriptorGroupKey);
+        }
+      };
+
+  @Test
+  public void testReinterpretAll() throws Exception {
+    createGroups(50);
+    try (InMemoryDescriptorReinterpretationService service = newService()) {
+      DescriptorReinterpretationJob job = run(service, service.startReinterpretation(false));
+
+      assertEquals(DescriptorReinterpretationJob.State.FINISHED, job.getState());
+      assertEquals(50, job.getTotalGroups());
+      assertEquals(50, job.getReinterpretedGroups());
+      assertEquals(150, job.getReinterpretedDescriptors());
+      assertEquals(50, job.getProcessedGroups());
+      assertEquals(4, job.getParallelism());
+      assertTrue(job.getGroupsPerSecond() > 0);
+      assertEquals(50, reinterpretations.size());
+      assertEquals(job, service.getReinterpretationJob(job.getKey()));
+      assertEquals(job, store.getJob(job.getKey()));
+    }
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    createGroups(20);
+    failing.add(3L);
+    failing.add(7L);
+
+    UUID jobKey;
+    try (InMemoryDescriptorReinterpretationService service = newService()) {
+      jobKey = service.startReinterpretation(false);
+      DescriptorReinterpretationJob job = run(service, jobKey);
+      assertEquals(DescriptorReinterpretationJob.State.FAILED, job.getState());
+      assertEquals(18, job.getReinterpretedGroups());
+      assertEquals(2, job.getFailedGroups());
+      assertEquals(2, job.getErrors().size());
+    }
+
+    // a new service, as after a crash, resumes from the checkpoints
+    failing.clear();
+    try (InMemoryDescriptorReinterpretationService service = newService()) {
+      assertEquals(DescriptorReinterpretationJob.State.FAILED, service.getReinterpretationJob(jobKey).getState());
+      service.resumeReinterpretation(jobKey);
+      DescriptorReinterpretationJob job = service.awaitReinterpretation(jobKey, 10, TimeUnit.SECONDS);
+
+      assertEquals(DescriptorReinterpretationJob.State.FINISHED, job.getState());
+      assertEquals(2, job.getReinterpretedGroups());
+      assertEquals(18, job.getSkippedGroups());
+      reinterpretations.values().forEach(count -> assertEquals(1, (int) count));
+
+      assertThrows(IllegalArgumentException.class, () -> service.resumeReinterpretation(UUID.randomUUID()));
+    }
+  }
+
+  @Test
+  public void testIncremental() throws Exception {
+    createGroups(10);
+    try (InMemoryDescriptorReinterpretationService service = newService()) {
+      run(service, service.startReinterpretation(false));
+
+      groups.get(4L).get(1).getVerbatim().put("biome", "changed");
+      Descriptor added = descriptor(100);
+      groups.get(8L).add(added);
+
+      DescriptorReinterpretationJob job = run(service, service.startReinterpretation(true));
+      assertEquals(2, job.getReinterpretedGroups());
+      assertEquals(8, job.getSkippedGroups());
+      assertEquals(2, (int) reinterpretations.get(4L));
+      assertEquals(2, (int) reinterpretations.get(8L));
+      assertEquals(1, (int) reinterpretations.get(5L));
+
+      // non-incremental jobs reinterpret everything
+      job = run(service, service.startReinterpretation(false));
+      assertEquals(10, job.getReinterpretedGroups());
+    }
+  }
+
+  @Test
+  public void testFingerprint() {
+    List<Descriptor> descriptors = new ArrayList<>();
+    descriptors.add(descriptor(1));
+    descriptors.add(descriptor(2));
+    long fingerprint = InMemoryDescriptorReinterpretationService.fingerprint(descriptors);
+
+    Collections.reverse(descriptors);
+    assertEquals(fingerprint, InMemoryDescriptorReinterpretationService.fingerprint(descriptors));
+
+    descriptors.get(0).getVerbatim().put("country", "DK");
+    assertNotEquals(fingerprint, InMemoryDescriptorReinterpretationService.fingerprint(descriptors));
+  }
+
+  @Test
+  public void testFingerprintCollisions() {
+    // "Aa" and "BB" have the same String.hashCode
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    assertNotEquals(
+        InMemoryDescriptorReinterpretationService.fingerprint(List.of(descriptor(1, "Aa", "x"))),
+        InMemoryDescriptorReinterpretationService.fingerprint(List.of(descriptor(1, "BB", "x"))));
+
+    // swapped values between two fields
+    Descriptor descriptor = descriptor(1, "a", "x");
+    descriptor.getVerbatim().put("b", "y");
+    Descriptor swapped = descriptor(1, "a", "y");
+    swapped.getVerbatim().put("b", "x");
+    assertNotEquals(
+        InMemoryDescriptorReinterpretationService.fingerprint(List.of(descriptor)),
+        InMemoryDescriptorReinterpretationService.fingerprint(List.of(swapped)));
+
+    // missing verbatim data
+    Descriptor empty = new Descriptor();
+    empty.setVerbatim(null);
+    assertNotEquals(
+        InMemoryDescriptorReinterpretationService.fingerprint(List.of(descriptor)),
+        InMemoryDescriptorReinterpretationService.fingerprint(List.of(empty)));
+  }
+
+  private InMemoryDescriptorReinterpretationService newService() {
+    return new InMemoryDescriptorReinterpretationService(
+        source,
+        key -> {
+          if (failing.contains(key)) {
+            throw new IllegalStateException("failed");
+          }
+          reinterpretations.merge(key, 1, Integer::sum);
+        },
+        store,
+        4);
+  }
+
+  private static DescriptorReinterpretationJob run(InMemoryDescriptorReinterpretationService service, UUID jobKey)
+      throws Exception {
+    return service.awaitReinterpretation(jobKey, 10, TimeUnit.SECONDS);
+  }
+
+  private void createGroups(int count) {
+    for (long group = 1; group <= count; group++) {
+      List<Descriptor> descriptors = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        Descriptor descriptor = descriptor(group * 10 + i);
+        descriptor.setDescriptorGroupKey(group);
+        descriptors.add(descriptor);
+      }
+      groups.put(group, descriptors);
+    }
+  }
+
+  private static Descriptor descriptor(long key) {
+    Descriptor descriptor = new Descriptor();
+    descriptor.setKey(key);
+    descriptor.getVerbatim().put("scientificName", "Aus bus " + key);
+    descriptor.getVerbatim().put("biome", "terrestrial");
+    return descriptor;
+  }
+
+  private static Descriptor descriptor(long key, String field, String value) {
+    Descriptor descriptor = new Descriptor();
+    descriptor.setKey(key);
+    descriptor.getVerbatim().put(field, value);
+    return descriptor;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.DownloadResultMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LocalDownloadResultAccessTest {
+
+  private static final String KEY = "0000001-200101123456789";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testRanges() throws IOException {
+    byte[] content = write(KEY, 3 * 1024 * 1024 + 17);
+    LocalDownloadResultAccess access = new LocalDownloadResultAccess(directory);
+
+    assertArrayEquals(content, transfer(access, 0, Long.MAX_VALUE));
+    assertArrayEquals(Arrays.copyOfRange(content, 100, 1100), transfer(access, 100, 1000));
+    assertArrayEquals(
+        Arrays.copyOfRange(content, content.length - 10, content.length),
+        transfer(access, content.length - 10, 100));
+    assertEquals(0, transfer(access, content.length + 1, 10).length);
+
+    try (SeekableByteChannel channel = access.openResult(KEY)) {
+      assertEquals(content.length, channel.size());
+      ByteBuffer buffer = ByteBuffer.allocate(5);
+      channel.position(content.length - 5).read(buffer);
+      assertArrayEquals(Arrays.copyOfRange(content, content.length - 5, content.length), buffer.array());
+    }
+
+    assertNull(access.getResultFile("unknown"));
+    assertNull(access.openResult("unknown"));
+    assertEquals(-1, access.transferResult("unknown", 0, 1, Channels.newChannel(new ByteArrayOutputStream())));
+    assertThrows(IllegalArgumentException.class, () -> access.getResultFile("../" + KEY));
+    assertThrows(IllegalArgumentException.class, () -> transfer(access, -1, 1));
+  }
+
+  @Test
+  public void testMetadata() throws Exception {
+    byte[] content = write(KEY, 100_000);
+    LocalDownloadResultAccess access = new LocalDownloadResultAccess(directory);
+
+    DownloadResultMetadata metadata = access.getResultMetadata(KEY);
+    assertEquals(content.length, metadata.getSize());
+    assertEquals(hex(MessageDigest.getInstance("MD5").digest(content)), metadata.getMd5());
+    assertEquals(hex(MessageDigest.getInstance("SHA-256").digest(content)), metadata.getSha256());
+    assertSame(metadata, access.getResultMetadata(KEY));
+
+    // a modified file gets new metadata
+    write(KEY, 100_000);
+    Files.setLastModifiedTime(directory.resolve(KEY + ".zip"), FileTime.fromMillis(metadata.getLastModified() + 2000));
+    DownloadResultMetadata modified = access.getResultMetadata(KEY);
+    assertNotEquals(metadata.getSha256(), modified.getSha256());
+    assertEquals(modified, DownloadResultUtils.computeMetadata(directory.resolve(KEY + ".zip")));
+
+    Files.delete(directory.resolve(KEY + ".zip"));
+    assertNull(access.getResultMetadata(KEY));
+  }
+
+  @Test
+  public void testConcurrentMetadata() throws Exception {
+    write(KEY, 5 * 1024 * 1024);
+    LocalDownloadResultAccess access = new LocalDownloadResultAccess(directory);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<DownloadResultMetadata>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> access.getResultMetadata(KEY)));
+      }
+      // a single computation is shared by all the callers
+      for (Future<DownloadResultMetadata> result : results) {
+        assertSame(results.get(0).get(), result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTransferToFile() throws IOException {
+    write(KEY, 3 * 1024 * 1024 + 17);
+    LocalDownloadResultAccess access = new LocalDownloadResultAccess(directory);
+    Path copy = directory.resolve("copy");
+
+    try (FileChannel target = FileChannel.open(copy, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      assertEquals(3 * 1024 * 1024 + 17, access.transferResult(KEY, 0, Long.MAX_VALUE, target));
+    }
+    assertEquals(
+        access.getResultMetadata(KEY).getSha256(), DownloadResultUtils.computeMetadata(copy).getSha256());
+  }
+
+  /**
+   * Copies a larger file to another file the zero-copy way, reporting the throughput.
+   * Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() throws IOException {
+    int size = 64 * 1024 * 1024;
+    write(KEY, size);
+    LocalDownloadResultAccess access = new LocalDownloadResultAccess(directory);
+    Path copy = directory.resolve("copy");
+
+    long start = System.nanoTime();
+    try (FileChannel target = FileChannel.open(copy, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      assertEquals(size, access.transferResult(KEY, 0, size, target));
+    }
+    long nanos = Math.max(1, System.nanoTime() - start);
+    System.out.printf("Transferred %d MB at %.0f MB/s%n", size >> 20, size * 1e9 / nanos / (1 << 20));
+    assertEquals(
+        access.getResultMetadata(KEY).getSha256(), DownloadResultUtils.computeMetadata(copy).getSha256());
+  }
+
+  private byte[] write(String key, int size) throws IOException {
+    byte[] content = new byte[size];
+    new Random().nextBytes(content);
+    Files.write(directory.resolve(key + ".zip"), content);
+    return content;
+  }
+
+  private static byte[] transfer(LocalDownloadResultAccess access, long position, long count) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    access.transferResult(KEY, position, count, Channels.newChannel(out));
+    return out.toByteArray();
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder();
+    for (byte b : bytes) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+}
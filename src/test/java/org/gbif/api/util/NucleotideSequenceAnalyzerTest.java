@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.occurrence.NucleotideSequence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NucleotideSequenceAnalyzerTest {
+
+  @Test
+  public void testAnalyze() {
+    NucleotideSequence sequence = new NucleotideSequenceAnalyzer(3).analyze("nnACGT--ac gtNNNNNNxGCu\nNN");
+
+    assertEquals("ACGTACGTNNNXGCU", sequence.getSequence());
+    assertEquals(Integer.valueOf(15), sequence.getSequenceLength());
+    assertEquals(DnaUtils.convertDnaSequenceToID("ACGTACGTNNNXGCU"), sequence.getNucleotideSequenceID());
+    assertEquals(6d / 10, sequence.getGcContent(), 1e-9);
+    assertEquals(1d / 15, sequence.getNonIupacFraction(), 1e-9);
+    assertEquals(2d / 15, sequence.getNonACGTNFraction(), 1e-9);
+    assertEquals(3d / 15, sequence.getnFraction(), 1e-9);
+    assertEquals(Integer.valueOf(1), sequence.getnRunsCapped());
+    assertTrue(sequence.getEndsTrimmed());
+    assertTrue(sequence.getGapsOrWhitespaceRemoved());
+  }
+
+  @Test
+  public void testCleanSequence() {
+    NucleotideSequence sequence = new NucleotideSequenceAnalyzer().analyze("ACGTNNNNNA");
+
+    assertEquals("ACGTNNNNNA", sequence.getSequence());
+    assertEquals(0.4, sequence.getGcContent(), 1e-9);
+    assertEquals(0, sequence.getNonIupacFraction(), 1e-9);
+    assertEquals(Integer.valueOf(0), sequence.getnRunsCapped());
+    assertFalse(sequence.getEndsTrimmed());
+    assertFalse(sequence.getGapsOrWhitespaceRemoved());
+  }
+
+  @Test
+  public void testEmpty() {
+    NucleotideSequenceAnalyzer analyzer = new NucleotideSequenceAnalyzer();
+    assertNull(analyzer.analyze(null));
+
+    NucleotideSequence sequence = analyzer.analyze(" NN-N ");
+    assertEquals("", sequence.getSequence());
+    assertEquals(Integer.valueOf(0), sequence.getSequenceLength());
+    assertNull(sequence.getNucleotideSequenceID());
+    assertNull(sequence.getGcContent());
+    assertNull(sequence.getnFraction());
+    assertTrue(sequence.getEndsTrimmed());
+  }
+
+  @Test
+  public void testAnalyzeAll() {
+    Random random = new Random(3);
+    List<String> sequences = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      sequences.add(randomSequence(random, 1_500));
+    }
+
+    NucleotideSequenceAnalyzer analyzer = new NucleotideSequenceAnalyzer();
+    List<NucleotideSequence> analyzed = analyzer.analyzeAll(sequences);
+    assertEquals(sequences.size(), analyzed.size());
+    for (int i = 0; i < sequences.size(); i += 97) {
+      NucleotideSequence expected = analyzer.analyze(sequences.get(i));
+      assertEquals(expected.getSequence(), analyzed.get(i).getSequence());
+      assertEquals(expected.getNucleotideSequenceID(), analyzed.get(i).getNucleotideSequenceID());
+    }
+  }
+
+  /**
+   * Compares the sequence identifiers with the regular expression based implementation they replace.
+   */
+  @Test
+  public void testSequenceIdSameAsRegexImplementation() {
+    Random random = new Random(5);
+    List<String> sequences = new ArrayList<>(Arrays.asList("", "acgt", "x", "Straße", "ſ", "ACGT ACGT"));
+    for (int i = 0; i < 1_000; i++) {
+      sequences.add(randomSequence(random, random.nextInt(700)));
+    }
+
+    for (String sequence : sequences) {
+      String expected =
+          sequence.isEmpty()
+              ? sequence
+              : DigestUtils.md5Hex(sequence.toUpperCase().replaceAll("[^ACGTURYSWKMBDHVN]", ""));
+      assertEquals(expected, DnaUtils.convertDnaSequenceToID(sequence), sequence);
+    }
+    assertNull(DnaUtils.convertDnaSequenceToID(null));
+  }
+
+  private static String randomSequence(Random random, int length) {
+    String bases = "ACGTACGTACGTacgtNNNnRYSWKMBDHVU- .xß\n";
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      sb.append(bases.charAt(random.nextInt(bases.length())));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import org.gbif.api.model.common.MediaObject;
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.vocabulary.BasisOfRecord;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.MediaType;
+import org.gbif.api.vocabulary.OccurrenceIssue;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.dwc.terms.Term;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OccurrenceTableWriterTest {
+
+  @Test
+  public void testSimpleCsv() throws IOException {
+    Occurrence occurrence = new Occurrence();
+    occurrence.setKey(123L);
+    occurrence.setDatasetKey(UUID.fromString("8575f23e-f762-11e1-a439-00145eb45e9a"));
+    occurrence.setCountry(Country.DENMARK);
+    occurrence.setBasisOfRecord(BasisOfRecord.HUMAN_OBSERVATION);
+    occurrence.setIndividualCount(-3);
+    occurrence.setDecimalLatitude(55.5);
+    occurrence.setEventDate(new IsoDateInterval(LocalDate.of(2020, 5, 1)));
+    occurrence.setLastInterpreted(new Date(0));
+    occurrence.setIssues(EnumSet.of(OccurrenceIssue.ZERO_COORDINATE, OccurrenceIssue.COUNTRY_INVALID));
+    MediaObject image = new MediaObject();
+    image.setType(MediaType.StillImage);
+    occurrence.setMedia(Arrays.asList(image, image));
+    occurrence.setVerbatimField(DwcTerm.catalogNumber, "C-1");
+    occurrence.setVerbatimField(DwcTerm.locality, "Big\ttree\nhill");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OccurrenceTableWriter writer =
+        new OccurrenceTableWriter(out, OccurrenceTableWriter.SIMPLE_CSV_TERMS, OccurrenceTableWriter.Format.TSV)) {
+      writer.writeHeader();
+      writer.write(occurrence);
+    }
+
+    String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n", -1);
+    assertEquals(3, lines.length);
+    assertEquals("", lines[2]);
+    String[] header = lines[0].split("\t", -1);
+    String[] row = lines[1].split("\t", -1);
+    assertEquals(OccurrenceTableWriter.SIMPLE_CSV_TERMS.size(), header.length);
+    assertEquals(header.length, row.length);
+
+    assertEquals("123", column(header, row, GbifTerm.gbifID));
+    assertEquals("8575f23e-f762-11e1-a439-00145eb45e9a", column(header, row, GbifTerm.datasetKey));
+    assertEquals("DK", column(header, row, DwcTerm.countryCode));
+    assertEquals("HUMAN_OBSERVATION", column(header, row, DwcTerm.basisOfRecord));
+    assertEquals("-3", column(header, row, DwcTerm.individualCount));
+    assertEquals("55.5", column(header, row, DwcTerm.decimalLatitude));
+    assertEquals("", column(header, row, DwcTerm.decimalLongitude));
+    assertEquals("2020-05-01", column(header, row, DwcTerm.eventDate));
+    assertEquals("1970-01-01T00:00:00Z", column(header, row, GbifTerm.lastInterpreted));
+    assertEquals("ZERO_COORDINATE;COUNTRY_INVALID", column(header, row, GbifTerm.issue));
+    assertEquals("StillImage", column(header, row, GbifTerm.mediaType));
+    assertEquals("C-1", column(header, row, DwcTerm.catalogNumber));
+    assertEquals("Big tree hill", column(header, row, DwcTerm.locality));
+  }
+
+  @Test
+  public void testDecimals() throws IOException {
+    List<Term> terms =
+        Arrays.asList(
+            DwcTerm.decimalLatitude,
+            DwcTerm.decimalLongitude,
+            DwcTerm.coordinatePrecision,
+            DwcTerm.coordinateUncertaintyInMeters,
+            GbifTerm.elevation,
+            GbifTerm.depth);
+    Occurrence occurrence = new Occurrence();
+    occurrence.setDecimalLatitude(0.0005);
+    occurrence.setDecimalLongitude(-0.0000001);
+    occurrence.setCoordinatePrecision(0.00001);
+    occurrence.setCoordinateUncertaintyInMeters(12345678901.5);
+    occurrence.setElevation(1e22);
+    occurrence.setDepth(10d);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OccurrenceTableWriter writer = new OccurrenceTableWriter(out, terms, OccurrenceTableWriter.Format.TSV)) {
+      writer.write(occurrence);
+    }
+
+    assertEquals(
+        "0.0005\t-0.0000001\t0.00001\t12345678901.5\t10000000000000000000000\t10.0\n",
+        new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testCsvEscaping() throws IOException {
+    List<Term> terms = Arrays.asList(DwcTerm.scientificName, DwcTerm.locality, DwcTerm.recordedBy);
+    Occurrence occurrence = new Occurrence();
+    occurrence.setScientificName("Abies alba Mill.");
+    occurrence.setVerbatimField(DwcTerm.locality, "Near \"the\" lake, Ørsted\nsouth");
+    occurrence.setRecordedBy("Tim 🐝");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OccurrenceTableWriter writer = new OccurrenceTableWriter(out, terms, OccurrenceTableWriter.Format.CSV)) {
+      writer.write(occurrence);
+    }
+
+    assertEquals(
+        "Abies alba Mill.,\"Near \"\"the\"\" lake, Ørsted\nsouth\",Tim 🐝\n",
+        new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testParallelGzip() throws IOException {
+    List<Occurrence> occurrences = new ArrayList<>();
+    for (long key = 0; key < 12_345; key++) {
+      Occurrence occurrence = new Occurrence();
+      occurrence.setKey(key);
+      occurrence.setCountry(Country.values()[(int) (key % Country.values().length)]);
+      occurrence.setScientificName("Name " + key % 97);
+      occurrence.setVerbatimField(DwcTerm.catalogNumber, "cat-" + key);
+      occurrences.add(occurrence);
+    }
+
+    ByteArrayOutputStream plain = new ByteArrayOutputStream();
+    try (OccurrenceTableWriter writer =
+        new OccurrenceTableWriter(plain, OccurrenceTableWriter.SIMPLE_CSV_TERMS, OccurrenceTableWriter.Format.TSV)) {
+      writer.writeHeader();
+      assertEquals(occurrences.size(), writer.writeAll(occurrences.iterator(), 1));
+    }
+
+    ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+    try (OccurrenceTableWriter writer =
+        new OccurrenceTableWriter(parallel, OccurrenceTableWriter.SIMPLE_CSV_TERMS, OccurrenceTableWriter.Format.TSV)) {
+      writer.writeHeader();
+      assertEquals(occurrences.size(), writer.writeAll(occurrences.iterator(), 4));
+    }
+    assertArrayEquals(plain.toByteArray(), parallel.toByteArray());
+
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    try (OccurrenceTableWriter writer =
+        new OccurrenceTableWriter(
+            gzipped, OccurrenceTableWriter.SIMPLE_CSV_TERMS, OccurrenceTableWriter.Format.TSV, true)) {
+      writer.writeHeader();
+      writer.write(occurrences.get(0));
+      writer.writeAll(occurrences.subList(1, occurrences.size()).iterator(), 3);
+    }
+    assertTrue(gzipped.size() < plain.size() / 4);
+    assertArrayEquals(plain.toByteArray(), gunzip(gzipped.toByteArray()));
+  }
+
+  @Test
+  public void testEmptyGzip() throws IOException {
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    new OccurrenceTableWriter(
+            gzipped, Collections.singletonList(DwcTerm.scientificName), OccurrenceTableWriter.Format.TSV, true)
+        .close();
+    assertEquals(0, gunzip(gzipped.toByteArray()).length);
+  }
+
+  @Test
+  public void testInterpretedTerms() {
+    assertTrue(OccurrenceTableWriter.isInterpreted(DwcTerm.countryCode));
+    assertFalse(OccurrenceTableWriter.isInterpreted(DwcTerm.catalogNumber));
+  }
+
+  /**
+   * Writes occurrences with the simple CSV columns, reporting the rows per second single threaded and in parallel
+   * with gzip. Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() throws IOException {
+    Random random = new Random(42);
+    List<Occurrence> occurrences = new ArrayList<>();
+    for (long key = 0; key < 200_000; key++) {
+      Occurrence occurrence = new Occurrence();
+      occurrence.setKey(key);
+      occurrence.setDatasetKey(UUID.randomUUID());
+      occurrence.setCountry(Country.values()[random.nextInt(Country.values().length)]);
+      occurrence.setBasisOfRecord(BasisOfRecord.HUMAN_OBSERVATION);
+      occurrence.setScientificName("Abies alba Mill. " + key % 1000);
+      occurrence.setDecimalLatitude(random.nextDouble() * 180 - 90);
+      occurrence.setDecimalLongitude(random.nextDouble() * 360 - 180);
+      occurrence.setCoordinateUncertaintyInMeters(30d);
+      occurrence.setEventDate(new IsoDateInterval(LocalDate.of(2020, 5, 1)));
+      occurrence.setLastInterpreted(new Date());
+      occurrence.setIssues(EnumSet.of(OccurrenceIssue.COORDINATE_ROUNDED));
+      occurrence.setRecordedBy("Tim Robertson");
+      occurrence.setVerbatimField(DwcTerm.catalogNumber, "C-" + key);
+      occurrence.setVerbatimField(DwcTerm.locality, "Near the lake, \"south\"");
+      occurrences.add(occurrence);
+    }
+
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      try (OccurrenceTableWriter writer =
+          new OccurrenceTableWriter(
+              OutputStream.nullOutputStream(),
+              OccurrenceTableWriter.SIMPLE_CSV_TERMS,
+              OccurrenceTableWriter.Format.TSV)) {
+        assertEquals(occurrences.size(), writer.writeAll(occurrences.iterator(), 1));
+      }
+      long single = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      try (OccurrenceTableWriter writer =
+          new OccurrenceTableWriter(
+              OutputStream.nullOutputStream(),
+              OccurrenceTableWriter.SIMPLE_CSV_TERMS,
+              OccurrenceTableWriter.Format.TSV,
+              true)) {
+        assertEquals(occurrences.size(), writer.writeAll(occurrences.iterator(), 4));
+      }
+      long parallel = System.nanoTime() - start;
+      System.out.printf(
+          "%d rows: %.0f rows/s single threaded, %.0f rows/s gzipped on 4 threads%n",
+          occurrences.size(),
+          occurrences.size() * 1e9 / single,
+          occurrences.size() * 1e9 / parallel);
+    }
+  }
+
+  private static String column(String[] header, String[] row, Term term) {
+    return row[Arrays.asList(header).indexOf(term.simpleName())];
+  }
+
+  private static byte[] gunzip(byte[] gzipped) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      byte[] buffer = new byte[8192];
+      for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TermNormalizationUtilsTest {
+
+  @Test
+  public void testNormalizeFieldName() {
+    assertEquals("dwc_catalognumber", TermNormalizationUtils.normalizeFieldName("dwc:catalogNumber"));
+    assertEquals("ac_accessuri", TermNormalizationUtils.normalizeFieldName(" ac:access-URI\t"));
+    assertEquals("_123abc", TermNormalizationUtils.normalizeFieldName("1_2-3ABC"));
+    assertEquals("größe", TermNormalizationUtils.normalizeFieldName("Größe"));
+    assertThrows(StringIndexOutOfBoundsException.class, () -> TermNormalizationUtils.normalizeFieldName("  "));
+    assertThrows(StringIndexOutOfBoundsException.class, () -> TermNormalizationUtils.normalizeFieldName("-_"));
+  }
+
+  @Test
+  public void testSameAsReplaceImplementation() {
+    Locale locale = Locale.getDefault();
+    try {
+      for (Locale l : Arrays.asList(Locale.ROOT, new Locale("tr"))) {
+        Locale.setDefault(l);
+        for (String name : Arrays.asList("dwc:Identification", "DC:TYPE", " a b ", "gbif:x-Y_z", "9a", "İstanbul")) {
+          assertEquals(replaceNormalization(name), TermNormalizationUtils.normalizeFieldName(name), name);
+        }
+      }
+    } finally {
+      Locale.setDefault(locale);
+    }
+  }
+
+  private static String replaceNormalization(String name) {
+    String normalizedNamed = name.toLowerCase().trim()
+      .replace("-", "")
+      .replace("_", "")
+      .replace(":", "_");
+    if (Character.isDigit(normalizedNamed.charAt(0))) {
+      return '_' + normalizedNamed;
+    }
+    return normalizedNamed;
+  }
+}
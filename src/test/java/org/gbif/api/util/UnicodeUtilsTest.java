@@ -15,10 +15,15 @@
  */
 package org.gbif.api.util;
 
+import java.text.Normalizer;
+import java.util.Random;
+
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class UnicodeUtilsTest {
 
@@ -38,4 +43,71 @@ public class UnicodeUtilsTest {
     assertNull(UnicodeUtils.decompose(null));
     assertEquals("fjaelje", UnicodeUtils.decompose("fjæǉe"));
   }
+
+  @Test
+  public void testFoldToAscii() {
+    assertEquals("Aero fjaelje Zurich", UnicodeUtils.foldToAscii("Ærø fjæǉe Zürich"));
+    // ligatures are decomposed before removing diacritics, as in ascii(decompose(x))
+    assertEquals("æ", UnicodeUtils.foldToAscii("ǽ"));
+    assertNull(UnicodeUtils.foldToAscii(null));
+
+    String ascii = "Abies alba Mill.";
+    assertSame(ascii, UnicodeUtils.ascii(ascii));
+    assertSame(ascii, UnicodeUtils.decompose(ascii));
+    assertSame(ascii, UnicodeUtils.foldToAscii(ascii));
+  }
+
+  /**
+   * Compares the transliterations with the regular expression based implementation they replace, for every character
+   * and for random strings mixing letters, combining marks, ligatures and supplementary characters.
+   */
+  @Test
+  public void testSameAsRegexImplementation() {
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      assertTransliteration(String.valueOf((char) c));
+    }
+
+    String pool = "aeAEøÐæŒßﬃǈ\u0301\u0308\u0327\u20DD\u0903 éÅñçİıǽḝ한글中\uD835\uDC00\uD834\uDD65";
+    Random random = new Random(7);
+    for (int i = 0; i < 10_000; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (int j = random.nextInt(12); j > 0; j--) {
+        sb.append(pool.charAt(random.nextInt(pool.length())));
+      }
+      assertTransliteration(sb.toString());
+    }
+  }
+
+  private static void assertTransliteration(String x) {
+    assertEquals(regexAscii(x), UnicodeUtils.ascii(x), x);
+    assertEquals(regexDecompose(x), UnicodeUtils.decompose(x), x);
+    assertEquals(regexAscii(regexDecompose(x)), UnicodeUtils.foldToAscii(x), x);
+  }
+
+  private static String regexAscii(String x) {
+    x = StringUtils.replaceChars(x, "øØðÐ", "oOdD");
+    x = Normalizer.normalize(x, Normalizer.Form.NFD);
+    return x.replaceAll("\\p{M}", "");
+  }
+
+  private static String regexDecompose(String x) {
+    return x.replaceAll("æ", "ae")
+        .replaceAll("Æ", "Ae")
+        .replaceAll("œ", "oe")
+        .replaceAll("Œ", "Oe")
+        .replaceAll("Ĳ", "Ij")
+        .replaceAll("ĳ", "ij")
+        .replaceAll("ǈ", "Lj")
+        .replaceAll("ǉ", "lj")
+        .replaceAll("ȸ", "db")
+        .replaceAll("ȹ", "qp")
+        .replaceAll("ß", "ss")
+        .replaceAll("ﬆ", "st")
+        .replaceAll("ﬅ", "ft")
+        .replaceAll("ﬀ", "ff")
+        .replaceAll("ﬁ", "fi")
+        .replaceAll("ﬂ", "fl")
+        .replaceAll("ﬃ", "ffi")
+        .replaceAll("ﬄ", "ffl");
+  }
 }
@@ -18,6 +18,7 @@ package org.gbif.api.util;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.Locale;
 import java.util.Optional;
 import org.gbif.api.vocabulary.ContactType;
 import org.gbif.api.vocabulary.Country;
@@ -50,6 +51,21 @@ public class VocabularyUtilsTest {
     assertThrows(IllegalArgumentException.class, () -> VocabularyUtils.parseIdentifierType("bad"));
   }
 
+  @Test
+  public void testParseWithTurkishLocale() {
+    Locale locale = Locale.getDefault();
+    assertEquals(IdentifierType.LSID, VocabularyUtils.parseIdentifierType("LSID"));
+    assertEquals(EndpointType.DIGIR, VocabularyUtils.parseEndpointType("DIGIR"));
+    try {
+      // names normalized before and after the change of locale must still match
+      Locale.setDefault(new Locale("tr", "TR"));
+      assertEquals(IdentifierType.LSID, VocabularyUtils.parseIdentifierType("lsid"));
+      assertEquals(EndpointType.DIGIR, VocabularyUtils.parseEndpointType("digir"));
+    } finally {
+      Locale.setDefault(locale);
+    }
+  }
+
   @Deprecated
   @Test
   public void testParseTechnicalInstallationType() {
@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.api.util.validators.identifierschemes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the bulk methods of {@link IdentifierScheme} and that the validators accept the same values as the regular
+ * expressions they replaced.
+ */
+public class IdentifierSchemeTest {
+
+  private static final String UUID = "0a1b2c3d-4e5f-6789-abcd-ef0123456789";
+  private static final String MUTATIONS = "0123456789AXxaZ_-/:.?=& \n‐";
+
+  private static final Map<IdentifierScheme, List<String>> SEEDS = new EnumMap<>(IdentifierScheme.class);
+  private static final Map<IdentifierScheme, List<Pattern>> PATTERNS = new EnumMap<>(IdentifierScheme.class);
+
+  static {
+    SEEDS.put(IdentifierScheme.ORCID,
+        Arrays.asList("0000-0002-1825-0097", "https://orcid.org/0000-0001-5109-3700", "http://orcid.org/0000-0002-1694-233X"));
+    PATTERNS.put(IdentifierScheme.ORCID,
+        List.of(Pattern.compile("^(?<prefix>http(?:s)?://orcid\\.org/)?(([0-9]{4}-){3}([0-9]{3}[0-9X]))$")));
+
+    SEEDS.put(IdentifierScheme.ISNI,
+        Arrays.asList("000000012146438X", "http://isni.org/isni/000000012146438X", "0000 0001 2146 438X"));
+    PATTERNS.put(IdentifierScheme.ISNI,
+        List.of(Pattern.compile("^(?<prefix>http(?:s)?://isni\\.org/isni/)?([\\p{Digit}xX\\p{Pd}\\s]{16,24})$")));
+
+    SEEDS.put(IdentifierScheme.VIAF,
+        Arrays.asList("22144161", "https://viaf.org/viaf/22144161", "http://viaf.org/a_b/viaf/123"));
+    PATTERNS.put(IdentifierScheme.VIAF,
+        List.of(Pattern.compile("^((http(?:s)?://viaf\\.org/)(?:\\w+/)+)?([0-9]{1,22})$")));
+
+    SEEDS.put(IdentifierScheme.WIKIDATA,
+        Arrays.asList("https://www.wikidata.org/wiki/Q42", "www.wikidata.org/entity/Q1:x", "wikidata.org/wiki/Q42"));
+    PATTERNS.put(IdentifierScheme.WIKIDATA,
+        List.of(Pattern.compile("^((http(?:s)?://)?(www\\.))?(wikidata\\.org/\\w+/\\w+(?::\\w+)?)$")));
+
+    SEEDS.put(IdentifierScheme.IH_IRN,
+        Arrays.asList("123456", "http://sweetgum.nybg.org/science/ih/person-details/?irn=126234",
+            "http://sweetgum.nybg.org/science/ih/person-details?irn=1"));
+    PATTERNS.put(IdentifierScheme.IH_IRN,
+        List.of(Pattern.compile("^(http://sweetgum\\.nybg\\.org/science/ih/person-details(/)?\\?irn=)?([0-9]+)$")));
+
+    SEEDS.put(IdentifierScheme.HUH,
+        Arrays.asList("http://kiki.huh.harvard.edu/databases/rdfgen.php?uuid=" + UUID,
+            "https://kiki.huh.harvard.edu/databases/botanist_search.php?mode=details&id=123",
+            "https://kiki.huh.harvard.edu/databases/botanist_search.php?id=1",
+            "http://purl.oclc.org/net/edu.harvard.huh/guid/uuid/" + UUID));
+    String uuidRegex = "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}";
+    PATTERNS.put(IdentifierScheme.HUH,
+        List.of(
+            Pattern.compile("^http(?:s)?://kiki\\.huh\\.harvard\\.edu/databases/rdfgen\\.php\\?uuid=" + uuidRegex + "$"),
+            Pattern.compile(
+                "^http(?:s)?://kiki\\.huh\\.harvard\\.edu/databases/botanist_search\\.php\\?(mode=details&)?id=[0-9]+$"),
+            Pattern.compile("^http(?:s)?://purl\\.oclc\\.org/net/edu\\.harvard\\.huh/guid/uuid/" + uuidRegex + "$")));
+
+    SEEDS.put(IdentifierScheme.RESEARCHER_ID,
+        Arrays.asList("M-6306-2017", "AAK-3007-2021", "https://www.researcherid.com/rid/M-6306-2017",
+            "http://AB-1234-1999", "https://www.publons.com/researcher/1/my-name/", "http://publons.com/researcher/12/a_b"));
+    PATTERNS.put(IdentifierScheme.RESEARCHER_ID,
+        List.of(
+            Pattern.compile("^(http(?:s)?://(?:www.)?.+)?([A-Z]{1,3}-\\d{4}-(19|20)\\d\\d)$"),
+            Pattern.compile(
+                "^(http(?:s)?://(?:www\\.)?publons\\.com/researcher/)?(([A-Z]{1,3}-\\d{4}-(19|20)\\d\\d)|([0-9]+/[a-zA-Z\\-_]+/?))$")));
+  }
+
+  @Test
+  public void testSameAsRegex() {
+    Random random = new Random(42);
+
+    for (Map.Entry<IdentifierScheme, List<String>> e : SEEDS.entrySet()) {
+      IdentifierSchemeValidator validator = e.getKey().getValidator();
+      for (String seed : e.getValue()) {
+        assertEquals(true, validator.isValid(seed), seed);
+
+        for (int n = 0; n < 20_000; n++) {
+          String mutated = mutate(seed, random);
+          assertEquals(matchesRegex(e.getKey(), mutated), validator.isValid(mutated), e.getKey() + ": " + mutated);
+        }
+      }
+    }
+  }
+
+  /**
+   * Validates the seeds and mutations of them with the validators and with the regular expressions they replaced.
+   * Only run with the benchmark profile.
+   */
+  @Test
+  @Tag("benchmark")
+  public void testThroughput() {
+    Random random = new Random(7);
+    Map<IdentifierScheme, List<String>> values = new EnumMap<>(IdentifierScheme.class);
+    for (Map.Entry<IdentifierScheme, List<String>> e : SEEDS.entrySet()) {
+      List<String> schemeValues = new ArrayList<>();
+      for (int n = 0; n < 100_000; n++) {
+        String seed = e.getValue().get(n % e.getValue().size());
+        // half of the values are valid, as in contact imports
+        schemeValues.add(n % 2 == 0 ? seed : mutate(seed, random));
+      }
+      values.put(e.getKey(), schemeValues);
+    }
+
+    for (int run = 0; run < 2; run++) {
+      for (Map.Entry<IdentifierScheme, List<String>> e : values.entrySet()) {
+        IdentifierSchemeValidator validator = e.getKey().getValidator();
+        long start = System.nanoTime();
+        int valid = 0;
+        for (String value : e.getValue()) {
+          valid += validator.isValid(value) ? 1 : 0;
+        }
+        long scanner = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int regexValid = 0;
+        for (String value : e.getValue()) {
+          regexValid += matchesRegex(e.getKey(), value) ? 1 : 0;
+        }
+        long regex = System.nanoTime() - start;
+
+        assertEquals(regexValid, valid);
+        System.out.printf(
+            "%s: %d ns per value scanning, %d ns with the regular expressions%n",
+            e.getKey(),
+            scanner / e.getValue().size(),
+            regex / e.getValue().size());
+      }
+    }
+  }
+
+  @Test
+  public void testValidateAll() {
+    List<String> values =
+        Arrays.asList("0000-0002-1825-0097", "0000-0002-1825-0098", null, "", " https://orcid.org/0000-0002-1825-0097 ");
+
+    assertArrayEquals(new boolean[] {true, false, false, false, false}, IdentifierScheme.ORCID.validateAll(values));
+    assertEquals(
+        Arrays.asList(
+            "https://orcid.org/0000-0002-1825-0097",
+            null,
+            null,
+            null,
+            "https://orcid.org/0000-0002-1825-0097"),
+        IdentifierScheme.ORCID.normalizeAll(values));
+  }
+
+  @Test
+  public void testMod112() {
+    assertEquals('X', Mod112.generateChecksumDigit("000000012146438"));
+    assertEquals(true, Mod112.hasValidChecksumDigit("0000 0001 2146 438X"));
+    assertEquals(false, Mod112.hasValidChecksumDigit("0000-0001-2146-4389"));
+    assertEquals(false, Mod112.hasValidChecksumDigit(" - "));
+  }
+
+  /**
+   * @return the value with 1 to 3 characters replaced, inserted or deleted
+   */
+  private static String mutate(String seed, Random random) {
+    StringBuilder value = new StringBuilder(seed);
+    int mutations = 1 + random.nextInt(3);
+    for (int m = 0; m < mutations && value.length() > 0; m++) {
+      int position = random.nextInt(value.length());
+      char c = MUTATIONS.charAt(random.nextInt(MUTATIONS.length()));
+      switch (random.nextInt(3)) {
+        case 0:
+          value.setCharAt(position, c);
+          break;
+        case 1:
+          value.insert(position, c);
+          break;
+        default:
+          value.deleteCharAt(position);
+      }
+    }
+    return value.toString();
+  }
+
+  private static boolean matchesRegex(IdentifierScheme scheme, String value) {
+    for (Pattern pattern : PATTERNS.get(scheme)) {
+      Matcher matcher = pattern.matcher(value);
+      if (matcher.matches()) {
+        if (scheme != IdentifierScheme.ORCID && scheme != IdentifierScheme.ISNI) {
+          return true;
+        }
+        String prefix = matcher.group("prefix");
+        return Mod112.hasValidChecksumDigit(prefix == null ? value : value.substring(prefix.length()));
+      }
+    }
+    return false;
+  }
+}